@@ -0,0 +1,70 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.json;
+
+import edu.rice.io.Files;
+import edu.rice.util.Option;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the JSON parser. We parse flight_data.json (a realistic, deeply nested document of
+ * about 95KB), and we also parse a synthetic JSON array of small objects, so we can see how the parser
+ * scales with the size of its input.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+  @State(Scope.Benchmark)
+  public static class FlightData {
+    String input;
+
+    @Setup
+    public void setup() throws Throwable {
+      input = Files.readResource("flight_data.json").getOrElseThrow();
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class SyntheticArray {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    String input;
+
+    @Setup
+    public void setup() {
+      StringBuilder sb = new StringBuilder("[");
+      for (int i = 0; i < size; i++) {
+        if (i > 0) {
+          sb.append(", ");
+        }
+        sb.append(String.format("{ \"id\": %d, \"name\": \"item%d\", \"ok\": %b }", i, i, (i & 1) == 0));
+      }
+      sb.append("]");
+      input = sb.toString();
+    }
+  }
+
+  @Benchmark
+  public Option<Value> parseFlightData(FlightData state) {
+    return Parser.parseJsonValue(state.input);
+  }
+
+  @Benchmark
+  public Option<Value> parseSyntheticArray(SyntheticArray state) {
+    return Parser.parseJsonValue(state.input);
+  }
+}
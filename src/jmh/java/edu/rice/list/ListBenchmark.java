@@ -0,0 +1,246 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import edu.rice.tree.BinaryHeap;
+import edu.rice.util.Monoid;
+import edu.rice.util.Option;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the core operations on eager, chunked, lazy, vector, finger tree, and primitive int lists:
+ * construction, map, filter, flatmap, and fold, along with random access, concatenation, sorting, and a multi-stage
+ * lazy pipeline compared with the same pipeline run through a ListView.
+ * Every benchmark returns its result, so JMH won't optimize away the work we're trying to measure.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListBenchmark {
+  @Param({"1000", "10000", "100000", "1000000"})
+  public int size;
+
+  private IList<Integer> eagerList;
+  private IList<Integer> chunkedList;
+  private IList<Integer> lazyList;
+  private IntList intList;
+  private IList<Integer> vector;
+  private FingerTree<Integer> fingerTree;
+  private IList<Integer> shuffledList;
+
+  @Setup
+  public void setup() {
+    // Engineering note: we build the eager list with foldl, rather than List.rangeInt, so that the setup
+    // itself never recurses. The list comes out backwards, but none of the benchmarks below care.
+    eagerList = LazyList.rangeInt(0, size - 1).foldl(List.makeEmpty(), IList::add);
+    chunkedList = ChunkedList.rangeInt(0, size - 1);
+    lazyList = LazyList.rangeInt(0, size - 1).force();
+    intList = IntList.rangeInt(0, size - 1);
+    vector = Vector.from(eagerList);
+    fingerTree = FingerTree.from(eagerList);
+
+    Random random = new Random(215);
+    shuffledList = eagerList.map(x -> random.nextInt());
+  }
+
+  @Benchmark
+  public IList<Integer> eagerConstruct() {
+    return List.rangeInt(0, size - 1);
+  }
+
+  @Benchmark
+  public IList<Integer> eagerMap() {
+    return eagerList.map(x -> x + 1);
+  }
+
+  @Benchmark
+  public IList<Integer> eagerFilter() {
+    return eagerList.filter(x -> (x & 1) == 0);
+  }
+
+  @Benchmark
+  public long eagerFoldl() {
+    return eagerList.foldl(0L, (sum, x) -> sum + x);
+  }
+
+  @Benchmark
+  public IList<Integer> eagerParallelMap() {
+    return eagerList.parallelMap(x -> x + 1);
+  }
+
+  @Benchmark
+  public IList<Integer> eagerParallelFilter() {
+    return eagerList.parallelFilter(x -> (x & 1) == 0);
+  }
+
+  @Benchmark
+  public long eagerParallelFoldMap() {
+    return eagerList.parallelFoldMap(Monoid.of(0L, Long::sum), x -> (long) x);
+  }
+
+  @Benchmark
+  public IList<Integer> eagerFlatmap() {
+    return eagerList.flatmap(x -> List.of(x, x));
+  }
+
+  @Benchmark
+  public IList<Integer> eagerSort() {
+    return shuffledList.sort((a, b) -> a < b);
+  }
+
+  @Benchmark
+  public IList<Integer> eagerParallelSort() {
+    return shuffledList.parallelSort((a, b) -> a < b);
+  }
+
+  @Benchmark
+  public IList<Integer> eagerHeapSort() {
+    // what IList.sort used to do
+    BinaryHeap<Integer> heap = new BinaryHeap<>((a, b) -> a < b);
+    shuffledList.foreach(heap::insert);
+    return heap.drainToLazyList().force();
+  }
+
+  @Benchmark
+  public Option<Integer> eagerNth() {
+    return eagerList.nth(size / 2);
+  }
+
+  @Benchmark
+  public IList<Integer> eagerUpdateNth() {
+    return eagerList.updateNth(size / 2, Option.some(-1));
+  }
+
+  @Benchmark
+  public Option<Integer> vectorNth() {
+    return vector.nth(size / 2);
+  }
+
+  @Benchmark
+  public IList<Integer> vectorUpdateNth() {
+    return vector.updateNth(size / 2, Option.some(-1));
+  }
+
+  @Benchmark
+  public IList<Integer> vectorMap() {
+    return vector.map(x -> x + 1);
+  }
+
+  @Benchmark
+  public Option<Integer> fingerTreeNth() {
+    return fingerTree.nth(size / 2);
+  }
+
+  @Benchmark
+  public IList<Integer> fingerTreeUpdateNth() {
+    return fingerTree.updateNth(size / 2, Option.some(-1));
+  }
+
+  @Benchmark
+  public IList<Integer> eagerConcat() {
+    return eagerList.concat(eagerList);
+  }
+
+  @Benchmark
+  public IList<Integer> fingerTreeConcat() {
+    return fingerTree.concat(fingerTree);
+  }
+
+  @Benchmark
+  public IList<Integer> fingerTreeSplitAt() {
+    return fingerTree.splitAt(size / 2).b;
+  }
+
+  @Benchmark
+  public IList<Integer> chunkedConstruct() {
+    return ChunkedList.rangeInt(0, size - 1);
+  }
+
+  @Benchmark
+  public IList<Integer> chunkedMap() {
+    return chunkedList.map(x -> x + 1);
+  }
+
+  @Benchmark
+  public IList<Integer> chunkedFilter() {
+    return chunkedList.filter(x -> (x & 1) == 0);
+  }
+
+  @Benchmark
+  public long chunkedFoldl() {
+    return chunkedList.foldl(0L, (sum, x) -> sum + x);
+  }
+
+  @Benchmark
+  public IList<Integer> lazyConstruct() {
+    return LazyList.rangeInt(0, size - 1).force();
+  }
+
+  @Benchmark
+  public IList<Integer> lazyMap() {
+    return lazyList.map(x -> x + 1).force();
+  }
+
+  @Benchmark
+  public IList<Integer> lazyFilter() {
+    return lazyList.filter(x -> (x & 1) == 0).force();
+  }
+
+  @Benchmark
+  public long lazyFoldl() {
+    return lazyList.foldl(0L, (sum, x) -> sum + x);
+  }
+
+  @Benchmark
+  public long lazyPipeline() {
+    return LazyList.rangeInt(0, size - 1)
+        .map(x -> x * 3)
+        .filter(x -> (x & 1) == 0)
+        .map(x -> x + 1)
+        .foldl(0L, (sum, x) -> sum + x);
+  }
+
+  @Benchmark
+  public long viewPipeline() {
+    return ListView.rangeInt(0, size - 1)
+        .map(x -> x * 3)
+        .filter(x -> (x & 1) == 0)
+        .map(x -> x + 1)
+        .foldl(0L, (sum, x) -> sum + x);
+  }
+
+  @Benchmark
+  public IntList intConstruct() {
+    return IntList.rangeInt(0, size - 1);
+  }
+
+  @Benchmark
+  public IntList intMap() {
+    return intList.map(x -> x + 1);
+  }
+
+  @Benchmark
+  public IntList intFilter() {
+    return intList.filter(x -> (x & 1) == 0);
+  }
+
+  @Benchmark
+  public int intFoldl() {
+    // this overflows for the larger sizes, but that's fine; we only care that it can't be optimized away
+    return intList.foldl(0, (sum, x) -> sum + x);
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for Memo, by way of LazyList, where every cons cell has one. The contention benchmark builds
+ * a fresh lazy list for each invocation and has 16 threads race to force the whole thing at once, so most
+ * get() calls either win the race to run a supplier, or wait for somebody else to finish. The other benchmarks
+ * measure the uncontended costs: forcing a list from one thread, and reading a list that's already forced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MemoBenchmark {
+  private static final int NUM_THREADS = 16;
+
+  @Param({"1000", "100000"})
+  public int size;
+
+  private ExecutorService executor;
+  private IList<Integer> forcedList;
+
+  @Setup
+  public void setup() {
+    executor = Executors.newFixedThreadPool(NUM_THREADS);
+    forcedList = freshList();
+    forcedList.force();
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private IList<Integer> freshList() {
+    return LazyList.rangeInt(0, size - 1).map(x -> x + 1);
+  }
+
+  private static long sum(IList<Integer> list) {
+    return list.foldl(0L, (total, x) -> total + x);
+  }
+
+  @Benchmark
+  public long forceShared16Threads() throws Exception {
+    IList<Integer> list = freshList();
+    java.util.List<Future<Long>> futures = new ArrayList<>(NUM_THREADS);
+    for (int i = 0; i < NUM_THREADS; i++) {
+      futures.add(executor.submit(() -> sum(list)));
+    }
+
+    long total = 0;
+    for (Future<Long> future : futures) {
+      total += future.get();
+    }
+    return total;
+  }
+
+  @Benchmark
+  public long forceUncontended() {
+    return sum(freshList());
+  }
+
+  @Benchmark
+  public long readForced() {
+    return sum(forcedList);
+  }
+}
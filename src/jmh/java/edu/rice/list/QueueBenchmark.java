@@ -0,0 +1,56 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH latency benchmarks for ListQueue and RealTimeQueue. Each state holds a queue with "size" elements in it, and
+ * every invocation inserts one value at the back and takes one off the front, so the queue stays the same size
+ * forever. We use SampleTime mode, which records how long each individual invocation took, so JMH can report the
+ * percentiles. The averages are similar, but ListQueue's p99.99 and worst case are where all those big reversals
+ * show up, while RealTimeQueue's worst case should stay small.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueueBenchmark {
+  @Param({"1000", "100000", "1000000"})
+  public int size;
+
+  private IQueue<Integer> listQueue;
+  private IQueue<Integer> realTimeQueue;
+  private int counter;
+
+  @Setup
+  public void setup() {
+    listQueue = LazyList.rangeInt(0, size - 1).foldl(ListQueue.makeEmpty(), IQueue::insert);
+    realTimeQueue = LazyList.rangeInt(0, size - 1).foldl(RealTimeQueue.makeEmpty(), IQueue::insert);
+    counter = size;
+  }
+
+  @Benchmark
+  public Integer listQueueInsertAndTail() {
+    listQueue = listQueue.insert(counter++).tail();
+    return listQueue.head();
+  }
+
+  @Benchmark
+  public Integer realTimeQueueInsertAndTail() {
+    realTimeQueue = realTimeQueue.insert(counter++).tail();
+    return realTimeQueue.head();
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.tree;
+
+import edu.rice.list.IList;
+import edu.rice.list.KeyValue;
+import edu.rice.list.LazyList;
+import edu.rice.util.Option;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks comparing BTreeMap with TreapMap, head to head, on integer keys. The bulk benchmarks build or
+ * walk a whole map, while the others measure a single operation against a prebuilt map of the given size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BTreeBenchmark {
+  @Param({"1000", "100000", "1000000"})
+  public int size;
+
+  private Integer[] keys;
+  private IList<KeyValue<Integer, String>> sortedPairs;
+  private IMap<Integer, String> btreeMap;
+  private IMap<Integer, String> treapMap;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    // fixed seed, so every run sees the same keys
+    Random random = new Random(215);
+    keys = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = random.nextInt();
+    }
+
+    IList<KeyValue<Integer, String>> pairs =
+        LazyList.rangeInt(0, size - 1).map(i -> KeyValue.make(keys[i], keys[i].toString())).force();
+    treapMap = TreapMap.fromList(pairs);
+    btreeMap = BTreeMap.fromList(pairs);
+    sortedPairs = treapMap.toSortedList().force();
+    cursor = 0;
+  }
+
+  /**
+   * Cycles through the keys that are present in the prebuilt maps.
+   */
+  private Integer nextKey() {
+    cursor = (cursor + 1) % size;
+    return keys[cursor];
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public IMap<Integer, String> btreeMapFromSortedList() {
+    return BTreeMap.fromList(sortedPairs);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public IMap<Integer, String> treapMapFromSortedList() {
+    return TreapMap.fromList(sortedPairs);
+  }
+
+  @Benchmark
+  public Option<String> btreeMapOget() {
+    return btreeMap.oget(nextKey());
+  }
+
+  @Benchmark
+  public Option<String> treapMapOget() {
+    return treapMap.oget(nextKey());
+  }
+
+  @Benchmark
+  public IMap<Integer, String> btreeMapAdd() {
+    // the negation is almost never one of our keys, so this is nearly always a real insertion
+    return btreeMap.add(-nextKey(), "new");
+  }
+
+  @Benchmark
+  public IMap<Integer, String> treapMapAdd() {
+    return treapMap.add(-nextKey(), "new");
+  }
+
+  @Benchmark
+  public IMap<Integer, String> btreeMapRemove() {
+    return btreeMap.remove(nextKey());
+  }
+
+  @Benchmark
+  public IMap<Integer, String> treapMapRemove() {
+    return treapMap.remove(nextKey());
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public int btreeMapIterate() {
+    int total = 0;
+    for (KeyValue<Integer, String> kv : btreeMap.toSortedList()) {
+      total += kv.getKey();
+    }
+    return total;
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public int treapMapIterate() {
+    int total = 0;
+    for (KeyValue<Integer, String> kv : treapMap.toSortedList()) {
+      total += kv.getKey();
+    }
+    return total;
+  }
+}
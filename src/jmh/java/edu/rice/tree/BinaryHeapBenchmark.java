@@ -0,0 +1,61 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.tree;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for BinaryHeap. Since a BinaryHeap mutates, every benchmark starts from a fresh heap and
+ * inserts the whole input, so the per-op cost is the total time divided by the size parameter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinaryHeapBenchmark {
+  @Param({"1000", "10000", "100000", "1000000"})
+  public int size;
+
+  private Integer[] values;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(215);
+    values = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = random.nextInt();
+    }
+  }
+
+  @Benchmark
+  public BinaryHeap<Integer> insert() {
+    BinaryHeap<Integer> heap = new BinaryHeap<>((a, b) -> a < b);
+    for (Integer value : values) {
+      heap.insert(value);
+    }
+    return heap;
+  }
+
+  @Benchmark
+  public long insertThenGetMin() {
+    BinaryHeap<Integer> heap = insert();
+    long sum = 0;
+    while (heap.size() > 0) {
+      sum += heap.getMin();
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.tree;
+
+import edu.rice.list.IList;
+import edu.rice.list.KeyValue;
+import edu.rice.list.LazyList;
+import edu.rice.util.Option;
+import edu.rice.util.Pair;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks comparing HashTrieMap with TreapMap, head to head, on string keys, which is what most of our
+ * maps use. The bulk benchmarks build a whole map, one add at a time, while the others measure a single operation
+ * against a prebuilt map of the given size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HashTrieBenchmark {
+  @Param({"1000", "100000", "1000000"})
+  public int size;
+
+  private String[] keys;
+  private IList<String> keyList;
+  private HashTrieMap<String, String> hashTrieMap;
+  private IMap<String, String> treapMap;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    // fixed seed, so every run sees the same keys
+    Random random = new Random(215);
+    keys = new String[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = "key" + random.nextInt();
+    }
+
+    keyList = LazyList.rangeInt(0, size - 1).map(i -> keys[i]).force();
+    hashTrieMap = keyList.foldl(HashTrieMap.makeEmpty(), (map, key) -> map.add(key, key));
+    treapMap = TreapMap.fromList(keyList.map(key -> KeyValue.make(key, key)));
+    cursor = 0;
+  }
+
+  /**
+   * Cycles through the keys that are present in the prebuilt maps.
+   */
+  private String nextKey() {
+    cursor = (cursor + 1) % size;
+    return keys[cursor];
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public HashTrieMap<String, String> hashTrieMapBuild() {
+    return keyList.foldl(HashTrieMap.makeEmpty(), (map, key) -> map.add(key, key));
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public IMap<String, String> treapMapBuild() {
+    return keyList.foldl(TreapMap.makeEmpty(), (map, key) -> map.add(key, key));
+  }
+
+  @Benchmark
+  public Option<String> hashTrieMapOget() {
+    return hashTrieMap.oget(nextKey());
+  }
+
+  @Benchmark
+  public Option<String> treapMapOget() {
+    return treapMap.oget(nextKey());
+  }
+
+  @Benchmark
+  public HashTrieMap<String, String> hashTrieMapAdd() {
+    // a new key, so this is always a real insertion
+    return hashTrieMap.add(nextKey() + "!", "new");
+  }
+
+  @Benchmark
+  public IMap<String, String> treapMapAdd() {
+    return treapMap.add(nextKey() + "!", "new");
+  }
+
+  @Benchmark
+  public HashTrieMap<String, String> hashTrieMapRemove() {
+    return hashTrieMap.remove(nextKey());
+  }
+
+  @Benchmark
+  public IMap<String, String> treapMapRemove() {
+    return treapMap.remove(nextKey());
+  }
+
+  @Benchmark
+  public IList<Pair<String, String>> hashTrieMapToList() {
+    return hashTrieMap.toList();
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.tree;
+
+import edu.rice.list.IList;
+import edu.rice.list.KeyValue;
+import edu.rice.list.LazyList;
+import edu.rice.util.Option;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for Treap and TreapMap. The bulk benchmarks build a whole structure from scratch, either all
+ * at once from a list (sorted or not) or one insert at a time, while the others measure a single operation against
+ * a prebuilt structure of the given size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TreapBenchmark {
+  @Param({"1000", "10000", "100000", "1000000"})
+  public int size;
+
+  private int[] keys;
+  private IList<Integer> keyList;
+  private IList<Integer> sortedKeyList;
+  private IList<KeyValue<Integer, String>> sortedPairs;
+  private ITree<Integer> treap;
+  private IMap<Integer, String> treapMap;
+  private ISet<Integer> firstHalfSet;
+  private ISet<Integer> secondHalfSet;
+  private IList<Integer> batchKeys;
+  private IList<Integer> wordKeys;
+  private ISet<Integer> randomSet;
+  private ISet<Integer> randomSetCopy;
+  private ISet<Integer> canonicalSet;
+  private ISet<Integer> canonicalSetCopy;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    // fixed seed, so every run sees the same keys
+    Random random = new Random(215);
+    keys = new int[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = random.nextInt();
+    }
+
+    keyList = LazyList.rangeInt(0, size - 1).map(i -> keys[i]).force();
+    treap = Treap.<Integer>makeEmpty().insertList(keyList);
+    treapMap = keyList.foldl(TreapMap.makeEmpty(), (map, key) -> map.add(key, key.toString()));
+    sortedKeyList = treap.toList();
+    sortedPairs = treapMap.toSortedList().force();
+    firstHalfSet = TreapSet.fromList(keyList.limit(size / 2));
+    secondHalfSet = TreapSet.fromList(keyList.skipN(size / 4));
+    batchKeys = keyList.limit(Math.max(size / 10, 1)).map(key -> key ^ 1).force();
+    wordKeys = keyList.map(key -> key % Math.max(size / 4, 1)).force(); // repeats, like the words in a text
+
+    // equal sets that share everything but one path from the root
+    randomSet = TreapSet.fromList(keyList);
+    randomSetCopy = randomSet.remove(keys[0]).add(keys[0]);
+    canonicalSet = TreapSet.<Integer>makeEmptyCanonical().addList(keyList);
+    canonicalSetCopy = canonicalSet.remove(keys[0]).add(keys[0]);
+    cursor = 0;
+  }
+
+  /**
+   * Cycles through the keys that are present in the prebuilt structures.
+   */
+  private int nextKey() {
+    cursor = (cursor + 1) % size;
+    return keys[cursor];
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public ITree<Integer> treapInsertList() {
+    return Treap.<Integer>makeEmpty().insertList(keyList);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public ITree<Integer> treapInsertOneAtATime() {
+    return keyList.foldl(Treap.makeEmpty(), ITree::insert);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public ITree<Integer> treapFromSortedList() {
+    return Treap.fromList(sortedKeyList);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public IMap<Integer, String> treapMapFromSortedList() {
+    return TreapMap.fromList(sortedPairs);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public ISet<Integer> setUnion() {
+    return firstHalfSet.union(secondHalfSet);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public ISet<Integer> setUnionParallel() {
+    return firstHalfSet.parallelUnion(secondHalfSet, (a, b) -> a);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public ISet<Integer> setIntersect() {
+    return firstHalfSet.intersect(secondHalfSet);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public ISet<Integer> setExcept() {
+    return firstHalfSet.except(secondHalfSet);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public IMap<Integer, String> treapMapLoadOneAtATime() {
+    return keyList.foldl(TreapMap.makeEmpty(), (map, key) -> map.add(key, "new"));
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public IMap<Integer, String> treapMapLoadWithMutations() {
+    return TreapMap.<Integer, String>makeEmpty().withMutations(batch -> keyList.foreach(key -> batch.add(key, "new")));
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public IMap<Integer, String> treapMapBatchOneAtATime() {
+    // a batch of updates, one for every ten keys already in the map, made with ordinary add()
+    return batchKeys.foldl(treapMap, (map, key) -> map.add(key, "new"));
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public IMap<Integer, String> treapMapBatchWithMutations() {
+    // the same batch, made on a transient map
+    return treapMap.withMutations(batch -> batchKeys.foreach(key -> batch.add(key, "new")));
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public IMap<Integer, Integer> treapMapMergeOneAtATime() {
+    // counting "words", with merge()
+    return wordKeys.foldl(TreapMap.makeEmpty(), (map, key) -> map.merge(key, 1, Integer::sum));
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public IMap<Integer, Integer> treapMapMergeWithMutations() {
+    // the same counting, on a transient map
+    return TreapMap.<Integer, Integer>makeEmpty().withMutations(
+        batch -> wordKeys.foreach(key -> batch.merge(key, 1, Integer::sum)));
+  }
+
+  @Benchmark
+  public ITree<Integer> treapInsert() {
+    // flipping the low bit gives us a key that's usually absent, so this is usually a real insertion
+    return treap.insert(nextKey() ^ 1);
+  }
+
+  @Benchmark
+  public Option<Integer> treapFind() {
+    return treap.find(nextKey());
+  }
+
+  @Benchmark
+  public IMap<Integer, String> treapMapAdd() {
+    return treapMap.add(nextKey() ^ 1, "new");
+  }
+
+  @Benchmark
+  public Option<String> treapMapOget() {
+    return treapMap.oget(nextKey());
+  }
+
+  @Benchmark
+  public int treapMapSize() {
+    return treapMap.size();
+  }
+
+  @Benchmark
+  public Option<KeyValue<Integer, String>> treapMapFloor() {
+    // the usual key is present, so with the low bit flipped, this finds it or its neighbor
+    return treapMap.floor(nextKey() ^ 1);
+  }
+
+  @Benchmark
+  public Option<KeyValue<Integer, String>> treapMapFloorByTrimming() {
+    // the same thing, the old way: cut the map down to everything at or below the key, and take the largest
+    IMap<Integer, String> below = treapMap.lessThan(nextKey() ^ 1, true);
+    return below.nth(below.size() - 1);
+  }
+
+  @Benchmark
+  public Option<KeyValue<Integer, String>> treapMapNth() {
+    cursor = (cursor + 1) % size;
+    return treapMap.nth(cursor);
+  }
+
+  @Benchmark
+  public IMap<Integer, String> treapMapSlice() {
+    // one page of twenty from somewhere in the middle
+    cursor = (cursor + 1) % size;
+    return treapMap.sliceByIndex(cursor, cursor + 20);
+  }
+
+  @Benchmark
+  public IList<Integer> treapRangeCursor() {
+    // the first twenty keys at or above one in the middle, without building a tree to hold them
+    return treap.range(nextKey(), true, Integer.MAX_VALUE, true).limit(20).force();
+  }
+
+  @Benchmark
+  public IList<Integer> treapRangeByTrimming() {
+    // the same twenty keys, the old way: trim the tree, then list what's left
+    return treap.greaterThan(nextKey(), true).toList().limit(20).force();
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public boolean randomSetEquals() {
+    return randomSet.equals(randomSetCopy);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public boolean canonicalSetEquals() {
+    return canonicalSet.equals(canonicalSetCopy);
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.util;
+
+import edu.rice.tree.IMap;
+import edu.rice.tree.TreapMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH contention benchmarks for AtomicPersistent: every thread hammers on the same shared cell, adding keys to
+ * a TreapMap, compared with the same work done under a single global lock. Run it with different thread counts
+ * (e.g., <code>-t 1</code>, <code>-t 4</code>, <code>-t 16</code>) to see how each one scales. At the end of each
+ * iteration, the benchmark logs the cell's retry rate, which tells you how often an update lost the race.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class AtomicPersistentBenchmark {
+  private static final String TAG = "AtomicPersistentBenchmark";
+
+  // keys wrap around, so the map stops growing and every update does about the same amount of work
+  private static final int KEY_RANGE = 1 << 16;
+
+  private AtomicPersistent<IMap<Integer, Integer>> cell;
+  private IMap<Integer, Integer> lockedMap;
+  private final Object lock = new Object();
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    int nextKey;
+
+    @Setup
+    public void setup(ThreadParams threadParams) {
+      nextKey = threadParams.getThreadIndex() * 7919; // spread the threads around the key space
+    }
+
+    int next() {
+      nextKey = (nextKey + 1) & (KEY_RANGE - 1);
+      return nextKey;
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    cell = new AtomicPersistent<>(TreapMap.makeEmpty());
+    lockedMap = TreapMap.makeEmpty();
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    long commits = cell.commitCount();
+    if (commits > 0) {
+      Log.i(TAG, String.format("%d commits, %d retries (%.1f%%)",
+          commits, cell.retryCount(), 100.0 * cell.retryCount() / commits));
+    }
+  }
+
+  @Benchmark
+  public IMap<Integer, Integer> casUpdate(ThreadState state) {
+    int key = state.next();
+    return cell.updateAndGet(map -> map.add(key, key));
+  }
+
+  @Benchmark
+  public IMap<Integer, Integer> lockedUpdate(ThreadState state) {
+    int key = state.next();
+    synchronized (lock) {
+      lockedMap = lockedMap.add(key, key);
+      return lockedMap;
+    }
+  }
+
+  @Benchmark
+  public IMap<Integer, Integer> read() {
+    return cell.get();
+  }
+}
@@ -34,7 +34,14 @@ public class AdventureServer {
       if (commandLine != null) {
         response.status(200); // okay!
         response.header("cache-control", "no-cache"); // because we're regenerating it every time
-        return jobject(jpair("response", newGame.response(commandLine))).toString();
+        // Engineering note: unlike the RPN calculator, the game's state is spread across a bunch of static fields
+        // that response() mutates in place, one at a time, so there's no single persistent value that we could
+        // swap atomically. Until the game state is restructured, requests have to take turns.
+        String gameResponse;
+        synchronized (newGame) {
+          gameResponse = newGame.response(commandLine);
+        }
+        return jobject(jpair("response", gameResponse)).toString();
       }
       // if we got here, the command line we wanted was absent
       Log.i(TAG, "empty command line");
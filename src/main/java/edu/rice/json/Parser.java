@@ -12,6 +12,7 @@ package edu.rice.json;
 
 import edu.rice.list.IList;
 import edu.rice.list.List;
+import edu.rice.list.ListBuilder;
 import edu.rice.regex.NamedMatcher;
 import edu.rice.util.Log;
 import edu.rice.util.Option;
@@ -228,7 +229,7 @@ public class Parser {
             // we first require an open curly brace
             case OPENCURLY:
               // next, we recursively add together the list of key-value pairs; this will consume the close curly
-              return makeObjectHelper(remainingTokens, true)
+              return makeObjectHelper(remainingTokens)
                   .map(result -> new Result<>(new Value.JObject(result.production), result.tokens));
 
             default:
@@ -237,47 +238,58 @@ public class Parser {
         });
   }
 
-  // recursive helper function
+  // helper function: consumes key/value pairs, separated by commas, up to and including the close curly brace
   @NotNull
   @Contract(pure = true)
-  private static Option<Result<IList<JKeyValue>>>
-      makeObjectHelper(@NotNull IList<Token<JsonPatterns>> tokenList, boolean firstTime) {
-
-    return tokenList.match(
-        emptyList -> Option.none(),
-
-        (token, remainingTokens) -> {
-          Option<Result<JKeyValue>> oKeyValue;
-
-          switch (token.type) {
-            // if we find a close bracket, then we're done!
-            case CLOSECURLY:
-              return Option.some(new Result<>(List.makeEmpty(), remainingTokens));
-
-            case COMMA:
-              // we require a comma between key-value tuples, but not the first time
-              if (firstTime) {
-                return Option.none();
-              }
-              oKeyValue = makeKeyValue(remainingTokens);
-              break;
-
-            default:
-              // we required a comma, but didn't get it
-              if (!firstTime) {
-                return Option.none();
-              }
-              oKeyValue = makeKeyValue(tokenList);
-              break;
+  private static Option<Result<IList<JKeyValue>>> makeObjectHelper(@NotNull IList<Token<JsonPatterns>> tokenList) {
+    // Engineering note: this used to be recursive, prepending each key/value pair onto the list returned by
+    // the recursive call, which meant one stack frame per pair; a big enough object would overflow the stack.
+    // Instead, we loop, appending each pair to a ListBuilder as we find it.
+    ListBuilder<JKeyValue> keyValues = new ListBuilder<>();
+    IList<Token<JsonPatterns>> tokens = tokenList;
+    boolean firstTime = true;
+
+    for (;;) {
+      if (tokens.empty()) {
+        return Option.none();
+      }
+
+      Token<JsonPatterns> token = tokens.head();
+      IList<Token<JsonPatterns>> remainingTokens = tokens.tail();
+      Option<Result<JKeyValue>> oKeyValue;
+
+      switch (token.type) {
+        // if we find a close bracket, then we're done!
+        case CLOSECURLY:
+          return Option.some(new Result<>(keyValues.build(), remainingTokens));
+
+        case COMMA:
+          // we require a comma between key-value tuples, but not the first time
+          if (firstTime) {
+            return Option.none();
           }
+          oKeyValue = makeKeyValue(remainingTokens);
+          break;
 
-          // recursively continue consuming the rest of the input and then prepend the current key/value pair to
-          // the front of the list that's returned from the recursive call (pair.production) and pass along the
-          // remaining unconsumed tokens
-          return oKeyValue.flatmap(headResult ->
-              makeObjectHelper(headResult.tokens, false)
-                  .map(tailResults -> new Result<>(tailResults.production.add(headResult.production), tailResults.tokens)));
-        });
+        default:
+          // we required a comma, but didn't get it
+          if (!firstTime) {
+            return Option.none();
+          }
+          oKeyValue = makeKeyValue(tokens);
+          break;
+      }
+
+      if (oKeyValue.isNone()) {
+        return Option.none();
+      }
+
+      // save the current key/value pair and carry on with the remaining tokens
+      Result<JKeyValue> keyValueResult = oKeyValue.get();
+      keyValues.append(keyValueResult.production);
+      tokens = keyValueResult.tokens;
+      firstTime = false;
+    }
   }
 
   /**
@@ -323,7 +335,7 @@ public class Parser {
           switch (token.type) {
             case OPENSQUARE:
               // next, we recursively add together the list; this will consume the close square
-              return makeArrayHelper(remainingTokens, true)
+              return makeArrayHelper(remainingTokens)
                   .map(result -> new Result<>(new JArray(result.production), result.tokens));
 
             default:
@@ -332,57 +344,64 @@ public class Parser {
         });
   }
 
-  // this helper function is only necessary because we want to have the "firstTime" argument to deal with commas
+  // helper function: consumes values, separated by commas, up to and including the close square bracket
   @NotNull
   @Contract(pure = true)
-  private static Option<Result<IList<Value>>> makeArrayHelper(
-      @NotNull IList<Token<JsonPatterns>> tokenList, boolean firstTime) {
-
-    return tokenList.match(
-        emptyList -> Option.none(),
-
-        (token, remainingTokens) -> {
-
-          Option<Result<Value>> nextValue; // the next value in the JSON array will go here
+  private static Option<Result<IList<Value>>> makeArrayHelper(@NotNull IList<Token<JsonPatterns>> tokenList) {
+    // As with makeObjectHelper, we loop rather than recurse, so long arrays won't overflow the stack.
+    ListBuilder<Value> values = new ListBuilder<>();
+    IList<Token<JsonPatterns>> tokens = tokenList;
+    boolean firstTime = true;
+
+    for (;;) {
+      if (tokens.empty()) {
+        return Option.none();
+      }
+
+      Token<JsonPatterns> token = tokens.head();
+      IList<Token<JsonPatterns>> remainingTokens = tokens.tail();
+      Option<Result<Value>> nextValue; // the next value in the JSON array will go here
+
+      // but before we try to grab that value, we first need to deal with the requirements of
+      // JSON, namely that if we hit a close-square-bracket, we're done, and we have to deal with
+      // commas, which are required between array elements. Note the use of the firstTime boolean
+      // to distinguish the two cases while we're doing our parsing.
+
+      switch (token.type) {
+        case CLOSESQUARE:
+          return Option.some(new Result<>(values.build(), remainingTokens));
+
+        case COMMA:
+          // Comma must be absent if it's the first time through.
+          if (firstTime) {
+            return Option.none();
+          }
 
-          // but before we try to grab that value, we first need to deal with the requirements of
-          // JSON, namely that if we hit a close-square-bracket, we're done, and we have to deal with
-          // commas, which are required between array elements. Note the use of the firstTime boolean
-          // to distinguish the two cases while we're doing our parsing.
+          // But if it's not, then it's required! Try to get the next JValue.
+          nextValue = makeValue(remainingTokens);
+          break;
 
-          switch (token.type) {
-            case CLOSESQUARE:
-              return Option.some(new Result<>(List.makeEmpty(), remainingTokens));
+        default:
+          // if it's not the first time, we required a comma.
+          if (!firstTime) {
+            return Option.none();
+          }
 
-            case COMMA:
-              // Comma must be absent if it's the first time through.
-              if (firstTime) {
-                return Option.none();
-              }
+          // Otherwise, the current token needs to be reused, so we're using tokens rather than remainingTokens
+          nextValue = makeValue(tokens);
+          break;
+      }
 
-              // But if it's not, then it's required! Try to get the next JValue.
-              nextValue = makeValue(remainingTokens);
-              break;
+      if (nextValue.isNone()) {
+        return Option.none();
+      }
 
-            default:
-              // if it's not the first time, we required a comma.
-              if (!firstTime) {
-                return Option.none();
-              }
-
-              // Otherwise, the current token needs to be reused, so we're using tokenList rather than remainingTokens
-              nextValue = makeValue(tokenList);
-              break;
-          }
-
-          // recursively continue consuming the rest of the input and then prepend the current value to the front of the
-          // list that's returned from the recursive call and pass along the remaining unconsumed tokens
-          return nextValue
-              .flatmap(headResult ->
-                  makeArrayHelper(headResult.tokens, false)
-                      .map(tailResults ->
-                          new Result<>(tailResults.production.add(headResult.production), tailResults.tokens)));
-        });
+      // save the current value and carry on with the remaining tokens
+      Result<Value> valueResult = nextValue.get();
+      values.append(valueResult.production);
+      tokens = valueResult.tokens;
+      firstTime = false;
+    }
   }
 
   /**
@@ -587,7 +587,9 @@ public interface Value {
      * This constructor is something you can use from edu.rice.json.Parser, but it's not intended for public use.
      */
     JArray(@NotNull IList<Value> valueList) {
-      this.valueList = valueList;
+      // we store the values in a Vector, so nth() and updateNth(), and thus all the path lookups in
+      // Operations, don't have to walk down a list to find their index
+      this.valueList = Vector.from(valueList);
       this.length = valueList.length();
 
       // we're pairing up sequential integers with the elements of the array, so a JSON array
@@ -0,0 +1,715 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import edu.rice.util.Option;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static edu.rice.list.IList.narrow;
+
+/**
+ * An eager functional list, much like {@link List}, except that instead of one cons cell per element, each
+ * node holds a small, immutable array of elements (an "unrolled" linked list). This uses far less memory per
+ * element, and operations that scan the whole list (map, filter, foldl, foreach, etc.) run through contiguous
+ * arrays rather than chasing a pointer for every element. As with List, use the static methods here to get
+ * started, and then everything else happens through the IList interface.
+ * @see IList
+ * @see List
+ */
+public interface ChunkedList<T> extends IList<T> {
+  //
+  // Data definition:
+  //
+  // A ChunkedList is either: an empty-list, or a "chunk" containing an array of values, an offset into that
+  // array where the list begins, and a reference to the list that follows the last element in the array.
+  // These are represented by the ChunkedList.Empty and ChunkedList.Chunk classes.
+  //
+  // The arrays are never mutated once they're inside a Chunk, so any number of chunks can share them. That's
+  // how tail() runs in constant time: it just makes a new Chunk with the offset moved over by one.
+  //
+
+  /**
+   * The largest number of elements we'll put in a single chunk.
+   */
+  int CHUNK_SIZE = 32;
+
+  /**
+   * Create an empty list of the given type parameter.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> IList<T> makeEmpty() {
+    @SuppressWarnings("unchecked")
+    IList<T> typedEmptyList = (IList<T>) Empty.SINGLETON;
+    return typedEmptyList;
+  }
+
+  /**
+   * Construct a list with the specified head element and another list as the tail.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> IList<T> make(@NotNull T headVal, @NotNull IList<? extends T> tailVal) {
+    return Helpers.prepend(headVal, narrow(tailVal));
+  }
+
+  /**
+   * Construct a list with only one element.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> IList<T> make(@NotNull T headVal) {
+    return make(headVal, makeEmpty());
+  }
+
+  @NotNull
+  @Override
+  @Contract(pure = true)
+  default IList<T> add(@NotNull T t) {
+    return Helpers.prepend(t, this);
+  }
+
+  /**
+   * Constructs a chunked list from an original java.util.List.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> IList<T> fromList(@NotNull java.util.List<? extends T> original) {
+    return Helpers.fromArray(original.toArray(), 0, original.size(), makeEmpty());
+  }
+
+  /**
+   * Given a traditional Java iterator, return a list that captures the output of the iterator. If the iterator is
+   * infinite, this method may never return or may run out of memory.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> IList<T> fromIterator(@NotNull Iterator<? extends T> source) {
+    ArrayList<T> buffer = new ArrayList<>();
+    source.forEachRemaining(buffer::add);
+    return fromList(buffer);
+  }
+
+  /**
+   * Given a traditional Java array, return a list; note that if the underlying array changes, the list will
+   * not update itself. The values are copied immediately.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> IList<T> fromArray(@Nullable T[] source) {
+    if (source == null) {
+      return makeEmpty();
+    }
+    return Helpers.fromArray(source, 0, source.length, makeEmpty());
+  }
+
+  /**
+   * Varargs constructor.
+   */
+  @NotNull
+  @SuppressWarnings("varargs")
+  @SafeVarargs
+  @Contract(pure = true)
+  static <T> IList<T> of(@Nullable T... source) {
+    return fromArray(source);
+  }
+
+  /**
+   * Returns a list of integers from min to max, inclusive.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static IList<Integer> rangeInt(int min, int max) {
+    if (min > max) {
+      return makeEmpty();
+    } else {
+      return rangeInt(min, max, 1);
+    }
+  }
+
+  /**
+   * Returns a list of integers from start to finish, inclusive, skipping every increment until the result would be
+   * outside the range. Works just like {@link List#rangeInt(int, int, int)}.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static IList<Integer> rangeInt(int start, int finish, int increment) {
+    if (increment == 0) {
+      throw new RuntimeException("rangeInt with zero increment not allowed");
+    }
+
+    int min = Integer.min(start, finish);
+    int max = Integer.max(start, finish);
+
+    ArrayList<Integer> buffer = new ArrayList<>();
+    for (int current = start; current >= min && current <= max; current += increment) {
+      buffer.add(current);
+    }
+    return fromList(buffer);
+  }
+
+  /**
+   * Functions that aren't meant for public use.
+   */
+  class Helpers {
+    private Helpers() { } // do not instantiate!
+
+    /**
+     * Builds a list out of values[from] through values[to - 1], followed by the next list. The chunks are filled
+     * from the back, so if the number of values isn't a multiple of CHUNK_SIZE, it's the front chunk that comes
+     * up short, which leaves room for add() to grow it.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static <T> IList<T> fromArray(@NotNull Object[] values, int from, int to, @NotNull IList<T> next) {
+      IList<T> result = next;
+      int nextSize = sizeOf(next);
+
+      for (int end = to; end > from; end -= CHUNK_SIZE) {
+        int start = Integer.max(from, end - CHUNK_SIZE);
+        Object[] elements = new Object[end - start];
+        System.arraycopy(values, start, elements, 0, end - start);
+        nextSize = (nextSize == Chunk.UNKNOWN_SIZE) ? Chunk.UNKNOWN_SIZE : nextSize + elements.length;
+        result = new Chunk<>(elements, 0, result, nextSize);
+      }
+      return result;
+    }
+
+    /**
+     * Same as {@link #fromArray(Object[], int, int, IList)}, but for an ArrayList.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static <T> IList<T> fromArrayList(@NotNull ArrayList<?> values, @NotNull IList<T> next) {
+      return fromArray(values.toArray(), 0, values.size(), next);
+    }
+
+    /**
+     * Returns a new list with the given value in front. If the front chunk isn't yet full, we make a copy of it,
+     * one bigger, rather than starting a new chunk with only one thing in it. That keeps add() constant time
+     * (at most CHUNK_SIZE elements get copied), while keeping the chunks full.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static <T> IList<T> prepend(@NotNull T value, @NotNull IList<T> list) {
+      if (list instanceof Chunk) {
+        Chunk<T> chunk = (Chunk<T>) list;
+        int remaining = chunk.elements.length - chunk.offset;
+        int newSize = (chunk.size == Chunk.UNKNOWN_SIZE) ? Chunk.UNKNOWN_SIZE : chunk.size + 1;
+
+        if (remaining < CHUNK_SIZE) {
+          Object[] elements = new Object[remaining + 1];
+          elements[0] = value;
+          System.arraycopy(chunk.elements, chunk.offset, elements, 1, remaining);
+          return new Chunk<>(elements, 0, chunk.next, newSize);
+        } else {
+          return new Chunk<>(new Object[] {value}, 0, chunk, newSize);
+        }
+      }
+
+      int listSize = sizeOf(list);
+      return new Chunk<>(new Object[] {value}, 0, list, (listSize == Chunk.UNKNOWN_SIZE) ? Chunk.UNKNOWN_SIZE : listSize + 1);
+    }
+
+    /**
+     * Returns the size of the list if we can get it in constant time, otherwise UNKNOWN_SIZE. We don't want to
+     * ask a foreign list (e.g., a lazy list) for its length, because it might be infinitely long.
+     */
+    @Contract(pure = true)
+    static int sizeOf(@NotNull IList<?> list) {
+      if (list instanceof Chunk) {
+        return ((Chunk<?>) list).size;
+      } else if (list instanceof Empty) {
+        return 0;
+      } else {
+        return Chunk.UNKNOWN_SIZE;
+      }
+    }
+  }
+
+  /**
+   * This class implements non-empty chunked lists. External users will never use this, which is why this
+   * class isn't public. Instead, use IList.
+   * @see IList
+   */
+  class Chunk<T> implements ChunkedList<T> {
+    private static final int UNKNOWN_SIZE = -1;
+
+    // These are deliberately package-scope, rather than private, so the Helpers can get at them.
+    // Nobody, anywhere, ever writes into the elements array after a Chunk has been constructed.
+    @NotNull
+    final Object[] elements;
+    final int offset;
+    @NotNull
+    final IList<T> next;
+    final int size;
+
+    // cached structural hash, zero if we haven't computed it yet (see List.Cons)
+    private int hashVal;
+
+    /**
+     * Note, this constructor is not meant to be used by clients. Instead, use add() or ChunkedList.make().
+     */
+    private Chunk(@NotNull Object[] elements, int offset, @NotNull IList<T> next, int size) {
+      this.elements = elements;
+      this.offset = offset;
+      this.next = next;
+      this.size = size;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean empty() {
+      return false;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public T head() {
+      @SuppressWarnings("unchecked")
+      T result = (T) elements[offset];
+      return result;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> tail() {
+      if (offset + 1 < elements.length) {
+        return new Chunk<>(elements, offset + 1, next, (size == UNKNOWN_SIZE) ? UNKNOWN_SIZE : size - 1);
+      } else {
+        return next;
+      }
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int length() {
+      return (size == UNKNOWN_SIZE) ? ChunkedList.super.length() : size;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Iterator<T> iterator() {
+      // walks the arrays directly, rather than making a new Chunk for every tail()
+      return new Iterator<T>() {
+        private IList<T> list = Chunk.this;
+        private int index = offset;
+
+        @Override
+        public boolean hasNext() {
+          return (list instanceof Chunk) || !list.empty();
+        }
+
+        @Override
+        public T next() {
+          if (list instanceof Chunk) {
+            Chunk<T> chunk = (Chunk<T>) list;
+            T result = chunk.get(index++);
+            if (index == chunk.elements.length) {
+              list = chunk.next;
+              index = (list instanceof Chunk) ? ((Chunk<T>) list).offset : 0;
+            }
+            return result;
+          }
+
+          if (list.empty()) {
+            throw new NoSuchElementException("no more elements in the list");
+          }
+          T result = list.head();
+          list = list.tail();
+          return result;
+        }
+      };
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Spliterator<T> spliterator() {
+      return (size == UNKNOWN_SIZE)
+          ? ChunkedList.super.spliterator()
+          : Spliterators.spliterator(iterator(), size, List.Helpers.SPLITERATOR_CHARACTERISTICS);
+    }
+
+    //
+    // Engineering note: everything below this point follows the same pattern. We walk from chunk to chunk in a
+    // loop, running over each chunk's array with an ordinary for-loop. When we run out of chunks, whatever is
+    // left (normally the empty list, but somebody might have made a chunk whose tail is some other kind of
+    // IList) gets to handle itself. Results get accumulated into an ArrayList, then packed into new chunks.
+    // None of this is recursive, so there's no risk of a stack overflow, no matter how long the list.
+    //
+
+    @Override
+    public void foreach(@NotNull Consumer<? super T> consumer) {
+      IList<T> list = this;
+      while (list instanceof Chunk) {
+        Chunk<T> chunk = (Chunk<T>) list;
+        for (int i = chunk.offset; i < chunk.elements.length; i++) {
+          consumer.accept(chunk.get(i));
+        }
+        list = chunk.next;
+      }
+      list.foreach(consumer);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <U> U foldl(@NotNull U zero, @NotNull BiFunction<? super U, ? super T, ? extends U> f) {
+      U accumulator = zero;
+      IList<T> list = this;
+      while (list instanceof Chunk) {
+        Chunk<T> chunk = (Chunk<T>) list;
+        for (int i = chunk.offset; i < chunk.elements.length; i++) {
+          accumulator = f.apply(accumulator, chunk.get(i));
+        }
+        list = chunk.next;
+      }
+      return list.foldl(accumulator, f);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> reverse() {
+      ArrayList<T> buffer = new ArrayList<>();
+      foreach(buffer::add);
+
+      Object[] reversed = new Object[buffer.size()];
+      for (int i = 0; i < reversed.length; i++) {
+        reversed[i] = buffer.get(reversed.length - 1 - i);
+      }
+      return Helpers.fromArray(reversed, 0, reversed.length, makeEmpty());
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <Q> IList<Q> map(@NotNull Function<? super T, ? extends Q> f) {
+      ArrayList<Q> buffer = new ArrayList<>(size == UNKNOWN_SIZE ? CHUNK_SIZE : size);
+      IList<T> list = this;
+      while (list instanceof Chunk) {
+        Chunk<T> chunk = (Chunk<T>) list;
+        for (int i = chunk.offset; i < chunk.elements.length; i++) {
+          buffer.add(f.apply(chunk.get(i)));
+        }
+        list = chunk.next;
+      }
+      return Helpers.fromArrayList(buffer, list.map(f));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> filter(@NotNull Predicate<? super T> predicate) {
+      ArrayList<T> buffer = new ArrayList<>();
+      IList<T> list = this;
+      while (list instanceof Chunk) {
+        Chunk<T> chunk = (Chunk<T>) list;
+        for (int i = chunk.offset; i < chunk.elements.length; i++) {
+          T val = chunk.get(i);
+          if (predicate.test(val)) {
+            buffer.add(val);
+          }
+        }
+        list = chunk.next;
+      }
+      return Helpers.fromArrayList(buffer, list.filter(predicate));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> takeWhile(@NotNull Predicate<? super T> predicate) {
+      ArrayList<T> buffer = new ArrayList<>();
+      IList<T> list = this;
+      while (list instanceof Chunk) {
+        Chunk<T> chunk = (Chunk<T>) list;
+        for (int i = chunk.offset; i < chunk.elements.length; i++) {
+          T val = chunk.get(i);
+          if (!predicate.test(val)) {
+            return Helpers.fromArrayList(buffer, makeEmpty());
+          }
+          buffer.add(val);
+        }
+        list = chunk.next;
+      }
+      return Helpers.fromArrayList(buffer, list.takeWhile(predicate));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <Q> IList<Q> flatmap(@NotNull Function<? super T, ? extends IList<? extends Q>> f) {
+      ArrayList<Q> buffer = new ArrayList<>();
+      IList<T> list = this;
+      while (list instanceof Chunk) {
+        Chunk<T> chunk = (Chunk<T>) list;
+        for (int i = chunk.offset; i < chunk.elements.length; i++) {
+          f.apply(chunk.get(i)).foreach(buffer::add);
+        }
+        list = chunk.next;
+      }
+      return Helpers.fromArrayList(buffer, list.flatmap(f));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> concat(@NotNull IList<? extends T> afterTail) {
+      // We need to copy our own elements, but the afterTail can be shared as-is.
+      ArrayList<T> buffer = new ArrayList<>(size == UNKNOWN_SIZE ? CHUNK_SIZE : size);
+      IList<T> list = this;
+      while (list instanceof Chunk) {
+        Chunk<T> chunk = (Chunk<T>) list;
+        for (int i = chunk.offset; i < chunk.elements.length; i++) {
+          buffer.add(chunk.get(i));
+        }
+        list = chunk.next;
+      }
+      return Helpers.fromArrayList(buffer, list.concat(afterTail));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> limit(int n) {
+      ArrayList<T> buffer = new ArrayList<>();
+      IList<T> list = this;
+      while (list instanceof Chunk) {
+        Chunk<T> chunk = (Chunk<T>) list;
+        for (int i = chunk.offset; i < chunk.elements.length; i++) {
+          if (n < 1) {
+            return Helpers.fromArrayList(buffer, makeEmpty());
+          }
+          buffer.add(chunk.get(i));
+          n--;
+        }
+        list = chunk.next;
+      }
+      return Helpers.fromArrayList(buffer, list.limit(n));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Option<T> nth(int n) {
+      if (n < 0 || (size != UNKNOWN_SIZE && n >= size)) {
+        return Option.none();
+      }
+
+      // we can skip over a whole chunk at a time
+      IList<T> list = this;
+      while (list instanceof Chunk) {
+        Chunk<T> chunk = (Chunk<T>) list;
+        int chunkLength = chunk.elements.length - chunk.offset;
+        if (n < chunkLength) {
+          return Option.some(chunk.get(chunk.offset + n));
+        }
+        n -= chunkLength;
+        list = chunk.next;
+      }
+      return list.nth(n);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> skipN(int n) {
+      IList<T> list = this;
+      while (n > 0 && list instanceof Chunk) {
+        Chunk<T> chunk = (Chunk<T>) list;
+        int chunkLength = chunk.elements.length - chunk.offset;
+        if (n < chunkLength) {
+          int newSize = (chunk.size == UNKNOWN_SIZE) ? UNKNOWN_SIZE : chunk.size - n;
+          return new Chunk<>(chunk.elements, chunk.offset + n, chunk.next, newSize);
+        }
+        n -= chunkLength;
+        list = chunk.next;
+      }
+      return (n > 0) ? list.skipN(n) : list;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> updateNth(int n, @NotNull Function<? super T, Option<? extends T>> updateFunc) {
+      if (n < 0 || (size != UNKNOWN_SIZE && n >= size)) {
+        return this; // nothing to update
+      }
+
+      // copy everything before the nth element, then share everything after it
+      ArrayList<T> buffer = new ArrayList<>();
+      IList<T> list = this;
+      while (list instanceof Chunk) {
+        Chunk<T> chunk = (Chunk<T>) list;
+        int chunkLength = chunk.elements.length - chunk.offset;
+        if (n < chunkLength) {
+          int index = chunk.offset + n;
+          for (int i = chunk.offset; i < index; i++) {
+            buffer.add(chunk.get(i));
+          }
+          Option<? extends T> newVal = updateFunc.apply(chunk.get(index));
+          if (newVal.isSome()) {
+            buffer.add(newVal.get());
+          }
+
+          int restSize = (chunk.size == UNKNOWN_SIZE) ? UNKNOWN_SIZE : chunk.size - n - 1;
+          IList<T> rest = (index + 1 < chunk.elements.length)
+              ? new Chunk<>(chunk.elements, index + 1, chunk.next, restSize)
+              : chunk.next;
+          return Helpers.fromArrayList(buffer, rest);
+        }
+
+        for (int i = chunk.offset; i < chunk.elements.length; i++) {
+          buffer.add(chunk.get(i));
+        }
+        n -= chunkLength;
+        list = chunk.next;
+      }
+      return Helpers.fromArrayList(buffer, list.updateNth(n, updateFunc));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <U, V> IList<V> zip(@NotNull IList<? extends U> list,
+                               @NotNull BiFunction<? super T, ? super U, ? extends V> zipFunc) {
+      ArrayList<V> buffer = new ArrayList<>();
+      IList<T> list1 = this;
+      IList<? extends U> list2 = list;
+      while (list1 instanceof Chunk) {
+        Chunk<T> chunk = (Chunk<T>) list1;
+        for (int i = chunk.offset; i < chunk.elements.length; i++) {
+          if (list2.empty()) {
+            return Helpers.fromArrayList(buffer, makeEmpty());
+          }
+          buffer.add(zipFunc.apply(chunk.get(i), list2.head()));
+          list2 = list2.tail();
+        }
+        list1 = chunk.next;
+      }
+      return Helpers.fromArrayList(buffer, list1.zip(list2, zipFunc));
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int hashCode() {
+      if (hashVal == 0) {
+        // our iterator walks the arrays; hashHelper() would make a new Chunk for every tail()
+        hashVal = List.Helpers.iteratorHashHelper(iterator());
+      }
+      return hashVal;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean equals(Object x) {
+      if (this == x) {
+        return true;
+      }
+
+      if (!(x instanceof IList)) {
+        return false;
+      }
+
+      if (x instanceof Chunk) {
+        Chunk<?> otherChunk = (Chunk<?>) x;
+        if (size != UNKNOWN_SIZE && otherChunk.size != UNKNOWN_SIZE && size != otherChunk.size) {
+          return false;
+        }
+      }
+
+      IList<?> otherList = (IList<?>) x;
+      return List.Helpers.iteratorEqualsHelper(iterator(), otherList.iterator());
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public String toString() {
+      return List.Helpers.toStringHelper(this);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <Q> IList<Q> makeEmptySameType() {
+      return makeEmpty();
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    private T get(int index) {
+      @SuppressWarnings("unchecked")
+      T result = (T) elements[index];
+      return result;
+    }
+  }
+
+  /**
+   * Note that this class is not public. Empty lists will be instances of this class, and we'll have
+   * precisely one of them. Clients of the ChunkedList class can use ChunkedList.makeEmpty().
+   * @see ChunkedList#makeEmpty()
+   */
+  class Empty<T> implements ChunkedList<T>, IList.Empty<T> {
+    private static final IList<?> SINGLETON = new ChunkedList.Empty<>();
+
+    // don't call this; use makeEmpty()
+    private Empty() { }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <Q> IList<Q> makeEmptySameType() {
+      return makeEmpty();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean equals(Object x) {
+      if (!(x instanceof IList)) {
+        return false;
+      }
+
+      IList<?> list = (IList<?>) x;
+      return list.empty(); // any empty list will be equal to this one
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int hashCode() {
+      return List.Helpers.hashHelper(this);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public String toString() {
+      return List.Helpers.toStringHelper(this);
+    }
+  }
+}
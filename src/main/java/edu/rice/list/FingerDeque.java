@@ -0,0 +1,255 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import edu.rice.util.Option;
+import edu.rice.util.Pair;
+import edu.rice.util.Strings;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A functional double-ended queue, built on a {@link FingerTree}. As an IQueue, it works just like any other
+ * queue: insert() puts things at the back, and head() and tail() work at the front. Unlike the other queues,
+ * you can also put things at the front, with {@link #insertFront(Object)}, and look at or remove things from the
+ * back, with {@link #olast()} and {@link #init()}. All of these are amortized constant time.
+ */
+public interface FingerDeque<T> extends IQueue<T> {
+  /**
+   * Creates an empty deque of the given type parameter.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> FingerDeque<T> makeEmpty() {
+    @SuppressWarnings("unchecked")
+    FingerDeque<T> typedEmptyDeque = (FingerDeque<T>) Empty.SINGLETON;
+    return typedEmptyDeque;
+  }
+
+  /**
+   * Variadic helper function, creates a deque from the arguments given. The first argument will be at the
+   * front of the deque.
+   */
+  @NotNull
+  @SuppressWarnings("varargs")
+  @SafeVarargs
+  @Contract(pure = true)
+  static <T> FingerDeque<T> of(@Nullable T... vals) {
+    return Helpers.wrap(FingerTree.fromArray(vals));
+  }
+
+  @NotNull
+  @Override
+  @Contract(pure = true)
+  FingerDeque<T> insert(@NotNull T t);
+
+  @NotNull
+  @Override
+  @Contract(pure = true)
+  FingerDeque<T> tail();
+
+  /**
+   * Returns a new deque with the given value at the front, rather than at the back like {@link #insert(Object)}.
+   */
+  @NotNull
+  @Contract(pure = true)
+  FingerDeque<T> insertFront(@NotNull T t);
+
+  /**
+   * Returns the value at the back of the deque (i.e., the one most recently inserted), if there is one.
+   */
+  @NotNull
+  @Contract(pure = true)
+  Option<T> olast();
+
+  /**
+   * Returns a new deque without the value at the back; the empty deque returns itself.
+   */
+  @NotNull
+  @Contract(pure = true)
+  FingerDeque<T> init();
+
+  /**
+   * Returns the contents of the deque, front to back, as a FingerTree, in constant time.
+   */
+  @NotNull
+  @Contract(pure = true)
+  FingerTree<T> toFingerTree();
+
+  class Helpers {
+    private Helpers() { } // do not instantiate!
+
+    @NotNull
+    static <T> FingerDeque<T> wrap(@NotNull FingerTree<T> contents) {
+      return contents.empty() ? makeEmpty() : new Queue<>(contents);
+    }
+  }
+
+  class Queue<T> implements FingerDeque<T> {
+    @NotNull
+    private final FingerTree<T> contents; // never empty
+
+    // Don't call this externally; use the "of" method or the makeEmpty() method instead.
+    private Queue(@NotNull FingerTree<T> contents) {
+      this.contents = contents;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int hashCode() {
+      return toLazyList().hashCode(); // let the list's hash worry about it
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || !(o instanceof IQueue)) {
+        return false;
+      }
+
+      IQueue<?> otherQueue = (IQueue<?>) o;
+
+      return toLazyList().equals(otherQueue.toLazyList()); // iterates both queues, does piecewise equality checking
+    }
+
+    @Override
+    @Contract(pure = true)
+    public String toString() {
+      return "Queue(" + contents.map(Strings::objectToEscapedString).join(", ") + ")";
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerDeque<T> insert(@NotNull T t) {
+      return new Queue<>(contents.append(t));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerDeque<T> insertFront(@NotNull T t) {
+      return new Queue<>(contents.add(t));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public T head() {
+      return contents.head();
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerDeque<T> tail() {
+      return Helpers.wrap(contents.tail());
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Option<T> olast() {
+      return contents.olast();
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerDeque<T> init() {
+      return Helpers.wrap(contents.init());
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Option<Pair<T, IQueue<T>>> oget() {
+      return Option.some(new Pair<>(head(), tail()));
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int size() {
+      return contents.length();
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerTree<T> toFingerTree() {
+      return contents;
+    }
+  }
+
+  /**
+   * The empty deque. There's exactly one of these.
+   *
+   * @see IQueue.Empty
+   */
+  class Empty<T> implements FingerDeque<T>, IQueue.Empty<T> {
+    private static final FingerDeque<?> SINGLETON = new FingerDeque.Empty<>();
+
+    // external users, don't call this; use makeEmpty()
+    private Empty() { }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerDeque<T> insert(@NotNull T newbie) {
+      return FingerDeque.of(newbie);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerDeque<T> insertFront(@NotNull T newbie) {
+      return FingerDeque.of(newbie);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerDeque<T> tail() {
+      return this;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Option<T> olast() {
+      return Option.none();
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerDeque<T> init() {
+      return this;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerTree<T> toFingerTree() {
+      return FingerTree.makeEmpty();
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public String toString() {
+      return "Queue()";
+    }
+  }
+}
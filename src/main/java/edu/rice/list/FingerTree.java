@@ -0,0 +1,1202 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import edu.rice.util.Option;
+import edu.rice.util.Pair;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static edu.rice.list.IList.narrow;
+
+/**
+ * A persistent sequence, built on a 2-3 finger tree (Hinze and Paterson, "Finger trees: a simple general-purpose
+ * data structure", 2006). Like any other IList, you can add to the front and take the tail, but a finger tree
+ * can just as easily work at the back, with {@link #append(Object)}, {@link #olast()}, and {@link #init()}. Those
+ * operations at either end are amortized constant time. Every node in the tree also knows how many elements are
+ * underneath it (its "size measure"), which gets us length() in constant time, and nth(), updateNth(),
+ * {@link #splitAt(int)}, skipN(), and limit() in O(log n) time. Best of all, concatenating two finger trees is
+ * O(log n), rather than O(n) like concatenating two lists.
+ *
+ * <p>As with List, use the static methods here to get started, and then everything else happens through the
+ * IList interface.
+ * @see IList
+ * @see FingerDeque
+ */
+public interface FingerTree<T> extends IList<T> {
+  //
+  // Data definition:
+  //
+  // A FingerTree is either: an empty sequence, or a non-empty sequence wrapped around the internal tree structure.
+  // These are represented by the FingerTree.Empty and FingerTree.NonEmpty classes.
+  //
+  // The internal tree, in turn, is either empty, a single item, or "deep": a "prefix" digit of one to four items,
+  // a "middle" finger tree, and a "suffix" digit of one to four items. The trick is that the middle tree's items are
+  // 2-3 nodes of the outer tree's items, so each level down, the items get bigger: first our elements, then nodes of
+  // elements, then nodes of nodes of elements, and so on. The ends of the sequence are always right there, in the
+  // top-level digits, which is why working with the ends is so cheap.
+  //
+  // Engineering note: Java's generics can't express "a tree of nodes of T", at least not without a lot of
+  // contortions, so internally everything is an Object, and we tell nodes apart from elements with instanceof.
+  // The node class is private, so there's no way for somebody's element to be mistaken for one of our nodes.
+  //
+
+  /**
+   * Create an empty sequence of the given type parameter.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> FingerTree<T> makeEmpty() {
+    @SuppressWarnings("unchecked")
+    FingerTree<T> typedEmpty = (FingerTree<T>) Empty.SINGLETON;
+    return typedEmpty;
+  }
+
+  /**
+   * Construct a sequence with the specified head element and another list as the tail. If the tail isn't already
+   * a finger tree, it's converted to one, which means it must be finite.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> FingerTree<T> make(@NotNull T headVal, @NotNull IList<? extends T> tailVal) {
+    return FingerTree.<T>from(tailVal).add(headVal);
+  }
+
+  /**
+   * Given any IList, return a finger tree with the same contents. If the list is already a finger tree, you get
+   * it right back; otherwise, the list must be finite.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> FingerTree<T> from(@NotNull IList<? extends T> list) {
+    if (list instanceof FingerTree) {
+      @SuppressWarnings("unchecked")
+      FingerTree<T> result = (FingerTree<T>) list;
+      return result;
+    }
+    return fromIterator(list.iterator());
+  }
+
+  /**
+   * Constructs a sequence from an original java.util.List.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> FingerTree<T> fromList(@NotNull java.util.List<? extends T> original) {
+    return fromIterator(original.iterator());
+  }
+
+  /**
+   * Given a traditional Java iterator, return a sequence that captures the output of the iterator. If the iterator
+   * is infinite, this method may never return or may run out of memory.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> FingerTree<T> fromIterator(@NotNull Iterator<? extends T> source) {
+    Helpers.Tree tree = Helpers.EmptyTree.INSTANCE;
+    while (source.hasNext()) {
+      tree = tree.pushBack(source.next());
+    }
+    return Helpers.wrap(tree);
+  }
+
+  /**
+   * Given a traditional Java array, return a sequence; note that if the underlying array changes, the sequence will
+   * not update itself. The values are copied immediately.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> FingerTree<T> fromArray(@Nullable T[] source) {
+    if (source == null) {
+      return makeEmpty();
+    }
+    return Helpers.fromArray(source, source.length);
+  }
+
+  /**
+   * Varargs constructor.
+   */
+  @NotNull
+  @SuppressWarnings("varargs")
+  @SafeVarargs
+  @Contract(pure = true)
+  static <T> FingerTree<T> of(@Nullable T... source) {
+    return fromArray(source);
+  }
+
+  /**
+   * Returns a sequence of integers from min to max, inclusive.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static FingerTree<Integer> rangeInt(int min, int max) {
+    return from(List.rangeInt(min, max));
+  }
+
+  /**
+   * Returns a sequence of integers from start to finish, inclusive, skipping every increment. Works just like
+   * {@link List#rangeInt(int, int, int)}.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static FingerTree<Integer> rangeInt(int start, int finish, int increment) {
+    return from(List.rangeInt(start, finish, increment));
+  }
+
+  /**
+   * Returns a new sequence with the given value in front.
+   */
+  @NotNull
+  @Override
+  @Contract(pure = true)
+  FingerTree<T> add(@NotNull T value);
+
+  /**
+   * Returns a new sequence with the given value at the back.
+   */
+  @NotNull
+  @Contract(pure = true)
+  FingerTree<T> append(@NotNull T value);
+
+  /**
+   * Returns everything but the first element of the sequence, which is still a FingerTree.
+   */
+  @NotNull
+  @Override
+  @Contract(pure = true)
+  FingerTree<T> tail();
+
+  /**
+   * Returns the last element of the sequence, if there is one.
+   */
+  @NotNull
+  @Contract(pure = true)
+  Option<T> olast();
+
+  /**
+   * Returns everything but the last element of the sequence; the empty sequence returns itself.
+   */
+  @NotNull
+  @Contract(pure = true)
+  FingerTree<T> init();
+
+  /**
+   * Returns the first n elements of the sequence, and everything after them, as a pair of sequences. If n is
+   * zero or less, the first sequence is empty; if n is the length of the list or more, the second one is.
+   */
+  @NotNull
+  @Contract(pure = true)
+  Pair<FingerTree<T>, FingerTree<T>> splitAt(int n);
+
+  /**
+   * Returns a new sequence with the other sequence's elements after this one's, in O(log n) time.
+   */
+  @NotNull
+  @Contract(pure = true)
+  FingerTree<T> concat(@NotNull FingerTree<? extends T> afterTail);
+
+  @NotNull
+  @Override
+  @Contract(pure = true)
+  default <Q> IList<Q> makeEmptySameType() {
+    return makeEmpty();
+  }
+
+  /**
+   * Functions and internal classes that aren't meant for public use.
+   */
+  class Helpers {
+    private Helpers() { } // do not instantiate!
+
+    /**
+     * Wraps an internal tree as a FingerTree.
+     */
+    @NotNull
+    static <T> FingerTree<T> wrap(@NotNull Tree tree) {
+      return (tree.size() == 0) ? makeEmpty() : new NonEmpty<>(tree);
+    }
+
+    /**
+     * Builds a sequence out of the first count values in the array.
+     */
+    @NotNull
+    static <T> FingerTree<T> fromArray(@NotNull Object[] values, int count) {
+      Tree tree = EmptyTree.INSTANCE;
+      for (int i = 0; i < count; i++) {
+        tree = tree.pushBack(values[i]);
+      }
+      return wrap(tree);
+    }
+
+    /**
+     * The size measure of an item: one, for our elements, or however many elements are underneath a node.
+     */
+    static int sizeOf(@NotNull Object item) {
+      return (item instanceof Node) ? ((Node) item).size : 1;
+    }
+
+    static int sizeOf(@NotNull Object[] digit) {
+      int size = 0;
+      for (Object item : digit) {
+        size += sizeOf(item);
+      }
+      return size;
+    }
+
+    /**
+     * Given an item and an index within it, returns the element at that index, descending through nodes as
+     * necessary.
+     */
+    @NotNull
+    static Object lookupItem(@NotNull Object item, int index) {
+      while (item instanceof Node) {
+        for (Object child : ((Node) item).items) {
+          int childSize = sizeOf(child);
+          if (index < childSize) {
+            item = child;
+            break;
+          }
+          index -= childSize;
+        }
+      }
+      return item;
+    }
+
+    @NotNull
+    static Object lookupDigit(@NotNull Object[] digit, int index) {
+      for (Object item : digit) {
+        int itemSize = sizeOf(item);
+        if (index < itemSize) {
+          return lookupItem(item, index);
+        }
+        index -= itemSize;
+      }
+      throw new IndexOutOfBoundsException("internal error: index beyond the end of a digit");
+    }
+
+    /**
+     * Makes a tree out of a digit of zero to four items.
+     */
+    @NotNull
+    static Tree digitToTree(@NotNull Object[] digit) {
+      switch (digit.length) {
+        case 0:
+          return EmptyTree.INSTANCE;
+        case 1:
+          return new Single(digit[0]);
+        default:
+          int half = digit.length / 2;
+          return new Deep(slice(digit, 0, half), EmptyTree.INSTANCE, slice(digit, half, digit.length));
+      }
+    }
+
+    /**
+     * Makes a deep tree, except the prefix might be empty, in which case we borrow from the middle, or failing
+     * that, the suffix.
+     */
+    @NotNull
+    static Tree deepLeft(@NotNull Object[] prefix, @NotNull Tree middle, @NotNull Object[] suffix) {
+      if (prefix.length > 0) {
+        return new Deep(prefix, middle, suffix);
+      }
+      if (middle.size() == 0) {
+        return digitToTree(suffix);
+      }
+      return new Deep(((Node) middle.first()).items, middle.popFront(), suffix);
+    }
+
+    /**
+     * Makes a deep tree, except the suffix might be empty, in which case we borrow from the middle, or failing
+     * that, the prefix.
+     */
+    @NotNull
+    static Tree deepRight(@NotNull Object[] prefix, @NotNull Tree middle, @NotNull Object[] suffix) {
+      if (suffix.length > 0) {
+        return new Deep(prefix, middle, suffix);
+      }
+      if (middle.size() == 0) {
+        return digitToTree(prefix);
+      }
+      return new Deep(prefix, middle.popBack(), ((Node) middle.last()).items);
+    }
+
+    /**
+     * Concatenates left, then the loose items in the middle, then right.
+     */
+    @NotNull
+    static Tree concat(@NotNull Tree left, @NotNull Object[] items, @NotNull Tree right) {
+      if (left instanceof EmptyTree) {
+        Tree result = right;
+        for (int i = items.length - 1; i >= 0; i--) {
+          result = result.pushFront(items[i]);
+        }
+        return result;
+      }
+
+      if (right instanceof EmptyTree) {
+        Tree result = left;
+        for (Object item : items) {
+          result = result.pushBack(item);
+        }
+        return result;
+      }
+
+      if (left instanceof Single) {
+        return concat(EmptyTree.INSTANCE, items, right).pushFront(((Single) left).item);
+      }
+
+      if (right instanceof Single) {
+        return concat(left, items, EmptyTree.INSTANCE).pushBack(((Single) right).item);
+      }
+
+      // both are deep: the left suffix, the loose items, and the right prefix get bundled into nodes, which
+      // become the loose items when we concatenate the two middle trees, one level down
+      Deep deepLeft = (Deep) left;
+      Deep deepRight = (Deep) right;
+      Object[] loose = new Object[deepLeft.suffix.length + items.length + deepRight.prefix.length];
+      System.arraycopy(deepLeft.suffix, 0, loose, 0, deepLeft.suffix.length);
+      System.arraycopy(items, 0, loose, deepLeft.suffix.length, items.length);
+      System.arraycopy(deepRight.prefix, 0, loose, deepLeft.suffix.length + items.length, deepRight.prefix.length);
+
+      return new Deep(deepLeft.prefix, concat(deepLeft.middle, nodes(loose), deepRight.middle), deepRight.suffix);
+    }
+
+    /**
+     * Bundles between 2 and 12 items into 2-3 nodes, preferring 3-nodes.
+     */
+    @NotNull
+    static Object[] nodes(@NotNull Object[] items) {
+      int count = items.length;
+      ArrayList<Object> result = new ArrayList<>(count / 2);
+      int i = 0;
+      while (count - i > 4) {
+        result.add(new Node(items[i], items[i + 1], items[i + 2]));
+        i += 3;
+      }
+      switch (count - i) {
+        case 2:
+          result.add(new Node(items[i], items[i + 1]));
+          break;
+        case 3:
+          result.add(new Node(items[i], items[i + 1], items[i + 2]));
+          break;
+        case 4:
+          result.add(new Node(items[i], items[i + 1]));
+          result.add(new Node(items[i + 2], items[i + 3]));
+          break;
+        default:
+          throw new IllegalStateException("internal error: can't make nodes of " + count + " items");
+      }
+      return result.toArray();
+    }
+
+    @NotNull
+    static Object[] slice(@NotNull Object[] digit, int from, int to) {
+      Object[] result = new Object[to - from];
+      System.arraycopy(digit, from, result, 0, to - from);
+      return result;
+    }
+
+    @NotNull
+    static Object[] prepend(@NotNull Object item, @NotNull Object[] digit) {
+      Object[] result = new Object[digit.length + 1];
+      result[0] = item;
+      System.arraycopy(digit, 0, result, 1, digit.length);
+      return result;
+    }
+
+    @NotNull
+    static Object[] append(@NotNull Object[] digit, @NotNull Object item) {
+      Object[] result = new Object[digit.length + 1];
+      System.arraycopy(digit, 0, result, 0, digit.length);
+      result[digit.length] = item;
+      return result;
+    }
+
+    /**
+     * The result of splitting a tree: everything to the left of the item at the split point, the item itself,
+     * and everything to its right.
+     */
+    static final class Split {
+      @NotNull
+      final Tree left;
+      @NotNull
+      final Object item;
+      @NotNull
+      final Tree right;
+
+      Split(@NotNull Tree left, @NotNull Object item, @NotNull Tree right) {
+        this.left = left;
+        this.item = item;
+        this.right = right;
+      }
+    }
+
+    /**
+     * A 2-3 node: two or three items, along with the total size measure of everything underneath.
+     */
+    private static final class Node {
+      @NotNull
+      final Object[] items;
+      final int size;
+
+      Node(@NotNull Object... items) {
+        this.items = items;
+        this.size = sizeOf(items);
+      }
+    }
+
+    /**
+     * The internal finger tree, over items which are either our elements or nodes. External users will never
+     * see these.
+     */
+    abstract static class Tree {
+      abstract int size();
+
+      @NotNull
+      abstract Tree pushFront(@NotNull Object item);
+
+      @NotNull
+      abstract Tree pushBack(@NotNull Object item);
+
+      @NotNull
+      abstract Object first();
+
+      @NotNull
+      abstract Object last();
+
+      @NotNull
+      abstract Tree popFront();
+
+      @NotNull
+      abstract Tree popBack();
+
+      /**
+       * Returns the element at the given index, where 0 &lt;= index &lt; size().
+       */
+      @NotNull
+      abstract Object lookup(int index);
+
+      /**
+       * Splits the tree around the item containing the given index, where 0 &lt;= index &lt; size().
+       */
+      @NotNull
+      abstract Split split(int index);
+    }
+
+    static final class EmptyTree extends Tree {
+      static final EmptyTree INSTANCE = new EmptyTree();
+
+      private EmptyTree() { }
+
+      @Override
+      int size() {
+        return 0;
+      }
+
+      @NotNull
+      @Override
+      Tree pushFront(@NotNull Object item) {
+        return new Single(item);
+      }
+
+      @NotNull
+      @Override
+      Tree pushBack(@NotNull Object item) {
+        return new Single(item);
+      }
+
+      @NotNull
+      @Override
+      Object first() {
+        throw new NoSuchElementException("empty tree");
+      }
+
+      @NotNull
+      @Override
+      Object last() {
+        throw new NoSuchElementException("empty tree");
+      }
+
+      @NotNull
+      @Override
+      Tree popFront() {
+        return this;
+      }
+
+      @NotNull
+      @Override
+      Tree popBack() {
+        return this;
+      }
+
+      @NotNull
+      @Override
+      Object lookup(int index) {
+        throw new NoSuchElementException("empty tree");
+      }
+
+      @NotNull
+      @Override
+      Split split(int index) {
+        throw new NoSuchElementException("empty tree");
+      }
+    }
+
+    static final class Single extends Tree {
+      @NotNull
+      final Object item;
+
+      Single(@NotNull Object item) {
+        this.item = item;
+      }
+
+      @Override
+      int size() {
+        return sizeOf(item);
+      }
+
+      @NotNull
+      @Override
+      Tree pushFront(@NotNull Object newItem) {
+        return new Deep(new Object[] { newItem }, EmptyTree.INSTANCE, new Object[] { item });
+      }
+
+      @NotNull
+      @Override
+      Tree pushBack(@NotNull Object newItem) {
+        return new Deep(new Object[] { item }, EmptyTree.INSTANCE, new Object[] { newItem });
+      }
+
+      @NotNull
+      @Override
+      Object first() {
+        return item;
+      }
+
+      @NotNull
+      @Override
+      Object last() {
+        return item;
+      }
+
+      @NotNull
+      @Override
+      Tree popFront() {
+        return EmptyTree.INSTANCE;
+      }
+
+      @NotNull
+      @Override
+      Tree popBack() {
+        return EmptyTree.INSTANCE;
+      }
+
+      @NotNull
+      @Override
+      Object lookup(int index) {
+        return lookupItem(item, index);
+      }
+
+      @NotNull
+      @Override
+      Split split(int index) {
+        return new Split(EmptyTree.INSTANCE, item, EmptyTree.INSTANCE);
+      }
+    }
+
+    static final class Deep extends Tree {
+      @NotNull
+      final Object[] prefix;
+      @NotNull
+      final Tree middle;
+      @NotNull
+      final Object[] suffix;
+      private final int size;
+
+      Deep(@NotNull Object[] prefix, @NotNull Tree middle, @NotNull Object[] suffix) {
+        this.prefix = prefix;
+        this.middle = middle;
+        this.suffix = suffix;
+        this.size = sizeOf(prefix) + middle.size() + sizeOf(suffix);
+      }
+
+      @Override
+      int size() {
+        return size;
+      }
+
+      @NotNull
+      @Override
+      Tree pushFront(@NotNull Object item) {
+        if (prefix.length < 4) {
+          return new Deep(Helpers.prepend(item, prefix), middle, suffix);
+        }
+        // the prefix is full, so we keep two items and push the other three down a level, as a node
+        return new Deep(new Object[] { item, prefix[0] },
+            middle.pushFront(new Node(prefix[1], prefix[2], prefix[3])),
+            suffix);
+      }
+
+      @NotNull
+      @Override
+      Tree pushBack(@NotNull Object item) {
+        if (suffix.length < 4) {
+          return new Deep(prefix, middle, Helpers.append(suffix, item));
+        }
+        return new Deep(prefix,
+            middle.pushBack(new Node(suffix[0], suffix[1], suffix[2])),
+            new Object[] { suffix[3], item });
+      }
+
+      @NotNull
+      @Override
+      Object first() {
+        return prefix[0];
+      }
+
+      @NotNull
+      @Override
+      Object last() {
+        return suffix[suffix.length - 1];
+      }
+
+      @NotNull
+      @Override
+      Tree popFront() {
+        return deepLeft(slice(prefix, 1, prefix.length), middle, suffix);
+      }
+
+      @NotNull
+      @Override
+      Tree popBack() {
+        return deepRight(prefix, middle, slice(suffix, 0, suffix.length - 1));
+      }
+
+      @NotNull
+      @Override
+      Object lookup(int index) {
+        int prefixSize = sizeOf(prefix);
+        if (index < prefixSize) {
+          return lookupDigit(prefix, index);
+        }
+        index -= prefixSize;
+
+        int middleSize = middle.size();
+        if (index < middleSize) {
+          return middle.lookup(index);
+        }
+        return lookupDigit(suffix, index - middleSize);
+      }
+
+      @NotNull
+      @Override
+      Split split(int index) {
+        int prefixSize = sizeOf(prefix);
+        if (index < prefixSize) {
+          int i = splitPoint(prefix, index);
+          return new Split(digitToTree(slice(prefix, 0, i)), prefix[i],
+              deepLeft(slice(prefix, i + 1, prefix.length), middle, suffix));
+        }
+        index -= prefixSize;
+
+        int middleSize = middle.size();
+        if (index < middleSize) {
+          // split the middle, which gives us a node; then split the node, whose items are at our level
+          Split middleSplit = middle.split(index);
+          Object[] nodeItems = ((Node) middleSplit.item).items;
+          int i = splitPoint(nodeItems, index - middleSplit.left.size());
+          return new Split(deepRight(prefix, middleSplit.left, slice(nodeItems, 0, i)), nodeItems[i],
+              deepLeft(slice(nodeItems, i + 1, nodeItems.length), middleSplit.right, suffix));
+        }
+        index -= middleSize;
+
+        int i = splitPoint(suffix, index);
+        return new Split(deepRight(prefix, middle, slice(suffix, 0, i)), suffix[i],
+            digitToTree(slice(suffix, i + 1, suffix.length)));
+      }
+
+      /**
+       * Returns which of the items in the digit contains the given index.
+       */
+      private static int splitPoint(@NotNull Object[] digit, int index) {
+        for (int i = 0; i < digit.length; i++) {
+          int itemSize = sizeOf(digit[i]);
+          if (index < itemSize) {
+            return i;
+          }
+          index -= itemSize;
+        }
+        throw new IndexOutOfBoundsException("internal error: index beyond the end of a digit");
+      }
+    }
+
+    /**
+     * Walks the elements of a tree from front to back, keeping a stack of the trees, nodes, and digits that are
+     * waiting to be visited.
+     */
+    static final class TreeIterator<T> implements Iterator<T> {
+      private final ArrayDeque<Object> pending = new ArrayDeque<>();
+      private int remaining;
+
+      TreeIterator(@NotNull Tree tree) {
+        pending.push(tree);
+        remaining = tree.size();
+      }
+
+      @Override
+      public boolean hasNext() {
+        return remaining > 0;
+      }
+
+      @Override
+      public T next() {
+        if (remaining == 0) {
+          throw new NoSuchElementException("no more elements in the sequence");
+        }
+
+        for (;;) {
+          Object next = pending.pop();
+          if (next instanceof Deep) {
+            Deep deep = (Deep) next;
+            pushAll(deep.suffix);
+            pending.push(deep.middle);
+            pushAll(deep.prefix);
+          } else if (next instanceof Single) {
+            pending.push(((Single) next).item);
+          } else if (next instanceof Node) {
+            pushAll(((Node) next).items);
+          } else if (!(next instanceof EmptyTree)) {
+            remaining--;
+            @SuppressWarnings("unchecked")
+            T result = (T) next;
+            return result;
+          }
+        }
+      }
+
+      // push the items so that the first one will be popped first
+      private void pushAll(@NotNull Object[] items) {
+        for (int i = items.length - 1; i >= 0; i--) {
+          pending.push(items[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * A non-empty sequence. External users will never use this directly. Instead, use the static methods in
+   * FingerTree to get started.
+   */
+  class NonEmpty<T> implements FingerTree<T> {
+    @NotNull
+    private final Helpers.Tree tree;
+
+    // The structural hash, computed on the first call to hashCode() and then remembered; same trick as List.Cons.
+    private int hashVal;
+
+    // don't call this; use the static methods in FingerTree
+    private NonEmpty(@NotNull Helpers.Tree tree) {
+      this.tree = tree;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T element(@NotNull Object item) {
+      return (T) item;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerTree<T> add(@NotNull T value) {
+      return new NonEmpty<>(tree.pushFront(value));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerTree<T> append(@NotNull T value) {
+      return new NonEmpty<>(tree.pushBack(value));
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean empty() {
+      return false;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public T head() {
+      return element(tree.first());
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerTree<T> tail() {
+      return Helpers.wrap(tree.popFront());
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Option<T> olast() {
+      return Option.some(element(tree.last()));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerTree<T> init() {
+      return Helpers.wrap(tree.popBack());
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int length() {
+      return tree.size();
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Option<T> nth(int n) {
+      if (n < 0 || n >= tree.size()) {
+        return Option.none();
+      }
+      return Option.some(element(tree.lookup(n)));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Pair<FingerTree<T>, FingerTree<T>> splitAt(int n) {
+      if (n <= 0) {
+        return new Pair<>(makeEmpty(), this);
+      }
+      if (n >= tree.size()) {
+        return new Pair<>(this, makeEmpty());
+      }
+      Helpers.Split split = tree.split(n);
+      return new Pair<>(Helpers.wrap(split.left), Helpers.wrap(split.right.pushFront(split.item)));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> skipN(int n) {
+      return splitAt(n).b;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> limit(int n) {
+      return splitAt(n).a;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> updateNth(int n, @NotNull Function<? super T, Option<? extends T>> updateFunc) {
+      if (n < 0 || n >= tree.size()) {
+        return this;
+      }
+
+      Helpers.Split split = tree.split(n);
+      Option<? extends T> newVal = updateFunc.apply(element(split.item));
+      Object[] middle = newVal.isSome() ? new Object[] { newVal.get() } : new Object[0];
+      return Helpers.wrap(Helpers.concat(split.left, middle, split.right));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerTree<T> concat(@NotNull FingerTree<? extends T> afterTail) {
+      if (afterTail.empty()) {
+        return this;
+      }
+      return new NonEmpty<>(Helpers.concat(tree, new Object[0], ((NonEmpty<?>) afterTail).tree));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> concat(@NotNull IList<? extends T> afterTail) {
+      if (afterTail instanceof FingerTree) {
+        return concat((FingerTree<? extends T>) afterTail);
+      }
+      if (afterTail.empty()) {
+        return this;
+      }
+
+      // The afterTail might be lazy, and might even be infinite, so we can't copy it into the tree. Instead,
+      // we do what any eager list would do: share the afterTail and prepend our own elements to it.
+      return List.Helpers.prependReversed(reverse(), narrow(afterTail));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Iterator<T> iterator() {
+      return new Helpers.TreeIterator<>(tree);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Spliterator<T> spliterator() {
+      return Spliterators.spliterator(iterator(), tree.size(), List.Helpers.SPLITERATOR_CHARACTERISTICS);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public void foreach(@NotNull Consumer<? super T> consumer) {
+      for (T value : this) {
+        consumer.accept(value);
+      }
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <U> U foldl(@NotNull U zero, @NotNull BiFunction<? super U, ? super T, ? extends U> f) {
+      U accumulator = zero;
+      for (T value : this) {
+        accumulator = f.apply(accumulator, value);
+      }
+      return accumulator;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> reverse() {
+      Helpers.Tree result = Helpers.EmptyTree.INSTANCE;
+      for (T value : this) {
+        result = result.pushFront(value);
+      }
+      return Helpers.wrap(result);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <Q> IList<Q> map(@NotNull Function<? super T, ? extends Q> f) {
+      Helpers.Tree result = Helpers.EmptyTree.INSTANCE;
+      for (T value : this) {
+        result = result.pushBack(f.apply(value));
+      }
+      return Helpers.wrap(result);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> filter(@NotNull Predicate<? super T> predicate) {
+      Helpers.Tree result = Helpers.EmptyTree.INSTANCE;
+      for (T value : this) {
+        if (predicate.test(value)) {
+          result = result.pushBack(value);
+        }
+      }
+      return Helpers.wrap(result);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> takeWhile(@NotNull Predicate<? super T> predicate) {
+      int count = 0;
+      for (T value : this) {
+        if (!predicate.test(value)) {
+          break;
+        }
+        count++;
+      }
+      return limit(count);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <Q> IList<Q> flatmap(@NotNull Function<? super T, ? extends IList<? extends Q>> f) {
+      Helpers.Tree result = Helpers.EmptyTree.INSTANCE;
+      for (T value : this) {
+        for (Q q : narrow(f.apply(value))) {
+          result = result.pushBack(q);
+        }
+      }
+      return Helpers.wrap(result);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <U, V> IList<V> zip(@NotNull IList<? extends U> list,
+                               @NotNull BiFunction<? super T, ? super U, ? extends V> zipFunc) {
+      Helpers.Tree result = Helpers.EmptyTree.INSTANCE;
+      IList<? extends U> other = list;
+      for (T value : this) {
+        if (other.empty()) {
+          break;
+        }
+        result = result.pushBack(zipFunc.apply(value, other.head()));
+        other = other.tail();
+      }
+      return Helpers.wrap(result);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int hashCode() {
+      if (hashVal == 0) {
+        // our iterator walks the tree; hashHelper() would rebuild the digits for every tail()
+        hashVal = List.Helpers.iteratorHashHelper(iterator());
+      }
+      return hashVal;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean equals(Object x) {
+      if (this == x) {
+        return true;
+      }
+
+      if (!(x instanceof IList)) {
+        return false;
+      }
+
+      if (x instanceof NonEmpty && ((NonEmpty<?>) x).tree.size() != tree.size()) {
+        return false;
+      }
+
+      IList<?> otherList = (IList<?>) x;
+      return List.Helpers.iteratorEqualsHelper(iterator(), otherList.iterator());
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public String toString() {
+      return List.Helpers.toStringHelper(this);
+    }
+  }
+
+  /**
+   * Note that this class is not public. Empty sequences will be instances of this class, and we'll have
+   * precisely one of them. Clients of the FingerTree class can use FingerTree.makeEmpty().
+   * @see FingerTree#makeEmpty()
+   */
+  class Empty<T> implements FingerTree<T>, IList.Empty<T> {
+    private static final FingerTree<?> SINGLETON = new FingerTree.Empty<>();
+
+    // don't call this; use makeEmpty()
+    private Empty() { }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerTree<T> add(@NotNull T value) {
+      return new NonEmpty<>(new Helpers.Single(value));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerTree<T> append(@NotNull T value) {
+      return new NonEmpty<>(new Helpers.Single(value));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerTree<T> tail() {
+      throw new NoSuchElementException("can't take tail() of an empty sequence");
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Option<T> olast() {
+      return Option.none();
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerTree<T> init() {
+      return this;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Pair<FingerTree<T>, FingerTree<T>> splitAt(int n) {
+      return new Pair<>(this, this);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public FingerTree<T> concat(@NotNull FingerTree<? extends T> afterTail) {
+      @SuppressWarnings("unchecked")
+      FingerTree<T> result = (FingerTree<T>) afterTail;
+      return result;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <Q> IList<Q> makeEmptySameType() {
+      return makeEmpty();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean equals(Object x) {
+      if (!(x instanceof IList)) {
+        return false;
+      }
+
+      IList<?> list = (IList<?>) x;
+      return list.empty(); // any empty list will be equal to this one
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int hashCode() {
+      return List.Helpers.hashHelper(this);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public String toString() {
+      return List.Helpers.toStringHelper(this);
+    }
+  }
+}
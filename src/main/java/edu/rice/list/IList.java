@@ -11,12 +11,17 @@
 package edu.rice.list;
 
 import edu.rice.util.*;
-import edu.rice.tree.BinaryHeap;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * All of our lists, whether lazy or eager, will implement this interface. A bunch of "default"
@@ -27,7 +32,7 @@ import java.util.function.*;
  * means there are no setter methods. Every list operation returns a new list, and the old list
  * doesn't change.
  */
-public interface IList<T> {
+public interface IList<T> extends Iterable<T> {
   /**
    * Similar to head(), but returns an Option variant; if there's something in the list, then you
    * get the Option.Some of the value. If the list is empty, you get Option.None
@@ -105,8 +110,15 @@ public interface IList<T> {
    */
   @Contract(pure = true)
   default int length() {
-    // Foldl here ignores the elements in the list, and just uses the folding function to increment the counter each time.
-    return foldl(0, (count, elem) -> count + 1);
+    // We could write this with foldl, ignoring the elements and incrementing a counter each time, but then we'd be
+    // boxing a new Integer for every element. A plain loop doesn't allocate anything.
+    int count = 0;
+    IList<T> current = this;
+    while (!current.empty()) {
+      count++;
+      current = current.tail();
+    }
+    return count;
   }
 
   /**
@@ -279,6 +291,54 @@ public interface IList<T> {
   @Contract(pure = true)
   <Q> IList<Q> map(@NotNull Function<? super T, ? extends Q> f);
 
+  /**
+   * Return a IntList with this function applied to each of the elements of the current list. The results are
+   * kept as primitive int values, so there's no boxing. This forces the whole list, even if it's lazy.
+   * @see IntList
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IntList mapToInt(@NotNull ToIntFunction<? super T> f) {
+    // accumulating onto the front of a list reverses the order, so we have to flip it back at the end
+    IntList reversed = IntList.makeEmpty();
+    for (IList<T> list = this; !list.empty(); list = list.tail()) {
+      reversed = reversed.add(f.applyAsInt(list.head()));
+    }
+    return reversed.reverse();
+  }
+
+  /**
+   * Return a LongList with this function applied to each of the elements of the current list. The results are
+   * kept as primitive long values, so there's no boxing. This forces the whole list, even if it's lazy.
+   * @see LongList
+   */
+  @NotNull
+  @Contract(pure = true)
+  default LongList mapToLong(@NotNull ToLongFunction<? super T> f) {
+    // accumulating onto the front of a list reverses the order, so we have to flip it back at the end
+    LongList reversed = LongList.makeEmpty();
+    for (IList<T> list = this; !list.empty(); list = list.tail()) {
+      reversed = reversed.add(f.applyAsLong(list.head()));
+    }
+    return reversed.reverse();
+  }
+
+  /**
+   * Return a DoubleList with this function applied to each of the elements of the current list. The results are
+   * kept as primitive double values, so there's no boxing. This forces the whole list, even if it's lazy.
+   * @see DoubleList
+   */
+  @NotNull
+  @Contract(pure = true)
+  default DoubleList mapToDouble(@NotNull ToDoubleFunction<? super T> f) {
+    // accumulating onto the front of a list reverses the order, so we have to flip it back at the end
+    DoubleList reversed = DoubleList.makeEmpty();
+    for (IList<T> list = this; !list.empty(); list = list.tail()) {
+      reversed = reversed.add(f.applyAsDouble(list.head()));
+    }
+    return reversed.reverse();
+  }
+
   /**
    * Return a list with afterTail concatenate after it, (e.g., if a = [1,2,3] and b=[4,5,6],
    * a.concat(b) -&gt; [1,2,3,4,5,6]). If you need lazy concatenation, there are static methods
@@ -400,14 +460,62 @@ public interface IList<T> {
    * <pre>
    * <code>(a,b) -&gt; a.compareTo(b)&lt;0</code>.
    * </pre>
+   *
+   * <p>The sort is stable: elements that are equal to one another, as far as the lessThanFunction is concerned,
+   * stay in the same order they were in originally. This forces the whole list, even if it's lazy.
    */
   @NotNull
   @Contract(pure = true)
   default IList<T> sort(@NotNull BiPredicate<? super T, ? super T> lessThanFunction) {
-    BinaryHeap<T> heap = new BinaryHeap<>(lessThanFunction);
+    // Engineering note: this used to insert everything into a BinaryHeap and then drain it out again, which
+    // isn't stable. Instead, we copy the list into an array, run a merge sort on that, and build a new list
+    // from the results. Merge sort only ever needs to know whether one value is less than another, so each
+    // comparison is exactly one call to the lessThanFunction.
+    Object[] values = List.Helpers.toArray(this);
+    Parallel.mergeSort(values, lessThanFunction);
+    return List.Helpers.fromArraySameType(values, values.length, makeEmptySameType());
+  }
+
+  /**
+   * Same as {@link #sort(BiPredicate)}, but takes a standard Java Comparator, e.g.,
+   * <code>Comparator.naturalOrder()</code> or <code>Comparator.comparing(Person::getName)</code>. (This can't
+   * be another version of sort(), because then Java couldn't tell which one you meant when you pass a lambda.)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IList<T> sortWith(@NotNull Comparator<? super T> comparator) {
+    return sort((a, b) -> comparator.compare(a, b) < 0);
+  }
+
+  /**
+   * Same as {@link #sort(BiPredicate)}, but runs on multiple cores at once. The results are exactly the same.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IList<T> parallelSort(@NotNull BiPredicate<? super T, ? super T> lessThanFunction) {
+    return parallelSort(lessThanFunction, Parallel.DEFAULT_THRESHOLD);
+  }
 
-    foreach(heap::insert);
-    return heap.drainToLazyList();
+  /**
+   * Same as {@link #sort(BiPredicate)}, but runs on multiple cores at once. Ranges of no more than
+   * threshold elements are sorted sequentially.
+   * @see Parallel#DEFAULT_THRESHOLD
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IList<T> parallelSort(@NotNull BiPredicate<? super T, ? super T> lessThanFunction, int threshold) {
+    Object[] values = List.Helpers.toArray(this);
+    Parallel.parallelMergeSort(values, threshold, lessThanFunction);
+    return List.Helpers.fromArraySameType(values, values.length, makeEmptySameType());
+  }
+
+  /**
+   * Same as {@link #sortWith(Comparator)}, but runs on multiple cores at once. The results are exactly the same.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IList<T> parallelSortWith(@NotNull Comparator<? super T> comparator) {
+    return parallelSort((a, b) -> comparator.compare(a, b) < 0);
   }
 
   /**
@@ -427,6 +535,169 @@ public interface IList<T> {
     }
   }
 
+  /**
+   * Returns a view of this list, which lets you chain together map, filter, takeWhile, and limit operations that
+   * only run, all fused together in a single loop, when you ask for a result with foldl, foreach, or toList.
+   * This avoids building a whole intermediate list for every stage of the pipeline.
+   * @see ListView
+   */
+  @NotNull
+  @Contract(pure = true)
+  default ListView<T> view() {
+    return ListView.of(this);
+  }
+
+  /**
+   * Returns a traditional Java iterator over the list, start to finish. This lets you use an IList in a
+   * Java for-each loop. Lazy lists are only evaluated as far as the iterator goes.
+   */
+  @NotNull
+  @Override
+  @Contract(pure = true)
+  default Iterator<T> iterator() {
+    return new Iterator<T>() {
+      private IList<T> current = IList.this;
+
+      @Override
+      public boolean hasNext() {
+        return !current.empty();
+      }
+
+      @Override
+      public T next() {
+        if (current.empty()) {
+          throw new NoSuchElementException("no more elements in the list");
+        }
+        T result = current.head();
+        current = current.tail();
+        return result;
+      }
+    };
+  }
+
+  /**
+   * Returns a Java spliterator over the list, which is what you need to feed the list to java.util.stream.
+   * The spliterator is ORDERED, IMMUTABLE, and NONNULL. Eager lists, which know their length, also
+   * report themselves as SIZED, while lazy lists might be infinite, so they can't.
+   * @see #stream()
+   */
+  @NotNull
+  @Override
+  @Contract(pure = true)
+  default Spliterator<T> spliterator() {
+    return Spliterators.spliteratorUnknownSize(iterator(), List.Helpers.SPLITERATOR_CHARACTERISTICS);
+  }
+
+  /**
+   * Returns a sequential Java stream of the list's elements.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Stream<T> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+  /**
+   * Returns a possibly parallel Java stream of the list's elements. Our lists can only be walked from the
+   * front, so the spliterator divides the work by peeling off batches of elements into arrays, which is
+   * the same thing Java does for its own LinkedList.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Stream<T> parallelStream() {
+    return StreamSupport.stream(spliterator(), true);
+  }
+
+  //
+  // Engineering note: the parallel operations below all work the same way. Our lists can only be walked from
+  // the front, one element at a time, which doesn't parallelize, so we first copy the list into an array.
+  // That's cheap compared to the real work, so long as the functions being applied aren't trivial. Then
+  // we let the fork/join framework (see edu.rice.util.Parallel) carve up the array among the available
+  // cores. The results are exactly the same as the sequential versions, in the same order, and of the
+  // same list type, so you can switch back and forth without any change in behavior. The functions you
+  // pass to these had better not have side effects, since they'll be running concurrently.
+  //
+
+  /**
+   * Same as {@link #map(Function)}, but runs the function on multiple cores at once. This forces the whole
+   * list, even if it's lazy.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default <Q> IList<Q> parallelMap(@NotNull Function<? super T, ? extends Q> f) {
+    return parallelMap(f, Parallel.DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Same as {@link #map(Function)}, but runs the function on multiple cores at once. Ranges of no more than
+   * threshold elements are mapped sequentially.
+   * @see Parallel#DEFAULT_THRESHOLD
+   */
+  @NotNull
+  @Contract(pure = true)
+  default <Q> IList<Q> parallelMap(@NotNull Function<? super T, ? extends Q> f, int threshold) {
+    Object[] values = List.Helpers.toArray(this);
+    Object[] results = new Object[values.length];
+    Parallel.forRange(0, values.length, threshold, i -> results[i] = f.apply(List.Helpers.elementAt(values, i)));
+    return List.Helpers.fromArraySameType(results, results.length, makeEmptySameType());
+  }
+
+  /**
+   * Same as {@link #filter(Predicate)}, but tests the predicate on multiple cores at once. This forces the
+   * whole list, even if it's lazy.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IList<T> parallelFilter(@NotNull Predicate<? super T> predicate) {
+    return parallelFilter(predicate, Parallel.DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Same as {@link #filter(Predicate)}, but tests the predicate on multiple cores at once. Ranges of no more
+   * than threshold elements are tested sequentially.
+   * @see Parallel#DEFAULT_THRESHOLD
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IList<T> parallelFilter(@NotNull Predicate<? super T> predicate, int threshold) {
+    Object[] values = List.Helpers.toArray(this);
+    boolean[] keep = new boolean[values.length];
+    Parallel.forRange(0, values.length, threshold, i -> keep[i] = predicate.test(List.Helpers.elementAt(values, i)));
+
+    // squeeze out the elements that didn't pass, then build the result
+    int count = 0;
+    for (int i = 0; i < values.length; i++) {
+      if (keep[i]) {
+        values[count++] = values[i];
+      }
+    }
+    return List.Helpers.fromArraySameType(values, count, makeEmptySameType());
+  }
+
+  /**
+   * Applies the function to every element, then combines the results with the monoid, using multiple cores
+   * at once. The answer is the same as list.map(f).foldl(monoid.zero(), monoid::combine), so long as
+   * the monoid really is associative. This forces the whole list, even if it's lazy.
+   * @see Monoid
+   */
+  @NotNull
+  @Contract(pure = true)
+  default <U> U parallelFoldMap(@NotNull Monoid<U> monoid, @NotNull Function<? super T, ? extends U> f) {
+    return parallelFoldMap(monoid, f, Parallel.DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Applies the function to every element, then combines the results with the monoid, using multiple cores
+   * at once. Ranges of no more than threshold elements are folded sequentially.
+   * @see Parallel#DEFAULT_THRESHOLD
+   */
+  @NotNull
+  @Contract(pure = true)
+  default <U> U parallelFoldMap(@NotNull Monoid<U> monoid, @NotNull Function<? super T, ? extends U> f, int threshold) {
+    Object[] values = List.Helpers.toArray(this);
+    return Parallel.foldMapRange(0, values.length, threshold, monoid, i -> f.apply(List.Helpers.elementAt(values, i)));
+  }
+
   /**
    * Given another list of the same length as this list, "zip" it together with the current list,
    * using the zipFunc to combine the elements of the two lists together, and yielding a list of the
@@ -441,9 +712,8 @@ public interface IList<T> {
   /**
    * Fold left: folds from head to tail. Example: the list is {a,b,c,d,e} and the folding function is
    * plus, then this returns (((((zero + a) + b) + c) + d) + e). If either foldl or foldr would give you the
-   * same answer (e.g., if the folding function f is associative), then foldl is preferable. The
-   * runtime speed is about the same, but foldr will have a stack-overflow on very large lists and foldl
-   * won't.
+   * same answer (e.g., if the folding function f is associative), then foldl is preferable. Neither will
+   * have a stack-overflow on very large lists, but foldr has to make a reversed copy of the list first.
    *
    * <p>Note: when the result type is different from the list element type (e.g., if you're folding a
    * list of strings into a tree of strings) then the zero should be of the result type,
@@ -495,10 +765,16 @@ public interface IList<T> {
   @NotNull
   @Contract(pure = true)
   default <U> U foldr(@NotNull U zero, @NotNull BiFunction<? super T, ? super U, ? extends U> f) {
-    if (empty()) {
-      return zero;
-    }
-    return f.apply(head(), tail().foldr(zero, f));
+    // recursive version
+//    if (empty()) {
+//      return zero;
+//    }
+//    return f.apply(head(), tail().foldr(zero, f));
+
+    // iterative version: the recursive version will run out of stack on large lists, so instead we reverse
+    // the list (into an eager list, regardless of what we started with), then fold from the left.
+    IList<T> reversed = foldl(List.makeEmpty(), IList::add);
+    return reversed.foldl(zero, (acc, elem) -> f.apply(elem, acc));
   }
 
   /**
@@ -652,6 +928,14 @@ public interface IList<T> {
    * @see IList
    */
   interface Empty<T> extends IList<T> {
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    default Spliterator<T> spliterator() {
+      // an empty list, even a lazy one, definitely knows its size
+      return Spliterators.spliterator(iterator(), 0, List.Helpers.SPLITERATOR_CHARACTERISTICS);
+    }
+
     @Override
     default boolean empty() {
       return true;
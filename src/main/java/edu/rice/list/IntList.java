@@ -0,0 +1,603 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import edu.rice.util.Log;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.NoSuchElementException;
+import java.util.OptionalInt;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A persistent, eager list of int values. This works just like an IList&lt;Integer&gt;, except that the values
+ * are stored as primitives, so nothing here ever has to allocate an Integer wrapper. That's a big deal for
+ * numeric code, where the boxing (and the garbage collection that follows) can easily cost more than the
+ * arithmetic itself. Use {@link IList#mapToInt(java.util.function.ToIntFunction)} to get one of these from
+ * an IList, and {@link #boxed()} or {@link #mapToObj(IntFunction)} to go back the other way.
+ *
+ * <p>Every operation here is written as a loop, so none of them will overflow the stack, no matter how
+ * long the list. Operations that make a new list first copy the values into an int[] and then build the
+ * list from the back of the array, so that's the only temporary storage they need.
+ * @see IList
+ */
+public interface IntList {
+  //
+  // Data definition:
+  //
+  // An IntList is either: an empty-list, or a "cons" with an int value and another IntList. These are
+  // represented by the IntList.Empty and IntList.Cons classes.
+  //
+
+  /**
+   * Create an empty list.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static IntList makeEmpty() {
+    return Empty.SINGLETON;
+  }
+
+  /**
+   * Construct a list with the specified head element and another list as the tail.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static IntList make(int headVal, @NotNull IntList tailVal) {
+    return new Cons(headVal, tailVal);
+  }
+
+  /**
+   * Varargs constructor.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static IntList of(int... source) {
+    return fromArray(source);
+  }
+
+  /**
+   * Given a traditional Java array, return a list; note that if the underlying array changes, the list will
+   * not update itself. The values are copied immediately.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static IntList fromArray(@Nullable int[] source) {
+    if (source == null) {
+      return makeEmpty();
+    }
+    return Helpers.fromArray(source, source.length);
+  }
+
+  /**
+   * Given an IList of Integer, return the equivalent IntList. This unboxes every value, once.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static IntList fromList(@NotNull IList<Integer> list) {
+    return list.mapToInt(x -> x);
+  }
+
+  /**
+   * Returns a list of integers from min to max, inclusive.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static IntList rangeInt(int min, int max) {
+    return (min > max) ? makeEmpty() : rangeInt(min, max, 1);
+  }
+
+  /**
+   * Returns a list of integers from start to finish, inclusive, skipping every increment until the result would be
+   * outside the range. Works just like {@link List#rangeInt(int, int, int)}.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static IntList rangeInt(int start, int finish, int increment) {
+    if (increment == 0) {
+      throw new RuntimeException("rangeInt with zero increment not allowed");
+    }
+    // work out how many values we'll actually reach, then build the list backward from there; as with
+    // List.rangeInt, an increment heading away from the finish gives us a list of just the start
+    long count = ((increment > 0) == (start <= finish)) ? ((long) finish - start) / increment + 1 : 1;
+    IntList result = makeEmpty();
+    for (long i = count - 1; i >= 0; i--) {
+      result = result.add((int) (start + i * increment));
+    }
+    return result;
+  }
+
+  /**
+   * Returns whether the list is empty or not.
+   */
+  @Contract(pure = true)
+  boolean empty();
+
+  /**
+   * Returns the front element of the list. If the list is empty, this will throw an exception.
+   */
+  @Contract(pure = true)
+  int head();
+
+  /**
+   * Returns the front element of the list, if present, otherwise OptionalInt.empty().
+   */
+  @NotNull
+  @Contract(pure = true)
+  default OptionalInt ohead() {
+    return empty() ? OptionalInt.empty() : OptionalInt.of(head());
+  }
+
+  /**
+   * Returns a list of everything but the front element of the list. If the list is empty, this will
+   * throw an exception.
+   */
+  @NotNull
+  @Contract(pure = true)
+  IntList tail();
+
+  /**
+   * Returns a new list with the given value in front.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IntList add(int value) {
+    return new Cons(value, this);
+  }
+
+  /**
+   * Returns the number of elements in the list. Runs in constant time.
+   */
+  @Contract(pure = true)
+  int length();
+
+  /**
+   * Return the nth element in the list, if present, otherwise OptionalInt.empty() (the head of the
+   * list would correspond to n=0). Warning: this function runs in O(n) time.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default OptionalInt nth(int n) {
+    if (n < 0 || n >= length()) {
+      return OptionalInt.empty();
+    }
+    return OptionalInt.of(skipN(n).head());
+  }
+
+  /**
+   * Returns a new list with the first n elements removed. If n is greater than the length of the list,
+   * you'll get an empty list.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IntList skipN(int n) {
+    IntList list = this;
+    while (n > 0 && !list.empty()) {
+      list = list.tail();
+      n--;
+    }
+    return list;
+  }
+
+  /**
+   * Return at most the first n elements of the list, could be fewer.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IntList limit(int n) {
+    int count = Integer.max(0, Integer.min(n, length()));
+    return Helpers.fromArray(toArray(), count);
+  }
+
+  /**
+   * Returns a new list with the elements in reverse order.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IntList reverse() {
+    // foldl with add naturally reverses the list
+    IntList result = makeEmpty();
+    for (IntList list = this; !list.empty(); list = list.tail()) {
+      result = result.add(list.head());
+    }
+    return result;
+  }
+
+  /**
+   * Returns a new list equal to the old list followed by the afterTail list. The afterTail list is
+   * shared, not copied.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IntList concat(@NotNull IntList afterTail) {
+    int[] values = toArray();
+    IntList result = afterTail;
+    for (int i = values.length - 1; i >= 0; i--) {
+      result = result.add(values[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Returns a new list with the function applied to every element.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IntList map(@NotNull IntUnaryOperator f) {
+    int[] values = toArray();
+    for (int i = 0; i < values.length; i++) {
+      values[i] = f.applyAsInt(values[i]);
+    }
+    return Helpers.fromArray(values, values.length);
+  }
+
+  /**
+   * Returns a LongList with the function applied to every element.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default LongList mapToLong(@NotNull IntToLongFunction f) {
+    int[] values = toArray();
+    LongList result = LongList.makeEmpty();
+    for (int i = values.length - 1; i >= 0; i--) {
+      result = result.add(f.applyAsLong(values[i]));
+    }
+    return result;
+  }
+
+  /**
+   * Returns a DoubleList with the function applied to every element.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default DoubleList mapToDouble(@NotNull IntToDoubleFunction f) {
+    int[] values = toArray();
+    DoubleList result = DoubleList.makeEmpty();
+    for (int i = values.length - 1; i >= 0; i--) {
+      result = result.add(f.applyAsDouble(values[i]));
+    }
+    return result;
+  }
+
+  /**
+   * Returns an IList with the function applied to every element. This is how you get back to objects.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default <T> IList<T> mapToObj(@NotNull IntFunction<? extends T> f) {
+    IList<T> result = List.makeEmpty();
+    for (IntList list = reverse(); !list.empty(); list = list.tail()) {
+      result = result.add(f.apply(list.head()));
+    }
+    return result;
+  }
+
+  /**
+   * Returns an IList with every value boxed as an Integer. This is exactly the allocation that IntList exists
+   * to avoid, so use it sparingly, e.g., when you need to hand the values to code that only knows IList.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IList<Integer> boxed() {
+    return mapToObj(x -> x);
+  }
+
+  /**
+   * Returns a new list containing only the elements that satisfy the predicate.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IntList filter(@NotNull IntPredicate predicate) {
+    int[] values = toArray();
+    int count = 0;
+    for (int value : values) {
+      if (predicate.test(value)) {
+        values[count++] = value;
+      }
+    }
+    return Helpers.fromArray(values, count);
+  }
+
+  /**
+   * Returns a new list containing the elements of this list, for as long as the predicate holds.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IntList takeWhile(@NotNull IntPredicate predicate) {
+    int[] values = toArray();
+    int count = 0;
+    while (count < values.length && predicate.test(values[count])) {
+      count++;
+    }
+    return Helpers.fromArray(values, count);
+  }
+
+  /**
+   * Runs the consumer on every element of the list, in order.
+   */
+  default void foreach(@NotNull IntConsumer consumer) {
+    for (IntList list = this; !list.empty(); list = list.tail()) {
+      consumer.accept(list.head());
+    }
+  }
+
+  /**
+   * Folds the list from the left, starting with the zero value. For example, to sum the elements, use
+   * foldl(0, (sum, x) -&gt; sum + x), which is what {@link #sum()} does.
+   */
+  @Contract(pure = true)
+  default int foldl(int zero, @NotNull IntBinaryOperator f) {
+    int accumulator = zero;
+    for (IntList list = this; !list.empty(); list = list.tail()) {
+      accumulator = f.applyAsInt(accumulator, list.head());
+    }
+    return accumulator;
+  }
+
+  /**
+   * Folds the list from the right, starting with the zero value.
+   */
+  @Contract(pure = true)
+  default int foldr(int zero, @NotNull IntBinaryOperator f) {
+    int[] values = toArray();
+    int accumulator = zero;
+    for (int i = values.length - 1; i >= 0; i--) {
+      accumulator = f.applyAsInt(values[i], accumulator);
+    }
+    return accumulator;
+  }
+
+  /**
+   * Returns the sum of all the elements in the list.
+   */
+  @Contract(pure = true)
+  default int sum() {
+    return foldl(0, (a, b) -> a + b);
+  }
+
+  /**
+   * Returns whether the value is in the list.
+   */
+  @Contract(pure = true)
+  default boolean contains(int value) {
+    for (IntList list = this; !list.empty(); list = list.tail()) {
+      if (Helpers.same(list.head(), value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns a new array with the contents of the list, in order.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default int[] toArray() {
+    int[] result = new int[length()];
+    int i = 0;
+    for (IntList list = this; !list.empty(); list = list.tail()) {
+      result[i++] = list.head();
+    }
+    return result;
+  }
+
+  /**
+   * Functions that aren't meant for public use.
+   */
+  class Helpers {
+    private Helpers() { } // do not instantiate!
+
+    /**
+     * Builds a list from the first count values in the array, working backward from the end so the list
+     * comes out in the same order as the array.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static IntList fromArray(@NotNull int[] values, int count) {
+      IntList result = makeEmpty();
+      for (int i = count - 1; i >= 0; i--) {
+        result = new Cons(values[i], result);
+      }
+      return result;
+    }
+
+    @Contract(pure = true)
+    static boolean same(int a, int b) {
+      return a == b;
+    }
+
+    @Contract(pure = true)
+    static boolean equalsHelper(@NotNull IntList a, @NotNull IntList b) {
+      if (a.length() != b.length()) {
+        return false;
+      }
+      for (; !a.empty(); a = a.tail(), b = b.tail()) {
+        if (!Helpers.same(a.head(), b.head())) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Same polynomial-in-31 hash that List uses, so an IntList hashes the same as its boxed() equivalent.
+     */
+    @Contract(pure = true)
+    static int hashHelper(@NotNull IntList list) {
+      int hashVal = 1;
+      for (; !list.empty(); list = list.tail()) {
+        hashVal = hashVal * 31 + Integer.hashCode(list.head());
+      }
+      return hashVal;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    static String toStringHelper(@NotNull IntList list) {
+      StringBuilder sb = new StringBuilder("IntList(");
+      for (IntList current = list; !current.empty(); current = current.tail()) {
+        if (current != list) {
+          sb.append(", ");
+        }
+        sb.append(current.head());
+      }
+      return sb.append(")").toString();
+    }
+  }
+
+  /**
+   * This class implements non-empty lists ("cons cells"). External users will never use this, which is
+   * why this class isn't public. Instead, use IntList.
+   */
+  class Cons implements IntList {
+    private final int headVal;
+    @NotNull
+    private final IntList tailVal;
+    private final int size;
+
+    // cached hash, zero if we haven't computed it yet
+    private int hashVal;
+
+    // don't call this; use make() or add()
+    private Cons(int headVal, @NotNull IntList tailVal) {
+      this.headVal = headVal;
+      this.tailVal = tailVal;
+      this.size = tailVal.length() + 1;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean empty() {
+      return false;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int head() {
+      return headVal;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IntList tail() {
+      return tailVal;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int length() {
+      return size;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int hashCode() {
+      if (hashVal == 0) {
+        hashVal = Helpers.hashHelper(this);
+      }
+      return hashVal;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Cons)) {
+        return false;
+      }
+
+      // if we've already hashed both lists, a mismatch tells us the answer without walking them
+      Cons other = (Cons) o;
+      if (hashVal != 0 && other.hashVal != 0 && hashVal != other.hashVal) {
+        return false;
+      }
+      return Helpers.equalsHelper(this, other);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public String toString() {
+      return Helpers.toStringHelper(this);
+    }
+  }
+
+  /**
+   * Note that this class is not public. Empty lists will be instances of this class, and we'll have
+   * precisely one of them. Clients can use IntList.makeEmpty().
+   * @see IntList#makeEmpty()
+   */
+  class Empty implements IntList {
+    private static final IntList SINGLETON = new Empty();
+
+    // don't call this; use makeEmpty()
+    private Empty() { }
+
+    @Override
+    @Contract(pure = true)
+    public boolean empty() {
+      return true;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int head() {
+      Log.e("IntListEmpty", "can't take head() of an empty list");
+      throw new NoSuchElementException("can't take head() of an empty list");
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IntList tail() {
+      Log.e("IntListEmpty", "can't take tail() of an empty list");
+      throw new NoSuchElementException("can't take tail() of an empty list");
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int length() {
+      return 0;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IntList reverse() {
+      return this;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int hashCode() {
+      return 1;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public String toString() {
+      return "IntList()";
+    }
+  }
+}
@@ -18,6 +18,8 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -98,7 +100,7 @@ public interface List<T> extends IList<T> {
   @NotNull
   @Contract(pure = true)
   static <T> IList<T> fromList(@NotNull java.util.List<? extends T> original) {
-    return fromIterator(original.iterator());
+    return new ListBuilder<T>(original.size()).appendAll(original.iterator()).build();
   }
 
   /**
@@ -108,12 +110,9 @@ public interface List<T> extends IList<T> {
   @NotNull
   @Contract(pure = true)
   static <T> IList<T> fromIterator(@NotNull Iterator<? extends T> source) {
-    if (source.hasNext()) {
-      T nextVal = source.next();
-      return make(nextVal, fromIterator(source));
-    } else {
-      return makeEmpty();
-    }
+    // The obvious recursive version, make(source.next(), fromIterator(source)), runs out of stack
+    // on long inputs, so we let a ListBuilder collect the values and then build the list back to front.
+    return new ListBuilder<T>().appendAll(source).build();
   }
 
   /**
@@ -123,12 +122,11 @@ public interface List<T> extends IList<T> {
   @NotNull
   @Contract(pure = true)
   static <T> IList<T> fromEnumeration(@NotNull Enumeration<? extends T> source) {
-    if (source.hasMoreElements()) {
-      T nextVal = source.nextElement();
-      return make(nextVal, fromEnumeration(source));
-    } else {
-      return makeEmpty();
+    ListBuilder<T> builder = new ListBuilder<>();
+    while (source.hasMoreElements()) {
+      builder.append(source.nextElement());
     }
+    return builder.build();
   }
 
 
@@ -152,10 +150,17 @@ public interface List<T> extends IList<T> {
   @NotNull
   @Contract(pure = true)
   static <T> IList<T> fromArray(@NotNull T[] source, int offset) {
-    if (offset >= source.length) {
-      return makeEmpty();
+    if (offset < 0) {
+      throw new ArrayIndexOutOfBoundsException("fromArray with negative offset " + offset + " not allowed");
+    }
+
+    // we walk the array backwards, so each element can be added onto the front of the list we've built so far;
+    // an offset past the end of the array gets us the empty list
+    IList<T> result = makeEmpty();
+    for (int i = source.length - 1; i >= offset; i--) {
+      result = result.add(source[i]);
     }
-    return make(source[offset], fromArray(source, offset + 1));
+    return result;
   }
 
   /**
@@ -210,6 +215,48 @@ public interface List<T> extends IList<T> {
     // for private method in interfaces, which will change how we might solve this problem.
     //
 
+    /**
+     * Every IList spliterator has these characteristics; the ones that know their length add SIZED as well.
+     */
+    static final int SPLITERATOR_CHARACTERISTICS = Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL;
+
+    /**
+     * Copies the list into a new array. This forces the whole list, if it's lazy.
+     */
+    @NotNull
+    static Object[] toArray(@NotNull IList<?> list) {
+      Object[] result = new Object[list.length()];
+      int i = 0;
+      for (Object value : list) {
+        result[i++] = value;
+      }
+      return result;
+    }
+
+    /**
+     * Fetches a value from an array that we filled from an IList&lt;T&gt;, so it's known to hold T's.
+     */
+    @Contract(pure = true)
+    static <T> T elementAt(@NotNull Object[] values, int index) {
+      @SuppressWarnings("unchecked")
+      T result = (T) values[index];
+      return result;
+    }
+
+    /**
+     * Builds a list out of the first count values in the array, by adding them, from the back, onto the given
+     * empty list. That way, the result is the same type of list as the empty one.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static <T> IList<T> fromArraySameType(@NotNull Object[] values, int count, @NotNull IList<T> empty) {
+      IList<T> result = empty;
+      for (int i = count - 1; i >= 0; i--) {
+        result = result.add(elementAt(values, i));
+      }
+      return result;
+    }
+
     /**
      * Returns a list of integers, starting at "current" and incrementing by "increment" until outside of the
      * range [min,max] (inclusive).
@@ -227,10 +274,23 @@ public interface List<T> extends IList<T> {
       }
 
       // assumption: min < max
-      if (current < min || current > max) {
-        return makeEmpty();
+      IList<Integer> reversed = makeEmpty();
+      while (current >= min && current <= max) {
+        reversed = reversed.add(current);
+        current += increment;
       }
-      return make(current, rangeInt(current + increment, min, max, increment));
+      return reversed.reverse();
+    }
+
+    /**
+     * Adds each element of the reversedPrefix list, one by one, onto the front of the suffix, so the result
+     * has the prefix in its original order followed by the suffix. This is how the eager list methods avoid
+     * recursion: they accumulate their results backwards in a loop, then flip them around at the end.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static <T> IList<T> prependReversed(@NotNull IList<? extends T> reversedPrefix, @NotNull IList<T> suffix) {
+      return narrow(reversedPrefix).foldl(suffix, IList::add);
     }
 
     /**
@@ -285,7 +345,60 @@ public interface List<T> extends IList<T> {
     @Contract(pure = true)
     static <T> int hashHelper(@NotNull IList<? extends T> list) {
       // this is a kludge: we're repeatedly multiplying by 31 and then adding in each element's hashCode
-      return list.foldl(1, (hashVal, elem) -> hashVal * 31 + elem.hashCode());
+      // (written as a loop, rather than with foldl, so we don't box an Integer for every element)
+      int hashVal = 1;
+      IList<? extends T> current = list;
+      while (!current.empty()) {
+        hashVal = hashVal * 31 + current.head().hashCode();
+        current = current.tail();
+      }
+      return hashVal;
+    }
+
+    /**
+     * Computes the same hash value as {@link #hashHelper(IList)}, but over the values from an iterator. A list whose
+     * tail() has to build a new view of itself (e.g., a Vector) uses its own iterator, which doesn't.
+     */
+    @Contract(pure = true)
+    static int iteratorHashHelper(@NotNull Iterator<?> iterator) {
+      int hashVal = 1;
+      while (iterator.hasNext()) {
+        hashVal = hashVal * 31 + iterator.next().hashCode();
+      }
+      return hashVal;
+    }
+
+    /**
+     * Compares the values from two iterators, in order, the same way {@link #equalsHelper(IList, IList)} compares
+     * two lists. A list whose tail() has to build a new view of itself (e.g., a Vector) uses its own iterator,
+     * which doesn't.
+     */
+    @Contract(pure = true)
+    static boolean iteratorEqualsHelper(@NotNull Iterator<?> a, @NotNull Iterator<?> b) {
+      while (a.hasNext()) {
+        if (!b.hasNext() || !a.next().equals(b.next())) {
+          return false;
+        }
+      }
+      return !b.hasNext();
+    }
+
+    /**
+     * Computes 31 raised to the given power, using the same wrap-around arithmetic as hashHelper, so we
+     * can combine the hash of a list prefix with the (already known) hash of the rest of the list.
+     */
+    @Contract(pure = true)
+    static int pow31(int exponent) {
+      int result = 1;
+      int base = 31;
+      while (exponent > 0) {
+        if ((exponent & 1) != 0) {
+          result *= base;
+        }
+        base *= base;
+        exponent >>= 1;
+      }
+      return result;
     }
 
     /**
@@ -310,12 +423,32 @@ public interface List<T> extends IList<T> {
     @NotNull
     private final IList<T> tailVal;
 
+    // The length of the list starting here, computed once when the cons cell is made, so length() is O(1). If
+    // somebody gave us a tail that isn't an eager List (e.g., a lazy list), we'd have to traverse it, or maybe
+    // it's infinite, so we record UNKNOWN_SIZE and count the hard way if anybody asks.
+    private final int size;
+    private static final int UNKNOWN_SIZE = -1;
+
+    // The structural hash, computed on the first call to hashCode() and then remembered. Zero means we
+    // haven't computed it yet (same trick as java.lang.String). There's no need for synchronization here:
+    // every thread computes the same value, and writes to an int are atomic.
+    private int hashVal;
+
     /**
      * Note, this constructor is not meant to be used by clients. Instead, use add() or List.make().
      */
     private Cons(@NotNull T headVal, @NotNull IList<? extends T> tailVal) {
       this.headVal = headVal;
       this.tailVal = narrow(tailVal);
+
+      if (tailVal instanceof Cons) {
+        int tailSize = ((Cons<?>) tailVal).size;
+        this.size = (tailSize == UNKNOWN_SIZE) ? UNKNOWN_SIZE : tailSize + 1;
+      } else if (tailVal instanceof List.Empty) {
+        this.size = 1;
+      } else {
+        this.size = UNKNOWN_SIZE;
+      }
     }
 
     @Override
@@ -342,13 +475,83 @@ public interface List<T> extends IList<T> {
     @Override
     @Contract(pure = true)
     public IList<T> concat(@NotNull IList<? extends T> afterTail) {
-      return make(headVal, tailVal.concat(afterTail));
+      // standard recursive version:
+      //    return make(headVal, tailVal.concat(afterTail));
+
+      // All of the methods below work the same way, to avoid stack overflows: we walk down the list in a loop,
+      // accumulating the results backwards, until we hit the end of the list. Whatever's left (normally the empty
+      // list, but someone might have given us another kind of IList as a tail) gets to handle itself; we then
+      // prepend our backwards results onto that.
+      IList<T> reversed = makeEmpty();
+      IList<T> list = this;
+      while (list instanceof Cons) {
+        reversed = reversed.add(list.head());
+        list = list.tail();
+      }
+      return Helpers.prependReversed(reversed, list.concat(afterTail));
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int length() {
+      return (size == UNKNOWN_SIZE) ? List.super.length() : size;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Spliterator<T> spliterator() {
+      // if we know our length, we can tell the streams library, which lets it split the work up more evenly
+      return (size == UNKNOWN_SIZE)
+          ? List.super.spliterator()
+          : Spliterators.spliterator(iterator(), size, Helpers.SPLITERATOR_CHARACTERISTICS);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Option<T> nth(int n) {
+      if (size != UNKNOWN_SIZE && n >= size) {
+        return Option.none();
+      }
+      return List.super.nth(n);
     }
 
     @Override
     @Contract(pure = true)
     public int hashCode() {
-      return Helpers.hashHelper(this);
+      if (hashVal != 0) {
+        return hashVal;
+      }
+
+      // Walk forward until we either run off the end or find a tail whose hash is already known. Since
+      // hashHelper is a polynomial in 31, the hash of the prefix we walked over can be combined with the
+      // tail's hash, so hashing a list that was built by adding onto an already-hashed list is cheap.
+      int prefixHash = 1;
+      int prefixLength = 0;
+      IList<T> current = this;
+      while (current instanceof Cons && ((Cons<T>) current).hashVal == 0) {
+        prefixHash = prefixHash * 31 + current.head().hashCode();
+        prefixLength++;
+        current = current.tail();
+      }
+
+      int result;
+      if (current instanceof Cons && ((Cons<T>) current).size != UNKNOWN_SIZE) {
+        // the tail's hash is 31^tailSize + (its elements), while we want prefixHash * 31^tailSize + (its elements)
+        int tailPower = Helpers.pow31(((Cons<T>) current).size);
+        result = prefixHash * tailPower + (((Cons<T>) current).hashVal - tailPower);
+      } else {
+        // we ran off the end (or hit a list we don't know much about), so we keep going the slow way
+        result = prefixHash;
+        while (!current.empty()) {
+          result = result * 31 + current.head().hashCode();
+          current = current.tail();
+        }
+      }
+
+      hashVal = result;
+      return result;
     }
 
     @Override
@@ -356,44 +559,98 @@ public interface List<T> extends IList<T> {
     @Contract(pure = true)
     public <U, V> IList<V> zip(@NotNull IList<? extends U> list,
                                @NotNull BiFunction<? super T, ? super U, ? extends V> zipFunc) {
-      return narrow(list).match(
-          emptyList -> makeEmpty(),
-          (head2, tail2) -> make(zipFunc.apply(headVal, head2), tail().zip(tail2, zipFunc)));
+      // standard recursive version:
+      //    return narrow(list).match(
+      //        emptyList -> makeEmpty(),
+      //        (head2, tail2) -> make(zipFunc.apply(headVal, head2), tail().zip(tail2, zipFunc)));
+
+      IList<V> reversed = makeEmpty();
+      IList<T> list1 = this;
+      IList<? extends U> list2 = list;
+      while (list1 instanceof Cons) {
+        if (list2.empty()) {
+          return Helpers.prependReversed(reversed, makeEmpty());
+        }
+        reversed = reversed.add(zipFunc.apply(list1.head(), list2.head()));
+        list1 = list1.tail();
+        list2 = list2.tail();
+      }
+      return Helpers.prependReversed(reversed, list1.zip(list2, zipFunc));
     }
 
     @Override
     @NotNull
     @Contract(pure = true)
     public IList<T> filter(@NotNull Predicate<? super T> predicate) {
-      if (predicate.test(headVal)) {
-        return make(headVal, tailVal.filter(predicate));
-      } else {
-        return tailVal.filter(predicate);
+      // standard recursive version:
+      //    if (predicate.test(headVal)) {
+      //      return make(headVal, tailVal.filter(predicate));
+      //    } else {
+      //      return tailVal.filter(predicate);
+      //    }
+
+      IList<T> reversed = makeEmpty();
+      IList<T> list = this;
+      while (list instanceof Cons) {
+        T val = list.head();
+        if (predicate.test(val)) {
+          reversed = reversed.add(val);
+        }
+        list = list.tail();
       }
+      return Helpers.prependReversed(reversed, list.filter(predicate));
     }
 
     @NotNull
     @Override
     public IList<T> takeWhile(@NotNull Predicate<? super T> predicate) {
-      if (predicate.test(headVal)) {
-        return make(headVal, tailVal.takeWhile(predicate));
-      } else {
-        return makeEmpty();
+      IList<T> reversed = makeEmpty();
+      IList<T> list = this;
+      while (list instanceof Cons) {
+        T val = list.head();
+        if (!predicate.test(val)) {
+          return Helpers.prependReversed(reversed, makeEmpty());
+        }
+        reversed = reversed.add(val);
+        list = list.tail();
       }
+      return Helpers.prependReversed(reversed, list.takeWhile(predicate));
     }
 
     @Override
     @NotNull
     @Contract(pure = true)
     public <Q> IList<Q> map(@NotNull Function<? super T, ? extends Q> f) {
-      return make(f.apply(headVal), tailVal.map(f));
+      // standard recursive version:
+      //    return make(f.apply(headVal), tailVal.map(f));
+
+      IList<Q> reversed = makeEmpty();
+      IList<T> list = this;
+      while (list instanceof Cons) {
+        reversed = reversed.add(f.apply(list.head()));
+        list = list.tail();
+      }
+      return Helpers.prependReversed(reversed, list.map(f));
     }
 
     @Override
     @NotNull
     @Contract(pure = true)
     public <Q> IList<Q> flatmap(@NotNull Function<? super T, ? extends IList<? extends Q>> f) {
-      return map(f).foldl(makeEmpty(), IList::concat);
+      // simple version:
+      //    return map(f).foldl(makeEmpty(), IList::concat);
+
+      // Unfortunately, every concat copies the whole list we've accumulated so far, which makes the simple
+      // version O(n^2) in the size of the result. Instead, we walk down the list, appending the contents of
+      // each sublist to a ListBuilder, so every value is copied exactly once. As with the other methods here,
+      // whatever's left at the end (normally the empty list) gets to handle itself.
+      ListBuilder<Q> builder = new ListBuilder<>();
+      IList<T> list = this;
+      while (list instanceof Cons) {
+        builder.appendAll(f.apply(list.head()).iterator());
+        list = list.tail();
+      }
+      return builder.build(list.flatmap(f));
     }
 
     @NotNull
@@ -403,30 +660,67 @@ public interface List<T> extends IList<T> {
       if (n < 0) {
         return this; // not really even sure what n<0 means, so doing nothing seems reasonable
       }
-      if (n == 0) {
-        return updateFunc.apply(headVal).match(() -> tailVal, tailVal::add);
-      } else {
-        return make(headVal, tailVal.updateNth(n - 1, updateFunc));
+
+      // standard recursive version:
+      //    if (n == 0) {
+      //      return updateFunc.apply(headVal).match(() -> tailVal, tailVal::add);
+      //    } else {
+      //      return make(headVal, tailVal.updateNth(n - 1, updateFunc));
+      //    }
+
+      IList<T> reversed = makeEmpty();
+      IList<T> list = this;
+      while (list instanceof Cons) {
+        if (n == 0) {
+          IList<T> remainder = list.tail();
+          return Helpers.prependReversed(reversed, updateFunc.apply(list.head()).match(() -> remainder, remainder::add));
+        }
+        reversed = reversed.add(list.head());
+        list = list.tail();
+        n--;
       }
+      return Helpers.prependReversed(reversed, list.updateNth(n, updateFunc));
     }
 
     @NotNull
     @Override
     @Contract(pure = true)
     public IList<T> limit(int n) {
-      if (n < 1) {
-        return makeEmpty();
+      IList<T> reversed = makeEmpty();
+      IList<T> list = this;
+      while (list instanceof Cons) {
+        if (n < 1) {
+          return Helpers.prependReversed(reversed, makeEmpty());
+        }
+        reversed = reversed.add(list.head());
+        list = list.tail();
+        n--;
       }
-      return make(headVal, tailVal.limit(n - 1));
+      return Helpers.prependReversed(reversed, list.limit(n));
     }
 
     @Override
     @Contract(pure = true)
     public boolean equals(Object x) {
+      if (this == x) {
+        return true;
+      }
+
       if (!(x instanceof IList)) {
         return false;
       }
 
+      if (x instanceof Cons) {
+        // two quick checks that can rule out equality without looking at any of the elements
+        Cons<?> otherCons = (Cons<?>) x;
+        if (size != UNKNOWN_SIZE && otherCons.size != UNKNOWN_SIZE && size != otherCons.size) {
+          return false;
+        }
+        if (hashVal != 0 && otherCons.hashVal != 0 && hashVal != otherCons.hashVal) {
+          return false;
+        }
+      }
+
       IList<?> otherList = (IList<?>) x;
       return Helpers.equalsHelper(this, otherList);
     }
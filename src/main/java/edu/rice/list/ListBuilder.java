@@ -0,0 +1,115 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * A mutable helper for building an eager list from front to back. Our lists are easy to build from back to front,
+ * since add() puts things on the front, but a lot of the time, the values come to us in front to back order:
+ * from an iterator, from a parser, or whatever. The usual trick is to add them all to a list, which comes out
+ * backwards, and then reverse it, which makes two cons cells for every value. Instead, you can append your values,
+ * in order, to a ListBuilder, and then call {@link #build()} to get the list. Appending is amortized constant time,
+ * and build() makes exactly one cons cell per value, with no recursion, no matter how long the list.
+ *
+ * <p>Unlike everything else in edu.rice.list, a ListBuilder is mutable, and it's not safe to share one among
+ * threads. The lists it builds are perfectly ordinary immutable lists, though.
+ */
+public class ListBuilder<T> {
+  // Engineering note: we'd love to append by mutating the tail of the last cons cell, making build() constant
+  // time, but our cons cells keep their tails (and their lengths) in final fields. That's what lets length()
+  // run in constant time, and it's also what lets Java guarantee that every thread sees a fully constructed
+  // list. So instead, we save up the values in an array, just like java.util.ArrayList, and then walk it
+  // backwards, adding each value onto the front of the list, which is the cheap direction.
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  @NotNull
+  private Object[] values;
+  private int count;
+
+  /**
+   * Makes an empty builder.
+   */
+  public ListBuilder() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Makes an empty builder with room for the given number of values before it has to grow.
+   */
+  public ListBuilder(int expectedSize) {
+    values = new Object[Math.max(expectedSize, 1)];
+    count = 0;
+  }
+
+  /**
+   * Appends a value to the end of the list being built. Returns the builder, so you can chain these together.
+   */
+  @NotNull
+  public ListBuilder<T> append(@NotNull T value) {
+    if (count == values.length) {
+      values = Arrays.copyOf(values, values.length * 2);
+    }
+    values[count++] = value;
+    return this;
+  }
+
+  /**
+   * Appends everything from the iterator, in order, to the end of the list being built. Returns the builder, so you
+   * can chain these together.
+   */
+  @NotNull
+  public ListBuilder<T> appendAll(@NotNull Iterator<? extends T> source) {
+    while (source.hasNext()) {
+      append(source.next());
+    }
+    return this;
+  }
+
+  /**
+   * Returns the number of values appended so far.
+   */
+  @Contract(pure = true)
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Returns an eager list of all the values appended so far, in order. You can keep appending to the builder
+   * afterward; that won't change the list you got back.
+   */
+  @NotNull
+  @Contract(pure = true)
+  public IList<T> build() {
+    return build(List.<T>makeEmpty());
+  }
+
+  /**
+   * Returns a list of all the values appended so far, in order, followed by the given tail, which is shared rather
+   * than copied. The tail can be any kind of list, including a lazy one.
+   */
+  @NotNull
+  @Contract(pure = true)
+  public IList<T> build(@NotNull IList<? extends T> tail) {
+    // we use List.make, rather than tail.add, so the front of the result is always an eager List,
+    // no matter what kind of list the tail is
+    IList<T> result = IList.narrow(tail);
+    for (int i = count - 1; i >= 0; i--) {
+      result = List.make(List.Helpers.elementAt(values, i), result);
+    }
+    return result;
+  }
+}
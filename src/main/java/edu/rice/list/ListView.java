@@ -0,0 +1,206 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import edu.rice.util.Option;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Iterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A view is a recipe for a list that hasn't been built yet: a source of values, followed by a pipeline of
+ * operations like map and filter. Nothing happens until you ask for a result with a "terminal" operation, like
+ * foldl, foreach, or toList. At that point, the whole pipeline runs as a single loop over the source, and each
+ * value goes through every stage before the next value is even looked at.
+ *
+ * <p>Compare this with a LazyList, where <code>list.map(f).filter(p).map(g)</code> builds a new lazy list for each
+ * stage, with a cons cell, a memo, and a lambda for every element in every one of those lists. A view, instead,
+ * allocates a handful of objects per stage when the terminal operation starts, and then nothing per element
+ * beyond whatever your own functions allocate.
+ *
+ * <p>The catch: a view doesn't remember anything. If you run two terminal operations on the same view, the whole
+ * pipeline runs twice, calling your functions all over again. If you want to hang onto the results, call
+ * {@link #toList()} and keep the list.
+ *
+ * @see IList#view()
+ */
+@FunctionalInterface
+public interface ListView<T> {
+  /**
+   * Runs the pipeline, feeding each value, in order, to the sink. The sink returns true if it wants more values,
+   * or false to stop early. This is the one method that every view must implement; everything else is built
+   * on top of it.
+   */
+  void foreachWhile(@NotNull Predicate<? super T> sink);
+
+  /**
+   * Makes a view whose source is the given list. Lazy lists will be evaluated as far as the pipeline demands.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> ListView<T> of(@NotNull IList<? extends T> list) {
+    return sink -> {
+      Iterator<? extends T> iterator = list.iterator();
+      while (iterator.hasNext()) {
+        if (!sink.test(iterator.next())) {
+          return;
+        }
+      }
+    };
+  }
+
+  /**
+   * Makes a view of the integers from min to max (inclusive), without building any list for them at all.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static ListView<Integer> rangeInt(int min, int max) {
+    return sink -> {
+      // we count with a long so that max == Integer.MAX_VALUE doesn't wrap around forever
+      for (long i = min; i <= max; i++) {
+        if (!sink.test((int) i)) {
+          return;
+        }
+      }
+    };
+  }
+
+  /**
+   * Adds a stage to the pipeline that transforms each value with the given function.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default <Q> ListView<Q> map(@NotNull Function<? super T, ? extends Q> f) {
+    return sink -> foreachWhile(t -> sink.test(f.apply(t)));
+  }
+
+  /**
+   * Adds a stage to the pipeline that only passes along values satisfying the given predicate.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default ListView<T> filter(@NotNull Predicate<? super T> predicate) {
+    return sink -> foreachWhile(t -> !predicate.test(t) || sink.test(t));
+  }
+
+  /**
+   * Adds a stage to the pipeline that passes along values so long as they satisfy the given predicate, and
+   * stops the whole pipeline at the first value that doesn't.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default ListView<T> takeWhile(@NotNull Predicate<? super T> predicate) {
+    return sink -> foreachWhile(t -> predicate.test(t) && sink.test(t));
+  }
+
+  /**
+   * Adds a stage to the pipeline that passes along at most the first n values, then stops the whole pipeline.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default ListView<T> limit(int n) {
+    return sink -> {
+      if (n <= 0) {
+        return;
+      }
+
+      // each run of the pipeline gets its own counter
+      int[] remaining = { n };
+      foreachWhile(t -> sink.test(t) && --remaining[0] > 0);
+    };
+  }
+
+  /**
+   * Terminal operation: runs the pipeline, folding its values from the left, as in {@link IList#foldl(Object, BiFunction)}.
+   */
+  @NotNull
+  default <U> U foldl(@NotNull U zero, @NotNull BiFunction<? super U, ? super T, ? extends U> f) {
+    Helpers.Accumulator<U> accumulator = new Helpers.Accumulator<>(zero);
+    foreachWhile(t -> {
+      accumulator.value = f.apply(accumulator.value, t);
+      return true;
+    });
+    return accumulator.value;
+  }
+
+  /**
+   * Terminal operation: runs the pipeline, handing each value to the consumer.
+   */
+  default void foreach(@NotNull Consumer<? super T> consumer) {
+    foreachWhile(t -> {
+      consumer.accept(t);
+      return true;
+    });
+  }
+
+  /**
+   * Terminal operation: runs the pipeline just far enough to get its first value, if there is one.
+   */
+  @NotNull
+  default Option<T> ohead() {
+    Helpers.Accumulator<Option<T>> accumulator = new Helpers.Accumulator<>(Option.none());
+    foreachWhile(t -> {
+      accumulator.value = Option.some(t);
+      return false;
+    });
+    return accumulator.value;
+  }
+
+  /**
+   * Terminal operation: runs the pipeline and counts how many values come out the end.
+   */
+  default int length() {
+    int[] count = { 0 };
+    foreachWhile(t -> {
+      count[0]++;
+      return true;
+    });
+    return count[0];
+  }
+
+  /**
+   * Terminal operation: runs the pipeline and saves the results in an eager list.
+   */
+  @NotNull
+  default IList<T> toList() {
+    ListBuilder<T> builder = new ListBuilder<>();
+    foreach(builder::append);
+    return builder.build();
+  }
+
+  /**
+   * Terminal operation: the same as {@link #toList()}, named to go with {@link IList#force()}.
+   */
+  @NotNull
+  default IList<T> force() {
+    return toList();
+  }
+
+  class Helpers {
+    private Helpers() { } // do not instantiate!
+
+    /**
+     * The running value of a fold, which we need to update from inside a lambda.
+     */
+    static class Accumulator<U> {
+      U value;
+
+      Accumulator(U value) {
+        this.value = value;
+      }
+    }
+  }
+}
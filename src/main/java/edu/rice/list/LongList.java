@@ -0,0 +1,590 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import edu.rice.util.Log;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.NoSuchElementException;
+import java.util.OptionalLong;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * A persistent, eager list of long values. This works just like an IList&lt;Long&gt;, except that the values
+ * are stored as primitives, so nothing here ever has to allocate a Long wrapper. That's a big deal for
+ * numeric code, where the boxing (and the garbage collection that follows) can easily cost more than the
+ * arithmetic itself. Use {@link IList#mapToLong(java.util.function.ToLongFunction)} to get one of these from
+ * an IList, and {@link #boxed()} or {@link #mapToObj(LongFunction)} to go back the other way.
+ *
+ * <p>Every operation here is written as a loop, so none of them will overflow the stack, no matter how
+ * long the list. Operations that make a new list first copy the values into a long[] and then build the
+ * list from the back of the array, so that's the only temporary storage they need.
+ * @see IList
+ */
+public interface LongList {
+  //
+  // Data definition:
+  //
+  // A LongList is either: an empty-list, or a "cons" with a long value and another LongList. These are
+  // represented by the LongList.Empty and LongList.Cons classes.
+  //
+
+  /**
+   * Create an empty list.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static LongList makeEmpty() {
+    return Empty.SINGLETON;
+  }
+
+  /**
+   * Construct a list with the specified head element and another list as the tail.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static LongList make(long headVal, @NotNull LongList tailVal) {
+    return new Cons(headVal, tailVal);
+  }
+
+  /**
+   * Varargs constructor.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static LongList of(long... source) {
+    return fromArray(source);
+  }
+
+  /**
+   * Given a traditional Java array, return a list; note that if the underlying array changes, the list will
+   * not update itself. The values are copied immediately.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static LongList fromArray(@Nullable long[] source) {
+    if (source == null) {
+      return makeEmpty();
+    }
+    return Helpers.fromArray(source, source.length);
+  }
+
+  /**
+   * Given an IList of Long, return the equivalent LongList. This unboxes every value, once.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static LongList fromList(@NotNull IList<Long> list) {
+    return list.mapToLong(x -> x);
+  }
+
+  /**
+   * Returns a list of longs from min to max, inclusive.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static LongList rangeLong(long min, long max) {
+    LongList result = makeEmpty();
+    for (long i = max; i >= min; i--) {
+      result = result.add(i);
+      if (i == Long.MIN_VALUE) {
+        break;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns whether the list is empty or not.
+   */
+  @Contract(pure = true)
+  boolean empty();
+
+  /**
+   * Returns the front element of the list. If the list is empty, this will throw an exception.
+   */
+  @Contract(pure = true)
+  long head();
+
+  /**
+   * Returns the front element of the list, if present, otherwise OptionalLong.empty().
+   */
+  @NotNull
+  @Contract(pure = true)
+  default OptionalLong ohead() {
+    return empty() ? OptionalLong.empty() : OptionalLong.of(head());
+  }
+
+  /**
+   * Returns a list of everything but the front element of the list. If the list is empty, this will
+   * throw an exception.
+   */
+  @NotNull
+  @Contract(pure = true)
+  LongList tail();
+
+  /**
+   * Returns a new list with the given value in front.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default LongList add(long value) {
+    return new Cons(value, this);
+  }
+
+  /**
+   * Returns the number of elements in the list. Runs in constant time.
+   */
+  @Contract(pure = true)
+  int length();
+
+  /**
+   * Return the nth element in the list, if present, otherwise OptionalLong.empty() (the head of the
+   * list would correspond to n=0). Warning: this function runs in O(n) time.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default OptionalLong nth(int n) {
+    if (n < 0 || n >= length()) {
+      return OptionalLong.empty();
+    }
+    return OptionalLong.of(skipN(n).head());
+  }
+
+  /**
+   * Returns a new list with the first n elements removed. If n is greater than the length of the list,
+   * you'll get an empty list.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default LongList skipN(int n) {
+    LongList list = this;
+    while (n > 0 && !list.empty()) {
+      list = list.tail();
+      n--;
+    }
+    return list;
+  }
+
+  /**
+   * Return at most the first n elements of the list, could be fewer.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default LongList limit(int n) {
+    int count = Integer.max(0, Integer.min(n, length()));
+    return Helpers.fromArray(toArray(), count);
+  }
+
+  /**
+   * Returns a new list with the elements in reverse order.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default LongList reverse() {
+    // foldl with add naturally reverses the list
+    LongList result = makeEmpty();
+    for (LongList list = this; !list.empty(); list = list.tail()) {
+      result = result.add(list.head());
+    }
+    return result;
+  }
+
+  /**
+   * Returns a new list equal to the old list followed by the afterTail list. The afterTail list is
+   * shared, not copied.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default LongList concat(@NotNull LongList afterTail) {
+    long[] values = toArray();
+    LongList result = afterTail;
+    for (int i = values.length - 1; i >= 0; i--) {
+      result = result.add(values[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Returns a new list with the function applied to every element.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default LongList map(@NotNull LongUnaryOperator f) {
+    long[] values = toArray();
+    for (int i = 0; i < values.length; i++) {
+      values[i] = f.applyAsLong(values[i]);
+    }
+    return Helpers.fromArray(values, values.length);
+  }
+
+  /**
+   * Returns an IntList with the function applied to every element.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IntList mapToInt(@NotNull LongToIntFunction f) {
+    long[] values = toArray();
+    IntList result = IntList.makeEmpty();
+    for (int i = values.length - 1; i >= 0; i--) {
+      result = result.add(f.applyAsInt(values[i]));
+    }
+    return result;
+  }
+
+  /**
+   * Returns a DoubleList with the function applied to every element.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default DoubleList mapToDouble(@NotNull LongToDoubleFunction f) {
+    long[] values = toArray();
+    DoubleList result = DoubleList.makeEmpty();
+    for (int i = values.length - 1; i >= 0; i--) {
+      result = result.add(f.applyAsDouble(values[i]));
+    }
+    return result;
+  }
+
+  /**
+   * Returns an IList with the function applied to every element. This is how you get back to objects.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default <T> IList<T> mapToObj(@NotNull LongFunction<? extends T> f) {
+    IList<T> result = List.makeEmpty();
+    for (LongList list = reverse(); !list.empty(); list = list.tail()) {
+      result = result.add(f.apply(list.head()));
+    }
+    return result;
+  }
+
+  /**
+   * Returns an IList with every value boxed as a Long. This is exactly the allocation that LongList exists
+   * to avoid, so use it sparingly, e.g., when you need to hand the values to code that only knows IList.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IList<Long> boxed() {
+    return mapToObj(x -> x);
+  }
+
+  /**
+   * Returns a new list containing only the elements that satisfy the predicate.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default LongList filter(@NotNull LongPredicate predicate) {
+    long[] values = toArray();
+    int count = 0;
+    for (long value : values) {
+      if (predicate.test(value)) {
+        values[count++] = value;
+      }
+    }
+    return Helpers.fromArray(values, count);
+  }
+
+  /**
+   * Returns a new list containing the elements of this list, for as long as the predicate holds.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default LongList takeWhile(@NotNull LongPredicate predicate) {
+    long[] values = toArray();
+    int count = 0;
+    while (count < values.length && predicate.test(values[count])) {
+      count++;
+    }
+    return Helpers.fromArray(values, count);
+  }
+
+  /**
+   * Runs the consumer on every element of the list, in order.
+   */
+  default void foreach(@NotNull LongConsumer consumer) {
+    for (LongList list = this; !list.empty(); list = list.tail()) {
+      consumer.accept(list.head());
+    }
+  }
+
+  /**
+   * Folds the list from the left, starting with the zero value. For example, to sum the elements, use
+   * foldl(0, (sum, x) -&gt; sum + x), which is what {@link #sum()} does.
+   */
+  @Contract(pure = true)
+  default long foldl(long zero, @NotNull LongBinaryOperator f) {
+    long accumulator = zero;
+    for (LongList list = this; !list.empty(); list = list.tail()) {
+      accumulator = f.applyAsLong(accumulator, list.head());
+    }
+    return accumulator;
+  }
+
+  /**
+   * Folds the list from the right, starting with the zero value.
+   */
+  @Contract(pure = true)
+  default long foldr(long zero, @NotNull LongBinaryOperator f) {
+    long[] values = toArray();
+    long accumulator = zero;
+    for (int i = values.length - 1; i >= 0; i--) {
+      accumulator = f.applyAsLong(values[i], accumulator);
+    }
+    return accumulator;
+  }
+
+  /**
+   * Returns the sum of all the elements in the list.
+   */
+  @Contract(pure = true)
+  default long sum() {
+    return foldl(0L, (a, b) -> a + b);
+  }
+
+  /**
+   * Returns whether the value is in the list.
+   */
+  @Contract(pure = true)
+  default boolean contains(long value) {
+    for (LongList list = this; !list.empty(); list = list.tail()) {
+      if (Helpers.same(list.head(), value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns a new array with the contents of the list, in order.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default long[] toArray() {
+    long[] result = new long[length()];
+    int i = 0;
+    for (LongList list = this; !list.empty(); list = list.tail()) {
+      result[i++] = list.head();
+    }
+    return result;
+  }
+
+  /**
+   * Functions that aren't meant for public use.
+   */
+  class Helpers {
+    private Helpers() { } // do not instantiate!
+
+    /**
+     * Builds a list from the first count values in the array, working backward from the end so the list
+     * comes out in the same order as the array.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static LongList fromArray(@NotNull long[] values, int count) {
+      LongList result = makeEmpty();
+      for (int i = count - 1; i >= 0; i--) {
+        result = new Cons(values[i], result);
+      }
+      return result;
+    }
+
+    @Contract(pure = true)
+    static boolean same(long a, long b) {
+      return a == b;
+    }
+
+    @Contract(pure = true)
+    static boolean equalsHelper(@NotNull LongList a, @NotNull LongList b) {
+      if (a.length() != b.length()) {
+        return false;
+      }
+      for (; !a.empty(); a = a.tail(), b = b.tail()) {
+        if (!Helpers.same(a.head(), b.head())) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Same polynomial-in-31 hash that List uses, so a LongList hashes the same as its boxed() equivalent.
+     */
+    @Contract(pure = true)
+    static int hashHelper(@NotNull LongList list) {
+      int hashVal = 1;
+      for (; !list.empty(); list = list.tail()) {
+        hashVal = hashVal * 31 + Long.hashCode(list.head());
+      }
+      return hashVal;
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    static String toStringHelper(@NotNull LongList list) {
+      StringBuilder sb = new StringBuilder("LongList(");
+      for (LongList current = list; !current.empty(); current = current.tail()) {
+        if (current != list) {
+          sb.append(", ");
+        }
+        sb.append(current.head());
+      }
+      return sb.append(")").toString();
+    }
+  }
+
+  /**
+   * This class implements non-empty lists ("cons cells"). External users will never use this, which is
+   * why this class isn't public. Instead, use LongList.
+   */
+  class Cons implements LongList {
+    private final long headVal;
+    @NotNull
+    private final LongList tailVal;
+    private final int size;
+
+    // cached hash, zero if we haven't computed it yet
+    private int hashVal;
+
+    // don't call this; use make() or add()
+    private Cons(long headVal, @NotNull LongList tailVal) {
+      this.headVal = headVal;
+      this.tailVal = tailVal;
+      this.size = tailVal.length() + 1;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean empty() {
+      return false;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public long head() {
+      return headVal;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public LongList tail() {
+      return tailVal;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int length() {
+      return size;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int hashCode() {
+      if (hashVal == 0) {
+        hashVal = Helpers.hashHelper(this);
+      }
+      return hashVal;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Cons)) {
+        return false;
+      }
+
+      // if we've already hashed both lists, a mismatch tells us the answer without walking them
+      Cons other = (Cons) o;
+      if (hashVal != 0 && other.hashVal != 0 && hashVal != other.hashVal) {
+        return false;
+      }
+      return Helpers.equalsHelper(this, other);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public String toString() {
+      return Helpers.toStringHelper(this);
+    }
+  }
+
+  /**
+   * Note that this class is not public. Empty lists will be instances of this class, and we'll have
+   * precisely one of them. Clients can use LongList.makeEmpty().
+   * @see LongList#makeEmpty()
+   */
+  class Empty implements LongList {
+    private static final LongList SINGLETON = new Empty();
+
+    // don't call this; use makeEmpty()
+    private Empty() { }
+
+    @Override
+    @Contract(pure = true)
+    public boolean empty() {
+      return true;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public long head() {
+      Log.e("LongListEmpty", "can't take head() of an empty list");
+      throw new NoSuchElementException("can't take head() of an empty list");
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public LongList tail() {
+      Log.e("LongListEmpty", "can't take tail() of an empty list");
+      throw new NoSuchElementException("can't take tail() of an empty list");
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int length() {
+      return 0;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public LongList reverse() {
+      return this;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int hashCode() {
+      return 1;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public String toString() {
+      return "LongList()";
+    }
+  }
+}
@@ -14,6 +14,8 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Supplier;
 
 /**
@@ -25,10 +27,32 @@ public class Memo<T> {
   // the value that's saved in the contents field. It's important to drop our reference to the supplier so it
   // can be garbage collected after we're done with it.
 
+  // Engineering note, part two: Comp215 students may wish to skip this until the last week or two of the semester,
+  // when we talk about concurrency. Memos are all over the place (every LazyList cell has one), and any number
+  // of threads might be looking at the same one at the same time. We need three things:
+  //
+  // 1) Once the value is computed, every thread must see the whole thing, fully constructed. That's why the
+  //    contents field is volatile. (Without it, the Java memory model allows another thread to see the contents
+  //    before it sees the fields *inside* the contents!)
+  //
+  // 2) The supplier must be called only once, even if several threads call get() at the same time. Rather than
+  //    taking a lock, we use an atomic "compare and set" on the control field: whichever thread manages to
+  //    swap the supplier for an InProgress marker is the one that gets to call it.
+  //
+  // 3) Everybody else has to wait for the winner to finish. The fast path, once the value is there, is just
+  //    one read of the contents field, with no locks at all.
+
   @Nullable
-  private T contents;
+  private volatile T contents;
+
+  // Either the Supplier, if nobody has started on it yet, or an InProgress marker while somebody's working on it,
+  // or null once we're done with it.
   @Nullable
-  private Supplier<T> supplier;
+  private volatile Object control;
+
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<Memo, Object> CONTROL =
+      AtomicReferenceFieldUpdater.newUpdater(Memo.class, Object.class, "control");
 
   /**
    * Build a memo with the lambda that supplies a value. The supplier will not be invoked until the {@link #get()} method
@@ -36,7 +60,7 @@ public class Memo<T> {
    */
   public Memo(@Nullable Supplier<T> supplier) {
     contents = null;
-    this.supplier = supplier;
+    control = supplier;
   }
 
   /**
@@ -47,28 +71,138 @@ public class Memo<T> {
   @Contract(pure = true)
   public T get() {
     // If we've already computed the answer, then we'll just return it.
-    if (contents != null) {
-      return contents;
+    T result = contents;
+    if (result != null) {
+      return result;
     }
+    return getSlow();
+  }
 
-    // At this point, we're going to have to fetch the result from the supplier-lambda. Comp215 students might
-    // wish to ignore the "synchronized" keyword here, but it solves a concurrency problem we won't see until
-    // the last week or two of the semester. All this craziness deals with the unfortunate case when we might
-    // happen to have two separate threads here at the exact same time and we only want to do this work once.
-    synchronized (this) {
-      if (supplier != null) {
-        contents = supplier.get();
-        supplier = null;
+  @NotNull
+  private T getSlow() {
+    for (;;) {
+      T result = contents;
+      if (result != null) {
+        return result;
       }
 
-      // unfortunately, we can't make an up-front annotation that the supplier is required to return
-      // a @NonNull value, which complicates things here because we want this method to be @NotNull.
-      // We solve this by checking below and throwing a runtime exception if the Supplier was misbehaving.
-      if (contents == null) {
+      Object currentControl = control;
+
+      if (currentControl instanceof InProgress) {
+        InProgress inProgress = (InProgress) currentControl;
+        if (inProgress.owner == Thread.currentThread()) {
+          // with a lock, this would have been infinite recursion, so we might as well say what's going on
+          throw new IllegalStateException("memo's supplier depends on its own result!");
+        }
+        inProgress.await(this);
+        continue; // the winner either finished or failed; either way, we start over
+      }
+
+      if (currentControl == null) {
+        // unfortunately, we can't make an up-front annotation that the supplier is required to return
+        // a @NonNull value, which complicates things here because we want this method to be @NotNull.
+        // We solve this by checking and throwing a runtime exception if the Supplier was misbehaving.
         throw new NullPointerException("memo's supplier returned null contents!");
       }
 
-      return contents;
+      @SuppressWarnings("unchecked")
+      Supplier<T> supplier = (Supplier<T>) currentControl;
+      InProgress inProgress = new InProgress();
+      if (!CONTROL.compareAndSet(this, currentControl, inProgress)) {
+        continue; // somebody else got there first
+      }
+
+      // we won the race, so it's our job to run the supplier
+      try {
+        result = supplier.get();
+      } catch (Throwable t) {
+        // Put the supplier back, so the next caller can try again, same as if nobody had called get() yet.
+        // We catch Throwable, not just RuntimeException and Error, because a supplier can "sneaky throw" a
+        // checked exception, and if we missed it, we'd be stuck in progress forever, with everybody waiting.
+        // (Java's precise rethrow means we still don't have to declare any checked exceptions here.)
+        control = supplier;
+        inProgress.finish();
+        throw t;
+      }
+
+      // Order matters: we publish the contents before we clear the control field, so any thread that sees the
+      // control field change will also see the contents. If the supplier returned null, there are no contents,
+      // so the next get() will see a null control field and throw, rather than calling the supplier again.
+      contents = result;
+      control = null;
+      inProgress.finish();
+
+      if (result == null) {
+        throw new NullPointerException("memo's supplier returned null contents!");
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Marker for the control field, while one thread is busy running the supplier. Other threads that show up in
+   * the meantime wait on a latch, which we only bother to make if somebody actually needs to wait.
+   */
+  private static class InProgress {
+    @NotNull
+    final Thread owner = Thread.currentThread();
+
+    @Nullable
+    private volatile CountDownLatch latch;
+    private volatile boolean finished;
+
+    private static final AtomicReferenceFieldUpdater<InProgress, CountDownLatch> LATCH =
+        AtomicReferenceFieldUpdater.newUpdater(InProgress.class, CountDownLatch.class, "latch");
+
+    /**
+     * Called by the owner, after it's updated the memo, to release anybody waiting.
+     */
+    void finish() {
+      // Engineering note: the owner writes "finished" and then reads "latch", while a waiter writes "latch" and then
+      // reads "finished". Since both fields are volatile, at least one of them will see the other's write, so either
+      // the owner will count down the waiter's latch, or the waiter will notice it has no need to wait.
+      finished = true;
+      CountDownLatch currentLatch = latch;
+      if (currentLatch != null) {
+        currentLatch.countDown();
+      }
+    }
+
+    /**
+     * Called by any thread other than the owner, to wait until the owner is done with the given memo.
+     */
+    void await(@NotNull Memo<?> memo) {
+      // a few quick looks first, since most suppliers don't take very long
+      for (int i = 0; i < 64; i++) {
+        if (finished || memo.control != this) {
+          return;
+        }
+        Thread.yield();
+      }
+
+      CountDownLatch currentLatch = latch;
+      if (currentLatch == null) {
+        LATCH.compareAndSet(this, null, new CountDownLatch(1));
+        currentLatch = latch;
+      }
+
+      if (finished) {
+        return;
+      }
+
+      boolean interrupted = false;
+      for (;;) {
+        try {
+          currentLatch.await();
+          break;
+        } catch (InterruptedException e) {
+          // We can't give up, because we still need the value, but we'll restore the interrupt flag when we're done.
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
     }
   }
 }
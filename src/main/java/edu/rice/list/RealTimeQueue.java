@@ -0,0 +1,205 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import edu.rice.util.Option;
+import edu.rice.util.Pair;
+import edu.rice.util.Strings;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A functional queue where every operation takes constant time, worst case, not just on average. This is Chris
+ * Okasaki's "real-time queue", from his book <i>Purely Functional Data Structures</i>.
+ *
+ * <p>A ListQueue has an inbox and an outbox, and whenever the outbox runs dry, it reverses the whole inbox to make
+ * a new outbox. On average, that's constant time per operation, since every element only gets reversed once. But
+ * the unlucky operation that triggers the reversal has to do all that work at once, which, for a big queue, can
+ * take a noticeable amount of time.
+ *
+ * <p>The real-time queue avoids that by doing the reversal lazily, a little bit at a time. The front of the queue is
+ * a LazyList, which is built by "rotating" the rear list onto the end of the old front, one cell at a time, as the
+ * cells are demanded. To make sure no single cell is ever expensive to evaluate, we also keep a "schedule", which is
+ * a pointer into the front that's one step ahead of the work we've done so far. Every insert or tail forces exactly
+ * one more cell of the schedule. We keep the schedule exactly as long as the front minus the rear, so by the time
+ * the rear is big enough to need rotating, every cell of the front has already been evaluated.
+ */
+public interface RealTimeQueue<T> extends IQueue<T> {
+  /**
+   * Creates an empty real-time queue of the given type parameter.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> IQueue<T> makeEmpty() {
+    @SuppressWarnings("unchecked")
+    IQueue<T> typedEmptyQueue = (IQueue<T>) Empty.SINGLETON;
+    return typedEmptyQueue;
+  }
+
+  /**
+   * Variadic helper function, creates a real-time queue from the arguments given. The first argument will be at the
+   * front of the queue.
+   */
+  @NotNull
+  @SuppressWarnings("varargs")
+  @SafeVarargs
+  @Contract(pure = true)
+  static <T> IQueue<T> of(@Nullable T... vals) {
+    if (vals == null || vals.length == 0) {
+      return makeEmpty();
+    }
+
+    // The values start out in the front, in the proper FIFO order, with nothing in the rear. The schedule is the
+    // whole front, since none of it has been evaluated yet.
+    IList<T> front = LazyList.fromArray(vals);
+    return new Queue<>(front, vals.length, List.makeEmpty(), 0, front);
+  }
+
+  class Queue<T> implements RealTimeQueue<T> {
+    @NotNull
+    private final IList<T> front;
+    private final int frontSize;
+    @NotNull
+    private final IList<T> rear; // in reverse order, so the newest value is at the head
+    private final int rearSize;
+    @NotNull
+    private final IList<T> schedule; // always a suffix of front, of length frontSize - rearSize
+
+    // Don't call this externally; use the "of" method or the makeEmpty() method instead.
+    private Queue(@NotNull IList<T> front, int frontSize, @NotNull IList<T> rear, int rearSize,
+                  @NotNull IList<T> schedule) {
+      this.front = front;
+      this.frontSize = frontSize;
+      this.rear = rear;
+      this.rearSize = rearSize;
+      this.schedule = schedule;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int hashCode() {
+      return toLazyList().hashCode(); // let the list's hash worry about it
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || !(o instanceof IQueue)) {
+        return false;
+      }
+
+      IQueue<?> otherQueue = (IQueue<?>) o;
+
+      return toLazyList().equals(otherQueue.toLazyList()); // iterates both queues, does piecewise equality checking
+    }
+
+    @Override
+    @Contract(pure = true)
+    public String toString() {
+      return "Queue(" + toLazyList().map(Strings::objectToEscapedString).join(", ") + ")";
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IQueue<T> insert(@NotNull T t) {
+      return exec(front, frontSize, rear.add(t), rearSize + 1, schedule);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public T head() {
+      return front.head();
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IQueue<T> tail() {
+      if (frontSize == 1 && rearSize == 0) {
+        return makeEmpty();
+      }
+      return exec(front.tail(), frontSize - 1, rear, rearSize, schedule);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public @NotNull Option<Pair<T, IQueue<T>>> oget() {
+      return Option.some(new Pair<>(head(), tail()));
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int size() {
+      return frontSize + rearSize;
+    }
+
+    // Call this whenever you make a new Queue. Either the schedule has something in it, in which case we force
+    // one more cell and move along, or the schedule has run out, which means the rear has gotten as long as the
+    // front, so it's time to start a new rotation.
+    @NotNull
+    @Contract(pure = true)
+    private static <T> IQueue<T> exec(@NotNull IList<T> front, int frontSize, @NotNull IList<T> rear, int rearSize,
+                                      @NotNull IList<T> schedule) {
+      if (!schedule.empty()) {
+        // schedule.tail() is where the lazy evaluation actually happens
+        return new Queue<>(front, frontSize, rear, rearSize, schedule.tail());
+      }
+
+      IList<T> newFront = rotate(front, rear, LazyList.makeEmpty());
+      return new Queue<>(newFront, frontSize + rearSize, List.makeEmpty(), 0, newFront);
+    }
+
+    // Returns front ++ reverse(rear) ++ accumulator, lazily, where rear is exactly one longer than front. Each cell
+    // costs constant time to evaluate: one cell of the front, one cell of the rear, and one new cell onto the
+    // accumulator.
+    @NotNull
+    @Contract(pure = true)
+    private static <T> IList<T> rotate(@NotNull IList<T> front, @NotNull IList<T> rear, @NotNull IList<T> accumulator) {
+      if (front.empty()) {
+        return LazyList.make(rear.head(), () -> accumulator);
+      }
+      return LazyList.make(front.head(), () -> rotate(front.tail(), rear.tail(), accumulator.add(rear.head())));
+    }
+  }
+
+  /**
+   * Empty queues, however implemented, have a lot of things in common. Since we're big believers in
+   * not repeating ourselves, they'll all share this interface, and thus pick up all these default methods.
+   *
+   * @see IQueue
+   */
+  class Empty<T> implements RealTimeQueue<T>, IQueue.Empty<T> {
+    private static final IQueue<?> SINGLETON = new RealTimeQueue.Empty<>();
+
+    // external users, don't call this; use makeEmpty()
+    private Empty() { }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IQueue<T> insert(@NotNull T newbie) {
+      return RealTimeQueue.of(newbie);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public String toString() {
+      return "Queue()";
+    }
+  }
+}
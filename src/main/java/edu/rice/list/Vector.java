@@ -0,0 +1,729 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import edu.rice.util.Option;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static edu.rice.list.IList.narrow;
+
+/**
+ * A persistent vector: an eager IList that also supports fast random access. The elements live in the
+ * leaves of a 32-way "bit-partitioned" trie, where the path from the root to any element is spelled out by
+ * the bits of its index, five at a time. Even a billion-element vector is only six levels deep, so nth(),
+ * updateNth(), and length() are effectively constant time, as are add() at the front, append() at the back,
+ * and tail(), skipN(), limit(), and sublist(). As with List, use the static methods here to get started,
+ * and then everything else happens through the IList interface.
+ *
+ * <p>Every "change" to a vector copies only the nodes on the path from the root to the element in question,
+ * at most 32 slots per level, and shares everything else with the original.
+ * @see IList
+ * @see List
+ */
+public interface Vector<T> extends IList<T> {
+  //
+  // Data definition:
+  //
+  // A Vector is either: an empty-vector, or a trie containing all the values. These are represented by the
+  // Vector.Empty and Vector.Trie classes.
+  //
+  // Engineering note: the classic persistent vector (e.g., in Clojure) can only grow at the back. Our lists
+  // grow at the *front*, via add(), and that's how all the generic IList code builds up its results, so we
+  // need both. We get it with a trick: the trie covers a range of indices that's usually bigger than the
+  // vector, and we keep an "origin" saying which trie index holds element zero. Adding to the front just means
+  // writing to origin-1; adding to the back means writing to origin+size. If we run out of room at either end,
+  // we make a new root, one level up, with the old root in one of its middle slots, which gives us lots of
+  // room on both sides. Likewise, tail() and skipN() only have to move the origin, and limit() only has to
+  // shrink the size. Everything outside of [origin, origin+size) is garbage that the vector ignores.
+  //
+
+  /**
+   * The trie's branching factor.
+   */
+  int BRANCHING = 32;
+
+  /**
+   * Create an empty vector of the given type parameter.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> Vector<T> makeEmpty() {
+    @SuppressWarnings("unchecked")
+    Vector<T> typedEmpty = (Vector<T>) Empty.SINGLETON;
+    return typedEmpty;
+  }
+
+  /**
+   * Construct a vector with the specified head element and another list as the tail. If the tail isn't already
+   * a vector, it's converted to one, which means it must be finite.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> Vector<T> make(@NotNull T headVal, @NotNull IList<? extends T> tailVal) {
+    return Vector.<T>from(tailVal).add(headVal);
+  }
+
+  /**
+   * Given any IList, return a vector with the same contents. If the list is already a vector, you get
+   * it right back; otherwise, the list must be finite.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> Vector<T> from(@NotNull IList<? extends T> list) {
+    if (list instanceof Vector) {
+      @SuppressWarnings("unchecked")
+      Vector<T> result = (Vector<T>) list;
+      return result;
+    }
+    Object[] values = List.Helpers.toArray(list);
+    return Helpers.fromArray(values, values.length);
+  }
+
+  /**
+   * Constructs a vector from an original java.util.List.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> Vector<T> fromList(@NotNull java.util.List<? extends T> original) {
+    Object[] values = original.toArray();
+    return Helpers.fromArray(values, values.length);
+  }
+
+  /**
+   * Given a traditional Java iterator, return a vector that captures the output of the iterator. If the iterator
+   * is infinite, this method may never return or may run out of memory.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> Vector<T> fromIterator(@NotNull Iterator<? extends T> source) {
+    ArrayList<T> buffer = new ArrayList<>();
+    source.forEachRemaining(buffer::add);
+    return fromList(buffer);
+  }
+
+  /**
+   * Given a traditional Java array, return a vector; note that if the underlying array changes, the vector will
+   * not update itself. The values are copied immediately.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> Vector<T> fromArray(@Nullable T[] source) {
+    if (source == null) {
+      return makeEmpty();
+    }
+    return Helpers.fromArray(source, source.length);
+  }
+
+  /**
+   * Varargs constructor.
+   */
+  @NotNull
+  @SuppressWarnings("varargs")
+  @SafeVarargs
+  @Contract(pure = true)
+  static <T> Vector<T> of(@Nullable T... source) {
+    return fromArray(source);
+  }
+
+  /**
+   * Returns a vector of integers from min to max, inclusive.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static Vector<Integer> rangeInt(int min, int max) {
+    return from(List.rangeInt(min, max));
+  }
+
+  /**
+   * Returns a vector of integers from start to finish, inclusive, skipping every increment. Works just like
+   * {@link List#rangeInt(int, int, int)}.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static Vector<Integer> rangeInt(int start, int finish, int increment) {
+    return from(List.rangeInt(start, finish, increment));
+  }
+
+  /**
+   * Returns a new vector with the given value in front.
+   */
+  @NotNull
+  @Override
+  @Contract(pure = true)
+  Vector<T> add(@NotNull T value);
+
+  /**
+   * Returns a new vector with the given value at the back. This is the one thing a vector can do that our
+   * other lists can't do quickly.
+   */
+  @NotNull
+  @Contract(pure = true)
+  Vector<T> append(@NotNull T value);
+
+  @NotNull
+  @Override
+  @Contract(pure = true)
+  default <Q> IList<Q> makeEmptySameType() {
+    return makeEmpty();
+  }
+
+  /**
+   * Functions that aren't meant for public use.
+   */
+  class Helpers {
+    private Helpers() { } // do not instantiate!
+
+    static final int BITS = 5;
+    static final int MASK = BRANCHING - 1;
+
+    /**
+     * Builds a vector out of the first count values in the array, bottom-up: first we pack the values into
+     * leaves, then we pack the leaves into nodes one level up, and so on, until there's only one node
+     * left. This runs in linear time. The values are copied, so the array isn't kept anywhere.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static <T> Vector<T> fromArray(@NotNull Object[] values, int count) {
+      if (count == 0) {
+        return makeEmpty();
+      }
+
+      Object[] level = values;
+      int levelCount = count;
+      int shift = 0;
+      for (;;) {
+        int nodeCount = (levelCount + MASK) >>> BITS;
+        Object[] nodes = new Object[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+          Object[] node = new Object[BRANCHING];
+          int start = i << BITS;
+          System.arraycopy(level, start, node, 0, Integer.min(BRANCHING, levelCount - start));
+          nodes[i] = node;
+        }
+
+        if (nodeCount == 1) {
+          return new Trie<>((Object[]) nodes[0], shift, 0, count);
+        }
+        level = nodes;
+        levelCount = nodeCount;
+        shift += BITS;
+      }
+    }
+
+    /**
+     * Makes a Trie for the elements from origin to origin+size-1. If they all fit under a single child of the
+     * root, then we might as well start from that child. This keeps lookups fast after tail() or skipN()
+     * have left most of the trie behind.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static <T> Vector<T> trie(@NotNull Object[] root, int shift, int origin, int size) {
+      while (shift > 0 && (origin >>> shift) == ((origin + size - 1) >>> shift)) {
+        int slot = (origin >>> shift) & MASK;
+        root = (Object[]) root[slot];
+        origin -= slot << shift;
+        shift -= BITS;
+      }
+      return new Trie<>(root, shift, origin, size);
+    }
+
+    /**
+     * Returns the trie node at the given level, along the path to the given index.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static Object[] nodeFor(@NotNull Object[] root, int shift, int index) {
+      Object[] node = root;
+      for (int level = shift; level > 0; level -= BITS) {
+        node = (Object[]) node[(index >>> level) & MASK];
+      }
+      return node;
+    }
+
+    /**
+     * Returns a copy of the trie with the given index set to the given value, copying only the nodes along the
+     * path from the root; everything else is shared. Any nodes missing from the path (which can only happen when
+     * we're writing outside of the vector's current range) are created along the way. This recurses, but only
+     * as deep as the trie, which is never more than seven levels.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static Object[] setPath(@Nullable Object[] node, int level, int index, @NotNull Object value) {
+      Object[] copy = (node == null) ? new Object[BRANCHING] : node.clone();
+      if (level == 0) {
+        copy[index & MASK] = value;
+      } else {
+        int slot = (index >>> level) & MASK;
+        copy[slot] = setPath((Object[]) copy[slot], level - BITS, index, value);
+      }
+      return copy;
+    }
+  }
+
+  /**
+   * This class implements non-empty vectors. External users will never use this, which is why this
+   * class isn't public. Instead, use IList or Vector.
+   * @see IList
+   */
+  class Trie<T> implements Vector<T> {
+    @NotNull
+    private final Object[] root;
+    private final int shift;  // the number of index bits below the root's slot; zero if the root is a leaf
+    private final int origin; // the trie index of element zero
+    private final int size;
+
+    // cached structural hash, zero if we haven't computed it yet (see List.Cons)
+    private int hashVal;
+
+    /**
+     * Note, this constructor is not meant to be used by clients. Instead, use add(), append(), or the static
+     * builder methods.
+     */
+    private Trie(@NotNull Object[] root, int shift, int origin, int size) {
+      this.root = root;
+      this.shift = shift;
+      this.origin = origin;
+      this.size = size;
+    }
+
+    /**
+     * Fetches the element at the given index, relative to element zero. No bounds checking!
+     */
+    @NotNull
+    @Contract(pure = true)
+    private T get(int index) {
+      int trieIndex = origin + index;
+      @SuppressWarnings("unchecked")
+      T result = (T) Helpers.nodeFor(root, shift, trieIndex)[trieIndex & Helpers.MASK];
+      return result;
+    }
+
+    /**
+     * The number of trie indices the current root can cover.
+     */
+    @Contract(pure = true)
+    private long capacity() {
+      return 1L << (shift + Helpers.BITS);
+    }
+
+    /**
+     * Makes a new root, one level up, with the current root in the given slot. The elements don't move, but
+     * their trie indices do, so we return a new Trie with a new origin.
+     */
+    @NotNull
+    @Contract(pure = true)
+    private Trie<T> grow(int slot) {
+      long newOrigin = origin + slot * capacity();
+      if (newOrigin + size >= Integer.MAX_VALUE) {
+        throw new IllegalStateException("Vector is too large");
+      }
+
+      Object[] newRoot = new Object[BRANCHING];
+      newRoot[slot] = root;
+
+      return new Trie<>(newRoot, shift + Helpers.BITS, (int) newOrigin, size);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Vector<T> add(@NotNull T value) {
+      // If there's no room in front, we put the current root in the middle of a bigger one.
+      Trie<T> trie = (origin == 0) ? grow(BRANCHING / 2) : this;
+      int index = trie.origin - 1;
+      return Helpers.trie(Helpers.setPath(trie.root, trie.shift, index, value), trie.shift, index, size + 1);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Vector<T> append(@NotNull T value) {
+      // If there's no room in back, we put the current root at the front of a bigger one.
+      Trie<T> trie = (origin + size == capacity()) ? grow(0) : this;
+      int index = trie.origin + size;
+      return Helpers.trie(Helpers.setPath(trie.root, trie.shift, index, value), trie.shift, trie.origin, size + 1);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean empty() {
+      return false;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public T head() {
+      return get(0);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> tail() {
+      return skipN(1);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int length() {
+      return size;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Option<T> nth(int n) {
+      return (n < 0 || n >= size) ? Option.none() : Option.some(get(n));
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> skipN(int n) {
+      if (n <= 0) {
+        return this;
+      } else if (n >= size) {
+        return makeEmpty();
+      } else {
+        return Helpers.trie(root, shift, origin + n, size - n);
+      }
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> limit(int n) {
+      if (n >= size) {
+        return this;
+      } else if (n <= 0) {
+        return makeEmpty();
+      } else {
+        return Helpers.trie(root, shift, origin, n);
+      }
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> updateNth(int n, @NotNull Function<? super T, Option<? extends T>> updateFunc) {
+      if (n < 0 || n >= size) {
+        return this; // nothing to update
+      }
+
+      Option<? extends T> newVal = updateFunc.apply(get(n));
+      if (newVal.isSome()) {
+        return new Trie<>(Helpers.setPath(root, shift, origin + n, newVal.get()), shift, origin, size);
+      }
+
+      // Deleting from the middle means shifting everything after it, so we're back to linear time. At least we
+      // can take the cheap way out when it's the first or last element.
+      if (n == 0) {
+        return skipN(1);
+      } else if (n == size - 1) {
+        return limit(size - 1);
+      }
+      Object[] values = new Object[size - 1];
+      int i = 0;
+      for (int j = 0; j < size; j++) {
+        if (j != n) {
+          values[i++] = get(j);
+        }
+      }
+      return Helpers.fromArray(values, values.length);
+    }
+
+    //
+    // Engineering note: the bulk operations below all gather their results into an array and then build a
+    // brand new trie, bottom-up, which takes linear time. They walk the elements through iterator(), which
+    // visits the leaves one after another rather than walking down from the root for every element.
+    //
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Iterator<T> iterator() {
+      return new Iterator<T>() {
+        private int index = 0;
+        private Object[] leaf = null;
+
+        @Override
+        public boolean hasNext() {
+          return index < size;
+        }
+
+        @Override
+        public T next() {
+          if (index >= size) {
+            throw new NoSuchElementException("no more elements in the vector");
+          }
+          int trieIndex = origin + index++;
+          if (leaf == null || (trieIndex & Helpers.MASK) == 0) {
+            leaf = Helpers.nodeFor(root, shift, trieIndex);
+          }
+          @SuppressWarnings("unchecked")
+          T result = (T) leaf[trieIndex & Helpers.MASK];
+          return result;
+        }
+      };
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Spliterator<T> spliterator() {
+      return Spliterators.spliterator(iterator(), size, List.Helpers.SPLITERATOR_CHARACTERISTICS);
+    }
+
+    @Override
+    public void foreach(@NotNull Consumer<? super T> consumer) {
+      for (T value : this) {
+        consumer.accept(value);
+      }
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <U> U foldl(@NotNull U zero, @NotNull BiFunction<? super U, ? super T, ? extends U> f) {
+      U accumulator = zero;
+      for (T value : this) {
+        accumulator = f.apply(accumulator, value);
+      }
+      return accumulator;
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> reverse() {
+      Object[] values = new Object[size];
+      int i = size;
+      for (T value : this) {
+        values[--i] = value;
+      }
+      return Helpers.fromArray(values, size);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <Q> IList<Q> map(@NotNull Function<? super T, ? extends Q> f) {
+      Object[] values = new Object[size];
+      int i = 0;
+      for (T value : this) {
+        values[i++] = f.apply(value);
+      }
+      return Helpers.fromArray(values, size);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> filter(@NotNull Predicate<? super T> predicate) {
+      Object[] values = new Object[size];
+      int count = 0;
+      for (T value : this) {
+        if (predicate.test(value)) {
+          values[count++] = value;
+        }
+      }
+      return Helpers.fromArray(values, count);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> takeWhile(@NotNull Predicate<? super T> predicate) {
+      int count = 0;
+      for (T value : this) {
+        if (!predicate.test(value)) {
+          break;
+        }
+        count++;
+      }
+      return limit(count);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <Q> IList<Q> flatmap(@NotNull Function<? super T, ? extends IList<? extends Q>> f) {
+      ArrayList<Q> buffer = new ArrayList<>();
+      for (T value : this) {
+        f.apply(value).foreach(buffer::add);
+      }
+      return fromList(buffer);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public IList<T> concat(@NotNull IList<? extends T> afterTail) {
+      if (afterTail.empty()) {
+        return this;
+      }
+
+      if (!(afterTail instanceof Vector)) {
+        // The afterTail might be lazy, and might even be infinite, so we can't copy it into the vector.
+        // Instead, we do what any eager list would do: share the afterTail and prepend our own elements to it.
+        return List.Helpers.prependReversed(reverse(), narrow(afterTail));
+      }
+
+      int otherSize = afterTail.length();
+      if (otherSize < size) {
+        // appending the smaller vector onto the back of the bigger one, one at a time, is cheaper than copying
+        Vector<T> result = this;
+        for (T value : narrow(afterTail)) {
+          result = result.append(value);
+        }
+        return result;
+      }
+
+      Object[] values = new Object[size + otherSize];
+      int i = 0;
+      for (T value : this) {
+        values[i++] = value;
+      }
+      for (T value : narrow(afterTail)) {
+        values[i++] = value;
+      }
+      return Helpers.fromArray(values, values.length);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <U, V> IList<V> zip(@NotNull IList<? extends U> list,
+                               @NotNull BiFunction<? super T, ? super U, ? extends V> zipFunc) {
+      ArrayList<V> buffer = new ArrayList<>();
+      IList<? extends U> other = list;
+      for (T value : this) {
+        if (other.empty()) {
+          break;
+        }
+        buffer.add(zipFunc.apply(value, other.head()));
+        other = other.tail();
+      }
+      return fromList(buffer);
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int hashCode() {
+      if (hashVal == 0) {
+        // our iterator walks the leaves; hashHelper() would build a new trie for every tail()
+        hashVal = List.Helpers.iteratorHashHelper(iterator());
+      }
+      return hashVal;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean equals(Object x) {
+      if (this == x) {
+        return true;
+      }
+
+      if (!(x instanceof IList)) {
+        return false;
+      }
+
+      if (x instanceof Trie && ((Trie<?>) x).size != size) {
+        return false;
+      }
+
+      IList<?> otherList = (IList<?>) x;
+      return List.Helpers.iteratorEqualsHelper(iterator(), otherList.iterator());
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public String toString() {
+      return List.Helpers.toStringHelper(this);
+    }
+  }
+
+  /**
+   * Note that this class is not public. Empty vectors will be instances of this class, and we'll have
+   * precisely one of them. Clients of the Vector class can use Vector.makeEmpty().
+   * @see Vector#makeEmpty()
+   */
+  class Empty<T> implements Vector<T>, IList.Empty<T> {
+    private static final Vector<?> SINGLETON = new Vector.Empty<>();
+
+    // don't call this; use makeEmpty()
+    private Empty() { }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Vector<T> add(@NotNull T value) {
+      // we put the first element in the last slot of the leaf, since lists usually grow at the front
+      Object[] leaf = new Object[BRANCHING];
+      leaf[BRANCHING - 1] = value;
+      return new Trie<>(leaf, 0, BRANCHING - 1, 1);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public Vector<T> append(@NotNull T value) {
+      Object[] leaf = new Object[BRANCHING];
+      leaf[0] = value;
+      return new Trie<>(leaf, 0, 0, 1);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public <Q> IList<Q> makeEmptySameType() {
+      return makeEmpty();
+    }
+
+    @Override
+    @Contract(pure = true)
+    public boolean equals(Object x) {
+      if (!(x instanceof IList)) {
+        return false;
+      }
+
+      IList<?> list = (IList<?>) x;
+      return list.empty(); // any empty list will be equal to this one
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int hashCode() {
+      return List.Helpers.hashHelper(this);
+    }
+
+    @NotNull
+    @Override
+    @Contract(pure = true)
+    public String toString() {
+      return List.Helpers.toStringHelper(this);
+    }
+  }
+}
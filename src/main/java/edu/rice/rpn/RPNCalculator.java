@@ -16,8 +16,10 @@ import edu.rice.list.List;
 import edu.rice.regex.NamedMatcher;
 import edu.rice.tree.IMap;
 import edu.rice.tree.TreapMap;
+import edu.rice.util.AtomicPersistent;
 import edu.rice.util.Log;
 import edu.rice.util.Option;
+import edu.rice.util.Pair;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
@@ -49,15 +51,19 @@ public class RPNCalculator {
 
   @SuppressWarnings("unused")
   private static final String TAG = "RPNCalculator";
+
+  // The web server calls calc() from many threads at once, so the stack lives in an atomic cell rather than an
+  // ordinary field. Every calc() either commits a whole new stack or leaves it alone; it never loses somebody
+  // else's update.
   @NotNull
-  private IList<Double> rpnStack; // we'll be mutating this, so not final!
+  private final AtomicPersistent<IList<Double>> rpnStack;
 
   /**
    * Construct an instance of an RPN calculator. This will maintain internal state that evolves as its
    * asked to do computation.
    */
   public RPNCalculator() {
-    rpnStack = List.makeEmpty(); // initially empty
+    rpnStack = new AtomicPersistent<>(List.makeEmpty()); // initially empty
   }
 
   //
@@ -286,25 +292,25 @@ public class RPNCalculator {
    *
    * <p>Note: this method mutates the state of the class! If the input has no errors, then the resulting
    * stack state is saved internally. If the input has errors, then the stack state will be unchanged.
+   * It's safe to call this from several threads at once.
    */
   @NotNull
   public String calc(@NotNull String input) {
     IList<Token<RPNTokenPatterns>> tokenList = scan(input);
 
     CalcOp f = getFunction(tokenList);
-    OStack resultStack = f.apply(OStack.some(rpnStack));
-
-    if (!resultStack.isSome()) {
-      return "Error!";
-    }
 
-    rpnStack = resultStack.get(); // we're now officially done with the prior stack, so we overwrite it
+    // the response is computed from the same stack that we replace, even if we have to retry
+    return rpnStack.modify(stack -> {
+      OStack resultStack = f.apply(OStack.some(stack));
 
-    if (rpnStack.empty()) {
-      return "Empty stack";
-    }
+      if (!resultStack.isSome()) {
+        return new Pair<>(stack, "Error!"); // leaves the stack alone
+      }
 
-    return rpnStack.head().toString();
+      IList<Double> newStack = resultStack.get();
+      return new Pair<>(newStack, newStack.empty() ? "Empty stack" : newStack.head().toString());
+    });
   }
 
   /**
@@ -0,0 +1,1375 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.tree;
+
+import edu.rice.list.IList;
+import edu.rice.list.KeyValue;
+import edu.rice.list.LazyList;
+import edu.rice.list.ListBuilder;
+import edu.rice.util.Option;
+import edu.rice.util.Pair;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * BTreeMap implements the IMap interface with a persistent B+-tree. It does everything a TreapMap does, and the
+ * answers are always the same, but it's laid out very differently in memory.
+ *
+ * <p>A treap has one node per key, and each node points to a separate KeyValue, so looking something up in a
+ * million-entry TreapMap means following twenty-some pointers to twenty-some different places in memory, and
+ * each of those is likely to be a cache miss. A B+-tree node, instead, holds up to {@link Helpers#MAX_WIDTH}
+ * entries, side by side, in arrays: a leaf has an array of keys and a parallel array of values, and an internal
+ * node has an array of children and an array of the keys that separate them. A million entries fit in a tree
+ * that's only four or five levels deep, and within each node, we binary search an array that's sitting in one or
+ * two cache lines. There are no KeyValue objects at all, unless you ask for them.
+ *
+ * <p>Updates work the same way as they do on a treap: we copy the nodes on the path from the root to the leaf and
+ * share everything else with the old tree. The nodes are bigger, so each copy costs more, but there are far fewer
+ * of them. Where the B+-tree really shines is in bulk operations, like building a map from a list or walking
+ * through it in order, which run straight through the leaf arrays.
+ * @see IMap
+ */
+public interface BTreeMap<K extends Comparable<? super K>, V> extends IMap<K, V> {
+  //
+  // Data definition:
+  //
+  // A BTreeMap can be one of two things: empty or non-empty.
+  // These are represented as BTreeMap.Empty and BTreeMap.NonEmptyMap.
+  // A non-empty map holds the root of a B+-tree, whose nodes live in BTreeMap.Helpers. BTreeSet uses the
+  // very same nodes, with each value mapped to itself.
+  //
+
+  /**
+   * Construct an empty map from keys (K) to values (V).
+   * @param <K> map key, which must be comparable
+   * @param <V> map value, can be any type
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <K extends Comparable<? super K>, V> IMap<K, V> makeEmpty() {
+    @SuppressWarnings("unchecked")
+    IMap<K, V> typedEmpty = (IMap<K, V>) Empty.SINGLETON;
+    return typedEmpty;
+  }
+
+  /**
+   * Given a bunch of key/values pairs passed as varargs to this function, return a map with those pairs.
+   */
+  @SuppressWarnings("varargs")
+  @SafeVarargs
+  @NotNull
+  @Contract(pure = true)
+  static <K extends Comparable<? super K>, V> IMap<K, V> of(@NotNull KeyValue<K, V>... pairs) {
+    return BTreeMap.<K, V>makeEmpty().addList(LazyList.fromArray(pairs));
+  }
+
+  /**
+   * Given a list of key/value pairs, return a map with those pairs. If the list is sorted by key, this takes O(n)
+   * time. Otherwise, we sort it first.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <K extends Comparable<? super K>, V> IMap<K, V> fromList(@NotNull IList<KeyValue<K, V>> list) {
+    return BTreeMap.<K, V>makeEmpty().addList(list);
+  }
+
+  /**
+   * Given a list of key/value pairs, return a map with those pairs. If two elements in the list have the same key,
+   * the resulting map will use the mergeOp to combine them.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <K extends Comparable<? super K>, V> IMap<K, V>
+      fromList(@NotNull IList<KeyValue<K, V>> list, @NotNull BinaryOperator<V> mergeOp) {
+
+    return BTreeMap.<K, V>makeEmpty().addListMerge(list, mergeOp);
+  }
+
+  /**
+   * Given a list of keys and a lambda that can convert those keys to values, return the resulting map from keys to
+   * values.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <K extends Comparable<? super K>, V> IMap<K, V> fromList(@NotNull IList<K> list, @NotNull Function<K, V> mapFunc) {
+    return BTreeMap.<K, V>makeEmpty().addList(IList.mapkv(list, mapFunc));
+  }
+
+  /**
+   * Given a list of keys and a lambda that can convert those keys to values, return the resulting map from keys to
+   * values. If two elements in the list have the same key, the resulting map will use the mergeOp to combine them.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <K extends Comparable<? super K>, V> IMap<K, V>
+      fromList(@NotNull IList<K> list, @NotNull Function<K, V> mapFunc, @NotNull BinaryOperator<V> mergeOp) {
+
+    return BTreeMap.<K, V>makeEmpty().addListMerge(IList.mapkv(list, mapFunc), mergeOp);
+  }
+
+  /**
+   * Given a java.util.Map (hashmap, etc.), get back a functional map stored in our B+-tree structure.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <K extends Comparable<? super K>, V> IMap<K, V> fromMap(@NotNull java.util.Map<K, V> inMap) {
+    return BTreeMap.fromList(
+        LazyList.fromIterator(inMap.entrySet().iterator())
+            .map(entry -> KeyValue.make(entry.getKey(), entry.getValue())));
+  }
+
+  /**
+   * Here's the non-empty BTreeMap implementation. External users will never call this directly.
+   */
+  class NonEmptyMap<K extends Comparable<? super K>, V> implements BTreeMap<K, V> {
+    @NotNull
+    private final Helpers.Node<K, V> root;
+
+    // not for external use; start from the empty BTreeMap instead
+    private NonEmptyMap(@NotNull Helpers.Node<K, V> root) {
+      this.root = root;
+    }
+
+    // not for external use; gives back the empty BTreeMap if the tree is empty
+    @NotNull
+    static <K extends Comparable<? super K>, V> IMap<K, V> wrap(@Nullable Helpers.Node<K, V> root) {
+      return root == null || root.count() == 0 ? makeEmpty() : new NonEmptyMap<>(root);
+    }
+
+    // not for external use; lets the tests check the shape of the tree
+    @NotNull
+    Helpers.Node<K, V> getRoot() {
+      return root;
+    }
+
+    @NotNull
+    @Override
+    public <K2 extends Comparable<? super K2>, V2> IMap<K2, V2> makeEmptySameType() {
+      return makeEmpty();
+    }
+
+    @NotNull
+    @Override
+    public ISet<KeyValue<K, V>> getSet() {
+      // We don't keep KeyValues around, so we have to make them. This takes O(n) time, since we can build
+      // the set directly from our entries, which are already in order.
+      Object[] pairs = new Object[root.count()];
+      Iterator<KeyValue<K, V>> iterator = new Helpers.EntryIterator<>(root, KeyValue::make);
+      for (int i = 0; i < pairs.length; i++) {
+        pairs[i] = iterator.next();
+      }
+      return BTreeSet.NonEmptySet.wrap(Helpers.<KeyValue<K, V>, KeyValue<K, V>>build(pairs, pairs, pairs.length));
+    }
+
+    @Override
+    public int hashCode() {
+      // the same as TreapMap and java.util.Set, so equal maps have equal hashes, however they're stored
+      return toList().foldl(0, (sum, elem) -> sum + elem.hashCode());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (!(o instanceof IMap<?, ?>)) {
+        return false;
+      }
+
+      IMap<?, ?> map = (IMap<?, ?>) o;
+
+      // any IMap, of any implementation, lists its pairs in the same order if it has the same contents
+      return size() == map.size() && toSortedList().equals(map.toSortedList());
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> add(@NotNull K key, @NotNull V value) {
+      Helpers.Node<K, V> newRoot = Helpers.insert(root, key, value);
+      return newRoot == root ? this : new NonEmptyMap<>(newRoot);
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> add(@NotNull KeyValue<K, V> kv) {
+      return add(kv.getKey(), kv.getValue());
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> merge(@NotNull K key, @NotNull V value, @NotNull BinaryOperator<V> mergeOp) {
+      V oldValue = Helpers.find(root, key);
+      return add(key, oldValue == null ? value : mergeOp.apply(oldValue, value));
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> remove(@NotNull K key) {
+      Helpers.Node<K, V> newRoot = Helpers.remove(root, key);
+      return newRoot == root ? this : wrap(newRoot);
+    }
+
+    @NotNull
+    @Override
+    public Option<V> oget(@NotNull K key) {
+      V value = Helpers.find(root, key);
+      return value == null ? Option.none() : Option.some(value);
+    }
+
+    @Override
+    public boolean containsKey(@NotNull K key) {
+      return Helpers.find(root, key) != null;
+    }
+
+    @Override
+    public boolean empty() {
+      return false;
+    }
+
+    @Override
+    public int size() {
+      return root.count();
+    }
+
+    @Override
+    public int rank(@NotNull K key) {
+      return Helpers.rank(root, key);
+    }
+
+    @NotNull
+    @Override
+    public Option<KeyValue<K, V>> nth(int n) {
+      return n < 0 || n >= root.count() ? Option.none() : Option.some(Helpers.select(root, n).match(KeyValue::make));
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> sliceByIndex(int from, int to) {
+      return wrap(Helpers.sliceByIndex(root, from, to));
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> union(@NotNull IMap<K, V> otherMap, @NotNull BinaryOperator<V> mergeOp) {
+      return wrap(Helpers.union(root, Helpers.fromMap(otherMap), mergeOp));
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> intersect(@NotNull IMap<K, V> otherMap, @NotNull BinaryOperator<V> mergeOp) {
+      return wrap(Helpers.intersect(root, Helpers.fromMap(otherMap), mergeOp));
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> except(@NotNull IMap<K, V> otherMap) {
+      return wrap(Helpers.difference(root, Helpers.fromMap(otherMap)));
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> greaterThan(@NotNull K query, boolean inclusive) {
+      return wrap(Helpers.greaterThan(root, query, inclusive));
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> lessThan(@NotNull K query, boolean inclusive) {
+      return wrap(Helpers.lessThan(root, query, inclusive));
+    }
+
+    @NotNull
+    @Override
+    public IList<KeyValue<K, V>> range(@NotNull K from, boolean fromInclusive, @NotNull K to, boolean toInclusive) {
+      // walks through the tree in place, rather than making a new one
+      return LazyList.fromIterator(
+          new Helpers.EntryIterator<>(root, from, fromInclusive, to, toInclusive, KeyValue::make));
+    }
+
+    @NotNull
+    @Override
+    public IList<KeyValue<K, V>> toSortedList() {
+      // lazy, so if you only want the first few, that's all we make
+      return LazyList.fromIterator(new Helpers.EntryIterator<>(root, KeyValue::make));
+    }
+
+    @NotNull
+    @Override
+    public IList<KeyValue<K, V>> toList() {
+      // if you want all of them, it's faster to get them all at once
+      ListBuilder<KeyValue<K, V>> builder = new ListBuilder<>(root.count());
+      return builder.appendAll(new Helpers.EntryIterator<>(root, KeyValue::make)).build();
+    }
+
+    @NotNull
+    @Override
+    public IList<K> keys() {
+      ListBuilder<K> builder = new ListBuilder<>(root.count());
+      return builder.appendAll(new Helpers.EntryIterator<K, V, K>(root, (key, value) -> key)).build();
+    }
+
+    @NotNull
+    @Override
+    public IList<V> values() {
+      ListBuilder<V> builder = new ListBuilder<>(root.count());
+      return builder.appendAll(new Helpers.EntryIterator<K, V, V>(root, (key, value) -> value)).build();
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+      return "{" + toSortedList().join(", ") + "}";
+    }
+  }
+
+  /**
+   * Here's the empty BTreeMap implementation. External users will never call this directly.
+   */
+  class Empty<K extends Comparable<? super K>, V> implements BTreeMap<K, V>, IMap.Empty<K, V> {
+    private static final IMap<?, ?> SINGLETON = new BTreeMap.Empty<>();
+
+    // external user: don't call this; call makeEmpty() instead
+    private Empty() { }
+
+    @NotNull
+    @Override
+    public <K2 extends Comparable<? super K2>, V2> IMap<K2, V2> makeEmptySameType() {
+      return makeEmpty();
+    }
+
+    @NotNull
+    @Override
+    public ISet<KeyValue<K, V>> getSet() {
+      return BTreeSet.makeEmpty();
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> add(@NotNull K key, @NotNull V value) {
+      return new NonEmptyMap<>(Helpers.leaf(key, value));
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> add(@NotNull KeyValue<K, V> kv) {
+      return add(kv.getKey(), kv.getValue());
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> addList(@NotNull IList<KeyValue<K, V>> pairs) {
+      // rather than adding the pairs one at a time, we build the whole tree at once
+      return addListMerge(pairs, (oldVal, newVal) -> newVal);
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> addListMerge(@NotNull IList<KeyValue<K, V>> pairs, @NotNull BinaryOperator<V> mergeOp) {
+      Object[] sorted = Treap.Helpers.sortedDistinct(pairs,
+          (kv1, kv2) -> KeyValue.make(kv1.getKey(), mergeOp.apply(kv1.getValue(), kv2.getValue())));
+      Object[] keys = new Object[sorted.length];
+      Object[] values = new Object[sorted.length];
+      for (int i = 0; i < sorted.length; i++) {
+        KeyValue<?, ?> kv = (KeyValue<?, ?>) sorted[i];
+        keys[i] = kv.getKey();
+        values[i] = kv.getValue();
+      }
+      return NonEmptyMap.wrap(Helpers.<K, V>build(keys, values, sorted.length));
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> union(@NotNull IMap<K, V> otherMap, @NotNull BinaryOperator<V> mergeOp) {
+      // the union of nothing with the other map is just the other map, but we'd like to stay a BTreeMap
+      return NonEmptyMap.wrap(Helpers.fromMap(otherMap));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof IMap<?, ?> && ((IMap<?, ?>) o).empty();
+    }
+
+    @Override
+    public int hashCode() {
+      return 1;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+      return "{}";
+    }
+  }
+
+  /**
+   * The nodes of the B+-tree, and the algorithms that work on them. These are shared with BTreeSet. External users
+   * won't need any of this.
+   */
+  class Helpers {
+    private Helpers() { } // do not instantiate!
+
+    //
+    // Engineering note: the rules of the tree are these. Every leaf is at the same depth. A leaf holds between
+    // MIN_WIDTH and MAX_WIDTH keys, in sorted order, with their values in a parallel array. An internal node holds
+    // between MIN_WIDTH and MAX_WIDTH children, and one fewer keys, where keys[i] separates children[i] from
+    // children[i+1]: everything in children[i] is less than keys[i], and everything in children[i+1] is at least
+    // keys[i]. The root is allowed to be smaller than MIN_WIDTH, and so are the nodes along the cut edges of a
+    // greaterThan() or lessThan(). Every array is exactly as long as what's in it, so there's no wasted space;
+    // we're going to copy the arrays on every update anyway.
+    //
+    // Insertion copies the path down to the right leaf. If that leaf gets too full, it splits in half, and the
+    // parent gets an extra child and an extra key, which might make it split too, and so on up to the root. If the
+    // root splits, we make a new root above it, which is the only way the tree ever gets taller.
+    //
+    // Removal also copies the path down to the leaf. If a node gets too empty, its parent pairs it up with a
+    // neighboring child. If the two of them fit in a single node, they merge, and the parent loses a child;
+    // otherwise, we divide everything evenly between the two. If the root ends up with only one child, that
+    // child becomes the new root, which is the only way the tree ever gets shorter.
+    //
+
+    /**
+     * The most entries (in a leaf) or children (in an internal node) that a node can hold.
+     */
+    static final int MAX_WIDTH = 32;
+
+    /**
+     * The fewest entries or children that a node should hold, other than the root.
+     */
+    static final int MIN_WIDTH = MAX_WIDTH / 2;
+
+    abstract static class Node<K extends Comparable<? super K>, V> {
+      /**
+       * The number of entries in a leaf, or the number of children of an internal node.
+       */
+      abstract int width();
+
+      /**
+       * The total number of entries in this node and everything below it.
+       */
+      abstract int count();
+
+      /**
+       * Returns a copy of this node with the key added or updated. If the copy is wider than MAX_WIDTH, the
+       * caller will split it.
+       */
+      @NotNull
+      abstract Node<K, V> insert(@NotNull K key, @NotNull V value);
+
+      /**
+       * Returns a copy of this node without the key. The copy might be narrower than MIN_WIDTH.
+       */
+      @NotNull
+      abstract Node<K, V> remove(@NotNull K key);
+
+      /**
+       * Splits a node that's too wide into two halves. The key that separates them goes into separator[0].
+       */
+      @NotNull
+      abstract Pair<Node<K, V>, Node<K, V>> halves(@NotNull Object[] separator);
+
+      /**
+       * Returns a node with everything from this node, then the separator (for internal nodes), then everything
+       * from the other node. The result might be wider than MAX_WIDTH.
+       */
+      @NotNull
+      abstract Node<K, V> concat(@NotNull K separator, @NotNull Node<K, V> other);
+    }
+
+    static final class Leaf<K extends Comparable<? super K>, V> extends Node<K, V> {
+      @NotNull
+      final Object[] keys;
+      @NotNull
+      final Object[] values;
+
+      Leaf(@NotNull Object[] keys, @NotNull Object[] values) {
+        this.keys = keys;
+        this.values = values;
+      }
+
+      @Override
+      int width() {
+        return keys.length;
+      }
+
+      @Override
+      int count() {
+        return keys.length;
+      }
+
+      @NotNull
+      K key(int i) {
+        return elementAt(keys, i);
+      }
+
+      @NotNull
+      V value(int i) {
+        return elementAt(values, i);
+      }
+
+      @NotNull
+      @Override
+      Node<K, V> insert(@NotNull K key, @NotNull V value) {
+        int pos = search(keys, key);
+        if (pos >= 0) {
+          if (keys[pos] == key && values[pos] == value) {
+            return this;
+          }
+          // if it's the very same key object, the two trees can share the keys array
+          Object[] newKeys = keys;
+          if (keys[pos] != key) {
+            newKeys = keys.clone();
+            newKeys[pos] = key;
+          }
+          Object[] newValues = values.clone();
+          newValues[pos] = value;
+          return new Leaf<>(newKeys, newValues);
+        }
+
+        int at = -pos - 1;
+        return new Leaf<>(insertAt(keys, at, key), insertAt(values, at, value));
+      }
+
+      @NotNull
+      @Override
+      Node<K, V> remove(@NotNull K key) {
+        int pos = search(keys, key);
+        if (pos < 0) {
+          return this;
+        }
+        return new Leaf<>(removeAt(keys, pos), removeAt(values, pos));
+      }
+
+      @NotNull
+      @Override
+      Pair<Node<K, V>, Node<K, V>> halves(@NotNull Object[] separator) {
+        int half = keys.length / 2;
+        separator[0] = keys[half];
+        return new Pair<>(
+            new Leaf<>(Arrays.copyOfRange(keys, 0, half), Arrays.copyOfRange(values, 0, half)),
+            new Leaf<>(Arrays.copyOfRange(keys, half, keys.length), Arrays.copyOfRange(values, half, values.length)));
+      }
+
+      @NotNull
+      @Override
+      Node<K, V> concat(@NotNull K separator, @NotNull Node<K, V> other) {
+        // leaves don't need the separator; the keys themselves say where everything goes
+        Leaf<K, V> otherLeaf = (Leaf<K, V>) other;
+        return new Leaf<>(concatArrays(keys, otherLeaf.keys), concatArrays(values, otherLeaf.values));
+      }
+    }
+
+    static final class Internal<K extends Comparable<? super K>, V> extends Node<K, V> {
+      @NotNull
+      final Object[] keys;
+      @NotNull
+      final Object[] children;
+      private final int count;
+
+      Internal(@NotNull Object[] keys, @NotNull Object[] children) {
+        this.keys = keys;
+        this.children = children;
+        int total = 0;
+        for (Object child : children) {
+          total += ((Node<?, ?>) child).count();
+        }
+        this.count = total;
+      }
+
+      @Override
+      int width() {
+        return children.length;
+      }
+
+      @Override
+      int count() {
+        return count;
+      }
+
+      @NotNull
+      Node<K, V> child(int i) {
+        return elementAt(children, i);
+      }
+
+      /**
+       * Which child would hold the given key.
+       */
+      int childIndex(@NotNull K key) {
+        int pos = search(keys, key);
+        return pos >= 0 ? pos + 1 : -pos - 1;
+      }
+
+      @NotNull
+      @Override
+      Node<K, V> insert(@NotNull K key, @NotNull V value) {
+        int i = childIndex(key);
+        Node<K, V> child = child(i);
+        Node<K, V> newChild = child.insert(key, value);
+        if (newChild == child) {
+          return this;
+        }
+        if (newChild.width() <= MAX_WIDTH) {
+          return new Internal<>(keys, replaceAt(children, i, newChild));
+        }
+
+        // the child overflowed, so it splits in two, and we take on the separator between the halves
+        Object[] separator = new Object[1];
+        Pair<Node<K, V>, Node<K, V>> halves = newChild.halves(separator);
+        Object[] newChildren = insertAt(replaceAt(children, i, halves.a), i + 1, halves.b);
+        return new Internal<>(insertAt(keys, i, separator[0]), newChildren);
+      }
+
+      @NotNull
+      @Override
+      Node<K, V> remove(@NotNull K key) {
+        int i = childIndex(key);
+        Node<K, V> child = child(i);
+        Node<K, V> newChild = child.remove(key);
+        if (newChild == child) {
+          return this;
+        }
+        if (newChild.width() == 0) {
+          // the child is completely gone, along with one of the keys next to it
+          return new Internal<>(keys.length == 0 ? keys : removeAt(keys, i == 0 ? 0 : i - 1), removeAt(children, i));
+        }
+        if (newChild.width() >= MIN_WIDTH || children.length == 1) {
+          return new Internal<>(keys, replaceAt(children, i, newChild));
+        }
+
+        // the child is too narrow, so we pair it up with a neighbor, either merging the two or evening them out
+        int j = i > 0 ? i - 1 : i;
+        Node<K, V> left = i > 0 ? child(i - 1) : newChild;
+        Node<K, V> right = i > 0 ? newChild : child(i + 1);
+        Node<K, V> combined = left.concat(elementAt(keys, j), right);
+        if (combined.width() <= MAX_WIDTH) {
+          return new Internal<>(removeAt(keys, j), removeAt(replaceAt(children, j, combined), j + 1));
+        }
+
+        Object[] separator = new Object[1];
+        Pair<Node<K, V>, Node<K, V>> halves = combined.halves(separator);
+        Object[] newKeys = keys.clone();
+        newKeys[j] = separator[0];
+        return new Internal<>(newKeys, replaceAt(replaceAt(children, j, halves.a), j + 1, halves.b));
+      }
+
+      @NotNull
+      @Override
+      Pair<Node<K, V>, Node<K, V>> halves(@NotNull Object[] separator) {
+        // the key between the two halves moves up to the parent, rather than staying in either half
+        int half = children.length / 2;
+        separator[0] = keys[half - 1];
+        return new Pair<>(
+            new Internal<>(Arrays.copyOfRange(keys, 0, half - 1), Arrays.copyOfRange(children, 0, half)),
+            new Internal<>(Arrays.copyOfRange(keys, half, keys.length),
+                Arrays.copyOfRange(children, half, children.length)));
+      }
+
+      @NotNull
+      @Override
+      Node<K, V> concat(@NotNull K separator, @NotNull Node<K, V> other) {
+        Internal<K, V> otherInternal = (Internal<K, V>) other;
+        return new Internal<>(concatArrays(insertAt(keys, keys.length, separator), otherInternal.keys),
+            concatArrays(children, otherInternal.children));
+      }
+    }
+
+    @NotNull
+    static <K extends Comparable<? super K>, V> Node<K, V> leaf(@NotNull K key, @NotNull V value) {
+      return new Leaf<>(new Object[] { key }, new Object[] { value });
+    }
+
+    /**
+     * Returns the value for the given key, or null if it's not there. This allocates nothing.
+     */
+    @Nullable
+    static <K extends Comparable<? super K>, V> V find(@NotNull Node<K, V> node, @NotNull K key) {
+      while (node instanceof Internal) {
+        Internal<K, V> internal = (Internal<K, V>) node;
+        node = internal.child(internal.childIndex(key));
+      }
+      Leaf<K, V> leaf = (Leaf<K, V>) node;
+      int pos = search(leaf.keys, key);
+      return pos >= 0 ? leaf.value(pos) : null;
+    }
+
+    /**
+     * Returns a new tree with the key added or updated.
+     */
+    @NotNull
+    static <K extends Comparable<? super K>, V> Node<K, V> insert(@NotNull Node<K, V> root, @NotNull K key,
+                                                                @NotNull V value) {
+      Node<K, V> newRoot = root.insert(key, value);
+      if (newRoot.width() <= MAX_WIDTH) {
+        return newRoot;
+      }
+
+      // the root split, so we grow a new root on top of the two halves
+      Object[] separator = new Object[1];
+      Pair<Node<K, V>, Node<K, V>> halves = newRoot.halves(separator);
+      return new Internal<>(separator, new Object[] { halves.a, halves.b });
+    }
+
+    /**
+     * Returns a new tree without the key.
+     */
+    @NotNull
+    static <K extends Comparable<? super K>, V> Node<K, V> remove(@NotNull Node<K, V> root, @NotNull K key) {
+      Node<K, V> newRoot = root.remove(key);
+      return newRoot == root ? root : shrink(newRoot);
+    }
+
+    /**
+     * While the root has only one child, that child can be the root instead.
+     */
+    @NotNull
+    private static <K extends Comparable<? super K>, V> Node<K, V> shrink(@NotNull Node<K, V> root) {
+      while (root instanceof Internal && root.width() == 1) {
+        root = ((Internal<K, V>) root).child(0);
+      }
+      return root;
+    }
+
+    /**
+     * Returns the number of keys in the tree that are less than the given key.
+     */
+    static <K extends Comparable<? super K>, V> int rank(@NotNull Node<K, V> node, @NotNull K key) {
+      int rank = 0;
+      while (node instanceof Internal) {
+        Internal<K, V> internal = (Internal<K, V>) node;
+        int i = internal.childIndex(key);
+        for (int j = 0; j < i; j++) {
+          rank += internal.child(j).count();
+        }
+        node = internal.child(i);
+      }
+      int pos = search(((Leaf<K, V>) node).keys, key);
+      return rank + (pos >= 0 ? pos : -pos - 1);
+    }
+
+    /**
+     * Returns the key and value at the given index in sorted order, which must be in range.
+     */
+    @NotNull
+    static <K extends Comparable<? super K>, V> Pair<K, V> select(@NotNull Node<K, V> node, int index) {
+      while (node instanceof Internal) {
+        Internal<K, V> internal = (Internal<K, V>) node;
+        int i = 0;
+        while (index >= internal.child(i).count()) {
+          index -= internal.child(i).count();
+          i++;
+        }
+        node = internal.child(i);
+      }
+      Leaf<K, V> leaf = (Leaf<K, V>) node;
+      return new Pair<>(leaf.key(index), leaf.value(index));
+    }
+
+    /**
+     * Returns a tree with everything greater than the floor (or equal, if inclusive), or null if there's nothing.
+     */
+    @Nullable
+    static <K extends Comparable<? super K>, V> Node<K, V> greaterThan(@NotNull Node<K, V> root, @NotNull K floor,
+                                                                     boolean inclusive) {
+      Node<K, V> result = greaterThanHelper(root, floor, inclusive);
+      return result == null ? null : shrink(result);
+    }
+
+    @Nullable
+    private static <K extends Comparable<? super K>, V> Node<K, V> greaterThanHelper(@NotNull Node<K, V> node,
+                                                                                   @NotNull K floor,
+                                                                                   boolean inclusive) {
+      if (node instanceof Leaf) {
+        Leaf<K, V> leaf = (Leaf<K, V>) node;
+        int pos = search(leaf.keys, floor);
+        int start = pos >= 0 ? (inclusive ? pos : pos + 1) : -pos - 1;
+        if (start == 0) {
+          return leaf;
+        }
+        if (start == leaf.keys.length) {
+          return null;
+        }
+        return new Leaf<>(Arrays.copyOfRange(leaf.keys, start, leaf.keys.length),
+            Arrays.copyOfRange(leaf.values, start, leaf.values.length));
+      }
+
+      // we keep the child where the floor falls, cut down to size, along with every child after it
+      Internal<K, V> internal = (Internal<K, V>) node;
+      int i = internal.childIndex(floor);
+      Node<K, V> child = internal.child(i);
+      Node<K, V> newChild = greaterThanHelper(child, floor, inclusive);
+      if (i == 0 && newChild == child) {
+        return internal;
+      }
+      int width = internal.children.length;
+      if (newChild == null) {
+        return i + 1 == width ? null : new Internal<>(Arrays.copyOfRange(internal.keys, i + 1, width - 1),
+            Arrays.copyOfRange(internal.children, i + 1, width));
+      }
+      return new Internal<>(Arrays.copyOfRange(internal.keys, i, width - 1),
+          replaceAt(Arrays.copyOfRange(internal.children, i, width), 0, newChild));
+    }
+
+    /**
+     * Returns a tree with everything less than the ceiling (or equal, if inclusive), or null if there's nothing.
+     */
+    @Nullable
+    static <K extends Comparable<? super K>, V> Node<K, V> lessThan(@NotNull Node<K, V> root, @NotNull K ceiling,
+                                                                  boolean inclusive) {
+      Node<K, V> result = lessThanHelper(root, ceiling, inclusive);
+      return result == null ? null : shrink(result);
+    }
+
+    @Nullable
+    private static <K extends Comparable<? super K>, V> Node<K, V> lessThanHelper(@NotNull Node<K, V> node,
+                                                                                @NotNull K ceiling,
+                                                                                boolean inclusive) {
+      if (node instanceof Leaf) {
+        Leaf<K, V> leaf = (Leaf<K, V>) node;
+        int pos = search(leaf.keys, ceiling);
+        int end = pos >= 0 ? (inclusive ? pos + 1 : pos) : -pos - 1;
+        if (end == leaf.keys.length) {
+          return leaf;
+        }
+        if (end == 0) {
+          return null;
+        }
+        return new Leaf<>(Arrays.copyOfRange(leaf.keys, 0, end), Arrays.copyOfRange(leaf.values, 0, end));
+      }
+
+      // the mirror image of greaterThan: every child before the ceiling, plus the one where it falls, cut down
+      Internal<K, V> internal = (Internal<K, V>) node;
+      int i = internal.childIndex(ceiling);
+      Node<K, V> child = internal.child(i);
+      Node<K, V> newChild = lessThanHelper(child, ceiling, inclusive);
+      int width = internal.children.length;
+      if (i == width - 1 && newChild == child) {
+        return internal;
+      }
+      if (newChild == null) {
+        return i == 0 ? null : new Internal<>(Arrays.copyOfRange(internal.keys, 0, i - 1),
+            Arrays.copyOfRange(internal.children, 0, i));
+      }
+      return new Internal<>(Arrays.copyOfRange(internal.keys, 0, i),
+          replaceAt(Arrays.copyOfRange(internal.children, 0, i + 1), i, newChild));
+    }
+
+    /**
+     * Returns a tree with the entries whose indices are at least from and less than to, or null if there aren't any.
+     */
+    @Nullable
+    static <K extends Comparable<? super K>, V> Node<K, V> sliceByIndex(@NotNull Node<K, V> root, int from, int to) {
+      int first = Math.max(from, 0);
+      int last = Math.min(to, root.count()) - 1;
+      if (first > last) {
+        return null;
+      }
+      Node<K, V> upper = greaterThan(root, select(root, first).a, true);
+      return upper == null ? null : lessThan(upper, select(root, last).a, true);
+    }
+
+    //
+    // Engineering note: the set operations all work the same way. We walk through both trees in order, at the
+    // same time, like the merge step of mergesort, collecting the results in a pair of arrays, and then we build
+    // a new tree from those arrays. That's O(n + m), with all the work done in tight loops over arrays.
+    //
+    // That's the right thing when the two trees are anywhere near the same size, but not when one of them only
+    // has a handful of entries. Then, it's cheaper to take the small one's entries one at a time, and look each
+    // of them up in the big one, or insert them, or remove them, which is O(m log n). See fewEnough().
+    //
+
+    /**
+     * Whether the few entries are few enough, compared to the many, that we should deal with them one at a
+     * time, that is, whether m log n is less than n.
+     */
+    @Contract(pure = true)
+    static boolean fewEnough(int few, int many) {
+      int log = 32 - Integer.numberOfLeadingZeros(many);
+      return (long) few * log < many;
+    }
+
+    /**
+     * Returns the union of the two trees. When a key is in both, its value is mergeOp(mine, theirs).
+     */
+    @NotNull
+    static <K extends Comparable<? super K>, V> Node<K, V> union(@NotNull Node<K, V> mine, @NotNull Node<K, V> theirs,
+                                                               @NotNull BinaryOperator<V> mergeOp) {
+      if (fewEnough(theirs.count(), mine.count())) {
+        Node<K, V> result = mine;
+        Object[] keys = toArray(theirs, true);
+        Object[] values = toArray(theirs, false);
+        for (int i = 0; i < keys.length; i++) {
+          V myValue = find(mine, elementAt(keys, i));
+          V theirValue = elementAt(values, i);
+          result = insert(result, elementAt(keys, i), myValue == null ? theirValue : mergeOp.apply(myValue, theirValue));
+        }
+        return result;
+      }
+      if (fewEnough(mine.count(), theirs.count())) {
+        Node<K, V> result = theirs;
+        Object[] keys = toArray(mine, true);
+        Object[] values = toArray(mine, false);
+        for (int i = 0; i < keys.length; i++) {
+          V myValue = elementAt(values, i);
+          V theirValue = find(theirs, elementAt(keys, i));
+          result = insert(result, elementAt(keys, i), theirValue == null ? myValue : mergeOp.apply(myValue, theirValue));
+        }
+        return result;
+      }
+
+      Object[] keys1 = toArray(mine, true);
+      Object[] values1 = toArray(mine, false);
+      Object[] keys2 = toArray(theirs, true);
+      Object[] values2 = toArray(theirs, false);
+      Object[] keys = new Object[keys1.length + keys2.length];
+      Object[] values = new Object[keys.length];
+
+      int i = 0;
+      int j = 0;
+      int n = 0;
+      while (i < keys1.length || j < keys2.length) {
+        int comparison = i == keys1.length ? 1
+            : j == keys2.length ? -1
+            : Helpers.<K>elementAt(keys1, i).compareTo(elementAt(keys2, j));
+        if (comparison < 0) {
+          keys[n] = keys1[i];
+          values[n++] = values1[i++];
+        } else if (comparison > 0) {
+          keys[n] = keys2[j];
+          values[n++] = values2[j++];
+        } else {
+          keys[n] = keys1[i];
+          values[n++] = mergeOp.apply(elementAt(values1, i++), elementAt(values2, j++));
+        }
+      }
+      return build(keys, values, n);
+    }
+
+    /**
+     * Returns the intersection of the two trees, with mergeOp(mine, theirs) for the value of each key in both.
+     */
+    @NotNull
+    static <K extends Comparable<? super K>, V> Node<K, V> intersect(@NotNull Node<K, V> mine,
+                                                                   @NotNull Node<K, V> theirs,
+                                                                   @NotNull BinaryOperator<V> mergeOp) {
+      boolean fewOfMine = fewEnough(mine.count(), theirs.count());
+      if (fewOfMine || fewEnough(theirs.count(), mine.count())) {
+        // the result has no more entries than the small tree, so we look up each of those, in order, in the big one
+        Node<K, V> few = fewOfMine ? mine : theirs;
+        Node<K, V> many = fewOfMine ? theirs : mine;
+        Object[] fewKeys = toArray(few, true);
+        Object[] fewValues = toArray(few, false);
+        Object[] keys = new Object[fewKeys.length];
+        Object[] values = new Object[keys.length];
+        int n = 0;
+        for (int i = 0; i < fewKeys.length; i++) {
+          V manyValue = find(many, elementAt(fewKeys, i));
+          if (manyValue != null) {
+            V fewValue = elementAt(fewValues, i);
+            keys[n] = fewKeys[i];
+            values[n++] = fewOfMine ? mergeOp.apply(fewValue, manyValue) : mergeOp.apply(manyValue, fewValue);
+          }
+        }
+        return build(keys, values, n);
+      }
+
+      Object[] keys1 = toArray(mine, true);
+      Object[] values1 = toArray(mine, false);
+      Object[] keys2 = toArray(theirs, true);
+      Object[] values2 = toArray(theirs, false);
+      Object[] keys = new Object[Math.min(keys1.length, keys2.length)];
+      Object[] values = new Object[keys.length];
+
+      int i = 0;
+      int j = 0;
+      int n = 0;
+      while (i < keys1.length && j < keys2.length) {
+        int comparison = Helpers.<K>elementAt(keys1, i).compareTo(elementAt(keys2, j));
+        if (comparison < 0) {
+          i++;
+        } else if (comparison > 0) {
+          j++;
+        } else {
+          keys[n] = keys1[i];
+          values[n++] = mergeOp.apply(elementAt(values1, i++), elementAt(values2, j++));
+        }
+      }
+      return build(keys, values, n);
+    }
+
+    /**
+     * Returns everything in mine whose key isn't in theirs.
+     */
+    @NotNull
+    static <K extends Comparable<? super K>, V> Node<K, V> difference(@NotNull Node<K, V> mine,
+                                                                    @NotNull Node<K, V> theirs) {
+      if (fewEnough(theirs.count(), mine.count())) {
+        Node<K, V> result = mine;
+        Object[] keys = toArray(theirs, true);
+        for (int i = 0; i < keys.length; i++) {
+          result = remove(result, Helpers.<K>elementAt(keys, i));
+        }
+        return result;
+      }
+      if (fewEnough(mine.count(), theirs.count())) {
+        Object[] keys1 = toArray(mine, true);
+        Object[] values1 = toArray(mine, false);
+        Object[] keys = new Object[keys1.length];
+        Object[] values = new Object[keys.length];
+        int n = 0;
+        for (int i = 0; i < keys1.length; i++) {
+          if (find(theirs, Helpers.<K>elementAt(keys1, i)) == null) {
+            keys[n] = keys1[i];
+            values[n++] = values1[i];
+          }
+        }
+        return build(keys, values, n);
+      }
+
+      Object[] keys1 = toArray(mine, true);
+      Object[] values1 = toArray(mine, false);
+      Object[] keys2 = toArray(theirs, true);
+      Object[] keys = new Object[keys1.length];
+      Object[] values = new Object[keys.length];
+
+      int i = 0;
+      int j = 0;
+      int n = 0;
+      while (i < keys1.length) {
+        int comparison = j == keys2.length ? -1 : Helpers.<K>elementAt(keys1, i).compareTo(elementAt(keys2, j));
+        if (comparison < 0) {
+          keys[n] = keys1[i];
+          values[n++] = values1[i++];
+        } else if (comparison > 0) {
+          j++;
+        } else {
+          i++;
+          j++;
+        }
+      }
+      return build(keys, values, n);
+    }
+
+    /**
+     * Returns the tree inside a BTreeMap, or builds one from the sorted contents of any other kind of map.
+     */
+    @NotNull
+    static <K extends Comparable<? super K>, V> Node<K, V> fromMap(@NotNull IMap<K, V> map) {
+      if (map instanceof NonEmptyMap) {
+        return ((NonEmptyMap<K, V>) map).root;
+      }
+
+      Object[] keys = new Object[map.size()];
+      Object[] values = new Object[keys.length];
+      int n = 0;
+      for (KeyValue<K, V> kv : map.toSortedList()) {
+        keys[n] = kv.getKey();
+        values[n++] = kv.getValue();
+      }
+      return build(keys, values, n);
+    }
+
+    /**
+     * Copies all the keys (or all the values) of the tree, in order, into an array.
+     */
+    @NotNull
+    static Object[] toArray(@NotNull Node<?, ?> node, boolean wantKeys) {
+      Object[] result = new Object[node.count()];
+      copyInto(node, wantKeys, result, 0);
+      return result;
+    }
+
+    private static int copyInto(@NotNull Node<?, ?> node, boolean wantKeys, @NotNull Object[] result, int offset) {
+      if (node instanceof Leaf) {
+        Leaf<?, ?> leaf = (Leaf<?, ?>) node;
+        Object[] source = wantKeys ? leaf.keys : leaf.values;
+        System.arraycopy(source, 0, result, offset, source.length);
+        return offset + source.length;
+      }
+      for (Object child : ((Internal<?, ?>) node).children) {
+        offset = copyInto((Node<?, ?>) child, wantKeys, result, offset);
+      }
+      return offset;
+    }
+
+    /**
+     * Builds a tree, in O(n) time, from the first n keys and values in the arrays. The keys must be sorted, with
+     * no duplicates. Every node is filled as evenly as possible, which is to say, between half full and full.
+     */
+    @NotNull
+    static <K extends Comparable<? super K>, V> Node<K, V> build(@NotNull Object[] keys, @NotNull Object[] values,
+                                                               int n) {
+      if (n == 0) {
+        return new Leaf<>(new Object[0], new Object[0]);
+      }
+
+      int width = (n + MAX_WIDTH - 1) / MAX_WIDTH;
+      Object[] level = new Object[width];
+      Object[] firstKeys = new Object[width];
+      for (int i = 0; i < width; i++) {
+        int from = (int) ((long) n * i / width);
+        int to = (int) ((long) n * (i + 1) / width);
+        level[i] = new Leaf<K, V>(Arrays.copyOfRange(keys, from, to), Arrays.copyOfRange(values, from, to));
+        firstKeys[i] = keys[from];
+      }
+
+      // each level up, the separating keys are the first keys of every child but the first
+      while (width > 1) {
+        int parentWidth = (width + MAX_WIDTH - 1) / MAX_WIDTH;
+        Object[] parents = new Object[parentWidth];
+        Object[] parentFirstKeys = new Object[parentWidth];
+        for (int i = 0; i < parentWidth; i++) {
+          int from = (int) ((long) width * i / parentWidth);
+          int to = (int) ((long) width * (i + 1) / parentWidth);
+          parents[i] = new Internal<K, V>(Arrays.copyOfRange(firstKeys, from + 1, to),
+              Arrays.copyOfRange(level, from, to));
+          parentFirstKeys[i] = firstKeys[from];
+        }
+        level = parents;
+        firstKeys = parentFirstKeys;
+        width = parentWidth;
+      }
+
+      return elementAt(level, 0);
+    }
+
+    /**
+     * Checks that the tree follows all the rules (generally for testing purposes). If strict, every node other
+     * than the root must also be at least half full, which is true unless greaterThan() or lessThan() has been
+     * trimming the edges.
+     */
+    static <K extends Comparable<? super K>, V> boolean valid(@NotNull Node<K, V> root, boolean strict) {
+      return validHelper(root, null, null, strict, true) >= 0;
+    }
+
+    // returns the depth of the leaves below this node, or -1 if something's wrong
+    private static <K extends Comparable<? super K>, V> int validHelper(@NotNull Node<K, V> node, @Nullable K lower,
+                                                                      @Nullable K upper, boolean strict,
+                                                                      boolean isRoot) {
+      if (node.width() > MAX_WIDTH || (strict && !isRoot && node.width() < MIN_WIDTH)) {
+        return -1;
+      }
+
+      if (node instanceof Leaf) {
+        Leaf<K, V> leaf = (Leaf<K, V>) node;
+        if (leaf.keys.length != leaf.values.length) {
+          return -1;
+        }
+        for (int i = 0; i < leaf.keys.length; i++) {
+          K key = leaf.key(i);
+          if ((lower != null && key.compareTo(lower) < 0) || (upper != null && key.compareTo(upper) >= 0)
+              || (i > 0 && leaf.key(i - 1).compareTo(key) >= 0)) {
+            return -1;
+          }
+        }
+        return 0;
+      }
+
+      Internal<K, V> internal = (Internal<K, V>) node;
+      if (internal.keys.length != internal.children.length - 1 || internal.children.length == 0) {
+        return -1;
+      }
+      int depth = -1;
+      int count = 0;
+      for (int i = 0; i < internal.children.length; i++) {
+        K childLower = i == 0 ? lower : Helpers.<K>elementAt(internal.keys, i - 1);
+        K childUpper = i == internal.keys.length ? upper : Helpers.<K>elementAt(internal.keys, i);
+        int childDepth = validHelper(internal.child(i), childLower, childUpper, strict, false);
+        if (childDepth < 0 || (depth >= 0 && childDepth != depth)) {
+          return -1;
+        }
+        depth = childDepth;
+        count += internal.child(i).count();
+      }
+      return count == internal.count() ? depth + 1 : -1;
+    }
+
+    /**
+     * Walks through the entries of a tree, in order, a whole leaf at a time. Each entry is turned into whatever
+     * the iterator returns by the given function, which is how we make KeyValues for a BTreeMap, or just the
+     * values for a BTreeSet. The iterator can also start and stop partway through, for range().
+     */
+    static final class EntryIterator<K extends Comparable<? super K>, V, R> implements Iterator<R> {
+      //
+      // Engineering note: our leaves can't point to the next leaf, the way they would in a mutable B+-tree,
+      // because a leaf can be shared by many different trees, each of which might have a different leaf
+      // next. Instead, we keep a stack of the internal nodes on the path down to the current leaf, along with
+      // which child we're on at each one. The tree is only a handful of levels deep, so the stack is tiny.
+      //
+      @NotNull
+      private final BiFunction<? super K, ? super V, ? extends R> makeEntry;
+      @NotNull
+      private final Object[] path;
+      @NotNull
+      private final int[] childIndex;
+      @Nullable
+      private Leaf<K, V> leaf;
+      private int index;
+      @Nullable
+      private final K to; // or null, to go all the way to the end
+      private final boolean toInclusive;
+
+      EntryIterator(@NotNull Node<K, V> root, @NotNull BiFunction<? super K, ? super V, ? extends R> makeEntry) {
+        this.makeEntry = makeEntry;
+        this.to = null;
+        this.toInclusive = false;
+        int height = height(root);
+        path = new Object[height];
+        childIndex = new int[height];
+        descend(root, 0);
+      }
+
+      EntryIterator(@NotNull Node<K, V> root, @NotNull K from, boolean fromInclusive, @NotNull K to,
+                    boolean toInclusive, @NotNull BiFunction<? super K, ? super V, ? extends R> makeEntry) {
+        this.makeEntry = makeEntry;
+        this.to = to;
+        this.toInclusive = toInclusive;
+        int height = height(root);
+        path = new Object[height];
+        childIndex = new int[height];
+
+        // like descend(), but we follow the path toward the lower bound, and start at the first key in range;
+        // if that's past the end of the leaf, hasNext() will move on to the next one
+        Node<K, V> node = root;
+        for (int depth = 0; node instanceof Internal; depth++) {
+          Internal<K, V> internal = (Internal<K, V>) node;
+          path[depth] = internal;
+          childIndex[depth] = internal.childIndex(from);
+          node = internal.child(childIndex[depth]);
+        }
+        leaf = (Leaf<K, V>) node;
+        int pos = search(leaf.keys, from);
+        index = pos < 0 ? -pos - 1 : fromInclusive ? pos : pos + 1;
+      }
+
+      private static int height(@NotNull Node<?, ?> root) {
+        int height = 0;
+        for (Node<?, ?> node = root; node instanceof Internal; node = ((Internal<?, ?>) node).child(0)) {
+          height++;
+        }
+        return height;
+      }
+
+      // follows the leftmost path from the node down to a leaf, pushing it on the stack as we go
+      private void descend(@NotNull Node<K, V> node, int depth) {
+        while (node instanceof Internal) {
+          path[depth] = node;
+          childIndex[depth] = 0;
+          node = ((Internal<K, V>) node).child(0);
+          depth++;
+        }
+        leaf = (Leaf<K, V>) node;
+        index = 0;
+      }
+
+      @Override
+      public boolean hasNext() {
+        while (leaf != null && index == leaf.keys.length) {
+          // we're done with this leaf; back up until we find an internal node with another child to visit
+          int depth = path.length - 1;
+          while (depth >= 0 && childIndex[depth] + 1 == ((Internal<?, ?>) path[depth]).children.length) {
+            depth--;
+          }
+          if (depth < 0) {
+            leaf = null;
+            return false;
+          }
+          childIndex[depth]++;
+          Internal<K, V> parent = elementAt(path, depth);
+          descend(parent.child(childIndex[depth]), depth + 1);
+        }
+        if (leaf != null && to != null) {
+          int comparison = leaf.key(index).compareTo(to);
+          if (comparison > 0 || (comparison == 0 && !toInclusive)) {
+            leaf = null; // past the upper bound, so there's nothing more to see
+          }
+        }
+        return leaf != null;
+      }
+
+      @Override
+      public R next() {
+        if (!hasNext() || leaf == null) {
+          throw new NoSuchElementException();
+        }
+        R result = makeEntry.apply(leaf.key(index), leaf.value(index));
+        index++;
+        return result;
+      }
+    }
+
+    /**
+     * Binary search for the key in the sorted array. Like java.util.Arrays.binarySearch, this returns the index
+     * if the key is there, or else (-(insertion point) - 1).
+     */
+    static <K extends Comparable<? super K>> int search(@NotNull Object[] keys, @NotNull K key) {
+      int low = 0;
+      int high = keys.length - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int comparison = key.compareTo(elementAt(keys, mid));
+        if (comparison == 0) {
+          return mid;
+        }
+        if (comparison < 0) {
+          high = mid - 1;
+        } else {
+          low = mid + 1;
+        }
+      }
+      return -(low + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    static <T> T elementAt(@NotNull Object[] array, int i) {
+      return (T) array[i];
+    }
+
+    @NotNull
+    private static Object[] insertAt(@NotNull Object[] array, int i, @NotNull Object item) {
+      Object[] result = new Object[array.length + 1];
+      System.arraycopy(array, 0, result, 0, i);
+      result[i] = item;
+      System.arraycopy(array, i, result, i + 1, array.length - i);
+      return result;
+    }
+
+    @NotNull
+    private static Object[] removeAt(@NotNull Object[] array, int i) {
+      Object[] result = new Object[array.length - 1];
+      System.arraycopy(array, 0, result, 0, i);
+      System.arraycopy(array, i + 1, result, i, array.length - i - 1);
+      return result;
+    }
+
+    @NotNull
+    private static Object[] replaceAt(@NotNull Object[] array, int i, @NotNull Object item) {
+      Object[] result = array.clone();
+      result[i] = item;
+      return result;
+    }
+
+    @NotNull
+    private static Object[] concatArrays(@NotNull Object[] first, @NotNull Object[] second) {
+      Object[] result = Arrays.copyOf(first, first.length + second.length);
+      System.arraycopy(second, 0, result, first.length, second.length);
+      return result;
+    }
+  }
+}
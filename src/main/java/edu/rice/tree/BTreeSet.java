@@ -0,0 +1,339 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.tree;
+
+import edu.rice.list.IList;
+import edu.rice.list.LazyList;
+import edu.rice.list.ListBuilder;
+import edu.rice.util.Option;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * BTreeSet implements the ISet interface with a persistent B+-tree, just like BTreeMap, and for the same reasons:
+ * wide nodes full of arrays, rather than one little node per value, mean fewer cache misses and less memory
+ * for large sets.
+ * @see ISet
+ * @see BTreeMap
+ */
+public interface BTreeSet<T extends Comparable<? super T>> extends ISet<T> {
+  //
+  // Data definition:
+  //
+  // A BTreeSet can be one of two things: empty or non-empty.
+  // These are represented as BTreeSet.Empty and BTreeSet.NonEmptySet.
+  // A non-empty set holds the root of the very same B+-tree as BTreeMap, mapping each value to itself. The
+  // keys are what we search on, and the values are what we hand back, so oget() and the merge operations
+  // behave the same as they do in TreapSet. More details in BTreeMap.Helpers.
+  //
+
+  /**
+   * Create an empty set of the given type parameter.
+   * @param <T> any comparable type
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T extends Comparable<? super T>> ISet<T> makeEmpty() {
+    @SuppressWarnings("unchecked")
+    ISet<T> typedEmpty = (ISet<T>) Empty.SINGLETON;
+    return typedEmpty;
+  }
+
+  /**
+   * Given a bunch of values passed as varargs to this function, return a set with those values.
+   */
+  @SuppressWarnings("varargs")
+  @SafeVarargs
+  @NotNull
+  @Contract(pure = true)
+  static <T extends Comparable<? super T>> ISet<T> of(@Nullable T... values) {
+    return BTreeSet.<T>makeEmpty().addList(LazyList.fromArray(values));
+  }
+
+  /**
+   * Given a list of values, return a set with those values. If the list is sorted, this takes O(n) time.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T extends Comparable<? super T>> ISet<T> fromList(@NotNull IList<T> list) {
+    return BTreeSet.<T>makeEmpty().addList(list);
+  }
+
+  /**
+   * Given a list of values, return a set with those values. If two elements in the list have the same value, the
+   * resulting set will use the mergeOp to combine them.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T extends Comparable<? super T>> ISet<T> fromList(@NotNull IList<T> list, @NotNull BinaryOperator<T> mergeOp) {
+    return BTreeSet.<T>makeEmpty().addListMerge(list, mergeOp);
+  }
+
+  /**
+   * Given a java.util.Set (hashset, etc.), get back a functional set stored in our B+-tree structure.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <K extends Comparable<? super K>> ISet<K> fromSet(@NotNull java.util.Set<K> inSet) {
+    return BTreeSet.fromList(LazyList.fromIterator(inSet.iterator()));
+  }
+
+  @NotNull
+  @Override
+  default <R extends Comparable<? super R>> ISet<R> map(@NotNull Function<? super T,? extends R> mapFunc) {
+    return fromList(IList.narrow(toList().map(mapFunc)));
+  }
+
+  @NotNull
+  @Override
+  default <R extends Comparable<? super R>> ISet<R> flatmap(@NotNull Function<? super T,? extends ISet<? extends R>> mapFunc) {
+    return toList().foldl(makeEmpty(), (set, elem) -> set.addList(mapFunc.apply(elem).toSortedList()));
+  }
+
+  class NonEmptySet<T extends Comparable<? super T>> implements BTreeSet<T> {
+    @NotNull
+    private final BTreeMap.Helpers.Node<T, T> root;
+
+    // not for external use; start from the empty BTreeSet instead
+    private NonEmptySet(@NotNull BTreeMap.Helpers.Node<T, T> root) {
+      this.root = root;
+    }
+
+    // not for external use; gives back the empty BTreeSet if the tree is empty
+    @NotNull
+    static <T extends Comparable<? super T>> ISet<T> wrap(@Nullable BTreeMap.Helpers.Node<T, T> root) {
+      return root == null || root.count() == 0 ? makeEmpty() : new NonEmptySet<>(root);
+    }
+
+    // not for external use; the tree inside a BTreeSet, or a new one with the contents of any other kind of set
+    @NotNull
+    static <T extends Comparable<? super T>> BTreeMap.Helpers.Node<T, T> toTree(@NotNull ISet<T> set) {
+      if (set instanceof NonEmptySet) {
+        return ((NonEmptySet<T>) set).root;
+      }
+      Object[] values = new Object[set.size()];
+      int n = 0;
+      for (T value : set.toSortedList()) {
+        values[n++] = value;
+      }
+      return BTreeMap.Helpers.<T, T>build(values, values, n);
+    }
+
+    @NotNull
+    @Override
+    public <Q extends Comparable<? super Q>> ISet<Q> makeEmptySameType() {
+      return makeEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (!(o instanceof ISet<?>)) {
+        return false;
+      }
+
+      ISet<?> set = (ISet<?>) o;
+
+      return size() == set.size() && toSortedList().equals(set.toSortedList());
+    }
+
+    @Override
+    public int hashCode() {
+      // the same as TreapSet and java.util.Set, so equal sets have equal hashes, however they're stored
+      return toList().foldl(0, (sum, elem) -> sum + elem.hashCode());
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> add(@NotNull T value) {
+      BTreeMap.Helpers.Node<T, T> newRoot = BTreeMap.Helpers.insert(root, value, value);
+      return newRoot == root ? this : new NonEmptySet<>(newRoot);
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> remove(@NotNull T value) {
+      BTreeMap.Helpers.Node<T, T> newRoot = BTreeMap.Helpers.remove(root, value);
+      return newRoot == root ? this : wrap(newRoot);
+    }
+
+    @NotNull
+    @Override
+    public Option<T> oget(@NotNull T value) {
+      T result = BTreeMap.Helpers.find(root, value);
+      return result == null ? Option.none() : Option.some(result);
+    }
+
+    @Override
+    public boolean contains(@NotNull T value) {
+      return BTreeMap.Helpers.find(root, value) != null;
+    }
+
+    @Override
+    public boolean empty() {
+      return false;
+    }
+
+    @Override
+    public int size() {
+      return root.count();
+    }
+
+    @Override
+    public int rank(@NotNull T value) {
+      return BTreeMap.Helpers.rank(root, value);
+    }
+
+    @NotNull
+    @Override
+    public Option<T> nth(int n) {
+      return n < 0 || n >= root.count() ? Option.none() : Option.some(BTreeMap.Helpers.select(root, n).b);
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> sliceByIndex(int from, int to) {
+      return wrap(BTreeMap.Helpers.sliceByIndex(root, from, to));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> union(@NotNull ISet<T> otherSet, @NotNull BinaryOperator<T> mergeOp) {
+      return otherSet.empty() ? this : wrap(BTreeMap.Helpers.union(root, toTree(otherSet), mergeOp));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> intersect(@NotNull ISet<T> otherSet, @NotNull BinaryOperator<T> mergeOp) {
+      return otherSet.empty() ? makeEmpty() : wrap(BTreeMap.Helpers.intersect(root, toTree(otherSet), mergeOp));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> except(@NotNull ISet<T> otherSet) {
+      return otherSet.empty() ? this : wrap(BTreeMap.Helpers.difference(root, toTree(otherSet)));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> greaterThan(@NotNull T query, boolean inclusive) {
+      return wrap(BTreeMap.Helpers.greaterThan(root, query, inclusive));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> lessThan(@NotNull T query, boolean inclusive) {
+      return wrap(BTreeMap.Helpers.lessThan(root, query, inclusive));
+    }
+
+    @NotNull
+    @Override
+    public IList<T> range(@NotNull T from, boolean fromInclusive, @NotNull T to, boolean toInclusive) {
+      // walks through the tree in place, rather than making a new one
+      return LazyList.fromIterator(
+          new BTreeMap.Helpers.EntryIterator<T, T, T>(root, from, fromInclusive, to, toInclusive, (key, value) -> value));
+    }
+
+    @NotNull
+    @Override
+    public IList<T> toSortedList() {
+      return LazyList.fromIterator(new BTreeMap.Helpers.EntryIterator<T, T, T>(root, (key, value) -> value));
+    }
+
+    @NotNull
+    @Override
+    public IList<T> toList() {
+      ListBuilder<T> builder = new ListBuilder<>(root.count());
+      return builder.appendAll(new BTreeMap.Helpers.EntryIterator<T, T, T>(root, (key, value) -> value)).build();
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+      return "{" + toSortedList().join(", ") + "}";
+    }
+  }
+
+  class Empty<T extends Comparable<? super T>> implements ISet.Empty<T>, BTreeSet<T> {
+    private static final ISet<?> SINGLETON = new BTreeSet.Empty<>();
+
+    // external user: don't call this; instead, call makeEmpty()
+    private Empty() { }
+
+    @NotNull
+    @Override
+    public <Q extends Comparable<? super Q>> ISet<Q> makeEmptySameType() {
+      return makeEmpty();
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> add(@NotNull T value) {
+      return new NonEmptySet<>(BTreeMap.Helpers.leaf(value, value));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> addList(@NotNull IList<? extends T> values) {
+      // rather than adding the values one at a time, we build the whole tree at once
+      return addListMerge(values, (oldVal, newVal) -> newVal);
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> addListMerge(@NotNull IList<? extends T> values, @NotNull BinaryOperator<T> mergeOp) {
+      Object[] sorted = Treap.Helpers.sortedDistinct(values, mergeOp);
+      return NonEmptySet.wrap(BTreeMap.Helpers.<T, T>build(sorted, sorted, sorted.length));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> union(@NotNull ISet<T> otherSet, @NotNull BinaryOperator<T> mergeOp) {
+      // the union of nothing with the other set is just the other set, but we'd like to stay a BTreeSet
+      return NonEmptySet.wrap(NonEmptySet.toTree(otherSet));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> intersect(@NotNull ISet<T> otherSet, @NotNull BinaryOperator<T> mergeOp) {
+      return this;
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> except(@NotNull ISet<T> otherSet) {
+      return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof ISet<?> && ((ISet<?>) o).empty();
+    }
+
+    @Override
+    public int hashCode() {
+      return 1;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+      return "{}";
+    }
+  }
+}
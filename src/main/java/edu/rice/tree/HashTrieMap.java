@@ -0,0 +1,868 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.tree;
+
+import edu.rice.list.IList;
+import edu.rice.list.LazyList;
+import edu.rice.list.List;
+import edu.rice.list.ListBuilder;
+import edu.rice.util.Option;
+import edu.rice.util.Pair;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import static edu.rice.util.Strings.objectToEscapedString;
+
+/**
+ * A functional mapping from keys to values, much like {@link IMap}, except the keys don't need to be comparable.
+ * Instead, like java.util.HashMap, we use the keys' hashCode() and equals() methods. There's no ordering on the
+ * keys, so there's no greaterThan(), lessThan(), or toSortedList(), but in return, a lookup only has to call equals()
+ * on the one key that has the same hash, rather than compareTo() on every key along a path through a treap.
+ *
+ * <p>Inside, this is a "hash array mapped trie", in the compressed "CHAMP" variant described by Steindorfer and
+ * Vinju, in <i>Optimizing Hash-Array Mapped Tries for Fast and Lean Immutable JVM Collections</i> (OOPSLA 2015).
+ * The hash code is used five bits at a time. At the root, the lowest five bits pick one of 32 slots; in the nodes
+ * below that, the next five bits, and so on. Nodes don't actually have 32 slots, though. Each node has a pair of
+ * 32-bit bitmaps saying which slots hold a key/value pair and which hold a child node, and one array that's
+ * exactly big enough for what's there. Updates copy the nodes along one path from the root, just like our treaps,
+ * but the path is never more than seven nodes long, and usually only two or three.
+ *
+ * <p>Since there's no ordering, toList() returns the pairs in no particular order, although two equal maps will
+ * give you the same order, so long as any keys with exactly the same hash code can be compared to each other, as
+ * Strings can.
+ */
+public interface HashTrieMap<K, V> {
+  /**
+   * Construct an empty map from keys (K) to values (V).
+   * @param <K> map key, which can be any type with sensible hashCode() and equals() methods
+   * @param <V> map value, can be any type
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <K, V> HashTrieMap<K, V> makeEmpty() {
+    @SuppressWarnings("unchecked")
+    HashTrieMap<K, V> typedEmpty = (HashTrieMap<K, V>) Empty.SINGLETON;
+    return typedEmpty;
+  }
+
+  /**
+   * Given a bunch of key/values pairs passed as varargs to this function, return a map with those pairs.
+   */
+  @SuppressWarnings("varargs")
+  @SafeVarargs
+  @NotNull
+  @Contract(pure = true)
+  static <K, V> HashTrieMap<K, V> of(@NotNull Pair<K, V>... pairs) {
+    return HashTrieMap.<K, V>makeEmpty().addList(LazyList.fromArray(pairs));
+  }
+
+  /**
+   * Given a list of key/value pairs, return a map with those pairs. If a key appears more than once, the
+   * last value wins.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <K, V> HashTrieMap<K, V> fromList(@NotNull IList<Pair<K, V>> pairs) {
+    return HashTrieMap.<K, V>makeEmpty().addList(pairs);
+  }
+
+  /**
+   * Given a list of key/value pairs, return a map with those pairs. If two elements in the list have the same key,
+   * the resulting map will use the mergeOp to combine them.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <K, V> HashTrieMap<K, V> fromList(@NotNull IList<Pair<K, V>> pairs, @NotNull BinaryOperator<V> mergeOp) {
+    return HashTrieMap.<K, V>makeEmpty().addListMerge(pairs, mergeOp);
+  }
+
+  /**
+   * Given a list of keys and a lambda that can convert those keys to values, return the resulting map from keys to
+   * values.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <K, V> HashTrieMap<K, V> fromList(@NotNull IList<K> keys, @NotNull Function<? super K, ? extends V> mapFunc) {
+    return keys.foldl(makeEmpty(), (map, key) -> map.add(key, mapFunc.apply(key)));
+  }
+
+  /**
+   * Given a java.util.Map (hashmap, etc.), get back a functional map stored in our hash trie structure.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <K, V> HashTrieMap<K, V> fromMap(@NotNull java.util.Map<K, V> inMap) {
+    return fromList(LazyList.fromIterator(inMap.entrySet().iterator())
+        .map(entry -> new Pair<>(entry.getKey(), entry.getValue())));
+  }
+
+  /**
+   * Gets the value corresponding to a key, if it exists.
+   */
+  @NotNull
+  @Contract(pure = true)
+  Option<V> oget(@NotNull K key);
+
+  /**
+   * Returns whether or not the map has a value for the given key.
+   */
+  @Contract(pure = true)
+  boolean containsKey(@NotNull K key);
+
+  /**
+   * Returns a new map, adding the additional key/value pair. If the key is already present, the
+   * prior value for that key is replaced.
+   */
+  @NotNull
+  @Contract(pure = true)
+  HashTrieMap<K, V> add(@NotNull K key, @NotNull V value);
+
+  /**
+   * Returns a new map, without the key, if present. If the key is absent, this returns the same map.
+   */
+  @NotNull
+  @Contract(pure = true)
+  HashTrieMap<K, V> remove(@NotNull K key);
+
+  /**
+   * Returns whether there are any key/value pairs stored in the map or not.
+   */
+  @Contract(pure = true)
+  boolean empty();
+
+  /**
+   * Returns the number of key/value pairs present in the map. This takes constant time.
+   */
+  @Contract(pure = true)
+  int size();
+
+  /**
+   * Returns a list of the key/value pairs, in no guaranteed order.
+   */
+  @NotNull
+  @Contract(pure = true)
+  IList<Pair<K, V>> toList();
+
+  /**
+   * Updates the value, applying the given function from the old value to the new value; if the old
+   * value for the given key is absent, the input to the function will be Option.none(). If the
+   * function returns Option.none(), then the result will be equivalent to removing the key from
+   * the map (as in map.remove(key)).
+   * @see IMap#update(Comparable, UnaryOperator)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieMap<K, V> update(@NotNull K key, @NotNull UnaryOperator<Option<V>> updateFunc) {
+    return updateFunc.apply(oget(key)).match(() -> remove(key), newVal -> add(key, newVal));
+  }
+
+  /**
+   * Returns a new map, adding the additional key/value pair. If the key is already present, the
+   * prior value for that key is merged with mergeOp and the new value.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieMap<K, V> merge(@NotNull K key, @NotNull V value, @NotNull BinaryOperator<V> mergeOp) {
+    return oget(key).match(() -> add(key, value), oldVal -> add(key, mergeOp.apply(oldVal, value)));
+  }
+
+  /**
+   * Returns a new map corresponding to the set-union of the two maps. If the same key exists in
+   * both maps, the union map's value will have the result of calling the mergeOp operation on the
+   * two original values, with the value from this map first.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieMap<K, V> union(@NotNull HashTrieMap<K, V> otherMap, @NotNull BinaryOperator<V> mergeOp) {
+    return otherMap.toList().foldl(this, (map, kv) -> map.merge(kv.a, kv.b, mergeOp));
+  }
+
+  /**
+   * Returns a new map corresponding to the set-intersection of the two maps. If the same key exists
+   * in both maps, the intersection map's value will have the result of calling the mergeOp
+   * operation on the two original values, with the value from this map first.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieMap<K, V> intersect(@NotNull HashTrieMap<K, V> otherMap, @NotNull BinaryOperator<V> mergeOp) {
+    return toList().foldl(makeEmpty(), (map, kv) -> otherMap.oget(kv.a).match(
+        () -> map,
+        otherVal -> map.add(kv.a, mergeOp.apply(kv.b, otherVal))));
+  }
+
+  /**
+   * Returns a new map corresponding to the current map with the set-intersection removed. Any key in
+   * otherMap will cause its corresponding key in this map to be removed, regardless of their values.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieMap<K, V> except(@NotNull HashTrieMap<K, V> otherMap) {
+    return toList().foldl(this, (map, kv) -> otherMap.containsKey(kv.a) ? map.remove(kv.a) : map);
+  }
+
+  /**
+   * Returns a list of all the keys in the map, in no guaranteed order.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IList<K> keys() {
+    return toList().map(kv -> kv.a);
+  }
+
+  /**
+   * Returns a list of all the values in the map, in no guaranteed order.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IList<V> values() {
+    return toList().map(kv -> kv.b);
+  }
+
+  /**
+   * Adds all the key/value pairs in the list into the map, returning a new map.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieMap<K, V> addList(@NotNull IList<Pair<K, V>> pairs) {
+    return pairs.foldl(this, (map, kv) -> map.add(kv.a, kv.b));
+  }
+
+  /**
+   * Adds all the key/value pairs in the list into the map, returning a new map. If the same key
+   * occurs more than once, they're merged with mergeOp.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieMap<K, V> addListMerge(@NotNull IList<Pair<K, V>> pairs, @NotNull BinaryOperator<V> mergeOp) {
+    return pairs.foldl(this, (map, kv) -> map.merge(kv.a, kv.b, mergeOp));
+  }
+
+  /**
+   * Removes all the elements with the given keys in the list from the map, returning a new map.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieMap<K, V> removeList(@NotNull IList<? extends K> keys) {
+    return keys.foldl(this, HashTrieMap::remove);
+  }
+
+  /**
+   * Here's the non-empty HashTrieMap implementation. External users will never call this directly.
+   */
+  class NonEmptyMap<K, V> implements HashTrieMap<K, V> {
+    @NotNull
+    private final Helpers.Node<K, V> root;
+    private final int size;
+
+    // not for external use; start from the empty HashTrieMap instead
+    private NonEmptyMap(@NotNull Helpers.Node<K, V> root, int size) {
+      this.root = root;
+      this.size = size;
+    }
+
+    @NotNull
+    @Override
+    public Option<V> oget(@NotNull K key) {
+      V value = root.find(key, key.hashCode(), 0);
+      return value == null ? Option.none() : Option.some(value);
+    }
+
+    @Override
+    public boolean containsKey(@NotNull K key) {
+      return root.find(key, key.hashCode(), 0) != null;
+    }
+
+    @NotNull
+    @Override
+    public HashTrieMap<K, V> add(@NotNull K key, @NotNull V value) {
+      Helpers.Change change = new Helpers.Change();
+      Helpers.Node<K, V> newRoot = root.updated(key, value, key.hashCode(), 0, change);
+      return newRoot == root ? this : new NonEmptyMap<>(newRoot, size + change.sizeDelta);
+    }
+
+    @NotNull
+    @Override
+    public HashTrieMap<K, V> remove(@NotNull K key) {
+      Helpers.Change change = new Helpers.Change();
+      Helpers.Node<K, V> newRoot = root.removed(key, key.hashCode(), 0, change);
+      if (newRoot == root) {
+        return this;
+      }
+      return size + change.sizeDelta == 0 ? makeEmpty() : new NonEmptyMap<>(newRoot, size + change.sizeDelta);
+    }
+
+    @Override
+    public boolean empty() {
+      return false;
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @NotNull
+    @Override
+    public IList<Pair<K, V>> toList() {
+      ListBuilder<Pair<K, V>> builder = new ListBuilder<>(size);
+      root.appendTo(builder);
+      return builder.build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (!(o instanceof HashTrieMap<?, ?>)) {
+        return false;
+      }
+
+      @SuppressWarnings("unchecked")
+      HashTrieMap<K, V> otherMap = (HashTrieMap<K, V>) o;
+
+      if (size != otherMap.size()) {
+        return false;
+      }
+
+      // same size, and every one of our pairs is present in the other map, means the same pairs
+      for (Pair<K, V> kv : toList()) {
+        if (!otherMap.oget(kv.a).match(() -> false, otherVal -> otherVal.equals(kv.b))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      // the same as java.util.Map: the hash can't depend on the order we happen to visit the pairs
+      return toList().foldl(0, (sum, kv) -> sum + (kv.a.hashCode() ^ kv.b.hashCode()));
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+      return "{" + toList()
+          .map(kv -> String.format("(%s => %s)", objectToEscapedString(kv.a), objectToEscapedString(kv.b)))
+          .join(", ") + "}";
+    }
+  }
+
+  /**
+   * Here's the empty HashTrieMap implementation. External users will never call this directly.
+   */
+  class Empty<K, V> implements HashTrieMap<K, V> {
+    private static final HashTrieMap<?, ?> SINGLETON = new HashTrieMap.Empty<>();
+
+    // external user: don't call this; call makeEmpty() instead
+    private Empty() { }
+
+    @NotNull
+    @Override
+    public Option<V> oget(@NotNull K key) {
+      return Option.none();
+    }
+
+    @Override
+    public boolean containsKey(@NotNull K key) {
+      return false;
+    }
+
+    @NotNull
+    @Override
+    public HashTrieMap<K, V> add(@NotNull K key, @NotNull V value) {
+      return new NonEmptyMap<>(Helpers.Node.<K, V>emptyNode().updated(key, value, key.hashCode(), 0,
+          new Helpers.Change()), 1);
+    }
+
+    @NotNull
+    @Override
+    public HashTrieMap<K, V> remove(@NotNull K key) {
+      return this;
+    }
+
+    @Override
+    public boolean empty() {
+      return true;
+    }
+
+    @Override
+    public int size() {
+      return 0;
+    }
+
+    @NotNull
+    @Override
+    public IList<Pair<K, V>> toList() {
+      return List.makeEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof HashTrieMap<?, ?> && ((HashTrieMap<?, ?>) o).empty();
+    }
+
+    @Override
+    public int hashCode() {
+      return 0;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+      return "{}";
+    }
+  }
+
+  /**
+   * The nodes of the trie, and the code that works on them. External users won't need any of this.
+   */
+  class Helpers {
+    private Helpers() { } // do not instantiate!
+
+    /**
+     * How many bits of the hash code each level of the trie consumes.
+     */
+    static final int BITS_PER_LEVEL = 5;
+
+    /**
+     * Once we've consumed this many bits, we've used up the hash code, and any keys that are still together
+     * have exactly the same hash code, so they go into a {@link CollisionNode}.
+     */
+    static final int HASH_BITS = 32;
+
+    /**
+     * Updates and removals tell the map, through this, whether they changed its size.
+     */
+    static final class Change {
+      int sizeDelta = 0;
+    }
+
+    @Contract(pure = true)
+    static int mask(int hash, int shift) {
+      return (hash >>> shift) & ((1 << BITS_PER_LEVEL) - 1);
+    }
+
+    @Contract(pure = true)
+    static int bitpos(int hash, int shift) {
+      return 1 << mask(hash, shift);
+    }
+
+    abstract static class Node<K, V> {
+      private static final Node<?, ?> EMPTY = new BitmapNode<>(0, 0, new Object[0]);
+
+      // only ever used as the starting point for the very first add()
+      @NotNull
+      static <K, V> Node<K, V> emptyNode() {
+        @SuppressWarnings("unchecked")
+        Node<K, V> typedEmpty = (Node<K, V>) EMPTY;
+        return typedEmpty;
+      }
+
+      /**
+       * Returns the value for the key, or null if it's not there. The shift says how many bits of the hash
+       * code we've used up to get here.
+       */
+      @Nullable
+      abstract V find(@NotNull K key, int hash, int shift);
+
+      /**
+       * Returns a node with the key/value pair added, or this very node if nothing changed.
+       */
+      @NotNull
+      abstract Node<K, V> updated(@NotNull K key, @NotNull V value, int hash, int shift, @NotNull Change change);
+
+      /**
+       * Returns a node without the key, or this very node if the key wasn't there.
+       */
+      @NotNull
+      abstract Node<K, V> removed(@NotNull K key, int hash, int shift, @NotNull Change change);
+
+      /**
+       * Whether this node holds exactly one key/value pair, and nothing else. A node like that doesn't deserve to
+       * be a node, so its parent will pull the pair up into itself.
+       */
+      abstract boolean isSingleton();
+
+      @NotNull
+      abstract K keyAt(int i);
+
+      @NotNull
+      abstract V valueAt(int i);
+
+      /**
+       * Appends all the key/value pairs in this node and its children to the builder.
+       */
+      abstract void appendTo(@NotNull ListBuilder<Pair<K, V>> builder);
+    }
+
+    //
+    // Engineering note: a BitmapNode keeps everything in one array. First come the key/value pairs, two slots
+    // each, in the order of their bits in dataMap, and then come the child nodes, in the order of their bits in
+    // nodeMap. To find where the pair (or child) for a given bit lives, we count how many bits are set below it,
+    // which Integer.bitCount() does in a single instruction on most processors.
+    //
+    // We always keep the trie in its most compact form: if removing a key leaves a child holding only one pair,
+    // the pair moves up into the parent. That's what makes this "CHAMP" rather than a plain HAMT. It keeps the
+    // trie as shallow as it can be, and it means the shape of the trie depends only on which keys are in it,
+    // not on the order they were added or removed. The one exception is the order of the keys inside a
+    // CollisionNode; see there.
+    //
+
+    static final class BitmapNode<K, V> extends Node<K, V> {
+      private final int dataMap;
+      private final int nodeMap;
+      @NotNull
+      private final Object[] content;
+
+      BitmapNode(int dataMap, int nodeMap, @NotNull Object[] content) {
+        this.dataMap = dataMap;
+        this.nodeMap = nodeMap;
+        this.content = content;
+      }
+
+      private int dataArity() {
+        return Integer.bitCount(dataMap);
+      }
+
+      private int nodeArity() {
+        return Integer.bitCount(nodeMap);
+      }
+
+      private int dataIndex(int bit) {
+        return Integer.bitCount(dataMap & (bit - 1));
+      }
+
+      private int nodeIndex(int bit) {
+        return Integer.bitCount(nodeMap & (bit - 1));
+      }
+
+      @SuppressWarnings("unchecked")
+      @NotNull
+      @Override
+      K keyAt(int i) {
+        return (K) content[2 * i];
+      }
+
+      @SuppressWarnings("unchecked")
+      @NotNull
+      @Override
+      V valueAt(int i) {
+        return (V) content[2 * i + 1];
+      }
+
+      @SuppressWarnings("unchecked")
+      @NotNull
+      private Node<K, V> nodeAt(int i) {
+        return (Node<K, V>) content[2 * dataArity() + i];
+      }
+
+      @Nullable
+      @Override
+      V find(@NotNull K key, int hash, int shift) {
+        int bit = bitpos(hash, shift);
+        if ((dataMap & bit) != 0) {
+          int i = dataIndex(bit);
+          return key.equals(keyAt(i)) ? valueAt(i) : null;
+        }
+        if ((nodeMap & bit) != 0) {
+          return nodeAt(nodeIndex(bit)).find(key, hash, shift + BITS_PER_LEVEL);
+        }
+        return null;
+      }
+
+      @NotNull
+      @Override
+      Node<K, V> updated(@NotNull K key, @NotNull V value, int hash, int shift, @NotNull Change change) {
+        int bit = bitpos(hash, shift);
+
+        if ((dataMap & bit) != 0) {
+          int i = dataIndex(bit);
+          K oldKey = keyAt(i);
+          if (key.equals(oldKey)) {
+            if (oldKey == key && valueAt(i) == value) {
+              return this;
+            }
+            Object[] newContent = content.clone();
+            newContent[2 * i] = key;
+            newContent[2 * i + 1] = value;
+            return new BitmapNode<>(dataMap, nodeMap, newContent);
+          }
+
+          // a different key lives in our slot, so the two of them move down into a new child node together
+          change.sizeDelta = 1;
+          Node<K, V> child = mergeTwo(oldKey, valueAt(i), oldKey.hashCode(), key, value, hash, shift + BITS_PER_LEVEL);
+          return migrateToNode(bit, i, child);
+        }
+
+        if ((nodeMap & bit) != 0) {
+          int j = nodeIndex(bit);
+          Node<K, V> child = nodeAt(j);
+          Node<K, V> newChild = child.updated(key, value, hash, shift + BITS_PER_LEVEL, change);
+          return newChild == child ? this : withChild(j, newChild);
+        }
+
+        // an empty slot: the pair goes right here
+        change.sizeDelta = 1;
+        int i = dataIndex(bit);
+        Object[] newContent = new Object[content.length + 2];
+        System.arraycopy(content, 0, newContent, 0, 2 * i);
+        newContent[2 * i] = key;
+        newContent[2 * i + 1] = value;
+        System.arraycopy(content, 2 * i, newContent, 2 * i + 2, content.length - 2 * i);
+        return new BitmapNode<>(dataMap | bit, nodeMap, newContent);
+      }
+
+      @NotNull
+      @Override
+      Node<K, V> removed(@NotNull K key, int hash, int shift, @NotNull Change change) {
+        int bit = bitpos(hash, shift);
+
+        if ((dataMap & bit) != 0) {
+          int i = dataIndex(bit);
+          if (!key.equals(keyAt(i))) {
+            return this;
+          }
+
+          change.sizeDelta = -1;
+          Object[] newContent = new Object[content.length - 2];
+          System.arraycopy(content, 0, newContent, 0, 2 * i);
+          System.arraycopy(content, 2 * i + 2, newContent, 2 * i, content.length - 2 * i - 2);
+          return new BitmapNode<>(dataMap ^ bit, nodeMap, newContent);
+        }
+
+        if ((nodeMap & bit) != 0) {
+          int j = nodeIndex(bit);
+          Node<K, V> child = nodeAt(j);
+          Node<K, V> newChild = child.removed(key, hash, shift + BITS_PER_LEVEL, change);
+          if (newChild == child) {
+            return this;
+          }
+          if (!newChild.isSingleton()) {
+            return withChild(j, newChild);
+          }
+          if (dataMap == 0 && nodeArity() == 1) {
+            // we'd be left with nothing but the one pair, so we become a singleton ourselves, and our own
+            // parent will pull the pair up further
+            return new BitmapNode<>(bit, 0, new Object[] { newChild.keyAt(0), newChild.valueAt(0) });
+          }
+          return migrateToInline(bit, j, newChild.keyAt(0), newChild.valueAt(0));
+        }
+
+        return this;
+      }
+
+      @Override
+      boolean isSingleton() {
+        return nodeMap == 0 && dataArity() == 1;
+      }
+
+      @Override
+      void appendTo(@NotNull ListBuilder<Pair<K, V>> builder) {
+        int dataArity = dataArity();
+        for (int i = 0; i < dataArity; i++) {
+          builder.append(new Pair<>(keyAt(i), valueAt(i)));
+        }
+        int nodeArity = nodeArity();
+        for (int j = 0; j < nodeArity; j++) {
+          nodeAt(j).appendTo(builder);
+        }
+      }
+
+      @NotNull
+      private Node<K, V> withChild(int j, @NotNull Node<K, V> newChild) {
+        Object[] newContent = content.clone();
+        newContent[2 * dataArity() + j] = newChild;
+        return new BitmapNode<>(dataMap, nodeMap, newContent);
+      }
+
+      // replaces the pair at data index i with the child node, which holds that pair and another one
+      @NotNull
+      private Node<K, V> migrateToNode(int bit, int i, @NotNull Node<K, V> child) {
+        int oldDataEnd = 2 * dataArity();
+        int j = nodeIndex(bit);
+        Object[] newContent = new Object[content.length - 1];
+        System.arraycopy(content, 0, newContent, 0, 2 * i);
+        System.arraycopy(content, 2 * i + 2, newContent, 2 * i, oldDataEnd - 2 * i - 2);
+        int newNodeStart = oldDataEnd - 2;
+        System.arraycopy(content, oldDataEnd, newContent, newNodeStart, j);
+        newContent[newNodeStart + j] = child;
+        System.arraycopy(content, oldDataEnd + j, newContent, newNodeStart + j + 1, content.length - oldDataEnd - j);
+        return new BitmapNode<>(dataMap ^ bit, nodeMap | bit, newContent);
+      }
+
+      // replaces the child at node index j with the one pair that's left in it
+      @NotNull
+      private Node<K, V> migrateToInline(int bit, int j, @NotNull K key, @NotNull V value) {
+        int oldDataEnd = 2 * dataArity();
+        int i = dataIndex(bit);
+        Object[] newContent = new Object[content.length + 1];
+        System.arraycopy(content, 0, newContent, 0, 2 * i);
+        newContent[2 * i] = key;
+        newContent[2 * i + 1] = value;
+        System.arraycopy(content, 2 * i, newContent, 2 * i + 2, oldDataEnd - 2 * i);
+        int newNodeStart = oldDataEnd + 2;
+        System.arraycopy(content, oldDataEnd, newContent, newNodeStart, j);
+        System.arraycopy(content, oldDataEnd + j + 1, newContent, newNodeStart + j, content.length - oldDataEnd - j - 1);
+        return new BitmapNode<>(dataMap | bit, nodeMap ^ bit, newContent);
+      }
+    }
+
+    /**
+     * Makes a node holding two different keys, which agree on all the bits of their hashes that were used to
+     * get this far.
+     */
+    @NotNull
+    static <K, V> Node<K, V> mergeTwo(@NotNull K key0, @NotNull V value0, int hash0,
+                                      @NotNull K key1, @NotNull V value1, int hash1, int shift) {
+      if (shift >= HASH_BITS) {
+        // the hashes are identical, so there's nothing left to tell them apart
+        return CollisionNode.before(key1, key0)
+            ? new CollisionNode<>(hash0, new Object[] { key1, value1, key0, value0 })
+            : new CollisionNode<>(hash0, new Object[] { key0, value0, key1, value1 });
+      }
+
+      int mask0 = mask(hash0, shift);
+      int mask1 = mask(hash1, shift);
+      if (mask0 != mask1) {
+        int dataMap = (1 << mask0) | (1 << mask1);
+        return mask0 < mask1
+            ? new BitmapNode<>(dataMap, 0, new Object[] { key0, value0, key1, value1 })
+            : new BitmapNode<>(dataMap, 0, new Object[] { key1, value1, key0, value0 });
+      }
+
+      // they still agree on these five bits, so we need to go down another level
+      return new BitmapNode<>(0, 1 << mask0,
+          new Object[] { mergeTwo(key0, value0, hash0, key1, value1, hash1, shift + BITS_PER_LEVEL) });
+    }
+
+    /**
+     * When two or more keys have exactly the same hash code, they all wind up here, at the very bottom of the trie,
+     * in a plain array that we search from one end to the other. With a decent hash function, this is rare.
+     *
+     * <p>If the keys can be compared to each other, we keep them in sorted order, so equal maps have equal
+     * collision nodes, no matter the order their keys arrived in. Otherwise, we have nothing to go on but
+     * hashCode() and equals(), so they stay in the order they arrived.
+     */
+    static final class CollisionNode<K, V> extends Node<K, V> {
+      private final int hash;
+      @NotNull
+      private final Object[] content; // key, value, key, value, ...
+
+      CollisionNode(int hash, @NotNull Object[] content) {
+        this.hash = hash;
+        this.content = content;
+      }
+
+      @SuppressWarnings("unchecked")
+      @NotNull
+      @Override
+      K keyAt(int i) {
+        return (K) content[2 * i];
+      }
+
+      @SuppressWarnings("unchecked")
+      @NotNull
+      @Override
+      V valueAt(int i) {
+        return (V) content[2 * i + 1];
+      }
+
+      /**
+       * Whether the first key belongs ahead of the second: only if they're the same kind of Comparable, and the
+       * first one is smaller.
+       */
+      @SuppressWarnings("unchecked")
+      static boolean before(@NotNull Object key0, @NotNull Object key1) {
+        return key0 instanceof Comparable && key0.getClass() == key1.getClass()
+            && ((Comparable<Object>) key0).compareTo(key1) < 0;
+      }
+
+      private int indexOf(@NotNull K key) {
+        for (int i = 0; i < content.length / 2; i++) {
+          if (key.equals(keyAt(i))) {
+            return i;
+          }
+        }
+        return -1;
+      }
+
+      @Nullable
+      @Override
+      V find(@NotNull K key, int hash, int shift) {
+        // every key that gets down here has the same hash as ours, so we don't need to check it
+        int i = indexOf(key);
+        return i < 0 ? null : valueAt(i);
+      }
+
+      @NotNull
+      @Override
+      Node<K, V> updated(@NotNull K key, @NotNull V value, int hash, int shift, @NotNull Change change) {
+        int i = indexOf(key);
+        if (i >= 0) {
+          if (keyAt(i) == key && valueAt(i) == value) {
+            return this;
+          }
+          Object[] newContent = content.clone();
+          newContent[2 * i] = key;
+          newContent[2 * i + 1] = value;
+          return new CollisionNode<>(this.hash, newContent);
+        }
+
+        change.sizeDelta = 1;
+        int at = 0;
+        while (2 * at < content.length && !before(key, keyAt(at))) {
+          at++;
+        }
+        Object[] newContent = new Object[content.length + 2];
+        System.arraycopy(content, 0, newContent, 0, 2 * at);
+        newContent[2 * at] = key;
+        newContent[2 * at + 1] = value;
+        System.arraycopy(content, 2 * at, newContent, 2 * at + 2, content.length - 2 * at);
+        return new CollisionNode<>(this.hash, newContent);
+      }
+
+      @NotNull
+      @Override
+      Node<K, V> removed(@NotNull K key, int hash, int shift, @NotNull Change change) {
+        int i = indexOf(key);
+        if (i < 0) {
+          return this;
+        }
+
+        change.sizeDelta = -1;
+        Object[] newContent = new Object[content.length - 2];
+        System.arraycopy(content, 0, newContent, 0, 2 * i);
+        System.arraycopy(content, 2 * i + 2, newContent, 2 * i, content.length - 2 * i - 2);
+        return new CollisionNode<>(this.hash, newContent);
+      }
+
+      @Override
+      boolean isSingleton() {
+        return content.length == 2;
+      }
+
+      @Override
+      void appendTo(@NotNull ListBuilder<Pair<K, V>> builder) {
+        for (int i = 0; i < content.length / 2; i++) {
+          builder.append(new Pair<>(keyAt(i), valueAt(i)));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,386 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.tree;
+
+import edu.rice.list.IList;
+import edu.rice.list.LazyList;
+import edu.rice.list.List;
+import edu.rice.util.Option;
+import edu.rice.util.Strings;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A functional set, much like {@link ISet}, except the values don't need to be comparable. Instead, like
+ * java.util.HashSet, we use their hashCode() and equals() methods. There's no ordering, so there's no greaterThan(),
+ * lessThan(), or toSortedList(), and toList() gives you the values in no particular order.
+ * @see HashTrieMap
+ */
+public interface HashTrieSet<T> {
+  //
+  // Data definition:
+  //
+  // A HashTrieSet can be one of two things: empty or non-empty.
+  // These are represented as HashTrieSet.Empty and HashTrieSet.NonEmptySet.
+  // A non-empty set is a wrapper around a HashTrieMap from each value to itself, which is what lets
+  // oget() give you back the value that's actually in the set. More details there.
+  //
+
+  /**
+   * Create an empty set of the given type parameter.
+   * @param <T> any type with sensible hashCode() and equals() methods
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> HashTrieSet<T> makeEmpty() {
+    @SuppressWarnings("unchecked")
+    HashTrieSet<T> typedEmpty = (HashTrieSet<T>) Empty.SINGLETON;
+    return typedEmpty;
+  }
+
+  /**
+   * Given a bunch of values passed as varargs to this function, return a set with those values.
+   */
+  @SuppressWarnings("varargs")
+  @SafeVarargs
+  @NotNull
+  @Contract(pure = true)
+  static <T> HashTrieSet<T> of(@Nullable T... values) {
+    return HashTrieSet.<T>makeEmpty().addList(LazyList.fromArray(values));
+  }
+
+  /**
+   * Given a list of values, return a set with those values.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> HashTrieSet<T> fromList(@NotNull IList<? extends T> list) {
+    return HashTrieSet.<T>makeEmpty().addList(list);
+  }
+
+  /**
+   * Given a java.util.Set (hashset, etc.), get back a functional set stored in our hash trie structure.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> HashTrieSet<T> fromSet(@NotNull java.util.Set<T> inSet) {
+    return fromList(LazyList.fromIterator(inSet.iterator()));
+  }
+
+  /**
+   * Returns a new set, adding the additional value. If the value is already present, the prior
+   * value is replaced.
+   */
+  @NotNull
+  @Contract(pure = true)
+  HashTrieSet<T> add(@NotNull T value);
+
+  /**
+   * Returns a new set, without the value, if present. If the value is absent, this returns the same
+   * set.
+   */
+  @NotNull
+  @Contract(pure = true)
+  HashTrieSet<T> remove(@NotNull T value);
+
+  /**
+   * Returns whether or not the set contains the given value.
+   */
+  @Contract(pure = true)
+  boolean contains(@NotNull T value);
+
+  /**
+   * Returns a value from the set "equal" to the input value, if present, otherwise
+   * Option.none().
+   */
+  @NotNull
+  @Contract(pure = true)
+  Option<T> oget(@NotNull T value);
+
+  /**
+   * Returns whether there are values in the set.
+   */
+  @Contract(pure = true)
+  boolean empty();
+
+  /**
+   * Returns the cardinality of the set. This takes constant time.
+   */
+  @Contract(pure = true)
+  int size();
+
+  /**
+   * Returns a list of the values in the set, in no guaranteed order.
+   */
+  @NotNull
+  @Contract(pure = true)
+  IList<T> toList();
+
+  /**
+   * Map a function over each element, returns a set of the results. Analogous to {@link IList#map}.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default <R> HashTrieSet<R> map(@NotNull Function<? super T, ? extends R> mapFunc) {
+    return fromList(toList().map(mapFunc));
+  }
+
+  /**
+   * Returns a set of only the elements that satisfy the predicate. Analogous to {@link IList#filter}.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieSet<T> filter(@NotNull Predicate<? super T> predicate) {
+    return toList().foldl(this, (set, elem) -> predicate.test(elem) ? set : set.remove(elem));
+  }
+
+  /**
+   * Returns a new set, adding the additional value. If the value is already present, the prior value
+   * is "removed" and the "merged" value, with mergeOp, is inserted.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieSet<T> merge(@NotNull T newVal, @NotNull BinaryOperator<T> mergeOp) {
+    return oget(newVal).match(() -> add(newVal), oldVal -> add(mergeOp.apply(oldVal, newVal)));
+  }
+
+  /**
+   * Returns a new set corresponding to the set-union of the two sets. If the same value (i.e.,
+   * they're "equal") exists in both sets, the union set's value will have the result of calling the
+   * mergeOp operation on the two original values, with the value from this set first.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieSet<T> union(@NotNull HashTrieSet<T> otherSet, @NotNull BinaryOperator<T> mergeOp) {
+    return otherSet.toList().foldl(this, (set, elem) -> set.merge(elem, mergeOp));
+  }
+
+  /**
+   * Returns a new set corresponding to the set-union of the two sets. If the same value (i.e.,
+   * they're "equal") exists in both sets, the value in "this" wins and the other is ignored.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieSet<T> union(@NotNull HashTrieSet<T> otherSet) {
+    // we only add what's missing, so the value in "this" wins
+    return otherSet.toList().foldl(this, (set, elem) -> set.contains(elem) ? set : set.add(elem));
+  }
+
+  /**
+   * Returns a new set corresponding to the set-intersection of the two sets. If the same value
+   * (i.e., they're "equal") exists in both sets, the intersection set's value will have the result
+   * of calling the mergeOp operation on the two original values, with the value from this set first.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieSet<T> intersect(@NotNull HashTrieSet<T> otherSet, @NotNull BinaryOperator<T> mergeOp) {
+    return toList().foldl(makeEmpty(), (set, elem) -> otherSet.oget(elem).match(
+        () -> set,
+        otherVal -> set.add(mergeOp.apply(elem, otherVal))));
+  }
+
+  /**
+   * Returns a new set corresponding to the set-intersection of the two sets. If the same value
+   * (i.e., they're "equal") exists in both sets, the intersection set's value will have the value
+   * in "this" and the other is ignored.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieSet<T> intersect(@NotNull HashTrieSet<T> otherSet) {
+    return filter(otherSet::contains);
+  }
+
+  /**
+   * Returns a new set corresponding to the current set with the set-intersection removed. This
+   * is also called the set "complement" and is sometimes written "A \ B" or "A - B".
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieSet<T> except(@NotNull HashTrieSet<T> otherSet) {
+    return filter(elem -> !otherSet.contains(elem));
+  }
+
+  /**
+   * Adds all the values in the list into the set, returning a new set.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieSet<T> addList(@NotNull IList<? extends T> values) {
+    return IList.<T>narrow(values).foldl(this, HashTrieSet::add);
+  }
+
+  /**
+   * Removes all the elements with the given value in the list from the set, returning a new set.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default HashTrieSet<T> removeList(@NotNull IList<? extends T> values) {
+    return IList.<T>narrow(values).foldl(this, HashTrieSet::remove);
+  }
+
+  class NonEmptySet<T> implements HashTrieSet<T> {
+    @NotNull
+    private final HashTrieMap<T, T> map;
+
+    // not for external use; start from the empty HashTrieSet instead
+    private NonEmptySet(@NotNull HashTrieMap<T, T> map) {
+      this.map = map;
+    }
+
+    @NotNull
+    @Override
+    public HashTrieSet<T> add(@NotNull T value) {
+      HashTrieMap<T, T> newMap = map.add(value, value);
+      return newMap == map ? this : new NonEmptySet<>(newMap);
+    }
+
+    @NotNull
+    @Override
+    public HashTrieSet<T> remove(@NotNull T value) {
+      HashTrieMap<T, T> newMap = map.remove(value);
+      if (newMap == map) {
+        return this;
+      }
+      return newMap.empty() ? makeEmpty() : new NonEmptySet<>(newMap);
+    }
+
+    @Override
+    public boolean contains(@NotNull T value) {
+      return map.containsKey(value);
+    }
+
+    @NotNull
+    @Override
+    public Option<T> oget(@NotNull T value) {
+      return map.oget(value);
+    }
+
+    @Override
+    public boolean empty() {
+      return false;
+    }
+
+    @Override
+    public int size() {
+      return map.size();
+    }
+
+    @NotNull
+    @Override
+    public IList<T> toList() {
+      return map.values();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (!(o instanceof HashTrieSet<?>)) {
+        return false;
+      }
+
+      @SuppressWarnings("unchecked")
+      HashTrieSet<T> otherSet = (HashTrieSet<T>) o;
+
+      if (size() != otherSet.size()) {
+        return false;
+      }
+
+      for (T elem : toList()) {
+        if (!otherSet.contains(elem)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      // the same as java.util.Set: the hash can't depend on the order we happen to visit the values
+      return toList().foldl(0, (sum, elem) -> sum + elem.hashCode());
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+      return "{" + toList().map(Strings::objectToEscapedString).join(", ") + "}";
+    }
+  }
+
+  class Empty<T> implements HashTrieSet<T> {
+    private static final HashTrieSet<?> SINGLETON = new HashTrieSet.Empty<>();
+
+    // external user: don't call this; instead, call makeEmpty()
+    private Empty() { }
+
+    @NotNull
+    @Override
+    public HashTrieSet<T> add(@NotNull T value) {
+      return new NonEmptySet<>(HashTrieMap.<T, T>makeEmpty().add(value, value));
+    }
+
+    @NotNull
+    @Override
+    public HashTrieSet<T> remove(@NotNull T value) {
+      return this;
+    }
+
+    @Override
+    public boolean contains(@NotNull T value) {
+      return false;
+    }
+
+    @NotNull
+    @Override
+    public Option<T> oget(@NotNull T value) {
+      return Option.none();
+    }
+
+    @Override
+    public boolean empty() {
+      return true;
+    }
+
+    @Override
+    public int size() {
+      return 0;
+    }
+
+    @NotNull
+    @Override
+    public IList<T> toList() {
+      return List.makeEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof HashTrieSet<?> && ((HashTrieSet<?>) o).empty();
+    }
+
+    @Override
+    public int hashCode() {
+      return 0;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+      return "{}";
+    }
+  }
+}
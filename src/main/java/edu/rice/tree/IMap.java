@@ -14,10 +14,12 @@ import edu.rice.list.KeyValue;
 import edu.rice.list.IList;
 import edu.rice.list.LazyList;
 import edu.rice.util.Option;
+import edu.rice.util.Pair;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
 
 /**
@@ -50,6 +52,14 @@ public interface IMap<K extends Comparable<? super K>, V> {
   @Contract(pure = true)
   Option<V> oget(@NotNull K key);
 
+  /**
+   * Returns whether or not the map has a value for the given key.
+   */
+  @Contract(pure = true)
+  default boolean containsKey(@NotNull K key) {
+    return oget(key).isSome();
+  }
+
   /**
    * Returns a new map, without the key, if present.
    */
@@ -87,6 +97,125 @@ public interface IMap<K extends Comparable<? super K>, V> {
   @Contract(pure = true)
   int size();
 
+  /**
+   * Returns the number of keys in the map that are strictly less than the query key, which is the index the key
+   * has (or would have) in sorted order.
+   * @see ISet#rank(Comparable)
+   */
+  @Contract(pure = true)
+  default int rank(@NotNull K key) {
+    return getSet().rank(KeyValue.makeNoValue(key));
+  }
+
+  /**
+   * Returns Option.Some of the key/value pair at the given index in sorted order on the keys (the smallest key
+   * would correspond to n=0), if present, otherwise Option.None.
+   * @see ISet#nth(int)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<KeyValue<K, V>> nth(int n) {
+    return getSet().nth(n);
+  }
+
+  /**
+   * Returns Option.Some of the key/value pair with the smallest key, if there is one, otherwise Option.None.
+   * @see ISet#first()
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<KeyValue<K, V>> first() {
+    return nth(0);
+  }
+
+  /**
+   * Returns Option.Some of the key/value pair with the largest key, if there is one, otherwise Option.None.
+   * @see ISet#last()
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<KeyValue<K, V>> last() {
+    return nth(size() - 1);
+  }
+
+  /**
+   * Returns Option.Some of the key/value pair with the largest key less than or equal to the query, if there is
+   * one, otherwise Option.None. This is what you want for looking up a time series: the latest entry as of a given
+   * time.
+   * @see ISet#floor(Comparable)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<KeyValue<K, V>> floor(@NotNull K key) {
+    // as with ISet, rank() and nth() get us here without making a new map, and they're O(log n) for all our maps
+    return nth(rank(key) - (containsKey(key) ? 0 : 1));
+  }
+
+  /**
+   * Returns Option.Some of the key/value pair with the largest key strictly less than the query, if there is one,
+   * otherwise Option.None.
+   * @see ISet#lower(Comparable)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<KeyValue<K, V>> lower(@NotNull K key) {
+    return nth(rank(key) - 1);
+  }
+
+  /**
+   * Returns Option.Some of the key/value pair with the smallest key greater than or equal to the query, if there
+   * is one, otherwise Option.None.
+   * @see ISet#ceiling(Comparable)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<KeyValue<K, V>> ceiling(@NotNull K key) {
+    return nth(rank(key));
+  }
+
+  /**
+   * Returns Option.Some of the key/value pair with the smallest key strictly greater than the query, if there is
+   * one, otherwise Option.None.
+   * @see ISet#higher(Comparable)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<KeyValue<K, V>> higher(@NotNull K key) {
+    return nth(rank(key) + (containsKey(key) ? 1 : 0));
+  }
+
+  /**
+   * Returns Option.Some of the key/value pair with the smallest key, along with a new map without it, if the map
+   * isn't empty, otherwise Option.None.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<Pair<KeyValue<K, V>, IMap<K, V>>> pollFirst() {
+    return first().map(kv -> new Pair<>(kv, remove(kv.getKey())));
+  }
+
+  /**
+   * Returns Option.Some of the key/value pair with the largest key, along with a new map without it, if the map
+   * isn't empty, otherwise Option.None.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<Pair<KeyValue<K, V>, IMap<K, V>>> pollLast() {
+    return last().map(kv -> new Pair<>(kv, remove(kv.getKey())));
+  }
+
+  /**
+   * Returns a new map with the key/value pairs whose indices, in sorted order on the keys, are at least from and
+   * less than to. If the requested range goes beyond either end of the map, as many pairs as are in range will
+   * be returned. This is handy for handing out a big map one page at a time.
+   * @see ISet#sliceByIndex(int, int)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IMap<K, V> sliceByIndex(int from, int to) {
+    return this.<K, V>makeEmptySameType().addList(getSet().sliceByIndex(from, to).toSortedList());
+  }
+
   /**
    * Returns a new map corresponding to the set-union of the two maps. If the same key exists in
    * both maps, the union map's value will have the result of calling the mergeOp operation on the
@@ -129,6 +258,18 @@ public interface IMap<K extends Comparable<? super K>, V> {
   @Contract(pure = true)
   IMap<K, V> lessThan(@NotNull K queryKey, boolean inclusive);
 
+  /**
+   * Returns a lazy list of the key-value pairs whose keys are between the two bounds, each either inclusive or
+   * exclusive, in sorted order on the keys. This is the same as greaterThan(from, fromInclusive).lessThan(to,
+   * toInclusive).toSortedList(), except that maps which can walk through their pairs in place, rather than making
+   * new maps, will do so.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IList<KeyValue<K, V>> range(@NotNull K from, boolean fromInclusive, @NotNull K to, boolean toInclusive) {
+    return greaterThan(from, fromInclusive).lessThan(to, toInclusive).toSortedList();
+  }
+
   /**
    * Returns a list that iterates over the key-value pairs, in *sorted* order on the keys.
    */
@@ -199,6 +340,31 @@ public interface IMap<K extends Comparable<? super K>, V> {
     return keys.foldl(this, IMap::remove);
   }
 
+  /**
+   * Returns a mutable, transient version of this map, for making a whole batch of changes more quickly than you
+   * could make them one at a time. This map is never changed. When you're done, call
+   * {@link TransientMap#persistent()} to get back an ordinary map with all the changes.
+   * @see TransientMap
+   */
+  @NotNull
+  @Contract(pure = true)
+  default TransientMap<K, V> asTransient() {
+    return new TransientMap<>(this);
+  }
+
+  /**
+   * Runs the given function on a transient version of this map, which it can change as much as it likes, and then
+   * returns an ordinary map with all the changes. This map is never changed.
+   * @see #asTransient()
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IMap<K, V> withMutations(@NotNull Consumer<? super TransientMap<K, V>> mutator) {
+    TransientMap<K, V> batch = asTransient();
+    mutator.accept(batch);
+    return batch.persistent();
+  }
+
   /**
    * Sometimes you have an IMap and you want an empty IMap of the *same* concrete type. This method is a nice
    * shorthand that does it for you. Alternatively, you may of course use the static method TreapMap.makeEmpty().
@@ -228,6 +394,12 @@ public interface IMap<K extends Comparable<? super K>, V> {
       return Option.none();
     }
 
+    @Override
+    @Contract(pure = true)
+    default boolean containsKey(@NotNull K key) {
+      return false;
+    }
+
     @Override
     @Contract(pure = true)
     default boolean empty() {
@@ -12,12 +12,17 @@ package edu.rice.tree;
 
 import edu.rice.list.IList;
 import edu.rice.list.LazyList;
+import edu.rice.util.Monoid;
 import edu.rice.util.Option;
+import edu.rice.util.Pair;
+import edu.rice.util.Parallel;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 public interface ISet<T extends Comparable<? super T>> {
   /**
@@ -64,6 +69,126 @@ public interface ISet<T extends Comparable<? super T>> {
   @Contract(pure = true)
   int size();
 
+  /**
+   * Returns the number of values in the set that are strictly less than the query value, which is the index the
+   * value has (or would have) in sorted order.
+   * @see ITree#rank(Comparable)
+   */
+  @Contract(pure = true)
+  default int rank(@NotNull T value) {
+    // a concrete implementation might be able to go faster than this
+    return toSortedList().takeWhile(x -> x.compareTo(value) < 0).length();
+  }
+
+  /**
+   * Returns Option.Some of the value at the given index in sorted order (the smallest value would correspond
+   * to n=0), if present, otherwise Option.None.
+   * @see ITree#select(int)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<T> nth(int n) {
+    return toSortedList().nth(n);
+  }
+
+  /**
+   * Returns Option.Some of the smallest value in the set, if there is one, otherwise Option.None.
+   * @see ITree#first()
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<T> first() {
+    return nth(0);
+  }
+
+  /**
+   * Returns Option.Some of the largest value in the set, if there is one, otherwise Option.None.
+   * @see ITree#last()
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<T> last() {
+    return nth(size() - 1);
+  }
+
+  /**
+   * Returns Option.Some of the largest value in the set less than or equal to the query, if there is one,
+   * otherwise Option.None.
+   * @see ITree#floor(Comparable)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<T> floor(@NotNull T query) {
+    // With rank() and nth(), we never have to make a new set. If they're O(log n), and they are for all of our
+    // sets, then so is this. The same goes for lower(), ceiling(), and higher().
+    return nth(rank(query) - (contains(query) ? 0 : 1));
+  }
+
+  /**
+   * Returns Option.Some of the largest value in the set strictly less than the query, if there is one, otherwise
+   * Option.None.
+   * @see ITree#lower(Comparable)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<T> lower(@NotNull T query) {
+    return nth(rank(query) - 1);
+  }
+
+  /**
+   * Returns Option.Some of the smallest value in the set greater than or equal to the query, if there is one,
+   * otherwise Option.None.
+   * @see ITree#ceiling(Comparable)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<T> ceiling(@NotNull T query) {
+    return nth(rank(query));
+  }
+
+  /**
+   * Returns Option.Some of the smallest value in the set strictly greater than the query, if there is one,
+   * otherwise Option.None.
+   * @see ITree#higher(Comparable)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<T> higher(@NotNull T query) {
+    return nth(rank(query) + (contains(query) ? 1 : 0));
+  }
+
+  /**
+   * Returns Option.Some of the smallest value in the set, along with a new set without it, if the set isn't empty,
+   * otherwise Option.None.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<Pair<T, ISet<T>>> pollFirst() {
+    return first().map(min -> new Pair<>(min, remove(min)));
+  }
+
+  /**
+   * Returns Option.Some of the largest value in the set, along with a new set without it, if the set isn't empty,
+   * otherwise Option.None.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<Pair<T, ISet<T>>> pollLast() {
+    return last().map(max -> new Pair<>(max, remove(max)));
+  }
+
+  /**
+   * Returns a new set with the values whose indices, in sorted order, are at least from and less than to. If the
+   * requested range goes beyond either end of the set, as many values as are in range will be returned. This is
+   * handy for handing out a big set one page at a time.
+   * @see ITree#sliceByIndex(int, int)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default ISet<T> sliceByIndex(int from, int to) {
+    return this.<T>makeEmptySameType().addList(toSortedList().sublist(Math.max(from, 0), to - 1));
+  }
+
   /**
    * Map a function over each element, returns a set of the results. Analogous to {@link IList#map}.
    */
@@ -79,6 +204,81 @@ public interface ISet<T extends Comparable<? super T>> {
   @Contract(pure = true)
   <R extends Comparable<? super R>> ISet<R> flatmap(@NotNull Function<? super T, ? extends ISet<? extends R>> mapFunc);
 
+  /**
+   * Returns a set of only the elements that satisfy the predicate. Analogous to {@link IList#filter}.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default ISet<T> filter(@NotNull Predicate<? super T> predicate) {
+    return this.<T>makeEmptySameType().addList(toSortedList().filter(predicate));
+  }
+
+  /**
+   * Same as {@link #map(Function)}, but runs the function on multiple cores at once.
+   * @see IList#parallelMap(Function, int)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default <R extends Comparable<? super R>> ISet<R> parallelMap(@NotNull Function<? super T,? extends R> mapFunc) {
+    return parallelMap(mapFunc, Parallel.DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Same as {@link #map(Function)}, but runs the function on multiple cores at once. Ranges of no more than
+   * threshold elements are mapped sequentially. (Only the function calls happen in parallel; the resulting
+   * set is then assembled on the calling thread.)
+   * @see IList#parallelMap(Function, int)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default <R extends Comparable<? super R>> ISet<R> parallelMap(@NotNull Function<? super T,? extends R> mapFunc,
+                                                                int threshold) {
+    return this.<R>makeEmptySameType().addList(toSortedList().parallelMap(mapFunc, threshold));
+  }
+
+  /**
+   * Same as {@link #filter(Predicate)}, but tests the predicate on multiple cores at once.
+   * @see IList#parallelFilter(Predicate, int)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default ISet<T> parallelFilter(@NotNull Predicate<? super T> predicate) {
+    return parallelFilter(predicate, Parallel.DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Same as {@link #filter(Predicate)}, but tests the predicate on multiple cores at once. Ranges of no more
+   * than threshold elements are tested sequentially.
+   * @see IList#parallelFilter(Predicate, int)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default ISet<T> parallelFilter(@NotNull Predicate<? super T> predicate, int threshold) {
+    return this.<T>makeEmptySameType().addList(toSortedList().parallelFilter(predicate, threshold));
+  }
+
+  /**
+   * Applies the function to every element, in sorted order, then combines the results with the monoid,
+   * using multiple cores at once.
+   * @see IList#parallelFoldMap(Monoid, Function, int)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default <U> U parallelFoldMap(@NotNull Monoid<U> monoid, @NotNull Function<? super T, ? extends U> f) {
+    return parallelFoldMap(monoid, f, Parallel.DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Applies the function to every element, in sorted order, then combines the results with the monoid,
+   * using multiple cores at once. Ranges of no more than threshold elements are folded sequentially.
+   * @see IList#parallelFoldMap(Monoid, Function, int)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default <U> U parallelFoldMap(@NotNull Monoid<U> monoid, @NotNull Function<? super T, ? extends U> f, int threshold) {
+    return toSortedList().parallelFoldMap(monoid, f, threshold);
+  }
+
   /**
    * Returns a new set corresponding to the set-union of the two sets. If the same value (i.e.,
    * they're "equal") exists in both sets, the union set's value will have the result of calling the
@@ -87,7 +287,8 @@ public interface ISet<T extends Comparable<? super T>> {
   @NotNull
   @Contract(pure = true)
   default ISet<T> union(@NotNull ISet<T> otherSet, @NotNull BinaryOperator<T> mergeOp) {
-    return toList().foldl(otherSet, (set, elem) -> set.merge(elem, mergeOp));
+    // fold the other set into this one, so merge() hands mergeOp our value first, then theirs
+    return otherSet.toList().foldl(this, (set, otherElem) -> set.merge(otherElem, mergeOp));
   }
 
   /**
@@ -140,6 +341,36 @@ public interface ISet<T extends Comparable<? super T>> {
     return removeList(intersection.toList());
   }
 
+  /**
+   * Same as {@link #union(ISet, BinaryOperator)}, but may use multiple cores at once. The results are exactly
+   * the same. Only some kinds of sets know how to do this; the rest just do an ordinary union.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default ISet<T> parallelUnion(@NotNull ISet<T> otherSet, @NotNull BinaryOperator<T> mergeOp) {
+    return union(otherSet, mergeOp);
+  }
+
+  /**
+   * Same as {@link #intersect(ISet, BinaryOperator)}, but may use multiple cores at once. The results are
+   * exactly the same. Only some kinds of sets know how to do this; the rest just do an ordinary intersection.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default ISet<T> parallelIntersect(@NotNull ISet<T> otherSet, @NotNull BinaryOperator<T> mergeOp) {
+    return intersect(otherSet, mergeOp);
+  }
+
+  /**
+   * Same as {@link #except(ISet)}, but may use multiple cores at once. The results are exactly the same. Only
+   * some kinds of sets know how to do this; the rest just do an ordinary except.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default ISet<T> parallelExcept(@NotNull ISet<T> otherSet) {
+    return except(otherSet);
+  }
+
   /**
    * Returns a new set with all values greater-than (or equal to) the query value.
    */
@@ -154,6 +385,17 @@ public interface ISet<T extends Comparable<? super T>> {
   @Contract(pure = true)
   ISet<T> lessThan(@NotNull T queryKey, boolean inclusive);
 
+  /**
+   * Returns a lazy list of the values between the two bounds, each either inclusive or exclusive, in sorted order.
+   * This is the same as greaterThan(from, fromInclusive).lessThan(to, toInclusive).toSortedList(), except that
+   * sets which can walk through their values in place, rather than making new sets, will do so.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IList<T> range(@NotNull T from, boolean fromInclusive, @NotNull T to, boolean toInclusive) {
+    return greaterThan(from, fromInclusive).lessThan(to, toInclusive).toSortedList();
+  }
+
   /**
    * Returns a list that iterates over the values, in *sorted* order on the values, based on their
    * internal compareTo method.
@@ -213,6 +455,31 @@ public interface ISet<T extends Comparable<? super T>> {
     return values.foldl(this, ISet::remove);
   }
 
+  /**
+   * Returns a mutable, transient version of this set, for making a whole batch of changes more quickly than you
+   * could make them one at a time. This set is never changed. When you're done, call
+   * {@link TransientSet#persistent()} to get back an ordinary set with all the changes.
+   * @see TransientSet
+   */
+  @NotNull
+  @Contract(pure = true)
+  default TransientSet<T> asTransient() {
+    return new TransientSet<>(this);
+  }
+
+  /**
+   * Runs the given function on a transient version of this set, which it can change as much as it likes, and then
+   * returns an ordinary set with all the changes. This set is never changed.
+   * @see #asTransient()
+   */
+  @NotNull
+  @Contract(pure = true)
+  default ISet<T> withMutations(@NotNull Consumer<? super TransientSet<T>> mutator) {
+    TransientSet<T> batch = asTransient();
+    mutator.accept(batch);
+    return batch.persistent();
+  }
+
   /**
    * Sometimes you have an ISet and you want an empty ISet of the *same* concrete type. This method is a nice
    * shorthand that does it for you. Alternatively, you may of course use the static method TreapSet.makeEmpty().
@@ -17,9 +17,16 @@ import edu.rice.list.List;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface ITree<T extends Comparable<? super T>> {
   /**
@@ -126,19 +133,156 @@ public interface ITree<T extends Comparable<? super T>> {
   @NotNull
   @Contract(pure = true)
   default Option<T> find(@NotNull T query) {
-    return match(
-        emptyTree -> Option.none(),
+    // a loop, rather than recursion through match(), so the only thing we allocate is the Option we return
+    T result = Tree.Helpers.lookup(this, query);
+    return result == null ? Option.none() : Option.some(result);
+  }
 
-        (elem, leftTree, rightTree) -> {
-          int comparison = query.compareTo(elem);
-          if (comparison < 0) {
-            return leftTree.find(query);
-          }
-          if (comparison > 0) {
-            return rightTree.find(query);
-          }
-          return Option.some(elem);
-        });
+  /**
+   * Returns the number of elements in the tree that are strictly less than the key. If the key is present, this is
+   * its index in sorted order, starting from zero; if not, it's the index the key would have if you inserted it.
+   * For a treap, which knows the size of every subtree, this takes O(log n) time.
+   */
+  @Contract(pure = true)
+  default int rank(@NotNull T key) {
+    int rank = 0;
+    ITree<T> tree = this;
+    while (!tree.empty()) {
+      int comparison = key.compareTo(tree.getValue());
+      if (comparison == 0) {
+        return rank + tree.getLeft().size();
+      }
+      if (comparison < 0) {
+        tree = tree.getLeft();
+      } else {
+        // everything on the left, plus this node, is less than the key
+        rank += tree.getLeft().size() + 1;
+        tree = tree.getRight();
+      }
+    }
+    return rank;
+  }
+
+  /**
+   * Returns Option.Some of the element at the given index in sorted order (the smallest element would correspond
+   * to index=0), if present, otherwise Option.None. This is the inverse of {@link #rank(Comparable)}. For a treap,
+   * which knows the size of every subtree, this takes O(log n) time.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<T> select(int index) {
+    if (index < 0 || index >= size()) {
+      return Option.none();
+    }
+
+    ITree<T> tree = this;
+    for (;;) {
+      int leftSize = tree.getLeft().size();
+      if (index == leftSize) {
+        return Option.some(tree.getValue());
+      }
+      if (index < leftSize) {
+        tree = tree.getLeft();
+      } else {
+        index -= leftSize + 1;
+        tree = tree.getRight();
+      }
+    }
+  }
+
+  /**
+   * Returns Option.Some of the smallest element in the tree, if there is one, otherwise Option.None. This walks down
+   * the left edge of the tree, taking O(log n) time for a balanced tree, and makes no new tree.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<T> first() {
+    if (empty()) {
+      return Option.none();
+    }
+    ITree<T> tree = this;
+    while (!tree.getLeft().empty()) {
+      tree = tree.getLeft();
+    }
+    return Option.some(tree.getValue());
+  }
+
+  /**
+   * Returns Option.Some of the largest element in the tree, if there is one, otherwise Option.None.
+   * @see #first()
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<T> last() {
+    if (empty()) {
+      return Option.none();
+    }
+    ITree<T> tree = this;
+    while (!tree.getRight().empty()) {
+      tree = tree.getRight();
+    }
+    return Option.some(tree.getValue());
+  }
+
+  /**
+   * Returns Option.Some of the largest element less than or equal to the query, if there is one, otherwise
+   * Option.None. Like {@link #rank(Comparable)}, this is a single walk down from the root, so it takes O(log n)
+   * time for a balanced tree, where lessThan() followed by last() would have to build a new tree along the way.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<T> floor(@NotNull T query) {
+    return Option.ofNullable(Tree.Helpers.below(this, query, true));
+  }
+
+  /**
+   * Returns Option.Some of the largest element strictly less than the query, if there is one, otherwise Option.None.
+   * @see #floor(Comparable)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<T> lower(@NotNull T query) {
+    return Option.ofNullable(Tree.Helpers.below(this, query, false));
+  }
+
+  /**
+   * Returns Option.Some of the smallest element greater than or equal to the query, if there is one, otherwise
+   * Option.None.
+   * @see #floor(Comparable)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<T> ceiling(@NotNull T query) {
+    return Option.ofNullable(Tree.Helpers.above(this, query, true));
+  }
+
+  /**
+   * Returns Option.Some of the smallest element strictly greater than the query, if there is one, otherwise
+   * Option.None.
+   * @see #floor(Comparable)
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<T> higher(@NotNull T query) {
+    return Option.ofNullable(Tree.Helpers.above(this, query, false));
+  }
+
+  /**
+   * Returns a new tree with the elements whose indices, in sorted order, are at least from and less than to. If the
+   * requested range goes beyond either end of the tree, as many values as are in range will be returned. For a
+   * treap, this takes O(log n) time, no matter how many elements are in the slice.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default ITree<T> sliceByIndex(int from, int to) {
+    int first = Math.max(from, 0);
+    int last = Math.min(to, size()) - 1;
+    if (first > last) {
+      // the empty tree at the bottom of this one is of the same kind we started with (e.g., a canonical treap)
+      return Treap.Helpers.emptyOf(this);
+    }
+
+    return greaterThan(select(first).get(), true).lessThan(select(last).get(), true);
   }
 
   /**
@@ -157,6 +301,17 @@ public interface ITree<T extends Comparable<? super T>> {
   @Contract(pure = true)
   ITree<T> lessThan(@NotNull T ceiling, boolean inclusive);
 
+  /**
+   * Returns a lazy list of the elements between the two bounds, each either inclusive or exclusive, in order.
+   * Unlike greaterThan() and lessThan(), this doesn't make a new tree; it walks through the one we've got, so
+   * getting the first k elements takes O(log n + k) time, and if you never look at the list, it costs nothing.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default IList<T> range(@NotNull T from, boolean fromInclusive, @NotNull T to, boolean toInclusive) {
+    return LazyList.fromIterator(new RangeIterator<>(this, from, fromInclusive, to, toInclusive));
+  }
+
   /**
    * Returns a new tree equivalent to the original, but absent the value if it's present.
    */
@@ -172,6 +327,26 @@ public interface ITree<T extends Comparable<? super T>> {
   @Contract(pure = true)
   Option<Pair<T, ITree<T>>> removeMin();
 
+  /**
+   * Returns a new tree without its minimum value, along with that value. This is the same as {@link #removeMin()},
+   * named to go along with {@link #first()}.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<Pair<T, ITree<T>>> pollFirst() {
+    return removeMin();
+  }
+
+  /**
+   * Returns a new tree without its maximum value, along with that value. The result is optional because the tree
+   * might be empty.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Option<Pair<T, ITree<T>>> pollLast() {
+    return last().map(max -> new Pair<>(max, remove(max)));
+  }
+
   /**
    * Returns the priority, if it's a treap, otherwise max-int (grumble: this seems like an ugly
    * thing to have in the interface, but the alternative is to do a bunch of typecasting inside
@@ -246,6 +421,247 @@ public interface ITree<T extends Comparable<? super T>> {
         (elem, leftTree, rightTree) -> leftTree.toList().concat(rightTree.toList().add(elem)));
   }
 
+  /**
+   * Returns a Java spliterator that visits the tree in-order, which is what you need to feed the tree to
+   * java.util.stream. When a parallel stream asks to split the work, the spliterator hands off a left
+   * subtree and keeps the rest, so a balanced tree gets divided more or less in half every time.
+   * @see #stream()
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Spliterator<T> spliterator() {
+    return new InorderSpliterator<>(this);
+  }
+
+  /**
+   * Returns a traditional Java iterator that visits the tree in-order.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Iterator<T> iterator() {
+    return Spliterators.iterator(spliterator());
+  }
+
+  /**
+   * Returns a sequential Java stream of the tree's elements, in-order.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Stream<T> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+  /**
+   * Returns a possibly parallel Java stream of the tree's elements, in-order.
+   */
+  @NotNull
+  @Contract(pure = true)
+  default Stream<T> parallelStream() {
+    return StreamSupport.stream(spliterator(), true);
+  }
+
+  /**
+   * In-order spliterator over a tree. External users won't use this directly; use {@link ITree#spliterator()}.
+   */
+  class InorderSpliterator<T extends Comparable<? super T>> implements Spliterator<T> {
+    //
+    // Engineering note: the spliterator keeps a deque of the work that remains, in order. Each entry is a
+    // tree, along with a flag saying whether we're to visit the whole tree or only its root value. Splitting
+    // takes work off the front of the deque and hands it to a new spliterator, which is what the ORDERED
+    // characteristic requires. We never put an empty tree on the deque.
+    //
+    // A treap knows the size of every subtree without walking it, so for a treap we keep count of how many
+    // values remain, we report SIZED and SUBSIZED, and we stop splitting once there are SPLIT_THRESHOLD values
+    // or fewer to go; fork/join also uses the sizes to decide when to stop asking. Any other tree would have to
+    // be walked to count it, so there we leave the size unknown (-1 below) and split for as long as we can.
+    //
+    private static final int SPLIT_THRESHOLD = 64;
+
+    private final ArrayDeque<ITree<T>> pending = new ArrayDeque<>();
+    private final ArrayDeque<Boolean> valueOnly = new ArrayDeque<>();
+    private long remaining; // -1 if we don't know
+
+    // external users: don't use this
+    InorderSpliterator(@NotNull ITree<T> tree) {
+      pushLast(tree, false);
+      remaining = tree instanceof Treap ? tree.size() : -1;
+    }
+
+    private InorderSpliterator(long remaining) {
+      this.remaining = remaining;
+    }
+
+    private void pushFirst(@NotNull ITree<T> tree, boolean onlyTheValue) {
+      if (!tree.empty()) {
+        pending.addFirst(tree);
+        valueOnly.addFirst(onlyTheValue);
+      }
+    }
+
+    private void pushLast(@NotNull ITree<T> tree, boolean onlyTheValue) {
+      if (!tree.empty()) {
+        pending.addLast(tree);
+        valueOnly.addLast(onlyTheValue);
+      }
+    }
+
+    @Override
+    public boolean tryAdvance(@NotNull Consumer<? super T> action) {
+      while (!pending.isEmpty()) {
+        ITree<T> tree = pending.removeFirst();
+        if (valueOnly.removeFirst()) {
+          if (remaining > 0) {
+            remaining--;
+          }
+          action.accept(tree.getValue());
+          return true;
+        }
+
+        // walk down the left spine; each node leaves behind its right subtree, then its own value,
+        // so they'll come off the front of the deque in the right order
+        while (!tree.empty()) {
+          pushFirst(tree.getRight(), false);
+          pushFirst(tree, true);
+          tree = tree.getLeft();
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public void forEachRemaining(@NotNull Consumer<? super T> action) {
+      // all at once, we can just use the tree's own traversal
+      if (remaining > 0) {
+        remaining = 0;
+      }
+      while (!pending.isEmpty()) {
+        ITree<T> tree = pending.removeFirst();
+        if (valueOnly.removeFirst()) {
+          action.accept(tree.getValue());
+        } else {
+          tree.inorder(action::accept);
+        }
+      }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+      if (remaining >= 0 && remaining <= SPLIT_THRESHOLD) {
+        return null;
+      }
+
+      // If all that's left is one whole tree, or one value and the whole tree after it, we open the tree up
+      // into its left subtree, its value, and its right subtree.
+      if (pending.size() <= 2 && !valueOnly.peekLast()) {
+        ITree<T> tree = pending.removeLast();
+        valueOnly.removeLast();
+        pushLast(tree.getLeft(), false);
+        pushLast(tree, true);
+        pushLast(tree.getRight(), false);
+      }
+
+      if (pending.size() < 2) {
+        return null;
+      }
+
+      // The prefix gets everything but the last value and the subtree that follows it, which we keep together,
+      // so we never split off a piece with just the one value in it (unless that's all there is).
+      int keep = pending.size() > 2 ? 2 : 1;
+      InorderSpliterator<T> prefix = new InorderSpliterator<>(remaining < 0 ? -1 : 0);
+      while (pending.size() > keep) {
+        ITree<T> tree = pending.removeFirst();
+        boolean onlyTheValue = valueOnly.removeFirst();
+        prefix.pending.addLast(tree);
+        prefix.valueOnly.addLast(onlyTheValue);
+        if (remaining >= 0) {
+          prefix.remaining += onlyTheValue ? 1 : tree.size();
+        }
+      }
+      if (remaining >= 0) {
+        remaining -= prefix.remaining;
+      }
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      if (remaining >= 0) {
+        return remaining;
+      }
+      // we'd have to walk the tree to know, so we follow the Spliterator rules for "unknown"
+      return pending.isEmpty() ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+      int sized = remaining >= 0 ? SIZED | SUBSIZED : 0;
+      return ORDERED | SORTED | DISTINCT | NONNULL | IMMUTABLE | sized;
+    }
+
+    @Override
+    public Comparator<? super T> getComparator() {
+      // null means natural ordering, which is the ordering our trees use
+      return null;
+    }
+  }
+
+  /**
+   * In-order iterator over part of a tree. External users won't use this directly; use {@link ITree#range}.
+   */
+  class RangeIterator<T extends Comparable<? super T>> implements Iterator<T> {
+    //
+    // Engineering note: the stack holds the nodes whose values we have yet to visit, with the next one on top,
+    // but not their right subtrees, which we only push (their left spines, anyway) when we get there. To start,
+    // we walk from the root down to the lower bound, pushing every node that's in range along the way, which
+    // is the same thing that would be on the stack if we'd started from the minimum and iterated up to there.
+    // The stack never gets deeper than the tree, and we never make any tree nodes.
+    //
+    private final ArrayDeque<ITree<T>> stack = new ArrayDeque<>();
+    @NotNull
+    private final T to;
+    private final boolean toInclusive;
+
+    // external users: don't use this
+    RangeIterator(@NotNull ITree<T> tree, @NotNull T from, boolean fromInclusive, @NotNull T to, boolean toInclusive) {
+      this.to = to;
+      this.toInclusive = toInclusive;
+      while (!tree.empty()) {
+        int comparison = tree.getValue().compareTo(from);
+        if (comparison > 0 || (comparison == 0 && fromInclusive)) {
+          stack.push(tree);
+          tree = tree.getLeft();
+        } else {
+          tree = tree.getRight();
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (stack.isEmpty()) {
+        return false;
+      }
+      int comparison = stack.peek().getValue().compareTo(to);
+      if (comparison > 0 || (comparison == 0 && !toInclusive)) {
+        stack.clear(); // past the upper bound, so there's nothing more to see
+        return false;
+      }
+      return true;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      ITree<T> node = stack.pop();
+      for (ITree<T> tree = node.getRight(); !tree.empty(); tree = tree.getLeft()) {
+        stack.push(tree);
+      }
+      return node.getValue();
+    }
+  }
+
   /**
    * Empty trees have a lot of code in common, so we can put that all here.
    */
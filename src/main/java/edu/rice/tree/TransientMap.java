@@ -0,0 +1,170 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.tree;
+
+import edu.rice.list.KeyValue;
+import edu.rice.util.Option;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.BinaryOperator;
+
+/**
+ * A mutable helper for making a whole batch of changes to an IMap. This is the map version of {@link TransientSet},
+ * and it works the same way: get one from {@link IMap#asTransient()}, make your changes, and call
+ * {@link #persistent()} to get the new map, or let {@link IMap#withMutations(java.util.function.Consumer)} do all of
+ * that for you. The map you started from is never changed.
+ *
+ * <p>Unlike IMap, a TransientMap is mutable, and it's not safe to share one among threads. Once you call persistent(),
+ * you're done with it, and any further changes will throw an exception.
+ */
+public class TransientMap<K extends Comparable<? super K>, V> {
+  // Engineering note: see TransientSet. A TreapMap is a TreapSet of KeyValues, which compare by their keys alone, so
+  // we edit its treap with the very same Treap.Batch, and we look things up with a key that has no value.
+
+  @NotNull
+  private final IMap<K, V> original;
+  @Nullable
+  private final Treap.Batch<KeyValue<K, V>> batch; // if we started from a TreapMap
+  @NotNull
+  private IMap<K, V> current; // if we didn't
+  private boolean done;
+
+  /**
+   * Makes a transient version of the given map. Usually, you'll call {@link IMap#asTransient()} instead.
+   */
+  public TransientMap(@NotNull IMap<K, V> original) {
+    ITree<KeyValue<K, V>> treap = treapOf(original);
+    this.original = original;
+    this.batch = treap == null ? null : new Treap.Batch<>(treap);
+    this.current = original;
+    this.done = false;
+  }
+
+  @Nullable
+  private static <K extends Comparable<? super K>, V> ITree<KeyValue<K, V>> treapOf(@NotNull IMap<K, V> map) {
+    return map instanceof TreapMap ? TransientSet.treapOf(map.getSet()) : null;
+  }
+
+  private void checkNotDone() {
+    if (done) {
+      throw new IllegalStateException("TransientMap used after persistent()");
+    }
+  }
+
+  /**
+   * Adds the key/value pair to the map. If the key is already present, the prior value for that key is replaced.
+   * Returns the transient map, so you can chain these together.
+   */
+  @NotNull
+  public TransientMap<K, V> add(@NotNull K key, @NotNull V value) {
+    return add(KeyValue.make(key, value));
+  }
+
+  /**
+   * Adds the key/value pair to the map. If the key is already present, the prior value for that key is replaced.
+   * Returns the transient map, so you can chain these together.
+   */
+  @NotNull
+  public TransientMap<K, V> add(@NotNull KeyValue<K, V> kv) {
+    checkNotDone();
+    if (batch != null) {
+      batch.insert(kv);
+    } else {
+      current = current.add(kv);
+    }
+    return this;
+  }
+
+  /**
+   * Adds the key/value pair to the map. If the key is already present, its value is replaced with the result of
+   * calling the mergeOp on the prior value and the new one. Returns the transient map, so you can chain these together.
+   */
+  @NotNull
+  public TransientMap<K, V> merge(@NotNull K key, @NotNull V value, @NotNull BinaryOperator<V> mergeOp) {
+    checkNotDone();
+    if (batch != null) {
+      // no need to look anything up yet; the batch does that when it gets to it
+      batch.merge(KeyValue.make(key, value), TreapMap.NonEmptyMap.kvMergeOp(mergeOp));
+    } else {
+      current = current.merge(key, value, mergeOp);
+    }
+    return this;
+  }
+
+  /**
+   * Removes the key, and its value, from the map, if it's there. Returns the transient map, so you can chain these
+   * together.
+   */
+  @NotNull
+  public TransientMap<K, V> remove(@NotNull K key) {
+    checkNotDone();
+    if (batch != null) {
+      batch.remove(KeyValue.makeNoValue(key));
+    } else {
+      current = current.remove(key);
+    }
+    return this;
+  }
+
+  /**
+   * Gets the value corresponding to a key in the map, as it stands, if it exists.
+   */
+  @NotNull
+  @Contract(pure = true)
+  public Option<V> oget(@NotNull K key) {
+    if (batch == null) {
+      return current.oget(key);
+    }
+    KeyValue<K, V> kv = batch.find(KeyValue.makeNoValue(key));
+    return kv == null ? Option.none() : Option.some(kv.getValue());
+  }
+
+  /**
+   * Returns whether or not the map, as it stands, has a value for the given key.
+   */
+  @Contract(pure = true)
+  public boolean containsKey(@NotNull K key) {
+    return batch != null ? batch.find(KeyValue.makeNoValue(key)) != null : current.containsKey(key);
+  }
+
+  /**
+   * Returns the number of key/value pairs in the map, as it stands.
+   */
+  @Contract(pure = true)
+  public int size() {
+    return batch != null ? batch.size() : current.size();
+  }
+
+  /**
+   * Returns whether the map, as it stands, is empty.
+   */
+  @Contract(pure = true)
+  public boolean empty() {
+    return size() == 0;
+  }
+
+  /**
+   * Returns an immutable map with all the changes, of the same type as the map we started with. After this, the
+   * transient map can't be changed any more.
+   */
+  @NotNull
+  public IMap<K, V> persistent() {
+    checkNotDone();
+    done = true;
+    if (batch == null) {
+      return current;
+    }
+    ITree<KeyValue<K, V>> treap = batch.freeze();
+    return treap == treapOf(original) ? original : TreapMap.NonEmptyMap.wrap(TreapSet.NonEmptySet.wrap(treap));
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.tree;
+
+import edu.rice.util.Option;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.BinaryOperator;
+
+/**
+ * A mutable helper for making a whole batch of changes to an ISet. Every add() or remove() on an ISet makes a new
+ * set, copying a path from the root of the tree, and if you're making a thousand changes in a row, that's a thousand
+ * paths, of which you only ever look at the last one. Instead, you can get a TransientSet from
+ * {@link ISet#asTransient()}, make your changes to it, one at a time, and then call {@link #persistent()} to get the
+ * new set. Or, use {@link ISet#withMutations(java.util.function.Consumer)}, which does all of that for you.
+ *
+ * <p>While you're working, the TransientSet answers contains(), oget(), and size() as if the changes had already
+ * happened. The set you started from is never changed, so anybody else who has it sees exactly what they saw before.
+ *
+ * <p>Unlike ISet, a TransientSet is mutable, and it's not safe to share one among threads. Once you call persistent(),
+ * you're done with it, and any further changes will throw an exception. The set you get back is a perfectly ordinary
+ * immutable set, of the same type you started with.
+ */
+public class TransientSet<T extends Comparable<? super T>> {
+  // Engineering note: for a TreapSet, the work happens in a Treap.Batch, which copies each node of the original treap
+  // the first time a change goes through it, and from then on edits its copy in place, so a batch of changes doesn't
+  // make a whole new path from the root for every one of them. When you call persistent(), the batch freezes its
+  // nodes back into an ordinary treap. See Treap.Batch for the details.
+  //
+  // Any other kind of set doesn't have a batch mode of its own, so we make the changes the ordinary way, one at a
+  // time. That's no faster than doing it yourself, but it's no slower, either.
+
+  @NotNull
+  private final ISet<T> original;
+  @Nullable
+  private final Treap.Batch<T> batch; // if we started from a TreapSet
+  @NotNull
+  private ISet<T> current; // if we didn't
+  private boolean done;
+
+  /**
+   * Makes a transient version of the given set. Usually, you'll call {@link ISet#asTransient()} instead.
+   */
+  public TransientSet(@NotNull ISet<T> original) {
+    ITree<T> treap = treapOf(original);
+    this.original = original;
+    this.batch = treap == null ? null : new Treap.Batch<>(treap);
+    this.current = original;
+    this.done = false;
+  }
+
+  // not for external use; the treap inside a TreapSet, or null for any other kind of set
+  @Nullable
+  static <T extends Comparable<? super T>> ITree<T> treapOf(@NotNull ISet<T> set) {
+    if (set instanceof TreapSet.NonEmptySet) {
+      return ((TreapSet.NonEmptySet<T>) set).getTreap();
+    }
+    if (set instanceof TreapSet.Empty) {
+      return ((TreapSet.Empty<T>) set).emptyTreap();
+    }
+    return null;
+  }
+
+  private void checkNotDone() {
+    if (done) {
+      throw new IllegalStateException("TransientSet used after persistent()");
+    }
+  }
+
+  /**
+   * Adds the value to the set. If the value is already present, the prior value is replaced. Returns the transient
+   * set, so you can chain these together.
+   */
+  @NotNull
+  public TransientSet<T> add(@NotNull T value) {
+    checkNotDone();
+    if (batch != null) {
+      batch.insert(value);
+    } else {
+      current = current.add(value);
+    }
+    return this;
+  }
+
+  /**
+   * Adds the value to the set. If the value is already present, the prior value is replaced with the "merged" value,
+   * with mergeOp. Returns the transient set, so you can chain these together.
+   */
+  @NotNull
+  public TransientSet<T> merge(@NotNull T value, @NotNull BinaryOperator<T> mergeOp) {
+    checkNotDone();
+    if (batch != null) {
+      batch.merge(value, mergeOp); // no need to look anything up yet; the batch does that when it gets to it
+    } else {
+      current = current.merge(value, mergeOp);
+    }
+    return this;
+  }
+
+  /**
+   * Removes the value from the set, if it's there. Returns the transient set, so you can chain these together.
+   */
+  @NotNull
+  public TransientSet<T> remove(@NotNull T value) {
+    checkNotDone();
+    if (batch != null) {
+      batch.remove(value);
+    } else {
+      current = current.remove(value);
+    }
+    return this;
+  }
+
+  /**
+   * Returns whether or not the set, as it stands, contains the given value.
+   */
+  @Contract(pure = true)
+  public boolean contains(@NotNull T value) {
+    return batch != null ? batch.find(value) != null : current.contains(value);
+  }
+
+  /**
+   * Returns a value from the set, as it stands, "equal" to the input value, if present, otherwise Option.none().
+   */
+  @NotNull
+  @Contract(pure = true)
+  public Option<T> oget(@NotNull T value) {
+    return batch != null ? Option.ofNullable(batch.find(value)) : current.oget(value);
+  }
+
+  /**
+   * Returns the number of values in the set, as it stands.
+   */
+  @Contract(pure = true)
+  public int size() {
+    return batch != null ? batch.size() : current.size();
+  }
+
+  /**
+   * Returns whether the set, as it stands, is empty.
+   */
+  @Contract(pure = true)
+  public boolean empty() {
+    return size() == 0;
+  }
+
+  /**
+   * Returns an immutable set with all the changes, of the same type as the set we started with. After this, the
+   * transient set can't be changed any more.
+   */
+  @NotNull
+  public ISet<T> persistent() {
+    checkNotDone();
+    done = true;
+    if (batch == null) {
+      return current;
+    }
+    ITree<T> treap = batch.freeze();
+    return treap == treapOf(original) ? original : TreapSet.NonEmptySet.wrap(treap);
+  }
+}
@@ -10,18 +10,29 @@
 
 package edu.rice.tree;
 
+import edu.rice.list.IList;
 import edu.rice.list.LazyList;
 import edu.rice.util.Option;
 import edu.rice.util.Pair;
+import edu.rice.util.Parallel;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
 
 /**
  * General-purpose randomly balanced tree, based on
  * <a href="https://faculty.washington.edu/aragon/treaps.html">Aragon and Seidel's Treap data structure</a>.
+ *
+ * <p>Normally, every value gets a random priority, so two treaps with the same values will almost certainly have
+ * different shapes. If you start from {@link #makeEmptyCanonical()} instead, each value's priority comes from its
+ * hashCode(), so the shape of the treap depends only on what's in it, and not on the order in which it got there.
  */
 public interface Treap<T extends Comparable<? super T>> extends ITree<T> {
   /**
@@ -37,6 +48,26 @@ public interface Treap<T extends Comparable<? super T>> extends ITree<T> {
     return typedEmpty;
   }
 
+  /**
+   * Construct an empty "canonical" treap of the given type parameter. Every value in it, and in every treap made
+   * from it, gets a priority derived from its hashCode() rather than a random number, so any two canonical treaps
+   * with the same values have exactly the same shape. That lets equals() compare them node by node, skipping
+   * over any subtrees they share, rather than walking through every value. The values' hashCode() must agree with
+   * their compareTo(), as it does for KeyValue, where both only look at the key.
+   *
+   * <p>The catch: somebody who knows your hash function can pick values that will make the treap unbalanced, so
+   * don't use this for keys that come from somebody you don't trust.
+   *
+   * @param <T> any comparable type
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T extends Comparable<? super T>> ITree<T> makeEmptyCanonical() {
+    @SuppressWarnings("unchecked")
+    ITree<T> typedEmpty = (ITree<T>) Empty.CANONICAL;
+    return typedEmpty;
+  }
+
   /**
    * Given a bunch of values passed as varargs to this function, returns a tree with those values.
    */
@@ -47,9 +78,904 @@ public interface Treap<T extends Comparable<? super T>> extends ITree<T> {
     return Treap.<T>makeEmpty().insertList(LazyList.fromArray(values));
   }
 
+  /**
+   * Given a list of values, returns a treap with those values, exactly as if they'd been inserted one at a time:
+   * if two values are equal, the later one wins. If the list is already sorted, this takes O(n) time. Otherwise,
+   * we have to sort it first, which we do on multiple cores at once.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T extends Comparable<? super T>> ITree<T> fromList(@NotNull IList<? extends T> values) {
+    return fromList(values, (oldVal, newVal) -> newVal);
+  }
+
+  /**
+   * Given a list of values, returns a treap with those values. If two values are equal, they're merged with the
+   * mergeOp, from left to right, just like {@link ISet#merge(Comparable, BinaryOperator)}. If the list is already
+   * sorted, this takes O(n) time. Otherwise, we have to sort it first, which we do on multiple cores at once.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T extends Comparable<? super T>> ITree<T> fromList(@NotNull IList<? extends T> values,
+                                                             @NotNull BinaryOperator<T> mergeOp) {
+    return Helpers.build(Helpers.sortedDistinct(values, mergeOp), Treap.<T>makeEmpty());
+  }
+
+  /**
+   * Functions that aren't meant for public use.
+   */
+  class Helpers {
+    private Helpers() { } // do not instantiate!
+
+    //
+    // Engineering note: inserting n values, one at a time, costs O(n log n), with a new path from the root for
+    // every one of them. If the values are already in sorted order, we can do much better. A treap is what's
+    // called a "Cartesian tree": its values are in order from left to right, and its priorities are a min-heap from
+    // top to bottom. Given the values in order, along with their priorities, there's a classic O(n) algorithm to
+    // build the Cartesian tree, using a stack that holds the "right spine" of the tree built so far. Every index
+    // is pushed once and popped at most once.
+    //
+    // Our nodes are immutable, so we can't build the tree by patching up child pointers as we go. Instead, the
+    // stack algorithm works with arrays of indices, and then we make the nodes at the end, from the bottom up.
+    // Each value gets its priority the same way insert() would give it one, so the resulting treap has exactly
+    // the same shape (statistically speaking, for random priorities) as if we'd inserted the values one at a time.
+    //
+
+    /**
+     * Copies the list into an array, sorted, with no duplicates. Equal values are merged with the mergeOp.
+     */
+    @NotNull
+    static <T extends Comparable<? super T>> Object[] sortedDistinct(@NotNull IList<? extends T> list,
+                                                                     @NotNull BinaryOperator<T> mergeOp) {
+      Object[] values = new Object[list.length()];
+      boolean sorted = true;
+      int count = 0;
+      for (T value : IList.<T>narrow(list)) {
+        if (count > 0 && sorted && Helpers.<T>elementAt(values, count - 1).compareTo(value) > 0) {
+          sorted = false;
+        }
+        values[count++] = value;
+      }
+
+      if (!sorted) {
+        // the sort is stable, so equal values stay in the order they came, which is the order we merge them
+        Parallel.<T>parallelMergeSort(values, Parallel.DEFAULT_THRESHOLD, (a, b) -> a.compareTo(b) < 0);
+      }
+
+      // squeeze out the duplicates, merging as we go
+      int distinct = 0;
+      for (int i = 0; i < count; i++) {
+        T value = elementAt(values, i);
+        if (distinct > 0 && Helpers.<T>elementAt(values, distinct - 1).compareTo(value) == 0) {
+          values[distinct - 1] = mergeOp.apply(elementAt(values, distinct - 1), value);
+        } else {
+          values[distinct++] = value;
+        }
+      }
+
+      return (distinct == count) ? values : Arrays.copyOf(values, distinct);
+    }
+
+    /**
+     * Builds a treap from an array of values that's sorted, with no duplicates, in O(n) time. The empty treap says
+     * whether the priorities are random or canonical, and it's the one we use for all the empty subtrees.
+     */
+    @NotNull
+    static <T extends Comparable<? super T>> ITree<T> build(@NotNull Object[] values, @NotNull ITree<T> empty) {
+      int n = values.length;
+      if (n == 0) {
+        return empty;
+      }
+
+      Empty<T> typedEmpty = (Empty<T>) empty;
+      int[] priorities = new int[n];
+      for (int i = 0; i < n; i++) {
+        priorities[i] = typedEmpty.priorityFor(elementAt(values, i));
+      }
+
+      // -1 means no child
+      int[] leftChild = new int[n];
+      int[] rightChild = new int[n];
+      int[] spine = new int[n];
+      int spineSize = 0;
+
+      for (int i = 0; i < n; i++) {
+        // anything on the spine with a bigger priority than the new value belongs underneath it, on the left;
+        // with equal priorities, the one on the spine has the smaller value, so it stays on top (see priorityAbove)
+        int lastPopped = -1;
+        while (spineSize > 0 && priorities[spine[spineSize - 1]] > priorities[i]) {
+          lastPopped = spine[--spineSize];
+        }
+        leftChild[i] = lastPopped;
+        rightChild[i] = -1;
+        if (spineSize > 0) {
+          rightChild[spine[spineSize - 1]] = i;
+        }
+        spine[spineSize++] = i;
+      }
+
+      // the bottom of the spine is the root; the recursion here only goes as deep as the treap itself
+      return makeNode(spine[0], values, priorities, leftChild, rightChild, empty);
+    }
+
+    @NotNull
+    private static <T extends Comparable<? super T>> ITree<T> makeNode(int i, @NotNull Object[] values,
+                                                                       @NotNull int[] priorities,
+                                                                       @NotNull int[] leftChild,
+                                                                       @NotNull int[] rightChild,
+                                                                       @NotNull ITree<T> empty) {
+      if (i < 0) {
+        return empty;
+      }
+      T value = elementAt(values, i);
+      return new Node<>(value,
+          makeNode(leftChild[i], values, priorities, leftChild, rightChild, empty),
+          makeNode(rightChild[i], values, priorities, leftChild, rightChild, empty),
+          priorities[i]);
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    private static <T> T elementAt(@NotNull Object[] values, int i) {
+      return (T) values[i];
+    }
+
+    //
+    // Engineering note: a canonical treap needs two things. First, every value's priority has to be a function of
+    // the value, which we get by scrambling its hashCode(). (Without the scrambling, small Integers would have
+    // priorities in the same order as the values themselves, and the "treap" would be a linked list.) Second,
+    // when two different values have the same priority, which happens now and then with 32-bit priorities, we
+    // need a rule for which one goes on top, or else the shape would depend on which one got there first. Our
+    // rule is that the smaller value goes on top, which is to say that we're ordering the nodes by priority and
+    // then by value. Random treaps follow the very same rule, where it doesn't hurt anything.
+    //
+    // With those, there's exactly one valid treap for any given set of values, so the only way two canonical
+    // treaps can be equal is to have identical shapes. Each node also remembers a hash of everything below it,
+    // so equals() can give up as soon as it finds two subtrees with different sizes or hashes, and it doesn't
+    // have to look inside two subtrees that are actually the same object. If you take a big treap and change one
+    // value, comparing the old one with the new one only looks at the path that changed.
+    //
+
+    /**
+     * Returns a priority for the value, derived from its hashCode(), for canonical treaps.
+     */
+    @Contract(pure = true)
+    static int canonicalPriority(@NotNull Object value) {
+      // the "finalizer" from MurmurHash3, which spreads every bit of the hash code all over the result
+      int h = value.hashCode();
+      h ^= h >>> 16;
+      h *= 0x85ebca6b;
+      h ^= h >>> 13;
+      h *= 0xc2b2ae35;
+      h ^= h >>> 16;
+      return h;
+    }
+
+    /**
+     * Returns whether the root of the first treap belongs above the root of the second: a smaller priority goes on
+     * top, and for equal priorities, so does the smaller value. Neither treap may be empty.
+     */
+    @Contract(pure = true)
+    static <T extends Comparable<? super T>> boolean priorityAbove(@NotNull ITree<T> tree1, @NotNull ITree<T> tree2) {
+      int priority1 = tree1.getPriority();
+      int priority2 = tree2.getPriority();
+      return priority1 < priority2 || (priority1 == priority2 && tree1.getValue().compareTo(tree2.getValue()) < 0);
+    }
+
+    /**
+     * Returns the empty tree at the bottom of this one; for a treap, that says whether it's random or canonical.
+     */
+    @NotNull
+    @Contract(pure = true)
+    static <T extends Comparable<? super T>> ITree<T> emptyOf(@NotNull ITree<T> tree) {
+      while (!tree.empty()) {
+        tree = tree.getLeft();
+      }
+      return tree;
+    }
+
+    /**
+     * Returns whether the treap is a canonical one, from {@link Treap#makeEmptyCanonical()}. This takes O(log n)
+     * time, since we have to go find one of its empty subtrees.
+     */
+    @Contract(pure = true)
+    static boolean isCanonical(@NotNull ITree<?> tree) {
+      while (!tree.empty()) {
+        tree = tree.getLeft();
+      }
+      return tree == Empty.CANONICAL;
+    }
+
+    //
+    // Engineering note: the set operations below (union, intersect, difference) are all built from two simple
+    // operations on treaps. split() takes a treap and a key, and returns the treap of everything less than the
+    // key, the value equal to the key (if any), and the treap of everything greater. join() takes two treaps,
+    // where everything in the first is less than everything in the second, and glues them together. Both of them
+    // walk one path from the root, so they're O(log n).
+    //
+    // With those, union (for example) takes the root of whichever treap has the smaller priority, splits the other
+    // treap around that root's value, and then recursively unions the two lefts and the two rights. The root's
+    // priority is smaller than anything else in either treap, so the result is still a valid treap. When one
+    // set is much smaller than the other (m versus n), this costs O(m log(n/m + 1)), rather than the O(m log n)
+    // that you get by adding the values one at a time. Better still, whenever a recursive call comes back with
+    // the same subtrees it started with, we reuse the original node rather than making a copy.
+    //
+    // The two recursive calls are completely independent of each other, so the parallel versions of these
+    // operations fork them off onto separate cores, for the first few levels of the recursion.
+    //
+
+    /**
+     * How many levels of the recursion the parallel set operations will fork. This gives us up to 2^depth tasks.
+     */
+    static final int PARALLEL_DEPTH = 6;
+
+    /**
+     * The result of splitting a treap around a key: everything less, the equal value if there was one, and
+     * everything greater.
+     */
+    static final class Split<T extends Comparable<? super T>> {
+      @NotNull
+      final ITree<T> less;
+      @NotNull
+      final Option<T> equal;
+      @NotNull
+      final ITree<T> greater;
+
+      Split(@NotNull ITree<T> less, @NotNull Option<T> equal, @NotNull ITree<T> greater) {
+        this.less = less;
+        this.equal = equal;
+        this.greater = greater;
+      }
+    }
+
+    /**
+     * Splits the treap around the given key.
+     */
+    @NotNull
+    static <T extends Comparable<? super T>> Split<T> split(@NotNull ITree<T> tree, @NotNull T key) {
+      if (tree.empty()) {
+        return new Split<>(tree, Option.none(), tree);
+      }
+
+      T value = tree.getValue();
+      int comparison = key.compareTo(value);
+      if (comparison == 0) {
+        return new Split<>(tree.getLeft(), Option.some(value), tree.getRight());
+      }
+      if (comparison < 0) {
+        Split<T> leftSplit = split(tree.getLeft(), key);
+        return new Split<>(leftSplit.less, leftSplit.equal, withChildren(tree, leftSplit.greater, tree.getRight()));
+      }
+      Split<T> rightSplit = split(tree.getRight(), key);
+      return new Split<>(withChildren(tree, tree.getLeft(), rightSplit.less), rightSplit.equal, rightSplit.greater);
+    }
+
+    /**
+     * Joins two treaps, where everything in the first is less than everything in the second.
+     */
+    @NotNull
+    static <T extends Comparable<? super T>> ITree<T> join(@NotNull ITree<T> lesser, @NotNull ITree<T> greater) {
+      if (lesser.empty()) {
+        return greater;
+      }
+      if (greater.empty()) {
+        return lesser;
+      }
+      if (lesser.getPriority() <= greater.getPriority()) {
+        return withChildren(lesser, lesser.getLeft(), join(lesser.getRight(), greater));
+      }
+      return withChildren(greater, join(lesser, greater.getLeft()), greater.getRight());
+    }
+
+    /**
+     * Returns the union of the two treaps. When a value is in both, the result has mergeOp(mine, theirs).
+     * If depth is more than zero, the recursion forks that many levels deep; the caller must be running
+     * inside a ForkJoinPool.
+     */
+    @NotNull
+    static <T extends Comparable<? super T>> ITree<T> union(@NotNull ITree<T> mine, @NotNull ITree<T> theirs,
+                                                            @NotNull BinaryOperator<T> mergeOp, int depth) {
+      if (mine.empty()) {
+        return theirs;
+      }
+      if (theirs.empty()) {
+        return mine;
+      }
+
+      if (!priorityAbove(theirs, mine)) {
+        Split<T> theirSplit = split(theirs, mine.getValue());
+        T value = theirSplit.equal.isSome() ? mergeOp.apply(mine.getValue(), theirSplit.equal.get()) : mine.getValue();
+        Pair<ITree<T>, ITree<T>> children = both(
+            () -> union(mine.getLeft(), theirSplit.less, mergeOp, depth - 1),
+            () -> union(mine.getRight(), theirSplit.greater, mergeOp, depth - 1),
+            depth);
+        return withValueAndChildren(mine, value, children.a, children.b);
+      }
+
+      Split<T> mySplit = split(mine, theirs.getValue());
+      T value = mySplit.equal.isSome() ? mergeOp.apply(mySplit.equal.get(), theirs.getValue()) : theirs.getValue();
+      Pair<ITree<T>, ITree<T>> children = both(
+          () -> union(mySplit.less, theirs.getLeft(), mergeOp, depth - 1),
+          () -> union(mySplit.greater, theirs.getRight(), mergeOp, depth - 1),
+          depth);
+      return withValueAndChildren(theirs, value, children.a, children.b);
+    }
+
+    /**
+     * Returns the intersection of the two treaps, with mergeOp(mine, theirs) for each value in both. If depth is
+     * more than zero, the recursion forks that many levels deep; the caller must be running inside a ForkJoinPool.
+     */
+    @NotNull
+    static <T extends Comparable<? super T>> ITree<T> intersect(@NotNull ITree<T> mine, @NotNull ITree<T> theirs,
+                                                                @NotNull BinaryOperator<T> mergeOp, int depth) {
+      if (mine.empty()) {
+        return mine;
+      }
+      if (theirs.empty()) {
+        return theirs;
+      }
+
+      Split<T> theirSplit = split(theirs, mine.getValue());
+      Pair<ITree<T>, ITree<T>> children = both(
+          () -> intersect(mine.getLeft(), theirSplit.less, mergeOp, depth - 1),
+          () -> intersect(mine.getRight(), theirSplit.greater, mergeOp, depth - 1),
+          depth);
+
+      if (theirSplit.equal.isSome()) {
+        T value = mergeOp.apply(mine.getValue(), theirSplit.equal.get());
+        return withValueAndChildren(mine, value, children.a, children.b);
+      }
+      return join(children.a, children.b);
+    }
+
+    /**
+     * Returns everything in mine that isn't in theirs. If depth is more than zero, the recursion forks that many
+     * levels deep; the caller must be running inside a ForkJoinPool.
+     */
+    @NotNull
+    static <T extends Comparable<? super T>> ITree<T> difference(@NotNull ITree<T> mine, @NotNull ITree<T> theirs,
+                                                                 int depth) {
+      if (mine.empty() || theirs.empty()) {
+        return mine;
+      }
+
+      Split<T> theirSplit = split(theirs, mine.getValue());
+      Pair<ITree<T>, ITree<T>> children = both(
+          () -> difference(mine.getLeft(), theirSplit.less, depth - 1),
+          () -> difference(mine.getRight(), theirSplit.greater, depth - 1),
+          depth);
+
+      if (theirSplit.equal.isSome()) {
+        return join(children.a, children.b);
+      }
+      return withChildren(mine, children.a, children.b);
+    }
+
+    /**
+     * Runs a set operation with its recursion forked across multiple cores.
+     */
+    @NotNull
+    static <T extends Comparable<? super T>> ITree<T> inParallel(@NotNull Supplier<ITree<T>> setOperation) {
+      return ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(setOperation::get));
+    }
+
+    /**
+     * Computes both halves of a recursive set operation, in parallel if depth is more than zero.
+     */
+    @NotNull
+    private static <T extends Comparable<? super T>> Pair<ITree<T>, ITree<T>> both(
+        @NotNull Supplier<ITree<T>> leftWork, @NotNull Supplier<ITree<T>> rightWork, int depth) {
+
+      if (depth <= 0) {
+        return new Pair<>(leftWork.get(), rightWork.get());
+      }
+      ForkJoinTask<ITree<T>> leftTask = ForkJoinTask.adapt(leftWork::get).fork();
+      ITree<T> right = rightWork.get();
+      return new Pair<>(leftTask.join(), right);
+    }
+
+    /**
+     * Returns a node with the same value and priority as the original, but the given children. If the children
+     * are the ones it already has, we don't need a new node at all.
+     */
+    @NotNull
+    private static <T extends Comparable<? super T>> ITree<T> withChildren(@NotNull ITree<T> original,
+                                                                           @NotNull ITree<T> left,
+                                                                           @NotNull ITree<T> right) {
+      return withValueAndChildren(original, original.getValue(), left, right);
+    }
+
+    @NotNull
+    private static <T extends Comparable<? super T>> ITree<T> withValueAndChildren(@NotNull ITree<T> original,
+                                                                                   @NotNull T value,
+                                                                                   @NotNull ITree<T> left,
+                                                                                   @NotNull ITree<T> right) {
+      if (value == original.getValue() && left == original.getLeft() && right == original.getRight()) {
+        return original;
+      }
+      return new Node<>(value, left, right, original.getPriority());
+    }
+  }
+
+  /**
+   * A treap in the middle of a batch of changes, which edits the nodes it made itself in place, rather than making
+   * a new path from the root for every change. External users won't use this directly; use
+   * {@link ISet#asTransient()} or {@link IMap#asTransient()}.
+   */
+  final class Batch<T extends Comparable<? super T>> {
+    //
+    // Engineering note: a batch starts out sharing every node with the treap it came from, and those nodes are never
+    // changed; their fields are final, so any thread that can see one of them sees all of it. The first time a change
+    // goes through a shared node, we make an Owned copy of it, just this once. Owned nodes belong to the batch
+    // alone, and after that, any change that goes through one edits it in place: adding a value that's already
+    // there replaces it, and a rotation is just a couple of assignments. A batch of m changes on a treap of n nodes
+    // touches about m log(n/m + 1) nodes, not m log n, and it only allocates one of them each.
+    //
+    // A child of an Owned node is either another Owned node or a shared ITree, so the children are just Objects, and
+    // we look at which one we've got as we go. When the batch is over, freeze() copies every Owned node into an
+    // ordinary Treap.Node, from the bottom up, so the treap we hand back is made entirely of final fields, just like
+    // any other treap, and it can be shared among threads just the same. Shared subtrees come through as they are.
+    //
+    // Editing in place saves us the allocations, but on a big treap, that's not where the time goes. Every walk
+    // down from the root to a random value misses the cache at nearly every level, and a treap lookup costs about as
+    // much as an insert. So, we don't make each change right away. We hold on to them until somebody needs to know
+    // what's in the treap, and then we sort them, stably, so the changes to any one value stay in order. If they're
+    // all additions, which is the usual case, we build them into an owned treap of their own, in linear time, and
+    // merge it in with union(), which visits each node on the way down to any of them just once. Otherwise, we make
+    // them one after another, in sorted order, so each walk goes down nearly the same path as the one before, which
+    // is still in the cache, and the nodes it owns are the ones it just made.
+    //
+    // A merge is an addition, too, as far as that goes: it waits in line with the rest, rather than asking what's
+    // in the treap right away, which would mean making every change that came before it. When we get to it, in
+    // sorted order, the value it merges with is either the one just before it in line, or else one lookup away.
+    //
+
+    /**
+     * A node that belongs to the batch, and which it changes in place.
+     */
+    private static final class Owned<T> {
+      @NotNull
+      T value;
+      @NotNull
+      Object left; // Owned<T> or ITree<T>
+      @NotNull
+      Object right; // Owned<T> or ITree<T>
+      final int priority;
+
+      Owned(@NotNull T value, @NotNull Object left, @NotNull Object right, int priority) {
+        this.value = value;
+        this.left = left;
+        this.right = right;
+        this.priority = priority;
+      }
+    }
+
+    /**
+     * A pending merge, which adds the value, or if there's an equal value already, mergeOp(that value, this one).
+     */
+    private static final class Merge<T> {
+      @NotNull
+      final T value;
+      @NotNull
+      final BinaryOperator<T> mergeOp;
+
+      Merge(@NotNull T value, @NotNull BinaryOperator<T> mergeOp) {
+        this.value = value;
+        this.mergeOp = mergeOp;
+      }
+    }
+
+    /**
+     * A pending removal. Pending additions are just the values themselves.
+     */
+    private static final class Removal<T> {
+      @NotNull
+      final T value;
+
+      Removal(@NotNull T value) {
+        this.value = value;
+      }
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    @NotNull
+    private final Treap.Empty<T> empty;
+    @NotNull
+    private Object root; // Owned<T> or ITree<T>
+    private int size;
+    @NotNull
+    private Object[] pending = new Object[INITIAL_CAPACITY]; // T, Merge<T>, or Removal<T>, in the order they were made
+    private int pendingCount = 0;
+    private boolean pendingRemovals = false;
+    @Nullable
+    private T splitEqual; // see split()
+    @NotNull
+    private Object splitGreater; // see split()
+
+    // not for external use; starts a batch of changes to the given treap, which the batch never changes
+    Batch(@NotNull ITree<T> treap) {
+      this.empty = (Treap.Empty<T>) Helpers.emptyOf(treap);
+      this.root = treap;
+      this.size = treap.size();
+      this.splitGreater = empty;
+    }
+
+    /**
+     * The number of values in the treap, as it stands.
+     */
+    int size() {
+      flush();
+      return size;
+    }
+
+    /**
+     * Returns the value in the treap, as it stands, that's equal to the query, or null if there isn't one.
+     */
+    @Nullable
+    T find(@NotNull T query) {
+      flush();
+      return lookup(query);
+    }
+
+    /**
+     * Adds the value to the treap, replacing an equal value if there is one.
+     */
+    void insert(@NotNull T value) {
+      append(value);
+    }
+
+    /**
+     * Adds the value to the treap, or if there's an equal value already, replaces it with mergeOp(that value, this one).
+     */
+    void merge(@NotNull T value, @NotNull BinaryOperator<T> mergeOp) {
+      append(new Merge<>(value, mergeOp));
+    }
+
+    /**
+     * Removes the value from the treap, if it's there.
+     */
+    void remove(@NotNull T value) {
+      append(new Removal<>(value));
+      pendingRemovals = true;
+    }
+
+    /**
+     * Returns an ordinary treap with everything in the batch. The batch shares it, so it can keep going from there.
+     */
+    @NotNull
+    ITree<T> freeze() {
+      flush();
+      ITree<T> result = freeze(root);
+      root = result;
+      return result;
+    }
+
+    private void append(@NotNull Object change) {
+      if (pendingCount == pending.length) {
+        pending = Arrays.copyOf(pending, pending.length * 2);
+      }
+      pending[pendingCount++] = change;
+    }
+
+    /**
+     * Makes all the pending changes, in sorted order.
+     */
+    private void flush() {
+      if (pendingCount == 0) {
+        return;
+      }
+      Object[] changes = Arrays.copyOf(pending, pendingCount);
+      Arrays.fill(pending, 0, pendingCount, null);
+      pendingCount = 0;
+      Parallel.<Object>parallelMergeSort(changes, Parallel.DEFAULT_THRESHOLD,
+          (change1, change2) -> changedValue(change1).compareTo(changedValue(change2)) < 0);
+
+      boolean anyRemovals = pendingRemovals;
+      pendingRemovals = false;
+      if (!anyRemovals) {
+        // nothing but additions and merges, so we build them into a treap of their own, in one pass, then merge that in
+        root = union(root, build(changes));
+        return;
+      }
+
+      for (Object change : changes) {
+        if (change instanceof Removal) {
+          T deadValue = this.<Removal<T>>cast(change).value;
+          if (lookup(deadValue) != null) {
+            // if it's not there, we'd rather not own the path down to where it isn't
+            root = remove(root, deadValue);
+            size--;
+          }
+        } else if (change instanceof Merge) {
+          Merge<T> merge = cast(change);
+          T prior = lookup(merge.value);
+          root = insert(root, prior == null ? merge.value : merge.mergeOp.apply(prior, merge.value));
+        } else {
+          root = insert(root, this.<T>cast(change));
+        }
+      }
+    }
+
+    /**
+     * Builds a treap from additions and merges in sorted order, in linear time, keeping the last of any equal
+     * values, after merging. We keep the right spine of the treap so far on a stack; each new value is the largest
+     * yet, so it goes on the right spine, above everything on it with a lower priority, which becomes its left
+     * subtree. The treap we're about to merge this into is still the root, so a merge with nothing before it in line
+     * can look up the value it merges with there.
+     */
+    @NotNull
+    private Object build(@NotNull Object[] sortedChanges) {
+      Owned<T>[] spine = cast(new Owned<?>[sortedChanges.length]);
+      int height = 0;
+      for (Object change : sortedChanges) {
+        T newbie = changedValue(change);
+        boolean sameAsLast = height > 0 && newbie.compareTo(spine[height - 1].value) == 0;
+        if (change instanceof Merge) {
+          T prior = sameAsLast ? spine[height - 1].value : lookup(newbie);
+          if (prior != null) {
+            newbie = this.<Merge<T>>cast(change).mergeOp.apply(prior, newbie);
+          }
+        }
+        if (sameAsLast) {
+          spine[height - 1].value = newbie;
+          continue;
+        }
+
+        Owned<T> owned = new Owned<>(newbie, empty, empty, empty.priorityFor(newbie));
+        size++;
+        while (height > 0 && above(owned, spine[height - 1])) {
+          owned.left = spine[--height];
+        }
+        if (height > 0) {
+          spine[height - 1].right = owned;
+        }
+        spine[height++] = owned;
+      }
+      return spine[0];
+    }
+
+    /**
+     * Merges two treaps, in place, and where they have equal values, the one from the second treap wins.
+     */
+    @NotNull
+    private Object union(@NotNull Object older, @NotNull Object newer) {
+      if (isEmpty(older)) {
+        return newer;
+      }
+      if (isEmpty(newer)) {
+        return older;
+      }
+
+      if (above(older, newer)) {
+        Owned<T> owned = own(older);
+        Object newerLesser = split(newer, owned.value);
+        Object newerGreater = splitGreater;
+        if (splitEqual != null) {
+          owned.value = splitEqual;
+        }
+        owned.left = union(owned.left, newerLesser);
+        owned.right = union(owned.right, newerGreater);
+        return owned;
+      }
+
+      Owned<T> owned = own(newer);
+      Object olderLesser = split(older, owned.value);
+      Object olderGreater = splitGreater;
+      owned.left = union(olderLesser, owned.left);
+      owned.right = union(olderGreater, owned.right);
+      return owned;
+    }
+
+    /**
+     * Splits a treap, in place, around the pivot, and returns the part that's less than the pivot. The part
+     * that's greater goes in splitGreater, and a value equal to the pivot, if there is one, goes in splitEqual.
+     */
+    @NotNull
+    private Object split(@NotNull Object node, @NotNull T pivot) {
+      if (isEmpty(node)) {
+        splitEqual = null;
+        splitGreater = node;
+        return node;
+      }
+
+      int comparison = pivot.compareTo(valueOf(node));
+      if (comparison == 0) {
+        size--; // the two sides had this value in common
+        splitEqual = valueOf(node);
+        splitGreater = rightOf(node);
+        return leftOf(node);
+      }
+
+      Owned<T> owned = own(node);
+      if (comparison < 0) {
+        Object lesser = split(owned.left, pivot);
+        owned.left = splitGreater;
+        splitGreater = owned;
+        return lesser;
+      }
+      owned.right = split(owned.right, pivot);
+      return owned;
+    }
+
+    @Nullable
+    private T lookup(@NotNull T query) {
+      Object node = root;
+      while (!isEmpty(node)) {
+        T value = valueOf(node);
+        int comparison = query.compareTo(value);
+        if (comparison == 0) {
+          return value;
+        }
+        node = comparison < 0 ? leftOf(node) : rightOf(node);
+      }
+      return null;
+    }
+
+    @NotNull
+    private T changedValue(@NotNull Object change) {
+      if (change instanceof Removal) {
+        return this.<Removal<T>>cast(change).value;
+      }
+      return change instanceof Merge ? this.<Merge<T>>cast(change).value : cast(change);
+    }
+
+    @NotNull
+    private Owned<T> insert(@NotNull Object node, @NotNull T newbie) {
+      if (isEmpty(node)) {
+        size++;
+        return new Owned<>(newbie, empty, empty, empty.priorityFor(newbie));
+      }
+
+      Owned<T> owned = own(node);
+      int comparison = newbie.compareTo(owned.value);
+      if (comparison < 0) {
+        Owned<T> child = insert(owned.left, newbie);
+        owned.left = child;
+        if (above(child, owned)) {
+          // rotate right, in place
+          owned.left = child.right;
+          child.right = owned;
+          return child;
+        }
+      } else if (comparison > 0) {
+        Owned<T> child = insert(owned.right, newbie);
+        owned.right = child;
+        if (above(child, owned)) {
+          // rotate left, in place
+          owned.right = child.left;
+          child.left = owned;
+          return child;
+        }
+      } else {
+        owned.value = newbie;
+      }
+      return owned;
+    }
+
+    @NotNull
+    private Object remove(@NotNull Object node, @NotNull T deadValue) {
+      // we already know the value is in here somewhere
+      int comparison = deadValue.compareTo(valueOf(node));
+      if (comparison == 0) {
+        return join(leftOf(node), rightOf(node));
+      }
+      Owned<T> owned = own(node);
+      if (comparison < 0) {
+        owned.left = remove(owned.left, deadValue);
+      } else {
+        owned.right = remove(owned.right, deadValue);
+      }
+      return owned;
+    }
+
+    /**
+     * Joins two treaps, where everything in the first is less than everything in the second.
+     */
+    @NotNull
+    private Object join(@NotNull Object lesser, @NotNull Object greater) {
+      if (isEmpty(lesser)) {
+        return greater;
+      }
+      if (isEmpty(greater)) {
+        return lesser;
+      }
+      if (above(lesser, greater)) {
+        Owned<T> owned = own(lesser);
+        owned.right = join(owned.right, greater);
+        return owned;
+      }
+      Owned<T> owned = own(greater);
+      owned.left = join(lesser, owned.left);
+      return owned;
+    }
+
+    @NotNull
+    private ITree<T> freeze(@NotNull Object node) {
+      if (node instanceof Owned) {
+        Owned<T> owned = asOwned(node);
+        return new Node<>(owned.value, freeze(owned.left), freeze(owned.right), owned.priority);
+      }
+      return asTree(node);
+    }
+
+    /**
+     * Returns the node itself, if the batch owns it, otherwise a copy of it that the batch owns.
+     */
+    @NotNull
+    private Owned<T> own(@NotNull Object node) {
+      if (node instanceof Owned) {
+        return asOwned(node);
+      }
+      ITree<T> tree = asTree(node);
+      return new Owned<>(tree.getValue(), tree.getLeft(), tree.getRight(), tree.getPriority());
+    }
+
+    /**
+     * The same rule as {@link Helpers#priorityAbove(ITree, ITree)}, so we build the same shape a treap would.
+     */
+    private boolean above(@NotNull Object node1, @NotNull Object node2) {
+      int priority1 = priorityOf(node1);
+      int priority2 = priorityOf(node2);
+      return priority1 < priority2 || (priority1 == priority2 && valueOf(node1).compareTo(valueOf(node2)) < 0);
+    }
+
+    private static boolean isEmpty(@NotNull Object node) {
+      return !(node instanceof Owned) && ((ITree<?>) node).empty();
+    }
+
+    @NotNull
+    private T valueOf(@NotNull Object node) {
+      return node instanceof Owned ? asOwned(node).value : asTree(node).getValue();
+    }
+
+    @NotNull
+    private Object leftOf(@NotNull Object node) {
+      return node instanceof Owned ? asOwned(node).left : asTree(node).getLeft();
+    }
+
+    @NotNull
+    private Object rightOf(@NotNull Object node) {
+      return node instanceof Owned ? asOwned(node).right : asTree(node).getRight();
+    }
+
+    private int priorityOf(@NotNull Object node) {
+      return node instanceof Owned ? asOwned(node).priority : asTree(node).getPriority();
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    private Owned<T> asOwned(@NotNull Object node) {
+      return (Owned<T>) node;
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    private <R> R cast(@NotNull Object change) {
+      return (R) change;
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    private ITree<T> asTree(@NotNull Object node) {
+      return (ITree<T>) node;
+    }
+  }
 
   class Node<T extends Comparable<? super T>> implements Treap<T> {
+    //
+    // Engineering note: every node remembers how many values are in the subtree below it. Since the children
+    // already know their sizes, this costs one addition per new node, and it makes size() constant time rather
+    // than a walk over the whole tree. It also means rank() and select() (see ITree) can decide which way to go
+    // at each node by looking at the size of the left subtree, so they only walk one path from the root.
+    //
+    // Likewise, every node remembers its hash code, which is the sum of the hash codes of all the values below it
+    // (the same as java.util.Set). That's one more addition per node, and it means hashCode() is constant time,
+    // and equals() can rule out most unequal trees right away. See Helpers for how canonical treaps use it.
+    //
     private final int priority;
+    private final int size;
+    private final int hash;
     @NotNull
     private final T value;
     @NotNull
@@ -63,6 +989,13 @@ public interface Treap<T extends Comparable<? super T>> extends ITree<T> {
       this.left = left;
       this.right = right;
       this.priority = priority;
+      this.size = left.size() + right.size() + 1;
+      this.hash = left.hashCode() + value.hashCode() + right.hashCode();
+    }
+
+    @Override
+    public int size() {
+      return size;
     }
 
     @NotNull
@@ -86,12 +1019,31 @@ public interface Treap<T extends Comparable<? super T>> extends ITree<T> {
     @NotNull
     @Override
     public ITree<T> insert(@NotNull T newbie) {
+      // Engineering note: if the new value's priority is smaller than ours, it'll have bubbled up to the top of the
+      // subtree we inserted it into, and we have to rotate it above us. Rather than making a new node for ourselves
+      // and then rotating it, which makes a third node that's thrown away, we build the rotated version directly.
       int comparison = newbie.compareTo(value);
       if (comparison < 0) {
-        return new Node<>(value, left.insert(newbie), right, priority).heapify();
+        ITree<T> newLeft = left.insert(newbie);
+        if (newLeft == left) {
+          return this;
+        }
+        if (Helpers.priorityAbove(newLeft, this)) {
+          return new Node<>(newLeft.getValue(), newLeft.getLeft(),
+              new Node<>(value, newLeft.getRight(), right, priority), newLeft.getPriority());
+        }
+        return new Node<>(value, newLeft, right, priority);
       }
       if (comparison > 0) {
-        return new Node<>(value, left, right.insert(newbie), priority).heapify();
+        ITree<T> newRight = right.insert(newbie);
+        if (newRight == right) {
+          return this;
+        }
+        if (Helpers.priorityAbove(newRight, this)) {
+          return new Node<>(newRight.getValue(), new Node<>(value, left, newRight.getLeft(), priority),
+              newRight.getRight(), newRight.getPriority());
+        }
+        return new Node<>(value, left, newRight, priority);
       }
 
       // if it's exactly the same object that's already there, then no merge necessary
@@ -107,28 +1059,6 @@ public interface Treap<T extends Comparable<? super T>> extends ITree<T> {
       return new Node<>(newbie, left, right, priority);
     }
 
-    /**
-     * Returns a new tree that satisfies the min-heap property (smallest priority on top).
-     */
-    @NotNull
-    private ITree<T> heapify() {
-      int leftP = left.getPriority();
-      int rightP = right.getPriority();
-
-      // if we're satisfying the heap property, then we're done
-      if (priority <= leftP && priority <= rightP) {
-        return this;
-      }
-
-      // if we're here, then we know the current node is not the smallest, therefore either the left or right is
-      // smaller; choose the smallest and rotate that way
-      if (leftP < rightP) {
-        return rotateRight();
-      } else {
-        return rotateLeft();
-      }
-    }
-
     @Override
     public boolean empty() {
       return false;
@@ -141,19 +1071,21 @@ public interface Treap<T extends Comparable<? super T>> extends ITree<T> {
       // rather than new Trees. We could probably concoct something to share the code using Factories of some sort, but
       // then everybody would need to carry around an extra handle to their factory, and that would be gross.
 
-      return left.match(
-          emptyTree -> this,
-          (lValue, lLeft, lRight) ->
-              new Node<>(lValue, lLeft, new Node<>(value, lRight, right, priority), left.getPriority()));
+      if (left.empty()) {
+        return this;
+      }
+      return new Node<>(left.getValue(), left.getLeft(), new Node<>(value, left.getRight(), right, priority),
+          left.getPriority());
     }
 
     @NotNull
     @Contract(pure = true)
     ITree<T> rotateLeft() {
-      return right.match(
-          emptyTree -> this,
-          (rValue, rLeft, rRight) -> new Node<>(rValue,
-              new Node<>(value, left, rLeft, priority), rRight, right.getPriority()));
+      if (right.empty()) {
+        return this;
+      }
+      return new Node<>(right.getValue(), new Node<>(value, left, right.getLeft(), priority), right.getRight(),
+          right.getPriority());
     }
 
     @NotNull
@@ -171,7 +1103,7 @@ public interface Treap<T extends Comparable<? super T>> extends ITree<T> {
 
         // okay, both left and right are present, so we'll rotate and try again
         // (note the "priority" stuff only does something meaningful if it's a treap)
-        if (left.getPriority() < right.getPriority()) {
+        if (Helpers.priorityAbove(left, right)) {
           return rotateRight().remove(deadValue);
         } else {
           return rotateLeft().remove(deadValue);
@@ -188,47 +1120,70 @@ public interface Treap<T extends Comparable<? super T>> extends ITree<T> {
 
     @Override
     public int hashCode() {
-      return Tree.Helpers.hashCodeHelper(this);
+      return hash;
     }
 
     @NotNull
     @Override
     public ITree<T> greaterThan(@NotNull T floor, boolean inclusive) {
-      int comparison = floor.compareTo(value);
-      if (comparison == 0 && !inclusive) {
-        return right;
-      }
-      if (comparison == 0) {
-        return new Node<>(value, makeEmpty(), right, priority);
+      // Whenever the floor is entirely to our right, we throw away this node and its left subtree. That's just
+      // a step down the tree, so we do it in a loop, without making anything, until we find a node we're keeping.
+      ITree<T> tree = this;
+      int comparison;
+      for (;;) {
+        if (tree.empty()) {
+          return tree;
+        }
+        comparison = floor.compareTo(tree.getValue());
+        if (comparison <= 0) {
+          break;
+        }
+        tree = tree.getRight();
       }
 
-      // if the floor is entirely to the right
-      if (comparison > 0) {
-        return right.greaterThan(floor, inclusive);
+      if (comparison == 0) {
+        if (!inclusive) {
+          return tree.getRight();
+        }
+        return tree.getLeft().empty() ? tree : new Node<>(tree.getValue(), Helpers.emptyOf(tree), tree.getRight(),
+            tree.getPriority());
       }
 
-      // the floor is somewhere to the left
-      return new Node<>(value, left.greaterThan(floor, inclusive), right, priority);
+      // the floor is somewhere to the left; if nothing there is below the floor, we can keep the whole subtree
+      ITree<T> newLeft = tree.getLeft().greaterThan(floor, inclusive);
+      return newLeft == tree.getLeft() ? tree : new Node<>(tree.getValue(), newLeft, tree.getRight(),
+          tree.getPriority());
     }
 
     @NotNull
     @Override
     public ITree<T> lessThan(@NotNull T ceiling, boolean inclusive) {
-      int comparison = ceiling.compareTo(value);
-      if (comparison == 0 && !inclusive) {
-        return left;
-      }
-      if (comparison == 0) {
-        return new Node<>(value, left, makeEmpty(), priority);
+      // the mirror image of greaterThan()
+      ITree<T> tree = this;
+      int comparison;
+      for (;;) {
+        if (tree.empty()) {
+          return tree;
+        }
+        comparison = ceiling.compareTo(tree.getValue());
+        if (comparison >= 0) {
+          break;
+        }
+        tree = tree.getLeft();
       }
 
-      // if the ceiling is entirely to the left
-      if (comparison < 0) {
-        return left.lessThan(ceiling, inclusive);
+      if (comparison == 0) {
+        if (!inclusive) {
+          return tree.getLeft();
+        }
+        return tree.getRight().empty() ? tree : new Node<>(tree.getValue(), tree.getLeft(), Helpers.emptyOf(tree),
+            tree.getPriority());
       }
 
-      // the ceiling is somewhere to the right
-      return new Node<>(value, left, right.lessThan(ceiling, inclusive), priority);
+      // the ceiling is somewhere to the right; if nothing there is above the ceiling, we can keep the whole subtree
+      ITree<T> newRight = tree.getRight().lessThan(ceiling, inclusive);
+      return newRight == tree.getRight() ? tree : new Node<>(tree.getValue(), tree.getLeft(), newRight,
+          tree.getPriority());
     }
 
 
@@ -242,8 +1197,10 @@ public interface Treap<T extends Comparable<? super T>> extends ITree<T> {
     public boolean valid() {
       boolean leftGood = left.empty() || (left.getPriority() >= priority && left.getValue().compareTo(value) <= 0);
       boolean rightGood = right.empty() || (right.getPriority() >= priority && value.compareTo(right.getValue()) <= 0);
+      boolean sizeGood = size == left.size() + right.size() + 1;
+      boolean hashGood = hash == left.hashCode() + value.hashCode() + right.hashCode();
 
-      return leftGood && rightGood && left.valid() && right.valid();
+      return leftGood && rightGood && sizeGood && hashGood && left.valid() && right.valid();
     }
 
     @Override
@@ -264,9 +1221,19 @@ public interface Treap<T extends Comparable<? super T>> extends ITree<T> {
 
     @Override
     public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
       if (o == null || !(o instanceof ITree<?>)) {
         return false;
       }
+      if (o instanceof Node<?>) {
+        // a quick check that rules out most trees that aren't equal, without looking any further
+        Node<?> otherNode = (Node<?>) o;
+        if (size != otherNode.size || hash != otherNode.hash) {
+          return false;
+        }
+      }
       ITree<?> otherTree = (ITree<?>) o;
 
       return Tree.Helpers.equalsHelper(this, otherTree);
@@ -280,16 +1247,36 @@ public interface Treap<T extends Comparable<? super T>> extends ITree<T> {
   }
 
   class Empty<T extends Comparable<? super T>> implements Treap<T>, ITree.Empty<T> {
-    private static final ITree<?> SINGLETON = new Treap.Empty<>();
+    private static final ITree<?> SINGLETON = new Treap.Empty<>(false);
+    private static final ITree<?> CANONICAL = new Treap.Empty<>(true);
     private static final Random RNG = new Random();
 
-    // external user: don't call this; instead call makeEmpty()
-    private Empty() { }
+    // Engineering note: whether a treap is random or canonical is up to the empty treaps at the bottom of it,
+    // since that's where insert() ends up, so every operation that makes a treap has to use an empty treap from
+    // the treaps it started with, rather than calling makeEmpty().
+    private final boolean canonical;
+
+    // external user: don't call this; instead call makeEmpty() or makeEmptyCanonical()
+    private Empty(boolean canonical) {
+      this.canonical = canonical;
+    }
+
+    // not for external use; the priority for a new node with the given value
+    int priorityFor(@NotNull T value) {
+      return canonical ? Helpers.canonicalPriority(value) : RNG.nextInt();
+    }
 
     @NotNull
     @Override
     public ITree<T> insert(@NotNull T value) {
-      return new Node<>(value, this, this, RNG.nextInt());
+      return new Node<>(value, this, this, priorityFor(value));
+    }
+
+    @NotNull
+    @Override
+    public ITree<T> insertList(@NotNull IList<? extends T> values) {
+      // starting from nothing, we can build the whole thing at once
+      return Helpers.build(Helpers.sortedDistinct(values, (oldVal, newVal) -> newVal), this);
     }
 
     @NotNull
@@ -310,7 +1297,7 @@ public interface Treap<T extends Comparable<? super T>> extends ITree<T> {
 
     @Override
     public int hashCode() {
-      return Tree.Helpers.hashCodeHelper(this);
+      return 0; // the same as Tree.Helpers.hashCodeHelper, but it's called for every new node, so we skip the match
     }
   }
 }
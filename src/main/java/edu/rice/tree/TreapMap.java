@@ -49,6 +49,21 @@ public interface TreapMap<K extends Comparable<? super K>, V> extends IMap<K,V>
     return typedEmpty;
   }
 
+  /**
+   * Construct an empty canonical map from keys (K) to values (V). The treap inside has a shape that depends only on
+   * the keys in the map, so comparing two canonical maps for equality can skip over everything they share. See
+   * {@link Treap#makeEmptyCanonical()} for the details, and for the catch.
+   * @param <K> map key, which must be comparable, and whose hashCode() agrees with its compareTo()
+   * @param <V> map value, can be any type
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <K extends Comparable<? super K>, V> IMap<K, V> makeEmptyCanonical() {
+    @SuppressWarnings("unchecked")
+    IMap<K, V> typedEmpty = (IMap<K, V>) Empty.CANONICAL;
+    return typedEmpty;
+  }
+
   /**
    * Given a bunch of key/values pairs passed as varargs to this function, return a map with those pairs.
    */
@@ -132,10 +147,19 @@ public interface TreapMap<K extends Comparable<? super K>, V> extends IMap<K,V>
       this.set = set;
     }
 
+    // not for external use; gives back the empty TreapMap (random or canonical, to match) if the set is empty
+    @NotNull
+    static <K extends Comparable<? super K>, V> IMap<K, V> wrap(@NotNull ISet<KeyValue<K, V>> set) {
+      if (!set.empty()) {
+        return new NonEmptyMap<>(set);
+      }
+      return set == TreapSet.makeEmptyCanonical() ? makeEmptyCanonical() : makeEmpty();
+    }
+
     @NotNull
     @Override
     public <K2 extends Comparable<? super K2>, V2> IMap<K2, V2> makeEmptySameType() {
-      return makeEmpty();
+      return set.makeEmptySameType() == TreapSet.makeEmptyCanonical() ? makeEmptyCanonical() : makeEmpty();
     }
 
     @NotNull
@@ -146,7 +170,7 @@ public interface TreapMap<K extends Comparable<? super K>, V> extends IMap<K,V>
 
     @Override
     public int hashCode() {
-      return toSortedList().hashCode(); // not necessary efficient, but should be correct
+      return set.hashCode(); // constant time, since the treap keeps track of it
     }
 
     @Override
@@ -169,7 +193,7 @@ public interface TreapMap<K extends Comparable<? super K>, V> extends IMap<K,V>
         return false;
       }
 
-      // because set equality is a different animal from structural equality, we need to linearize the sets
+      // the set knows how to compare treaps efficiently, and how to compare with anything else
       return getSet().equals(map.getSet());
     }
 
@@ -179,9 +203,10 @@ public interface TreapMap<K extends Comparable<? super K>, V> extends IMap<K,V>
       return new NonEmptyMap<>(set.add(kv));
     }
 
+    // not for external use; TransientMap needs this too
     @NotNull
     @Contract(pure = true)
-    private static <K extends Comparable<? super K>, V>
+    static <K extends Comparable<? super K>, V>
         BinaryOperator<KeyValue<K, V>> kvMergeOp(@NotNull BinaryOperator<V> mergeOp) {
 
       // There are several places where we have two IKeyValue pairs with the same key and we
@@ -203,17 +228,32 @@ public interface TreapMap<K extends Comparable<? super K>, V> extends IMap<K,V>
     @Override
     public IMap<K, V> remove(@NotNull K key) {
       // doesn't matter what the value is, only key equality is tested
-      return new NonEmptyMap<>(set.remove(KeyValue.makeNoValue(key)));
+      return wrap(set.remove(KeyValue.makeNoValue(key)));
     }
 
     @NotNull
     @Override
     public Option<V> oget(@NotNull K key) {
+      if (set instanceof TreapSet.NonEmptySet) {
+        // We can search the treap by key, directly, so the only thing we allocate is the Option we return. Maps
+        // get looked up a lot more than they get changed, so this is worth the special case.
+        KeyValue<K, V> kv = Tree.Helpers.lookupKey(((TreapSet.NonEmptySet<KeyValue<K, V>>) set).getTreap(), key);
+        return kv == null ? Option.none() : Option.some(kv.getValue());
+      }
+
       // look up the key in the set (this will be "equal"), then extract the value
       // + note clever use of Option.map()
       return set.oget(KeyValue.makeNoValue(key)).map(KeyValue::getValue);
     }
 
+    @Override
+    public boolean containsKey(@NotNull K key) {
+      if (set instanceof TreapSet.NonEmptySet) {
+        return Tree.Helpers.lookupKey(((TreapSet.NonEmptySet<KeyValue<K, V>>) set).getTreap(), key) != null;
+      }
+      return set.contains(KeyValue.makeNoValue(key));
+    }
+
     @Override
     public boolean empty() {
       return set.empty();
@@ -224,37 +264,101 @@ public interface TreapMap<K extends Comparable<? super K>, V> extends IMap<K,V>
       return set.size();
     }
 
+    @NotNull
+    @Override
+    public IMap<K, V> sliceByIndex(int from, int to) {
+      // rank and nth are fine with the defaults, which delegate to the set, but this way we keep the set we get back
+      return wrap(set.sliceByIndex(from, to));
+    }
+
+    @NotNull
+    @Override
+    public Option<KeyValue<K, V>> first() {
+      return set.first();
+    }
+
+    @NotNull
+    @Override
+    public Option<KeyValue<K, V>> last() {
+      return set.last();
+    }
+
+    @NotNull
+    @Override
+    public Option<KeyValue<K, V>> floor(@NotNull K key) {
+      return set.floor(KeyValue.makeNoValue(key));
+    }
+
+    @NotNull
+    @Override
+    public Option<KeyValue<K, V>> lower(@NotNull K key) {
+      return set.lower(KeyValue.makeNoValue(key));
+    }
+
+    @NotNull
+    @Override
+    public Option<KeyValue<K, V>> ceiling(@NotNull K key) {
+      return set.ceiling(KeyValue.makeNoValue(key));
+    }
+
+    @NotNull
+    @Override
+    public Option<KeyValue<K, V>> higher(@NotNull K key) {
+      return set.higher(KeyValue.makeNoValue(key));
+    }
+
     @NotNull
     @Override
     public IMap<K, V> union(@NotNull IMap<K, V> otherMap, @NotNull BinaryOperator<V> mergeOp) {
-      return new NonEmptyMap<>(set.union(otherMap.getSet(), kvMergeOp(mergeOp)));
+      return wrap(set.union(otherMap.getSet(), kvMergeOp(mergeOp)));
     }
 
     @NotNull
     @Override
     public IMap<K, V> intersect(@NotNull IMap<K, V> otherMap, @NotNull BinaryOperator<V> mergeOp) {
-      return new NonEmptyMap<>(set.intersect(otherMap.getSet(), kvMergeOp(mergeOp)));
+      return wrap(set.intersect(otherMap.getSet(), kvMergeOp(mergeOp)));
     }
 
     @NotNull
     @Override
     public IMap<K, V> except(@NotNull IMap<K, V> otherMap) {
       // just delegate to the internal set
-      return new NonEmptyMap<>(set.except(otherMap.getSet()));
+      return wrap(set.except(otherMap.getSet()));
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> addList(@NotNull IList<KeyValue<K, V>> pairs) {
+      // a batch of pairs becomes a batch of adds on the set, which TreapSet does all at once
+      return new NonEmptyMap<>(set.addList(pairs));
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> removeList(@NotNull IList<? extends K> keys) {
+      // doesn't matter what the values are, only key equality is tested
+      return wrap(set.removeList(IList.<K>narrow(keys).map(KeyValue::makeNoValue)));
     }
 
     @NotNull
     @Override
     public IMap<K, V> greaterThan(@NotNull K query, boolean inclusive) {
       // just delegate to the internal set
-      return new NonEmptyMap<>(set.greaterThan(KeyValue.makeNoValue(query), inclusive));
+      return wrap(set.greaterThan(KeyValue.makeNoValue(query), inclusive));
     }
 
     @NotNull
     @Override
     public IMap<K, V> lessThan(@NotNull K query, boolean inclusive) {
       // just delegate to the internal set
-      return new NonEmptyMap<>(set.lessThan(KeyValue.makeNoValue(query), inclusive));
+      return wrap(set.lessThan(KeyValue.makeNoValue(query), inclusive));
+    }
+
+    @NotNull
+    @Override
+    public IList<KeyValue<K, V>> range(@NotNull K from, boolean fromInclusive, @NotNull K to, boolean toInclusive) {
+      // the set walks through its treap in place, rather than making a new one
+      return set.range(KeyValue.makeNoValue(from), fromInclusive, KeyValue.makeNoValue(to), toInclusive);
     }
 
     @NotNull
@@ -280,27 +384,53 @@ public interface TreapMap<K extends Comparable<? super K>, V> extends IMap<K,V>
    * Here's the empty TreapMap implementation. External users will never call this directly.
    */
   class Empty<K extends Comparable<? super K>, V> implements TreapMap<K,V>, IMap.Empty<K, V> {
-    private static final IMap<?, ?> SINGLETON = new TreapMap.Empty<>();
+    private static final IMap<?, ?> SINGLETON = new TreapMap.Empty<>(false);
+    private static final IMap<?, ?> CANONICAL = new TreapMap.Empty<>(true);
 
-    // external user: don't call this; call make() instead
-    private Empty() { }
+    private final boolean canonical;
+
+    // external user: don't call this; call makeEmpty() or makeEmptyCanonical() instead
+    private Empty(boolean canonical) {
+      this.canonical = canonical;
+    }
 
     @NotNull
     @Override
     public <K2 extends Comparable<? super K2>, V2> IMap<K2, V2> makeEmptySameType() {
-      return makeEmpty();
+      return canonical ? makeEmptyCanonical() : makeEmpty();
     }
 
     @NotNull
     @Override
     public ISet<KeyValue<K, V>> getSet() {
-      return TreapSet.makeEmpty();
+      return canonical ? TreapSet.makeEmptyCanonical() : TreapSet.makeEmpty();
     }
 
     @NotNull
     @Override
     public IMap<K, V> add(@NotNull KeyValue<K, V> kv) {
-      return new NonEmptyMap<>(TreapSet.<KeyValue<K,V>>makeEmpty().add(kv));
+      return new NonEmptyMap<>(getSet().add(kv));
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> addList(@NotNull IList<KeyValue<K, V>> pairs) {
+      // rather than adding the pairs one at a time, we build the whole set at once
+      return NonEmptyMap.wrap(getSet().addList(pairs));
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> addListMerge(@NotNull IList<KeyValue<K, V>> pairs, @NotNull BinaryOperator<V> mergeOp) {
+      return NonEmptyMap.wrap(getSet().addListMerge(pairs, NonEmptyMap.kvMergeOp(mergeOp)));
+    }
+
+    @NotNull
+    @Override
+    public IMap<K, V> union(@NotNull IMap<K, V> otherMap, @NotNull BinaryOperator<V> mergeOp) {
+      // a canonical map would like to stay canonical; see TreapSet.Empty.union()
+      return canonical ? NonEmptyMap.wrap(getSet().union(otherMap.getSet(), NonEmptyMap.kvMergeOp(mergeOp)))
+          : IMap.Empty.super.union(otherMap, mergeOp);
     }
 
     @Override
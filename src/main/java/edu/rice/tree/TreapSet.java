@@ -47,6 +47,20 @@ public interface TreapSet<T extends Comparable<? super T>> extends ISet<T> {
     return typedEmpty;
   }
 
+  /**
+   * Create an empty canonical set of the given type parameter. The treap inside has a shape that depends only on
+   * the values in the set, so comparing two canonical sets for equality can skip over everything they share.
+   * See {@link Treap#makeEmptyCanonical()} for the details, and for the catch.
+   * @param <T> any comparable type, whose hashCode() agrees with its compareTo()
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T extends Comparable<? super T>> ISet<T> makeEmptyCanonical() {
+    @SuppressWarnings("unchecked")
+    ISet<T> typedEmpty = (ISet<T>) Empty.CANONICAL;
+    return typedEmpty;
+  }
+
   /**
    * Given a bunch of values passed as varargs to this function, return a set with those values.
    */
@@ -90,18 +104,17 @@ public interface TreapSet<T extends Comparable<? super T>> extends ISet<T> {
   @Override
   default <R extends Comparable<? super R>> ISet<R> map(@NotNull Function<? super T,? extends R> mapFunc) {
     // we're converting the set to a list, doing the map, and then converting back to a set again
-    return fromList(IList.narrow(toList().map(mapFunc)));
+    return this.<R>makeEmptySameType().addList(toList().map(mapFunc));
   }
 
   @NotNull
   @Override
   default <R extends Comparable<? super R>> ISet<R> flatmap(@NotNull Function<? super T,? extends ISet<? extends R>> mapFunc) {
-    // We're converting the set to a list, doing the map, and then folding all the resulting sets together.
-    // It's a bit annoying to have to map the ISet::narrow function, since it's really a no-op, but this
-    // makes the types come out properly. Also of note, Java8 doesn't require the type annotation on ISet::narrow
-    // but IntelliJ does. Type inference is fun.
-    return IList.narrow(toList().map(mapFunc).map(ISet::<R>narrow))
-        .foldl(makeEmpty(), ISet::union);
+    // We're converting the set to a list, doing the map, and then adding the contents of all the resulting sets
+    // into one big set. (We used to fold them together with union, but accumulated.union(next) walks the entire
+    // accumulated set every time, which adds up to O(n^2). This way, each value is added exactly once, so later
+    // sets still win if they have values that are equal to earlier ones.)
+    return toList().foldl(this.<R>makeEmptySameType(), (set, elem) -> set.addList(mapFunc.apply(elem).toSortedList()));
   }
 
   class NonEmptySet<T extends Comparable<? super T>> implements TreapSet<T> {
@@ -113,10 +126,19 @@ public interface TreapSet<T extends Comparable<? super T>> extends ISet<T> {
       this.treap = treap;
     }
 
+    // not for external use; gives back the empty TreapSet (random or canonical, to match) if the treap is empty
+    @NotNull
+    static <T extends Comparable<? super T>> ISet<T> wrap(@NotNull ITree<T> treap) {
+      if (!treap.empty()) {
+        return new NonEmptySet<>(treap);
+      }
+      return Treap.Helpers.isCanonical(treap) ? makeEmptyCanonical() : makeEmpty();
+    }
+
     @NotNull
     @Override
     public <Q extends Comparable<? super Q>> ISet<Q> makeEmptySameType() {
-      return makeEmpty();
+      return Treap.Helpers.isCanonical(treap) ? makeEmptyCanonical() : makeEmpty();
     }
 
     @Override
@@ -139,6 +161,19 @@ public interface TreapSet<T extends Comparable<? super T>> extends ISet<T> {
         return false;
       }
 
+      if (set instanceof NonEmptySet<?>) {
+        // Every treap knows its size and hash, so we can rule out most unequal sets right away. And if both
+        // treaps are canonical, then their shapes depend only on their values, so the sets are equal exactly when
+        // the treaps are structurally equal, which doesn't even need to look inside the subtrees they share.
+        ITree<?> otherTreap = ((NonEmptySet<?>) set).treap;
+        if (treap.size() != otherTreap.size() || treap.hashCode() != otherTreap.hashCode()) {
+          return false;
+        }
+        if (Treap.Helpers.isCanonical(treap) && Treap.Helpers.isCanonical(otherTreap)) {
+          return treap.equals(otherTreap);
+        }
+      }
+
       //
       // Because set equality is a different animal from structural equality, and each treap could well have
       // a very different structure (because of the randomness), we need to do something else, like converting
@@ -151,7 +186,7 @@ public interface TreapSet<T extends Comparable<? super T>> extends ISet<T> {
 
     @Override
     public int hashCode() {
-      return treap.hashCode();
+      return treap.hashCode(); // constant time, and it doesn't depend on the shape of the treap
     }
 
     @NotNull
@@ -163,7 +198,13 @@ public interface TreapSet<T extends Comparable<? super T>> extends ISet<T> {
     @NotNull
     @Override
     public ISet<T> remove(@NotNull T value) {
-      return new NonEmptySet<>(treap.remove(value)); // doesn't matter what the value is, only value equality is tested
+      return wrap(treap.remove(value)); // doesn't matter what the value is, only value equality is tested
+    }
+
+    // not for external use; lets TreapMap search the treap directly
+    @NotNull
+    ITree<T> getTreap() {
+      return treap;
     }
 
     @NotNull
@@ -172,6 +213,12 @@ public interface TreapSet<T extends Comparable<? super T>> extends ISet<T> {
       return treap.find(value);
     }
 
+    @Override
+    public boolean contains(@NotNull T value) {
+      // we don't need an Option just to say yes or no
+      return Tree.Helpers.lookup(treap, value) != null;
+    }
+
     @Override
     public boolean empty() {
       return treap.empty();
@@ -179,21 +226,180 @@ public interface TreapSet<T extends Comparable<? super T>> extends ISet<T> {
 
     @Override
     public int size() {
-      return treap.size();
+      return treap.size(); // constant time, since the treap keeps track of its size
+    }
+
+    @Override
+    public int rank(@NotNull T value) {
+      return treap.rank(value);
+    }
+
+    @NotNull
+    @Override
+    public Option<T> nth(int n) {
+      return treap.select(n);
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> sliceByIndex(int from, int to) {
+      return wrap(treap.sliceByIndex(from, to));
+    }
+
+    @NotNull
+    @Override
+    public Option<T> first() {
+      return treap.first();
+    }
+
+    @NotNull
+    @Override
+    public Option<T> last() {
+      return treap.last();
+    }
+
+    @NotNull
+    @Override
+    public Option<T> floor(@NotNull T query) {
+      return treap.floor(query);
+    }
+
+    @NotNull
+    @Override
+    public Option<T> lower(@NotNull T query) {
+      return treap.lower(query);
+    }
+
+    @NotNull
+    @Override
+    public Option<T> ceiling(@NotNull T query) {
+      return treap.ceiling(query);
+    }
+
+    @NotNull
+    @Override
+    public Option<T> higher(@NotNull T query) {
+      return treap.higher(query);
+    }
+
+    //
+    // The set algebra works directly on two treaps, splitting and joining them, rather than adding or removing one
+    // value at a time. See Treap.Helpers for the details. When the other set isn't the same kind of treap as this
+    // one (random or canonical), we first build one from its values, which takes O(m) time since they're sorted.
+    // That way, the result is always the same kind of treap as this one, and the mergeOp always gets the value from
+    // this set first, no matter what kind of set the other one is.
+    //
+
+    @NotNull
+    private ITree<T> treapOf(@NotNull ISet<T> otherSet) {
+      if (otherSet instanceof NonEmptySet) {
+        ITree<T> otherTreap = ((NonEmptySet<T>) otherSet).treap;
+        if (Treap.Helpers.isCanonical(treap) == Treap.Helpers.isCanonical(otherTreap)) {
+          return otherTreap;
+        }
+      }
+      return Treap.Helpers.build(
+          Treap.Helpers.sortedDistinct(otherSet.toSortedList(), (oldVal, newVal) -> newVal), Treap.Helpers.emptyOf(treap));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> union(@NotNull ISet<T> otherSet, @NotNull BinaryOperator<T> mergeOp) {
+      if (otherSet.empty()) {
+        return this;
+      }
+      return wrap(Treap.Helpers.union(treap, treapOf(otherSet), mergeOp, 0));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> parallelUnion(@NotNull ISet<T> otherSet, @NotNull BinaryOperator<T> mergeOp) {
+      if (otherSet.empty()) {
+        return this;
+      }
+      ITree<T> otherTreap = treapOf(otherSet);
+      return wrap(Treap.Helpers.inParallel(
+          () -> Treap.Helpers.union(treap, otherTreap, mergeOp, Treap.Helpers.PARALLEL_DEPTH)));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> intersect(@NotNull ISet<T> otherSet, @NotNull BinaryOperator<T> mergeOp) {
+      if (otherSet.empty()) {
+        return makeEmptySameType();
+      }
+      return wrap(Treap.Helpers.intersect(treap, treapOf(otherSet), mergeOp, 0));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> parallelIntersect(@NotNull ISet<T> otherSet, @NotNull BinaryOperator<T> mergeOp) {
+      if (otherSet.empty()) {
+        return makeEmptySameType();
+      }
+      ITree<T> otherTreap = treapOf(otherSet);
+      return wrap(Treap.Helpers.inParallel(
+          () -> Treap.Helpers.intersect(treap, otherTreap, mergeOp, Treap.Helpers.PARALLEL_DEPTH)));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> except(@NotNull ISet<T> otherSet) {
+      if (otherSet.empty()) {
+        return this;
+      }
+      return wrap(Treap.Helpers.difference(treap, treapOf(otherSet), 0));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> parallelExcept(@NotNull ISet<T> otherSet) {
+      if (otherSet.empty()) {
+        return this;
+      }
+      ITree<T> otherTreap = treapOf(otherSet);
+      return wrap(Treap.Helpers.inParallel(
+          () -> Treap.Helpers.difference(treap, otherTreap, Treap.Helpers.PARALLEL_DEPTH)));
+    }
+
+    //
+    // A batch of adds or removes is just a union or a difference with a treap built from the batch, which takes
+    // O(m) time if the batch is sorted (as it is, coming from toSortedList()). That's a lot faster than making a
+    // new path from the root for every value, one at a time.
+    //
+
+    @NotNull
+    @Override
+    public ISet<T> addList(@NotNull IList<? extends T> values) {
+      // the values from the list win, just as they would if we added them one at a time
+      return union(this.<T>makeEmptySameType().addList(values), (oldVal, newVal) -> newVal);
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> removeList(@NotNull IList<? extends T> values) {
+      return except(this.<T>makeEmptySameType().addList(values));
     }
 
     @NotNull
     @Override
     public ISet<T> greaterThan(@NotNull T query, boolean inclusive) {
       // just delegate to the internal treap
-      return new NonEmptySet<>(treap.greaterThan(query, inclusive));
+      return wrap(treap.greaterThan(query, inclusive));
     }
 
     @NotNull
     @Override
     public ISet<T> lessThan(@NotNull T query, boolean inclusive) {
       // just delegate to the internal treap
-      return new NonEmptySet<>(treap.lessThan(query, inclusive));
+      return wrap(treap.lessThan(query, inclusive));
+    }
+
+    @NotNull
+    @Override
+    public IList<T> range(@NotNull T from, boolean fromInclusive, @NotNull T to, boolean toInclusive) {
+      // walks through the treap in place, rather than making a new one
+      return treap.range(from, fromInclusive, to, toInclusive);
     }
 
     @Override
@@ -210,21 +416,67 @@ public interface TreapSet<T extends Comparable<? super T>> extends ISet<T> {
   }
 
   class Empty<T extends Comparable<? super T>> implements ISet.Empty<T>, TreapSet<T> {
-    private static final ISet<?> SINGLETON = new TreapSet.Empty<>();
+    private static final ISet<?> SINGLETON = new TreapSet.Empty<>(false);
+    private static final ISet<?> CANONICAL = new TreapSet.Empty<>(true);
+
+    private final boolean canonical;
+
+    // external user: don't call this; instead, call makeEmpty() or makeEmptyCanonical()
+    private Empty(boolean canonical) {
+      this.canonical = canonical;
+    }
 
-    // external user: don't call this; instead, call makeEmpty()
-    private Empty() { }
+    // not for external use; TransientSet needs this too
+    @NotNull
+    ITree<T> emptyTreap() {
+      return canonical ? Treap.makeEmptyCanonical() : Treap.makeEmpty();
+    }
 
     @NotNull
     @Override
     public <Q extends Comparable<? super Q>> ISet<Q> makeEmptySameType() {
-      return makeEmpty();
+      return canonical ? makeEmptyCanonical() : makeEmpty();
     }
 
     @NotNull
     @Override
     public ISet<T> add(@NotNull T value) {
-      return new NonEmptySet<>(Treap.<T>makeEmpty().insert(value));
+      return new NonEmptySet<>(emptyTreap().insert(value));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> addList(@NotNull IList<? extends T> values) {
+      // rather than adding the values one at a time, we build the whole treap at once
+      return NonEmptySet.wrap(emptyTreap().insertList(values));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> addListMerge(@NotNull IList<? extends T> values, @NotNull BinaryOperator<T> mergeOp) {
+      return NonEmptySet.wrap(Treap.Helpers.build(Treap.Helpers.sortedDistinct(values, mergeOp), emptyTreap()));
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> union(@NotNull ISet<T> otherSet, @NotNull BinaryOperator<T> mergeOp) {
+      if (canonical && !(otherSet instanceof NonEmptySet && Treap.Helpers.isCanonical(((NonEmptySet<T>) otherSet).treap))) {
+        // we'd like to stay canonical
+        return addList(otherSet.toSortedList());
+      }
+      return otherSet;
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> intersect(@NotNull ISet<T> otherSet, @NotNull BinaryOperator<T> mergeOp) {
+      return this;
+    }
+
+    @NotNull
+    @Override
+    public ISet<T> except(@NotNull ISet<T> otherSet) {
+      return this;
     }
 
     @Override
@@ -12,6 +12,7 @@ package edu.rice.tree;
 
 import edu.rice.util.Option;
 import edu.rice.util.Pair;
+import edu.rice.list.KeyValue;
 import edu.rice.list.LazyList;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
@@ -96,15 +97,108 @@ public interface Tree<T extends Comparable<? super T>> extends ITree<T> {
                       treeVal.equals(otherVal) && treeLeft.equals(otherLeft) && treeRight.equals(otherRight)));
     }
 
+    //
+    // Engineering note: the lookups below are written as plain loops rather than with match(), which would make
+    // a pair of lambdas at every level of the descent, and they return null rather than an Option when nothing's
+    // there. That way, a lookup allocates nothing at all, and it's up to the caller to decide whether it needs
+    // an Option for the result. External users should call ITree.find() instead.
+    //
+
+    /**
+     * Returns the value in the tree that's equal to the query, or null if there isn't one.
+     */
+    @Nullable
+    @Contract(pure = true)
+    static <T extends Comparable<? super T>> T lookup(@NotNull ITree<T> tree, @NotNull T query) {
+      while (!tree.empty()) {
+        T value = tree.getValue();
+        int comparison = query.compareTo(value);
+        if (comparison == 0) {
+          return value;
+        }
+        tree = comparison < 0 ? tree.getLeft() : tree.getRight();
+      }
+      return null;
+    }
+
+    /**
+     * Returns the key/value pair in the tree with the given key, or null if there isn't one. This is the same as
+     * looking up KeyValue.makeNoValue(key), except we don't have to make the KeyValue.
+     */
+    @Nullable
+    @Contract(pure = true)
+    static <K extends Comparable<? super K>, V> KeyValue<K, V> lookupKey(@NotNull ITree<KeyValue<K, V>> tree,
+                                                                          @NotNull K key) {
+      while (!tree.empty()) {
+        KeyValue<K, V> kv = tree.getValue();
+        int comparison = key.compareTo(kv.getKey());
+        if (comparison == 0) {
+          return kv;
+        }
+        tree = comparison < 0 ? tree.getLeft() : tree.getRight();
+      }
+      return null;
+    }
+
+    /**
+     * Returns the largest value in the tree that's less than the query (or equal, if inclusive), or null if there
+     * isn't one. External users should call ITree.floor() or ITree.lower() instead.
+     */
+    @Nullable
+    @Contract(pure = true)
+    static <T extends Comparable<? super T>> T below(@NotNull ITree<T> tree, @NotNull T query, boolean inclusive) {
+      // every time we go right, the value we're leaving is the best answer so far, and anything better is to its right
+      T best = null;
+      while (!tree.empty()) {
+        T value = tree.getValue();
+        int comparison = value.compareTo(query);
+        if (comparison == 0 && inclusive) {
+          return value;
+        }
+        if (comparison < 0) {
+          best = value;
+          tree = tree.getRight();
+        } else {
+          tree = tree.getLeft();
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Returns the smallest value in the tree that's greater than the query (or equal, if inclusive), or null if
+     * there isn't one. External users should call ITree.ceiling() or ITree.higher() instead.
+     */
+    @Nullable
+    @Contract(pure = true)
+    static <T extends Comparable<? super T>> T above(@NotNull ITree<T> tree, @NotNull T query, boolean inclusive) {
+      T best = null;
+      while (!tree.empty()) {
+        T value = tree.getValue();
+        int comparison = value.compareTo(query);
+        if (comparison == 0 && inclusive) {
+          return value;
+        }
+        if (comparison > 0) {
+          best = value;
+          tree = tree.getLeft();
+        } else {
+          tree = tree.getRight();
+        }
+      }
+      return best;
+    }
+
     /**
-     * Computing hashes over a tree.
+     * Computing hashes over a tree: the sum of the hashes of all the values, the same as java.util.Set. That
+     * doesn't depend on the shape of the tree, so a treap can keep track of it as it goes (see Treap.Node),
+     * and two sets with the same values have the same hash, no matter how they're balanced.
      */
     @Contract(pure = true)
     static <T extends Comparable<? super T>> int hashCodeHelper(@NotNull ITree<T> tree) {
       return tree.match(
-          emptyTree -> 1,
-          (elem, leftTree, rightTree) ->
-              elem.hashCode() * 71 + leftTree.hashCode() * 31 + rightTree.hashCode()); // a kludge, but it's something
+          emptyTree -> 0,
+          (elem, leftTree, rightTree) -> leftTree.hashCode() + elem.hashCode() + rightTree.hashCode());
     }
   }
 
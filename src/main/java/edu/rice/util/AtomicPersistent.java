@@ -0,0 +1,178 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+package edu.rice.util;
+
+import edu.rice.list.IList;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * A mutable cell holding a reference to a persistent (immutable) value, like an IList or an IMap, which
+ * any number of threads can read and update at the same time, without locks.
+ *
+ * <p>Every update works the same way: read the current value, compute a new value from it with the function you
+ * provide, and then atomically swap in the new value, but only if nobody else changed the cell in the meantime.
+ * If somebody did, we back off for a moment and try again, starting from their value. Because the values are
+ * persistent, computing a new one never disturbs the old one, so a failed attempt has no side effects, and
+ * readers never see a half-finished update.
+ *
+ * <p>This means your update function might be called more than once, so it should be a pure function of its
+ * input. Don't print things, don't bump counters, and don't mutate anything from inside it.
+ *
+ * <p>The cell keeps track of how many updates it's committed and how many times an update had to retry because
+ * another thread beat it to the punch. If the retries are a large fraction of the commits, lots of threads are
+ * fighting over the same cell, and you might want to rethink how your data is shared.
+ */
+public class AtomicPersistent<T> {
+  // Engineering note: when a compare-and-set fails, the worst thing we could do is immediately try again, since
+  // that's just as likely to collide with the other threads, who are also immediately trying again. Instead, we
+  // back off: the first few retries just give up the processor, and after that, we sleep for a random time whose
+  // upper bound doubles with each failure, up to a limit. The randomness keeps the threads from falling into
+  // lockstep with one another.
+
+  private static final int YIELD_RETRIES = 4;
+  private static final long MIN_BACKOFF_NANOS = 1_000;
+  private static final long MAX_BACKOFF_NANOS = 1_000_000;
+
+  @NotNull
+  private final AtomicReference<T> ref;
+  private final LongAdder commits = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+
+  /**
+   * Makes a cell with the given initial value.
+   */
+  public AtomicPersistent(@NotNull T initial) {
+    ref = new AtomicReference<>(initial);
+  }
+
+  /**
+   * Returns the current value.
+   */
+  @NotNull
+  @Contract(pure = true)
+  public T get() {
+    return ref.get();
+  }
+
+  /**
+   * Replaces the current value with the given one, regardless of what it was.
+   */
+  public void set(@NotNull T value) {
+    ref.set(value);
+    commits.increment();
+  }
+
+  /**
+   * Atomically replaces the current value with the result of the update function applied to it.
+   */
+  public void update(@NotNull UnaryOperator<T> updateFunc) {
+    updateAndGet(updateFunc);
+  }
+
+  /**
+   * Atomically replaces the current value with the result of the update function applied to it, and returns the
+   * new value.
+   */
+  @NotNull
+  public T updateAndGet(@NotNull UnaryOperator<T> updateFunc) {
+    return modify(current -> {
+      T next = updateFunc.apply(current);
+      return new Pair<>(next, next);
+    });
+  }
+
+  /**
+   * Atomically replaces the current value with the result of the update function applied to it, and returns the
+   * value that was replaced.
+   */
+  @NotNull
+  public T getAndUpdate(@NotNull UnaryOperator<T> updateFunc) {
+    return modify(current -> new Pair<>(updateFunc.apply(current), current));
+  }
+
+  /**
+   * Atomically applies every one of the update functions, in order, and then returns the new value. Other threads
+   * will see the value before all of them or after all of them, never partway through, and we only pay for one
+   * compare-and-set (assuming no contention), rather than one for each function.
+   */
+  @NotNull
+  public T updateAll(@NotNull IList<? extends UnaryOperator<T>> updateFuncs) {
+    return updateAndGet(current -> updateFuncs.foldl(current, (value, updateFunc) -> updateFunc.apply(value)));
+  }
+
+  /**
+   * The most general update: the function takes the current value and returns a pair of the new value and a
+   * result, which is computed from the very same current value. The new value is atomically swapped in and the
+   * result is returned. If the new value is the same object as the current one, nothing needs to be swapped, so
+   * this is a cheap way to read the value and compute something from it.
+   */
+  @NotNull
+  public <R> R modify(@NotNull Function<? super T, ? extends Pair<? extends T, ? extends R>> modifyFunc) {
+    for (int attempt = 0; ; attempt++) {
+      T current = ref.get();
+      Pair<? extends T, ? extends R> result = modifyFunc.apply(current);
+      if (result.a == current || ref.compareAndSet(current, result.a)) {
+        commits.increment();
+        return result.b;
+      }
+
+      retries.increment();
+      backoff(attempt);
+    }
+  }
+
+  /**
+   * Returns how many updates have been committed so far.
+   */
+  @Contract(pure = true)
+  public long commitCount() {
+    return commits.sum();
+  }
+
+  /**
+   * Returns how many times an update had to be retried because some other thread changed the value first.
+   */
+  @Contract(pure = true)
+  public long retryCount() {
+    return retries.sum();
+  }
+
+  /**
+   * Resets both of the counters to zero.
+   */
+  public void resetCounters() {
+    commits.reset();
+    retries.reset();
+  }
+
+  @Override
+  @Contract(pure = true)
+  public String toString() {
+    return "AtomicPersistent(" + ref.get() + ")";
+  }
+
+  private static void backoff(int attempt) {
+    if (attempt < YIELD_RETRIES) {
+      Thread.yield();
+      return;
+    }
+
+    long limit = Math.min(MAX_BACKOFF_NANOS, MIN_BACKOFF_NANOS << Math.min(attempt - YIELD_RETRIES, 20));
+    LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(MIN_BACKOFF_NANOS, limit + 1));
+  }
+}
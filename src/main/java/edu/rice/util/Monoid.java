@@ -0,0 +1,62 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+package edu.rice.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.BinaryOperator;
+
+/**
+ * A monoid is a "zero" value together with an associative way of combining two values, where combining
+ * anything with zero gives you back what you started with. Integers with zero and addition are a monoid, as
+ * are strings with "" and concatenation, and sets with the empty set and union. Because the combining
+ * operation is associative, we can split up a big fold, combine the pieces in parallel, and still get
+ * exactly the same answer as a sequential foldl. (It doesn't need to be commutative; we're always careful
+ * to combine the pieces in order.)
+ * @see Parallel#foldMapRange(int, int, int, Monoid, java.util.function.IntFunction)
+ */
+public interface Monoid<T> {
+  /**
+   * The identity value: combine(zero(), x) and combine(x, zero()) should both equal x.
+   */
+  @NotNull
+  @Contract(pure = true)
+  T zero();
+
+  /**
+   * The associative combining operation.
+   */
+  @NotNull
+  @Contract(pure = true)
+  T combine(@NotNull T a, @NotNull T b);
+
+  /**
+   * Makes a monoid from a zero value and a combining function. It's up to you to make sure that the
+   * combining function really is associative, and that the zero really is an identity.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <T> Monoid<T> of(@NotNull T zero, @NotNull BinaryOperator<T> combine) {
+    return new Monoid<T>() {
+      @NotNull
+      @Override
+      public T zero() {
+        return zero;
+      }
+
+      @NotNull
+      @Override
+      public T combine(@NotNull T a, @NotNull T b) {
+        return combine.apply(a, b);
+      }
+    };
+  }
+}
@@ -0,0 +1,291 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+package edu.rice.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiPredicate;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Helper functions for running work over a range of indices in parallel, using Java's fork/join framework.
+ * Our persistent lists and sets use these for their parallel operations: first they copy their elements
+ * into an array, and then they use the functions here to carve up the array's indices among the available
+ * cores. Each piece of work is split in half, again and again, until it's no bigger than the given
+ * threshold, at which point it runs sequentially.
+ *
+ * <p>Engineering note: picking the threshold is a tradeoff. Every fork/join task has some overhead, so if
+ * the threshold is too small, we spend more time managing tasks than doing useful work. If it's too big,
+ * we won't have enough tasks to keep all the cores busy. {@link #DEFAULT_THRESHOLD} is a reasonable
+ * starting point, but if the per-element work is very cheap (e.g., adding one to an integer), you want
+ * a bigger threshold, and if it's very expensive, you want a smaller one.
+ */
+public interface Parallel {
+  /**
+   * The default sequential threshold: ranges of this many indices, or fewer, are run sequentially.
+   */
+  int DEFAULT_THRESHOLD = 1024;
+
+  /**
+   * Runs the body once for every index from start (inclusive) to end (exclusive), in parallel. There's no
+   * guarantee of the order in which the indices are visited, so the body should only write to places that
+   * are particular to the index it's given (e.g., the index'th slot of an output array).
+   */
+  static void forRange(int start, int end, int threshold, @NotNull IntConsumer body) {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("threshold must be positive");
+    }
+    if (end - start <= threshold) {
+      // not worth getting the fork/join pool involved
+      for (int i = start; i < end; i++) {
+        body.accept(i);
+      }
+    } else {
+      ForkJoinPool.commonPool().invoke(new RangeAction(start, end, threshold, body));
+    }
+  }
+
+  /**
+   * Computes elementFunc(i) for every index from start (inclusive) to end (exclusive), and combines all the
+   * results with the monoid, in parallel. Because the results are always combined in index order, you'll get
+   * exactly the same answer as a sequential left-to-right fold, so long as the monoid is associative.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <U> U foldMapRange(int start, int end, int threshold,
+                            @NotNull Monoid<U> monoid, @NotNull IntFunction<? extends U> elementFunc) {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("threshold must be positive");
+    }
+    if (end - start <= threshold) {
+      return sequentialFoldMap(start, end, monoid, elementFunc);
+    } else {
+      return ForkJoinPool.commonPool().invoke(new FoldMapTask<>(start, end, threshold, monoid, elementFunc));
+    }
+  }
+
+  /**
+   * The sequential version of {@link #foldMapRange(int, int, int, Monoid, IntFunction)}.
+   */
+  @NotNull
+  @Contract(pure = true)
+  static <U> U sequentialFoldMap(int start, int end, @NotNull Monoid<U> monoid, @NotNull IntFunction<? extends U> elementFunc) {
+    U accumulator = monoid.zero();
+    for (int i = start; i < end; i++) {
+      accumulator = monoid.combine(accumulator, elementFunc.apply(i));
+    }
+    return accumulator;
+  }
+
+  /**
+   * Sorts the array in place, lowest to highest, according to the lessThan predicate, using merge sort. The sort is
+   * stable: values that are equal, as far as lessThan is concerned, stay in the same order they started in. The
+   * array had better only contain T's.
+   */
+  static <T> void mergeSort(@NotNull Object[] values, @NotNull BiPredicate<? super T, ? super T> lessThan) {
+    Object[] scratch = values.clone();
+    MergeSortAction.sort(scratch, values, 0, values.length, lessThan);
+  }
+
+  /**
+   * Same as {@link #mergeSort(Object[], BiPredicate)}, but the two halves of the array are sorted in parallel,
+   * and so on, recursively, until the pieces are no bigger than the threshold.
+   */
+  static <T> void parallelMergeSort(@NotNull Object[] values, int threshold,
+                                    @NotNull BiPredicate<? super T, ? super T> lessThan) {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("threshold must be positive");
+    }
+    if (values.length <= threshold) {
+      mergeSort(values, lessThan);
+    } else {
+      Object[] scratch = values.clone();
+      ForkJoinPool.commonPool().invoke(new MergeSortAction<>(scratch, values, 0, values.length, threshold, lessThan));
+    }
+  }
+
+  /**
+   * Fork/join task for forRange. External users won't use this directly.
+   */
+  class RangeAction extends RecursiveAction {
+    private final int start;
+    private final int end;
+    private final int threshold;
+    @NotNull
+    private final IntConsumer body;
+
+    // external users: don't use this
+    RangeAction(int start, int end, int threshold, @NotNull IntConsumer body) {
+      this.start = start;
+      this.end = end;
+      this.threshold = threshold;
+      this.body = body;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start <= threshold) {
+        for (int i = start; i < end; i++) {
+          body.accept(i);
+        }
+      } else {
+        int middle = (start + end) >>> 1;
+        invokeAll(new RangeAction(start, middle, threshold, body), new RangeAction(middle, end, threshold, body));
+      }
+    }
+  }
+
+  /**
+   * Fork/join task for foldMapRange. External users won't use this directly.
+   */
+  class FoldMapTask<U> extends RecursiveTask<U> {
+    private final int start;
+    private final int end;
+    private final int threshold;
+    @NotNull
+    private final Monoid<U> monoid;
+    @NotNull
+    private final IntFunction<? extends U> elementFunc;
+
+    // external users: don't use this
+    FoldMapTask(int start, int end, int threshold, @NotNull Monoid<U> monoid, @NotNull IntFunction<? extends U> elementFunc) {
+      this.start = start;
+      this.end = end;
+      this.threshold = threshold;
+      this.monoid = monoid;
+      this.elementFunc = elementFunc;
+    }
+
+    @Override
+    protected U compute() {
+      if (end - start <= threshold) {
+        return sequentialFoldMap(start, end, monoid, elementFunc);
+      }
+
+      // we fork the left half, do the right half ourselves, and then combine them, left before right
+      int middle = (start + end) >>> 1;
+      FoldMapTask<U> left = new FoldMapTask<>(start, middle, threshold, monoid, elementFunc);
+      left.fork();
+      U rightResult = new FoldMapTask<>(middle, end, threshold, monoid, elementFunc).compute();
+      return monoid.combine(left.join(), rightResult);
+    }
+  }
+
+  /**
+   * Fork/join task for parallelMergeSort, along with the sequential merge sort that it uses for the small pieces.
+   * External users won't use this directly.
+   */
+  class MergeSortAction<T> extends RecursiveAction {
+    // Below this size, insertion sort beats merge sort.
+    private static final int INSERTION_SORT_THRESHOLD = 8;
+
+    @NotNull
+    private final Object[] src;
+    @NotNull
+    private final Object[] dest;
+    private final int start;
+    private final int end;
+    private final int threshold;
+    @NotNull
+    private final BiPredicate<? super T, ? super T> lessThan;
+
+    // external users: don't use this
+    MergeSortAction(@NotNull Object[] src, @NotNull Object[] dest, int start, int end, int threshold,
+                    @NotNull BiPredicate<? super T, ? super T> lessThan) {
+      this.src = src;
+      this.dest = dest;
+      this.start = start;
+      this.end = end;
+      this.threshold = threshold;
+      this.lessThan = lessThan;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start <= threshold) {
+        sort(src, dest, start, end, lessThan);
+      } else {
+        // same as the sequential version, below, except the two halves are sorted at the same time
+        int middle = (start + end) >>> 1;
+        invokeAll(new MergeSortAction<>(dest, src, start, middle, threshold, lessThan),
+            new MergeSortAction<>(dest, src, middle, end, threshold, lessThan));
+        merge(src, dest, start, middle, end, lessThan);
+      }
+    }
+
+    /**
+     * Sorts the values from start to end, winding up in dest. On the way in, src and dest must hold the same values
+     * in that range; src is used as scratch space.
+     */
+    static <T> void sort(@NotNull Object[] src, @NotNull Object[] dest, int start, int end,
+                         @NotNull BiPredicate<? super T, ? super T> lessThan) {
+      // Engineering note: the trick here, borrowed from Java's own (older) sorting code, is that each level of the
+      // recursion swaps the roles of the two arrays. The halves are sorted into src, then merged into dest, so we
+      // never have to copy the merged results back again.
+      if (end - start <= INSERTION_SORT_THRESHOLD) {
+        insertionSort(dest, start, end, lessThan);
+        return;
+      }
+
+      int middle = (start + end) >>> 1;
+      sort(dest, src, start, middle, lessThan);
+      sort(dest, src, middle, end, lessThan);
+      merge(src, dest, start, middle, end, lessThan);
+    }
+
+    /**
+     * Merges the sorted runs src[start..middle) and src[middle..end) into dest[start..end).
+     */
+    static <T> void merge(@NotNull Object[] src, @NotNull Object[] dest, int start, int middle, int end,
+                          @NotNull BiPredicate<? super T, ? super T> lessThan) {
+      // if the two runs are already in order, there's nothing to merge
+      if (!lessThan.test(elementAt(src, middle), elementAt(src, middle - 1))) {
+        System.arraycopy(src, start, dest, start, end - start);
+        return;
+      }
+
+      // Stability requires that, when the two values are equal, the one from the left run goes first. So we only
+      // take from the right run when its value is strictly less than the left one.
+      int left = start;
+      int right = middle;
+      for (int i = start; i < end; i++) {
+        if (right >= end || (left < middle && !lessThan.test(elementAt(src, right), elementAt(src, left)))) {
+          dest[i] = src[left++];
+        } else {
+          dest[i] = src[right++];
+        }
+      }
+    }
+
+    private static <T> void insertionSort(@NotNull Object[] values, int start, int end,
+                                          @NotNull BiPredicate<? super T, ? super T> lessThan) {
+      for (int i = start + 1; i < end; i++) {
+        T value = elementAt(values, i);
+        int j = i;
+        // strictly less than, so equal values don't move past each other
+        while (j > start && lessThan.test(value, elementAt(values, j - 1))) {
+          values[j] = values[j - 1];
+          j--;
+        }
+        values[j] = value;
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T elementAt(@NotNull Object[] values, int index) {
+      return (T) values[index];
+    }
+  }
+}
@@ -280,6 +280,34 @@ public class ParserTest {
         parseJsonArray("[4,2,[5,3],9]").get());
   }
 
+  @Test
+  public void testLongArraysAndObjects() throws Exception {
+    // the array and object helpers used to recurse once per element, so these would run out of stack
+    final int size = 100000;
+
+    StringBuilder arrayInput = new StringBuilder("[");
+    StringBuilder objectInput = new StringBuilder("{");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        arrayInput.append(",");
+        objectInput.append(",");
+      }
+      arrayInput.append(i);
+      objectInput.append("\"k").append(i).append("\":").append(i);
+    }
+    arrayInput.append("]");
+    objectInput.append("}");
+
+    JArray array = parseJsonArray(arrayInput.toString()).get();
+    assertEquals(size, array.getList().length());
+    assertEquals(jnumber(0), array.nth(0).get());
+    assertEquals(jnumber(size - 1), array.nth(size - 1).get());
+
+    JObject object = parseJsonObject(objectInput.toString()).get();
+    assertEquals(size, object.getMap().size());
+    assertEquals(jnumber(1234), object.oget("k1234").get());
+  }
+
   @Test
   public void testValues() throws Exception {
     // now, for some various parsing failures
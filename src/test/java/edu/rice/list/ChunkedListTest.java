@@ -0,0 +1,102 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import edu.rice.util.Option;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the whole of ListTest against ChunkedList, plus a few tests of its own for the chunk boundaries.
+ */
+public class ChunkedListTest extends ListTest {
+  @Override
+  <T> IList<T> makeEmpty() {
+    return ChunkedList.makeEmpty();
+  }
+
+  @Override
+  <T> IList<T> make(T headVal, IList<? extends T> tailVal) {
+    return ChunkedList.make(headVal, tailVal);
+  }
+
+  @Override
+  <T> IList<T> fromArray(T[] source) {
+    return ChunkedList.fromArray(source);
+  }
+
+  @Override
+  <T> IList<T> fromList(java.util.List<? extends T> original) {
+    return ChunkedList.fromList(original);
+  }
+
+  @Override
+  IList<Integer> rangeInt(int min, int max) {
+    return ChunkedList.rangeInt(min, max);
+  }
+
+  @Override
+  IList<Integer> rangeInt(int start, int finish, int increment) {
+    return ChunkedList.rangeInt(start, finish, increment);
+  }
+
+  @Test
+  public void testChunkBoundaries() throws Exception {
+    // enough elements for a few full chunks, plus a partial one
+    final int size = ChunkedList.CHUNK_SIZE * 3 + 5;
+    final IList<Integer> chunked = ChunkedList.rangeInt(0, size - 1);
+    final IList<Integer> plain = List.rangeInt(0, size - 1);
+
+    assertEquals(plain, chunked);
+    assertEquals(chunked, plain);
+    assertEquals(plain.hashCode(), chunked.hashCode());
+    assertEquals(size, chunked.length());
+
+    for (int i = 0; i < size; i++) {
+      assertEquals((Integer) i, chunked.nth(i).get());
+      assertEquals(plain.skipN(i), chunked.skipN(i));
+      assertEquals(plain.updateNth(i, x -> Option.some(x + 1000)), chunked.updateNth(i, x -> Option.some(x + 1000)));
+    }
+    assertTrue(chunked.nth(size).isNone());
+    assertTrue(chunked.skipN(size).empty());
+  }
+
+  @Test
+  public void testAddFillsChunks() throws Exception {
+    // building a list one add() at a time should give the same answers as building it all at once
+    IList<Integer> list = ChunkedList.makeEmpty();
+    for (int i = 99; i >= 0; i--) {
+      list = list.add(i);
+    }
+    assertEquals(ChunkedList.rangeInt(0, 99), list);
+    assertEquals(100, list.length());
+
+    // and adding to a shared tail must never disturb the tail or anybody else sharing it
+    final IList<Integer> tail = list.tail();
+    final IList<Integer> a = tail.add(-1);
+    final IList<Integer> b = tail.add(-2);
+    assertEquals((Integer) (-1), a.head());
+    assertEquals((Integer) (-2), b.head());
+    assertEquals(tail, a.tail());
+    assertEquals(tail, b.tail());
+    assertEquals(ChunkedList.rangeInt(1, 99), tail);
+  }
+
+  @Test
+  public void testLazyTail() throws Exception {
+    final IList<Integer> mixed = ChunkedList.make(1, ChunkedList.make(2, LazyList.rangeInt(3, 100)));
+    assertEquals(List.rangeInt(1, 100), mixed);
+    assertEquals(100, mixed.length());
+    assertEquals(List.rangeInt(2, 101), mixed.map(x -> x + 1));
+    assertEquals((Integer) 50, mixed.nth(49).get());
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+package edu.rice.list;
+
+import org.junit.Test;
+
+import java.util.OptionalDouble;
+
+import static org.junit.Assert.*;
+
+public class DoubleListTest {
+  @Test
+  public void testBasics() throws Exception {
+    final DoubleList list = DoubleList.of(1.5, 2.5, 3.0);
+
+    assertEquals(3, list.length());
+    assertEquals(7.0, list.sum(), 0.0);
+    assertEquals(1.5, list.head(), 0.0);
+    assertEquals(OptionalDouble.of(3.0), list.nth(2));
+    assertEquals(DoubleList.of(3.0, 5.0, 6.0), list.map(x -> x * 2));
+    assertEquals(DoubleList.of(2.5, 3.0), list.filter(x -> x > 2));
+    assertEquals("DoubleList(1.5, 2.5, 3.0)", list.toString());
+  }
+
+  @Test
+  public void testEquality() throws Exception {
+    // same rules as Double.equals(), so that we agree with the boxed list
+    assertEquals(DoubleList.of(Double.NaN), DoubleList.of(Double.NaN));
+    assertNotEquals(DoubleList.of(0.0), DoubleList.of(-0.0));
+    assertEquals(List.of(Double.NaN), DoubleList.of(Double.NaN).boxed());
+    assertEquals(List.of(1.5, 2.5).hashCode(), DoubleList.of(1.5, 2.5).hashCode());
+  }
+
+  @Test
+  public void testConversions() throws Exception {
+    final DoubleList list = List.of(1, 2, 3).mapToDouble(x -> x / 2.0);
+
+    assertEquals(DoubleList.of(0.5, 1.0, 1.5), list);
+    assertEquals(List.of(0.5, 1.0, 1.5), list.boxed());
+    assertEquals(IntList.of(0, 1, 1), list.mapToInt(x -> (int) x));
+    assertEquals(DoubleList.of(0.5, 1.0), DoubleList.fromList(List.of(0.5, 1.0)));
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import edu.rice.util.Option;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * FingerDeque has to pass all the same tests as ListQueue, plus a few more for working at the other ends.
+ */
+public class FingerDequeTest extends ListQueueTest {
+  @Override
+  <T> IQueue<T> makeEmpty() {
+    return FingerDeque.makeEmpty();
+  }
+
+  @Override
+  <T> IQueue<T> ofArray(T[] vals) {
+    return FingerDeque.of(vals);
+  }
+
+  @Test
+  public void testEqualsListQueue() throws Exception {
+    assertEquals(ListQueue.of(1, 2, 3), FingerDeque.of(1, 2, 3));
+    assertEquals(ListQueue.of(1, 2, 3).tail().insert(4), FingerDeque.of(1, 2, 3).tail().insert(4));
+    assertEquals(ListQueue.of(1, 2, 3).hashCode(), FingerDeque.of(1, 2, 3).hashCode());
+  }
+
+  @Test
+  public void testBothEnds() throws Exception {
+    FingerDeque<Integer> deque = FingerDeque.makeEmpty();
+    assertEquals(Option.none(), deque.olast());
+    assertTrue(deque.init().empty());
+
+    for (int i = 0; i < 1000; i++) {
+      deque = deque.insert(i).insertFront(-i - 1);
+    }
+    assertEquals(2000, deque.size());
+    assertEquals(-1000, (int) deque.head());
+    assertEquals(Option.some(999), deque.olast());
+    assertEquals(LazyList.rangeInt(-1000, 999), deque.toLazyList());
+    assertEquals(List.rangeInt(-1000, 999), deque.toFingerTree());
+
+    // take it apart from both ends at once
+    for (int i = 999; i >= 0; i--) {
+      assertEquals(Option.some(i), deque.olast());
+      assertEquals(-i - 1, (int) deque.head());
+      deque = deque.init().tail();
+    }
+    assertTrue(deque.empty());
+    assertEquals(FingerDeque.makeEmpty(), deque);
+  }
+}
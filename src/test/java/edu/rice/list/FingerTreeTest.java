@@ -0,0 +1,174 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import edu.rice.util.Option;
+import edu.rice.util.Pair;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Spliterator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the whole of ListTest against FingerTree, plus tests of its own for working at both ends, splitting, and
+ * concatenating.
+ */
+public class FingerTreeTest extends ListTest {
+  @Override
+  <T> IList<T> makeEmpty() {
+    return FingerTree.makeEmpty();
+  }
+
+  @Override
+  <T> IList<T> make(T headVal, IList<? extends T> tailVal) {
+    return FingerTree.make(headVal, tailVal);
+  }
+
+  @Override
+  <T> IList<T> fromArray(T[] source) {
+    return FingerTree.fromArray(source);
+  }
+
+  @Override
+  <T> IList<T> fromList(java.util.List<? extends T> original) {
+    return FingerTree.fromList(original);
+  }
+
+  @Override
+  IList<Integer> rangeInt(int min, int max) {
+    return FingerTree.rangeInt(min, max);
+  }
+
+  @Override
+  IList<Integer> rangeInt(int start, int finish, int increment) {
+    return FingerTree.rangeInt(start, finish, increment);
+  }
+
+  @Override
+  @Test
+  public void testLazyTailSpliterator() throws Exception {
+    // a FingerTree copies a lazy tail into the tree, so unlike a List, it knows exactly how long it is
+    final IList<Integer> mixed = make(1, LazyList.rangeInt(2, 10));
+    final Spliterator<Integer> spliterator = mixed.spliterator();
+    assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+    assertEquals(10, spliterator.getExactSizeIfKnown());
+    final ArrayList<Integer> mixedResult = new ArrayList<>();
+    mixed.iterator().forEachRemaining(mixedResult::add);
+    assertEquals(rangeInt(1, 10), fromList(mixedResult));
+  }
+
+  @Test
+  public void testBothEnds() throws Exception {
+    final int size = 40000;
+    FingerTree<Integer> front = FingerTree.makeEmpty();
+    FingerTree<Integer> back = FingerTree.makeEmpty();
+    for (int i = 0; i < size; i++) {
+      front = front.add(size - 1 - i);
+      back = back.append(i);
+    }
+
+    final IList<Integer> expected = List.rangeInt(0, size - 1);
+    assertEquals(expected, front);
+    assertEquals(expected, back);
+    assertEquals(size, front.length());
+    assertEquals(Option.some(size - 1), front.olast());
+    assertEquals(Option.some(0), back.ohead());
+
+    // take it apart again, from the back
+    FingerTree<Integer> shrinking = back;
+    for (int i = size - 1; i >= 0; i--) {
+      assertEquals(Option.some(i), shrinking.olast());
+      shrinking = shrinking.init();
+      assertEquals(i, shrinking.length());
+    }
+    assertTrue(shrinking.empty());
+    assertEquals(Option.none(), shrinking.olast());
+    assertTrue(shrinking.init().empty());
+
+    // and mixing the two
+    FingerTree<Integer> mixed = FingerTree.makeEmpty();
+    for (int i = 0; i < 1000; i++) {
+      mixed = mixed.add(-i - 1).append(i);
+    }
+    assertEquals(List.rangeInt(-1000, 999), mixed);
+  }
+
+  @Test
+  public void testRandomAccess() throws Exception {
+    final int size = 100000;
+    final FingerTree<Integer> tree = FingerTree.rangeInt(0, size - 1);
+
+    for (int i = 0; i < size; i += 37) {
+      assertEquals(Option.some(i), tree.nth(i));
+    }
+    assertEquals(Option.none(), tree.nth(-1));
+    assertEquals(Option.none(), tree.nth(size));
+
+    final IList<Integer> updated = tree.updateNth(size / 2, Option.some(-1));
+    assertEquals(size, updated.length());
+    assertEquals(Option.some(-1), updated.nth(size / 2));
+    assertEquals(Option.some(size / 2), tree.nth(size / 2)); // the original is unchanged
+    assertEquals(Option.some(size / 2 + 1), updated.nth(size / 2 + 1));
+
+    final IList<Integer> removed = tree.updateNth(10, Option.none());
+    assertEquals(size - 1, removed.length());
+    assertEquals(Option.some(11), removed.nth(10));
+  }
+
+  @Test
+  public void testSplitAt() throws Exception {
+    final int size = 1000;
+    final FingerTree<Integer> tree = FingerTree.rangeInt(0, size - 1);
+
+    for (int i = -1; i <= size + 1; i++) {
+      Pair<FingerTree<Integer>, FingerTree<Integer>> halves = tree.splitAt(i);
+      int split = Math.max(0, Math.min(size, i));
+      assertEquals(split, halves.a.length());
+      assertEquals(size - split, halves.b.length());
+      assertEquals(List.rangeInt(0, split - 1), halves.a);
+      assertEquals(List.rangeInt(split, size - 1), halves.b);
+      assertEquals(tree, halves.a.concat(halves.b));
+    }
+
+    assertEquals(List.rangeInt(10, 19), tree.sublist(10, 19));
+  }
+
+  @Test
+  public void testConcat() throws Exception {
+    // lots of concatenations of different sizes, so we exercise the digits and nodes at several levels
+    FingerTree<Integer> tree = FingerTree.makeEmpty();
+    int next = 0;
+    for (int chunk = 0; chunk < 200; chunk++) {
+      tree = tree.concat(FingerTree.rangeInt(next, next + chunk - 1));
+      next += chunk;
+    }
+    assertEquals(next, tree.length());
+    assertEquals(List.rangeInt(0, next - 1), tree);
+    for (int i = 0; i < next; i += 101) {
+      assertEquals(Option.some(i), tree.nth(i));
+    }
+
+    // concatenating onto the front works too
+    FingerTree<Integer> backwards = FingerTree.makeEmpty();
+    for (int i = 0; i < 100; i++) {
+      backwards = FingerTree.rangeInt(10 * i, 10 * i + 9).concat(backwards);
+    }
+    assertEquals(1000, backwards.length());
+    assertEquals(Option.some(990), backwards.ohead());
+    assertEquals(Option.some(9), backwards.olast());
+
+    // and with a lazy list, which might be infinite, so it can't be copied
+    IList<Integer> lazy = FingerTree.rangeInt(0, 9).concat(LazyList.iterate(10, x -> x + 1));
+    assertEquals(List.rangeInt(0, 19), lazy.limit(20));
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+package edu.rice.list;
+
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+import java.util.OptionalInt;
+
+import static org.junit.Assert.*;
+
+public class IntListTest {
+  @Test
+  public void testBasics() throws Exception {
+    final IntList empty = IntList.makeEmpty();
+    final IntList list = IntList.of(1, 2, 3);
+
+    assertTrue(empty.empty());
+    assertFalse(list.empty());
+    assertEquals(0, empty.length());
+    assertEquals(3, list.length());
+    assertEquals(1, list.head());
+    assertEquals(IntList.of(2, 3), list.tail());
+    assertEquals(list, IntList.make(1, IntList.of(2, 3)));
+    assertEquals(list, empty.add(3).add(2).add(1));
+    assertEquals(OptionalInt.of(1), list.ohead());
+    assertEquals(OptionalInt.empty(), empty.ohead());
+    assertEquals("IntList(1, 2, 3)", list.toString());
+    assertEquals("IntList()", empty.toString());
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void testEmptyHead() throws Exception {
+    IntList.makeEmpty().head();
+  }
+
+  @Test
+  public void testRange() throws Exception {
+    assertEquals(IntList.of(1, 2, 3, 4, 5), IntList.rangeInt(1, 5));
+    assertEquals(IntList.of(10, 7, 4, 1), IntList.rangeInt(10, 0, -3));
+    assertTrue(IntList.rangeInt(5, 1).empty());
+
+    // the same answers that List.rangeInt gives us, edge cases and all
+    assertEquals(List.rangeInt(10, 0, -3), IntList.rangeInt(10, 0, -3).boxed());
+    assertEquals(List.rangeInt(0, 10, -3), IntList.rangeInt(0, 10, -3).boxed());
+    assertEquals(List.rangeInt(7, 7, 2), IntList.rangeInt(7, 7, 2).boxed());
+  }
+
+  @Test
+  public void testOperations() throws Exception {
+    final IntList list = IntList.rangeInt(1, 10);
+
+    assertEquals(IntList.rangeInt(2, 11), list.map(x -> x + 1));
+    assertEquals(IntList.of(2, 4, 6, 8, 10), list.filter(x -> x % 2 == 0));
+    assertEquals(IntList.of(1, 2, 3), list.takeWhile(x -> x < 4));
+    assertEquals(IntList.of(1, 2, 3), list.limit(3));
+    assertEquals(IntList.rangeInt(10, 1, -1), list.reverse());
+    assertEquals(IntList.rangeInt(1, 20), list.concat(IntList.rangeInt(11, 20)));
+    assertEquals(IntList.rangeInt(4, 10), list.skipN(3));
+    assertEquals(OptionalInt.of(4), list.nth(3));
+    assertEquals(OptionalInt.empty(), list.nth(10));
+    assertEquals(55, list.sum());
+    assertEquals(3628800, list.foldl(1, (a, b) -> a * b));
+    assertEquals(-5, list.foldr(0, (x, acc) -> x - acc));
+    assertTrue(list.contains(7));
+    assertFalse(list.contains(11));
+    assertArrayEquals(new int[] {1, 2, 3}, IntList.of(1, 2, 3).toArray());
+
+    final int[] total = {0};
+    list.foreach(x -> total[0] += x);
+    assertEquals(55, total[0]);
+  }
+
+  @Test
+  public void testConversions() throws Exception {
+    final IList<String> strings = List.of("Alice", "Bob", "Charlie");
+    final IntList lengths = strings.mapToInt(String::length);
+
+    assertEquals(IntList.of(5, 3, 7), lengths);
+    assertEquals(List.of(5, 3, 7), lengths.boxed());
+    assertEquals(IntList.of(5, 3, 7), IntList.fromList(List.of(5, 3, 7)));
+    assertEquals(List.of("5", "3", "7"), lengths.mapToObj(Integer::toString));
+    assertEquals(LongList.of(5L, 3L, 7L), lengths.mapToLong(x -> x));
+    assertEquals(DoubleList.of(2.5, 1.5, 3.5), lengths.mapToDouble(x -> x / 2.0));
+    assertEquals(IntList.rangeInt(0, 99), LazyList.rangeInt(0, 99).mapToInt(x -> x));
+
+    // hashes agree with the boxed equivalent
+    assertEquals(lengths.boxed().hashCode(), lengths.hashCode());
+    assertEquals(List.makeEmpty().hashCode(), IntList.makeEmpty().hashCode());
+  }
+
+  @Test
+  public void testHugeListsDontOverflow() throws Exception {
+    final int size = 1_000_000;
+    final IntList bigList = IntList.rangeInt(1, size);
+
+    assertEquals(size, bigList.length());
+    assertEquals((long) size * (size + 1) / 2, bigList.mapToLong(x -> x).sum());
+    assertEquals(size / 2, bigList.filter(x -> x % 2 == 0).length());
+    assertEquals(2 * size, bigList.concat(bigList).length());
+    assertEquals(bigList, bigList.reverse().reverse());
+    assertEquals(bigList.hashCode(), bigList.map(x -> x).hashCode());
+  }
+}
@@ -193,6 +193,10 @@ public class LazyListTest {
     System.out.println(String.format("Java stream, 1K, reduce:         %7.3f μs per item",
         1e-6 * nanoBenchmark(() -> assertEquals(expectedSum, llist.stream().reduce(0, (x, y) -> x + y)))));
 
+    // our own lists can go straight into a stream, without copying them anywhere first
+    System.out.println(String.format("IList stream, 1K, reduce:        %7.3f μs per item",
+        1e-6 * nanoBenchmark(() -> assertEquals(expectedSum, eagerRange.stream().reduce(0, (x, y) -> x + y)))));
+
     // and, lastly, we'll use an old-fashioned Java iterator and a mutating total value
     System.out.println(String.format("Java iterator, 1K:               %7.3f μs per item",
         1e-6 * nanoBenchmark(() -> {
@@ -361,6 +365,30 @@ public class LazyListTest {
     assertEquals(strings3, strings);
   }
 
+  @Test
+  public void testView() throws Exception {
+    // views run only as far as the terminal operation demands, so they're fine on infinite lists
+    final IList<Integer> naturals = nextLazyList(0);
+    final int[] calls = { 0 };
+    final ListView<Integer> squares = naturals.view().map(x -> {
+      calls[0]++;
+      return x * x;
+    });
+    assertEquals(0, calls[0]); // nothing happens until we ask
+
+    assertEquals(LazyList.of(0, 1, 4, 9, 16), squares.limit(5).toList());
+    assertEquals(5, calls[0]);
+    assertEquals(LazyList.of(0, 1, 4, 9), squares.takeWhile(x -> x < 10).toList());
+
+    // a long pipeline with no intermediate lists, and no recursion
+    assertEquals((Long) 1249975000L, ListView.rangeInt(0, Integer.MAX_VALUE)
+        .map(x -> (long) x)
+        .filter(x -> x % 3 == 0)
+        .limit(50000)
+        .map(x -> x / 3)
+        .foldl(0L, (sum, x) -> sum + x));
+  }
+
   /**
    * Used as part of testing LazyList.ogenerate(). Initialize the counter with an integer,
    * and then every time you call next, you'll get back the counter, which will be internally
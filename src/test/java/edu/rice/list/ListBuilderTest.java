@@ -0,0 +1,57 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ListBuilderTest {
+  @Test
+  public void testAppendAndBuild() throws Exception {
+    ListBuilder<String> builder = new ListBuilder<>();
+    assertEquals(List.makeEmpty(), builder.build());
+    assertEquals(0, builder.size());
+
+    builder.append("Alice").append("Bob").append("Charlie");
+    assertEquals(3, builder.size());
+    assertEquals(List.of("Alice", "Bob", "Charlie"), builder.build());
+
+    builder.appendAll(Arrays.asList("Dorothy", "Eve").iterator());
+    assertEquals(List.of("Alice", "Bob", "Charlie", "Dorothy", "Eve"), builder.build());
+  }
+
+  @Test
+  public void testBuildIsASnapshot() throws Exception {
+    ListBuilder<Integer> builder = new ListBuilder<>(1);
+    IList<Integer> before = builder.append(1).append(2).build();
+    builder.append(3);
+
+    assertEquals(List.of(1, 2), before);
+    assertEquals(List.of(1, 2, 3), builder.build());
+  }
+
+  @Test
+  public void testLongList() throws Exception {
+    // no recursion anywhere, so this shouldn't run out of stack
+    ListBuilder<Integer> builder = new ListBuilder<>();
+    for (int i = 0; i < 1000000; i++) {
+      builder.append(i);
+    }
+    IList<Integer> list = builder.build();
+
+    assertEquals(1000000, list.length());
+    assertEquals((Integer) 0, list.head());
+    assertEquals((Long) 499999500000L, list.foldl(0L, (sum, x) -> sum + x));
+  }
+}
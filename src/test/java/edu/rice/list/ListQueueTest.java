@@ -15,10 +15,27 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 
 public class ListQueueTest {
+  // Engineering note: these factory methods let other IQueue implementations reuse all the tests here, by subclassing
+  // this test and overriding them.
+
+  <T> IQueue<T> makeEmpty() {
+    return ListQueue.makeEmpty();
+  }
+
+  @SafeVarargs
+  @SuppressWarnings("varargs")
+  final <T> IQueue<T> of(T... vals) {
+    return ofArray(vals);
+  }
+
+  <T> IQueue<T> ofArray(T[] vals) {
+    return ListQueue.of(vals);
+  }
+
   @Test
   public void testEmpty() throws Exception {
     // write a test that creates an empty queue and verifies that it's empty
-    IQueue<Integer> emptyQueue = ListQueue.makeEmpty();
+    IQueue<Integer> emptyQueue = makeEmpty();
     assertTrue(emptyQueue.empty());
 
     // fail("testEmpty not implemented yet");
@@ -27,7 +44,7 @@ public class ListQueueTest {
   @Test
   public void testEmptySize() throws Exception {
     // write a test that creates an empty queue and verifies that it's length is zero
-    IQueue<Integer> emptyQueue = ListQueue.makeEmpty();
+    IQueue<Integer> emptyQueue = makeEmpty();
     assertEquals(0, emptyQueue.size());
 
     // fail("testEmptySize not implemented yet");
@@ -36,7 +53,7 @@ public class ListQueueTest {
   @Test
   public void testSizeEight() throws Exception {
     // write a test that creates a queue with eight *integers* in it, using ListQueue.of(...) and verifies that the size is 8
-    IQueue<Integer> queue = ListQueue.of(1, 2, 3, 4, 5, 6, 7, 8);
+    IQueue<Integer> queue = of(1, 2, 3, 4, 5, 6, 7, 8);
     assertEquals(8, queue.size());
 
     // fail("testSizeEight not implemented yet");
@@ -47,7 +64,7 @@ public class ListQueueTest {
     // Make a queue using ListQueue.of(), as above, convert it to a string with the toString() method (provided for you),
     // and test that you get the string you were expecting.
 
-    IQueue<Integer> queue = ListQueue.of(1, 2, 3, 4, 5, 6, 7, 8);
+    IQueue<Integer> queue = of(1, 2, 3, 4, 5, 6, 7, 8);
     assertEquals("Queue(1, 2, 3, 4, 5, 6, 7, 8)", queue.toString());
 
     // fail("testToStringEight not implemented yet");
@@ -56,7 +73,7 @@ public class ListQueueTest {
   @Test
   public void testSizeInsertOne() throws Exception {
     // write a test that creates an empty queue, adds one thing to it with the insert() method, then verifies the size
-    IQueue<Integer> queue = ListQueue.<Integer>makeEmpty().insert(5);
+    IQueue<Integer> queue = this.<Integer>makeEmpty().insert(5);
     assertEquals(1, queue.size());
 
     // fail("testSizeInsertOne not implemented yet");
@@ -67,7 +84,7 @@ public class ListQueueTest {
     // write a test that creates an empty queue, adds three things to it with the insert() method, then verifies the head() is
     // the first thing that went in
 
-    IQueue<String> queue = ListQueue.<String>makeEmpty().insert("Hello").insert("Rice").insert("Owls");
+    IQueue<String> queue = this.<String>makeEmpty().insert("Hello").insert("Rice").insert("Owls");
     assertEquals("Hello", queue.head());
 
     // fail("testHeadOfThreeInserts() not implemented yet");
@@ -79,7 +96,7 @@ public class ListQueueTest {
     // but also takes the tail() of the queue and verifies the head() of the result, doing this for each entry until you get
     // an empty queue (and verifying that the queue is indeed empty).
 
-    IQueue<String> queue = ListQueue.<String>makeEmpty().insert("Hello").insert("Rice").insert("Owls");
+    IQueue<String> queue = this.<String>makeEmpty().insert("Hello").insert("Rice").insert("Owls");
     assertEquals("Hello", queue.head());
     assertEquals("Rice", queue.tail().head());
     assertEquals("Owls", queue.tail().tail().head());
@@ -94,7 +111,7 @@ public class ListQueueTest {
     // and the original empty queue point to the identical object in memory
     // (i.e., use assertTrue(a == b) rather than assertEquals(a, b)).
 
-    IQueue<String> emptyQueue = ListQueue.makeEmpty();
+    IQueue<String> emptyQueue = makeEmpty();
     IQueue<String> emptyQueue2 = emptyQueue.insert("Hello").tail();
 
     assertTrue(emptyQueue == emptyQueue2);
@@ -108,7 +125,7 @@ public class ListQueueTest {
     // and non-empty queues. Try to be clever and make sure that the queue you're converting to a lazy list has something
     // in its inbox and its outbox, which means that you'll also be exercising your rebalancing logic.
 
-    IQueue<Integer> queue = ListQueue.of(1, 2, 3, 4, 5, 6, 7, 8).insert(9).insert(10);
+    IQueue<Integer> queue = of(1, 2, 3, 4, 5, 6, 7, 8).insert(9).insert(10);
     assertEquals(LazyList.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), queue.toLazyList());
 
     // fail("testToLazyList() not implemented yet");
@@ -120,8 +137,8 @@ public class ListQueueTest {
     // to exercise the inbox/outbox reversing logic.
 
     IList<Integer> testNumbers = LazyList.rangeInt(0, 9); // numbers 0 through 9 inclusive
-    IQueue<Integer> testQueue = ListQueue.makeEmpty();
-    IQueue<Integer> resultQueue = ListQueue.makeEmpty();
+    IQueue<Integer> testQueue = makeEmpty();
+    IQueue<Integer> resultQueue = makeEmpty();
 
     // Engineering note: you might look at this code and say "ah ha! mutation!" and indeed, our local variables
     // for testQueue and resultQueue are changing, but the underlying queues they point to are still functional.
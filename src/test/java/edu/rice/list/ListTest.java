@@ -10,22 +10,63 @@
 
 package edu.rice.list;
 
+import edu.rice.util.Monoid;
 import edu.rice.util.Option;
 import edu.rice.util.Pair;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.BiPredicate;
 import java.util.function.BinaryOperator;
+import java.util.stream.Collectors;
 
 import static edu.rice.list.IList.isSorted;
 import static org.junit.Assert.*;
 
 public class  ListTest {
+  //
+  // Every list in these tests is made through the factory methods below, rather than by calling List directly,
+  // so that other IList implementations (see ChunkedListTest) can run the whole suite by overriding them.
+  //
+
+  <T> IList<T> makeEmpty() {
+    return List.makeEmpty();
+  }
+
+  <T> IList<T> make(T headVal, IList<? extends T> tailVal) {
+    return List.make(headVal, tailVal);
+  }
+
+  <T> IList<T> fromArray(T[] source) {
+    return List.fromArray(source);
+  }
+
+  <T> IList<T> fromList(java.util.List<? extends T> original) {
+    return List.fromList(original);
+  }
+
+  IList<Integer> rangeInt(int min, int max) {
+    return List.rangeInt(min, max);
+  }
+
+  IList<Integer> rangeInt(int start, int finish, int increment) {
+    return List.rangeInt(start, finish, increment);
+  }
+
+  @SafeVarargs
+  @SuppressWarnings("varargs")
+  final <T> IList<T> of(T... source) {
+    return fromArray(source);
+  }
+
   @Test
   public void testLength() throws Exception {
-    final IList<String> emptyList = List.makeEmpty();
+    final IList<String> emptyList = makeEmpty();
     final IList<String> list = emptyList.add("Alice").add("Bob").add("Charlie");
 
     assertEquals(0, emptyList.length());
@@ -34,9 +75,9 @@ public class  ListTest {
 
   @Test
   public void testEmpty() throws Exception {
-    final IList<String> emptyList = List.makeEmpty();
+    final IList<String> emptyList = makeEmpty();
     final IList<String> list = emptyList.add("Alice").add("Bob").add("Charlie");
-    final IList<String> anotherEmpty = List.of();
+    final IList<String> anotherEmpty = of();
 
     assertTrue(emptyList.empty());
     assertFalse(list.empty());
@@ -45,17 +86,17 @@ public class  ListTest {
 
   @Test
   public void testMake() throws Exception {
-    final IList<String> list3 = List.of("Alice", "Bob", "Charlie");
-    final IList<String> list2 = List.of("Bob", "Charlie");
+    final IList<String> list3 = of("Alice", "Bob", "Charlie");
+    final IList<String> list2 = of("Bob", "Charlie");
 
     // two equivalent ways of doing the same thing
-    assertEquals(list3, List.make("Alice", list2));
+    assertEquals(list3, make("Alice", list2));
     assertEquals(list3, list2.add("Alice"));
   }
 
   @Test(expected = NoSuchElementException.class)
   public void testHead() throws Exception {
-    final IList<String> emptyList = List.makeEmpty();
+    final IList<String> emptyList = makeEmpty();
     final IList<String> list = emptyList.add("Alice").add("Bob").add("Charlie");
     assertEquals("Charlie", list.head());
 
@@ -66,9 +107,19 @@ public class  ListTest {
     fail("Exception should have been thrown!");
   }
 
+  @Test(expected = ArrayIndexOutOfBoundsException.class)
+  public void testFromArrayOffset() throws Exception {
+    final String[] names = {"Alice", "Bob", "Charlie"};
+    assertEquals(List.of("Bob", "Charlie"), List.fromArray(names, 1));
+    assertTrue(List.fromArray(names, 3).empty());
+
+    List.fromArray(names, -1); // should throw an exception, which we're expecting (see the @Test above)
+    fail("Exception should have been thrown!");
+  }
+
   @Test
   public void testTail() throws Exception {
-    final IList<String> emptyList = List.makeEmpty();
+    final IList<String> emptyList = makeEmpty();
     final IList<String> list = emptyList.add("Alice").add("Bob").add("Charlie");
 
     assertEquals("Bob", list.tail().head());
@@ -84,7 +135,7 @@ public class  ListTest {
     javaList.add("Bob");
     javaList.add("Charlie");
 
-    final IList<String> list = List.fromList(javaList);
+    final IList<String> list = fromList(javaList);
 
     assertEquals(3, list.length());
     assertEquals("Alice", list.head());
@@ -93,14 +144,14 @@ public class  ListTest {
     assertTrue(list.tail().tail().tail().empty());
 
     final java.util.List<String> jlist = Arrays.asList("Alice", "Bob", "Charlie", "Dorothy", "Eve");
-    final IList<String> ilist = List.of("Alice", "Bob", "Charlie", "Dorothy", "Eve");
+    final IList<String> ilist = of("Alice", "Bob", "Charlie", "Dorothy", "Eve");
 
-    assertEquals(ilist, List.fromList(jlist));
+    assertEquals(ilist, fromList(jlist));
   }
 
   @Test
   public void testAdd() throws Exception {
-    final IList<String> emptyList = List.makeEmpty();
+    final IList<String> emptyList = makeEmpty();
     final IList<String> list = emptyList.add("Alice").add("Bob").add("Charlie");
 
     assertEquals(list.head(), "Charlie");
@@ -108,7 +159,7 @@ public class  ListTest {
 
   @Test
   public void testReverse() throws Exception {
-    final IList<String> emptyList = List.makeEmpty();
+    final IList<String> emptyList = makeEmpty();
     final IList<String> list = emptyList.add("Alice").add("Bob").add("Charlie");
     final IList<String> reverseList = list.reverse();
 
@@ -122,7 +173,7 @@ public class  ListTest {
 
   @Test
   public void testEquals() throws Exception {
-    final IList<String> emptyList = List.makeEmpty();
+    final IList<String> emptyList = makeEmpty();
     final IList<String> list1 = emptyList.add("Alice").add("Bob").add("Charlie");
     final IList<String> list2 = emptyList.add("Alice").add("Bob").add("Charlie");
     final IList<String> list3 = emptyList.add("XAlice").add("Bob").add("Charlie");
@@ -146,7 +197,7 @@ public class  ListTest {
 
   @Test
   public void testNth() throws Exception {
-    final IList<Integer> emptyList = List.makeEmpty();
+    final IList<Integer> emptyList = makeEmpty();
 
     final Option<Integer> foo = emptyList.nth(27);
     assertTrue(foo.isNone());
@@ -173,7 +224,7 @@ public class  ListTest {
 
   @Test
   public void testToString() throws Exception {
-    final IList<String> emptyList = List.makeEmpty();
+    final IList<String> emptyList = makeEmpty();
     final IList<String> list1 = emptyList.add("Alice").add("Bob").add("Charlie");
 
     assertEquals("List(\"Charlie\", \"Bob\", \"Alice\")", list1.toString());
@@ -181,7 +232,7 @@ public class  ListTest {
 
   @Test
   public void testMap() throws Exception {
-    final IList<String> emptyList = List.makeEmpty();
+    final IList<String> emptyList = makeEmpty();
     final IList<String> list1 = emptyList.add("Alice").add("Bob").add("Charlie");
     final IList<String> list2 = emptyList.add("alice").add("bob").add("charlie");
 
@@ -190,17 +241,33 @@ public class  ListTest {
 
   @Test
   public void testFlatMap() throws Exception {
-    final IList<String> list1 = List.of("Alice", "Bob", "Charlie");
-    final IList<String> list2 = List.of("1", "2", "3");
+    final IList<String> list1 = of("Alice", "Bob", "Charlie");
+    final IList<String> list2 = of("1", "2", "3");
 
     // we're computing something of a cross-product here
     final IList<String> result = list1.flatmap(name -> list2.map((number) -> name + number));
     final IList<String> resultCheck =
-        List.of("Alice1", "Alice2", "Alice3", "Bob1", "Bob2", "Bob3", "Charlie1", "Charlie2", "Charlie3");
+        of("Alice1", "Alice2", "Alice3", "Bob1", "Bob2", "Bob3", "Charlie1", "Charlie2", "Charlie3");
 
     assertEquals(resultCheck, result);
   }
 
+  @Test
+  public void testLongFlatMap() throws Exception {
+    // lots of little sublists, which used to take quadratic time to glue together
+    final IList<Integer> list = rangeInt(1, 100000);
+    final IList<Integer> result = list.flatmap(x -> of(x, -x));
+
+    assertEquals(200000, result.length());
+    assertEquals(of(1, -1, 2, -2, 3, -3), result.limit(6));
+    assertEquals((Long) 0L, result.foldl(0L, (sum, x) -> sum + x));
+    assertEquals(makeEmpty(), list.flatmap(x -> makeEmpty()));
+
+    // a lazy tail, anywhere along the way, should come out the same
+    final IList<Integer> mixed = make(1, LazyList.rangeInt(2, 5));
+    assertEquals(of(1, 1, 2, 2, 3, 3, 4, 4, 5, 5), mixed.flatmap(x -> of(x, x)));
+  }
+
   @Test
   public void testOFlatMap() throws Exception {
     //
@@ -214,7 +281,7 @@ public class  ListTest {
 
     // we're going to do a filter that extracts the uppercase words and returns empty for the lower-case words
     final IList<String> list1 =
-        List.of("Alice", "ant", "Bob", "baby", "bicycle", "Charlie", "chair", "cheese",
+        of("Alice", "ant", "Bob", "baby", "bicycle", "Charlie", "chair", "cheese",
             "Dan", "dubious", "dance", "Eve", "everything");
 
     // first make sure we understand how we're checking if the letters are uppercase
@@ -227,22 +294,22 @@ public class  ListTest {
                 ? Option.some(name) // then return an option.some with the string
                 : Option.none()); // otherwise return an option.none
 
-    final IList<String> resultCheck = List.of("Alice", "Bob", "Charlie", "Dan", "Eve");
+    final IList<String> resultCheck = of("Alice", "Bob", "Charlie", "Dan", "Eve");
 
     assertEquals(resultCheck, result);
   }
 
   @Test
   public void testFilter() throws Exception {
-    final IList<Integer> list1 = List.of(5,4,3,2,1);
-    final IList<Integer> listEven = List.of(4,2);
+    final IList<Integer> list1 = of(5,4,3,2,1);
+    final IList<Integer> listEven = of(4,2);
 
     assertEquals(listEven, list1.filter(x -> (x >> 1) << 1 == x));
   }
 
   @Test
   public void testJoin() throws Exception {
-    final IList<Integer> empty = List.makeEmpty();
+    final IList<Integer> empty = makeEmpty();
     final IList<Integer> list1 = empty.add(1).add(2).add(3).add(4).add(5);
 
     final BinaryOperator<String> joiner = (a,b) -> a + "," + b;
@@ -254,18 +321,18 @@ public class  ListTest {
 
   @Test
   public void testConcat() throws Exception {
-    final IList<Integer> list1 = List.of(5,4,3,2,1);
+    final IList<Integer> list1 = of(5,4,3,2,1);
     final IList<Integer> list2 = list1.concat(list1);
 
-    assertEquals(List.of(5,4,3,2,1,5,4,3,2,1), list2);
+    assertEquals(of(5,4,3,2,1,5,4,3,2,1), list2);
   }
 
   @Test
   public void testSublist() throws Exception {
-    final IList<Integer> empty = List.makeEmpty();
-    final IList<Integer> testList = List.rangeInt(100, 130);
-    final IList<Integer> testListFront = List.rangeInt(100, 115);
-    final IList<Integer> testListBack = List.rangeInt(116, 130);
+    final IList<Integer> empty = makeEmpty();
+    final IList<Integer> testList = rangeInt(100, 130);
+    final IList<Integer> testListFront = rangeInt(100, 115);
+    final IList<Integer> testListBack = rangeInt(116, 130);
 
     final IList<Integer> subListFront = testList.sublist(0, 15);
     final IList<Integer> subListBack = testList.sublist(16, 30);
@@ -279,9 +346,9 @@ public class  ListTest {
 
   @Test
   public void testHashing() throws Exception {
-    final IList<String> list1 = List.of("Alice", "Bob", "Charlie", "Dorothy", "Eve");
-    final IList<String> list2 = List.of("Eve", "Alice", "Charlie", "Bob", "Dorothy");
-    final IList<String> list3 = List.of("Bob", "Charlie", "Dorothy", "Eve");
+    final IList<String> list1 = of("Alice", "Bob", "Charlie", "Dorothy", "Eve");
+    final IList<String> list2 = of("Eve", "Alice", "Charlie", "Bob", "Dorothy");
+    final IList<String> list3 = of("Bob", "Charlie", "Dorothy", "Eve");
     final IList<String> list4 = LazyList.of("Alice", "Bob", "Charlie", "Dorothy", "Eve");
 
     assertTrue(list1.hashCode() != list2.hashCode());
@@ -296,9 +363,34 @@ public class  ListTest {
     assertTrue(list4.equals(list1));
   }
 
+  @Test
+  public void testCachedHashAndLength() throws Exception {
+    final IList<Integer> tail = rangeInt(1, 1000);
+    final int tailHash = tail.hashCode(); // computes and caches the tail's hash
+
+    // a list built on top of an already-hashed tail has to produce the same hash as one built from scratch
+    final IList<Integer> longer = tail.add(0).add(-1);
+    final IList<Integer> fresh = rangeInt(-1, 1000);
+    assertEquals(fresh.hashCode(), longer.hashCode());
+    assertEquals(tailHash, tail.hashCode());
+    assertEquals(LazyList.rangeInt(-1, 1000).hashCode(), longer.hashCode());
+    assertEquals(1002, longer.length());
+
+    // lists of different lengths are never equal, even if one is a prefix of the other
+    assertNotEquals(tail, tail.limit(999));
+    assertNotEquals(tail.limit(999), tail);
+
+    // an eager list with a lazy tail still gets its length right
+    final IList<Integer> mixed = make(1, make(2, LazyList.rangeInt(3, 10)));
+    assertEquals(10, mixed.length());
+    assertEquals(rangeInt(1, 10), mixed);
+    assertEquals(rangeInt(1, 10).hashCode(), mixed.hashCode());
+    assertEquals((Integer) 10, mixed.nth(9).getOrElse(-1));
+  }
+
   @Test
   public void testRangeInt() throws Exception {
-    final IList<Integer> range4 = List.rangeInt(0, 99);
+    final IList<Integer> range4 = rangeInt(0, 99);
     assertEquals(100, range4.length());
     assertEquals(50, range4.limit(50).length());
     assertEquals(100, range4.limit(200).length());
@@ -306,8 +398,8 @@ public class  ListTest {
     assertEquals((Integer) 50, range4.nth(50).getOrElse(-1));
 
     // make sure we can go backwards as well
-    final IList<Integer> descending = List.rangeInt(10, 0, -1);
-    assertEquals(List.of(10,9,8,7,6,5,4,3,2,1,0), descending);
+    final IList<Integer> descending = rangeInt(10, 0, -1);
+    assertEquals(of(10,9,8,7,6,5,4,3,2,1,0), descending);
   }
 
   @Test
@@ -320,19 +412,145 @@ public class  ListTest {
 
   @Test
   public void testUpdateNth() throws Exception {
-    final IList<String> strings = List.of("Alice", "Bob", "Charlie", "Dorothy", "Eve");
+    final IList<String> strings = of("Alice", "Bob", "Charlie", "Dorothy", "Eve");
     final IList<String> strings2 = strings.updateNth(2, x -> Option.some(x.toUpperCase()));
-    assertEquals(List.of("Alice", "Bob", "CHARLIE", "Dorothy", "Eve"), strings2);
+    assertEquals(of("Alice", "Bob", "CHARLIE", "Dorothy", "Eve"), strings2);
     final IList<String> strings3 = strings.updateNth(27, x -> Option.some(x.toUpperCase()));
     assertEquals(strings3, strings);
   }
 
   @Test
   public void testSort() throws Exception {
-    final IList<Integer> numbersInOrder = List.of(1,2,3,4,5,5,6,7,9);
+    final IList<Integer> numbersInOrder = of(1,2,3,4,5,5,6,7,9);
     final IList<Integer> numbersBackwards = numbersInOrder.reverse();
 
     assertFalse(isSorted(numbersBackwards));
     assertTrue(isSorted(numbersInOrder));
+
+    assertEquals(numbersInOrder, numbersBackwards.sort((a, b) -> a < b));
+    assertEquals(numbersInOrder, numbersBackwards.sortWith(Comparator.naturalOrder()));
+    assertEquals(numbersBackwards, numbersInOrder.sortWith(Comparator.reverseOrder()));
+    assertEquals(makeEmpty(), this.<Integer>makeEmpty().sort((a, b) -> a < b));
+  }
+
+  @Test
+  public void testSortIsStable() throws Exception {
+    // lots of duplicate keys, each tagged with its original position, so we can see whether they stay in order
+    final IList<Pair<Integer, Integer>> pairs = rangeInt(0, 9999).map(i -> new Pair<>((i * 7919) % 100, i));
+    final BiPredicate<Pair<Integer, Integer>, Pair<Integer, Integer>> byKey = (x, y) -> x.a < y.a;
+    final BiPredicate<Pair<Integer, Integer>, Pair<Integer, Integer>> byKeyThenPosition =
+        (x, y) -> x.a < y.a || (x.a.equals(y.a) && x.b < y.b);
+
+    final IList<Pair<Integer, Integer>> expected = pairs.sort(byKeyThenPosition);
+    assertTrue(expected.isSorted((x, y) -> !byKeyThenPosition.test(y, x)));
+    assertEquals(pairs.length(), expected.length());
+
+    assertEquals(expected, pairs.sort(byKey));
+    assertEquals(expected, pairs.sortWith(Comparator.comparing(pair -> pair.a)));
+    assertEquals(expected, pairs.parallelSort(byKey));
+    assertEquals(expected, pairs.parallelSort(byKey, 16)); // small threshold, so the work really does get split up
+    assertEquals(expected, pairs.parallelSortWith(Comparator.comparing(pair -> pair.a)));
+  }
+
+  @Test
+  public void testIteratorAndStream() throws Exception {
+    final IList<Integer> list = rangeInt(1, 1000);
+    final IList<Integer> empty = makeEmpty();
+
+    int sum = 0;
+    for (int x : list) {
+      sum += x;
+    }
+    assertEquals(500500, sum);
+    assertFalse(empty.iterator().hasNext());
+
+    assertEquals(list, fromList(list.stream().collect(Collectors.toList())));
+    assertEquals(list, fromList(list.parallelStream().collect(Collectors.toList())));
+    assertEquals(500500L, list.parallelStream().mapToLong(x -> x).sum());
+    assertEquals(0, empty.stream().count());
+
+    final Spliterator<Integer> spliterator = list.spliterator();
+    assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+    assertTrue(spliterator.hasCharacteristics(Spliterator.IMMUTABLE));
+    assertTrue(spliterator.hasCharacteristics(Spliterator.NONNULL));
+    assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+    assertEquals(1000, spliterator.getExactSizeIfKnown());
+  }
+
+  @Test
+  public void testLazyTailSpliterator() throws Exception {
+    // a list with a lazy tail might be infinite, so it can't claim to know its size
+    final IList<Integer> mixed = make(1, LazyList.rangeInt(2, 10));
+    assertFalse(mixed.spliterator().hasCharacteristics(Spliterator.SIZED));
+    final ArrayList<Integer> mixedResult = new ArrayList<>();
+    mixed.iterator().forEachRemaining(mixedResult::add);
+    assertEquals(rangeInt(1, 10), fromList(mixedResult));
+  }
+
+  @Test
+  public void testView() throws Exception {
+    final IList<Integer> list = rangeInt(1, 1000);
+    final IList<Integer> empty = makeEmpty();
+
+    assertEquals(list.map(x -> x * 3).filter(x -> x % 2 == 0).map(x -> x + 1),
+        list.view().map(x -> x * 3).filter(x -> x % 2 == 0).map(x -> x + 1).toList());
+    assertEquals(list.takeWhile(x -> x < 20), list.view().takeWhile(x -> x < 20).toList());
+    assertEquals(list.limit(10), list.view().limit(10).force());
+    assertEquals(empty, list.view().limit(0).toList());
+    assertEquals(empty, empty.view().map(x -> x + 1).toList());
+    assertEquals((Long) 500500L, list.view().foldl(0L, (sum, x) -> sum + x));
+    assertEquals(list.filter(x -> x % 3 == 0).length(), list.view().filter(x -> x % 3 == 0).length());
+    assertEquals(Option.some(7), list.view().filter(x -> x % 7 == 0).ohead());
+    assertEquals(Option.none(), empty.view().ohead());
+
+    // a view can run more than once, with the same results each time
+    final ListView<Integer> evens = list.view().filter(x -> x % 2 == 0).limit(5);
+    assertEquals(of(2, 4, 6, 8, 10), evens.toList());
+    assertEquals(of(2, 4, 6, 8, 10), evens.toList());
+  }
+
+  @Test
+  public void testParallelOperations() throws Exception {
+    final IList<Integer> list = rangeInt(1, 10000);
+    final IList<Integer> empty = makeEmpty();
+
+    // small thresholds, so the work really does get split up
+    assertEquals(list.map(x -> x * 3), list.parallelMap(x -> x * 3, 16));
+    assertEquals(list.filter(x -> x % 7 == 0), list.parallelFilter(x -> x % 7 == 0, 16));
+    assertEquals((Long) 50005000L, list.parallelFoldMap(Monoid.of(0L, Long::sum), x -> (long) x, 16));
+    assertEquals(list.map(x -> x * 3), list.parallelMap(x -> x * 3));
+    assertEquals(list.filter(x -> x > 5000), list.parallelFilter(x -> x > 5000));
+
+    // string concatenation isn't commutative, so this checks that the pieces get combined in order
+    final IList<Integer> digits = rangeInt(0, 9);
+    assertEquals("0123456789", digits.parallelFoldMap(Monoid.of("", String::concat), Object::toString, 1));
+    assertEquals(digits.foldl("", (acc, x) -> acc + x), digits.parallelFoldMap(Monoid.of("", String::concat), Object::toString, 2));
+
+    assertTrue(empty.parallelMap(x -> x).empty());
+    assertTrue(list.parallelFilter(x -> false).empty());
+    assertEquals("", empty.parallelFoldMap(Monoid.of("", String::concat), Object::toString));
+  }
+
+  @Test
+  public void testHugeListsDontOverflow() throws Exception {
+    // Every one of these operations used to be recursive, and would blow the stack well before ten million elements.
+    // We map the values down to small integers so they come from Java's Integer cache, keeping memory use sane.
+    final int size = 10_000_000;
+    final IList<Integer> bigList = rangeInt(1, size).map(x -> x % 10);
+    assertEquals(size, bigList.length());
+    assertEquals((Integer) 1, bigList.head());
+
+    assertEquals(size / 10, bigList.filter(x -> x == 0).length());
+    assertEquals(size, bigList.takeWhile(x -> x < 10).length());
+    assertEquals(size - 1, bigList.limit(size - 1).length());
+    assertEquals(2 * size, bigList.concat(bigList).length());
+    assertEquals((Integer) 7, bigList.updateNth(size - 1, x -> Option.some(7)).nth(size - 1).getOrElse(-1));
+    assertEquals(size, bigList.zip(bigList, (x, y) -> x == y).filter(x -> x).length());
+    assertEquals((Long) (size * 9L / 2L), bigList.foldr(0L, (x, sum) -> sum + x));
+
+    final Integer[] array = new Integer[size];
+    Arrays.fill(array, 5);
+    assertEquals(size, fromArray(array).length());
+    assertEquals(size, fromList(Arrays.asList(array)).length());
   }
-}
\ No newline at end of file
+}
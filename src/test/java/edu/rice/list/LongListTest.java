@@ -0,0 +1,43 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+package edu.rice.list;
+
+import org.junit.Test;
+
+import java.util.OptionalLong;
+
+import static org.junit.Assert.*;
+
+public class LongListTest {
+  @Test
+  public void testBasics() throws Exception {
+    final LongList list = LongList.rangeLong(1L, 5L);
+
+    assertEquals(LongList.of(1L, 2L, 3L, 4L, 5L), list);
+    assertEquals(5, list.length());
+    assertEquals(15L, list.sum());
+    assertEquals(OptionalLong.of(3L), list.nth(2));
+    assertEquals(LongList.of(2L, 4L), list.filter(x -> x % 2 == 0));
+    assertEquals(LongList.of(10L, 20L, 30L, 40L, 50L), list.map(x -> x * 10));
+    assertTrue(LongList.rangeLong(5L, 1L).empty());
+    assertEquals("LongList(1, 2, 3, 4, 5)", list.toString());
+  }
+
+  @Test
+  public void testConversions() throws Exception {
+    final LongList list = List.of("a", "bb", "ccc").mapToLong(String::length);
+
+    assertEquals(LongList.of(1L, 2L, 3L), list);
+    assertEquals(List.of(1L, 2L, 3L), list.boxed());
+    assertEquals(list.boxed().hashCode(), list.hashCode());
+    assertEquals(IntList.of(1, 2, 3), list.mapToInt(x -> (int) x));
+    assertEquals(LongList.of(1L, 2L, 3L), LongList.fromList(List.of(1L, 2L, 3L)));
+  }
+}
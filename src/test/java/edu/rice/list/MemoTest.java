@@ -0,0 +1,160 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class MemoTest {
+  @Test
+  public void testGetOnlyOnce() throws Exception {
+    AtomicInteger counter = new AtomicInteger(0);
+    Memo<String> memo = new Memo<>(() -> "Hello" + counter.incrementAndGet());
+
+    assertEquals("Hello1", memo.get());
+    assertEquals("Hello1", memo.get());
+    assertEquals(1, counter.get());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullContents() throws Exception {
+    new Memo<String>(() -> null).get();
+  }
+
+  @Test
+  public void testRetryAfterException() throws Exception {
+    AtomicInteger counter = new AtomicInteger(0);
+    Memo<Integer> memo = new Memo<>(() -> {
+      if (counter.incrementAndGet() == 1) {
+        throw new IllegalArgumentException("first time fails");
+      }
+      return counter.get();
+    });
+
+    try {
+      memo.get();
+      fail("first get() should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    assertEquals((Integer) 2, memo.get());
+    assertEquals((Integer) 2, memo.get());
+    assertEquals(2, counter.get());
+  }
+
+  @Test
+  public void testRetryAfterCheckedException() throws Exception {
+    // a supplier can't throw a checked exception, unless it cheats, and the memo still has to recover
+    AtomicInteger counter = new AtomicInteger(0);
+    Memo<Integer> memo = new Memo<>(() -> {
+      if (counter.incrementAndGet() == 1) {
+        MemoTest.<RuntimeException>sneakyThrow(new IOException("first time fails"));
+      }
+      return counter.get();
+    });
+
+    try {
+      memo.get();
+      fail("first get() should have thrown");
+    } catch (Exception e) {
+      assertTrue(e instanceof IOException);
+    }
+
+    assertEquals((Integer) 2, memo.get());
+    assertEquals(2, counter.get());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E extends Throwable> void sneakyThrow(Throwable t) throws E {
+    throw (E) t;
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testSelfDependency() throws Exception {
+    AtomicReference<Memo<String>> ref = new AtomicReference<>();
+    ref.set(new Memo<>(() -> ref.get().get() + "!"));
+    ref.get().get();
+  }
+
+  @Test
+  public void testConcurrentGet() throws Exception {
+    final int numThreads = 16;
+
+    for (int trial = 0; trial < 20; trial++) {
+      AtomicInteger counter = new AtomicInteger(0);
+      CountDownLatch startLine = new CountDownLatch(1);
+      Memo<Integer> memo = new Memo<>(() -> {
+        Thread.yield(); // give the other threads a chance to pile up behind us
+        return counter.incrementAndGet();
+      });
+
+      Integer[] results = new Integer[numThreads];
+      Thread[] threads = new Thread[numThreads];
+      for (int i = 0; i < numThreads; i++) {
+        final int threadNum = i;
+        threads[i] = new Thread(() -> {
+          try {
+            startLine.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          results[threadNum] = memo.get();
+        });
+        threads[i].start();
+      }
+
+      startLine.countDown();
+      for (Thread thread : threads) {
+        thread.join();
+      }
+
+      assertEquals(1, counter.get());
+      for (Integer result : results) {
+        assertEquals((Integer) 1, result);
+      }
+    }
+  }
+
+  @Test
+  public void testConcurrentLazyList() throws Exception {
+    final int numThreads = 16;
+    final int length = 10000;
+    AtomicInteger counter = new AtomicInteger(0);
+    IList<Integer> lazyList = LazyList.rangeInt(1, length).map(x -> {
+      counter.incrementAndGet();
+      return x * 2;
+    });
+
+    long[] sums = new long[numThreads];
+    Thread[] threads = new Thread[numThreads];
+    for (int i = 0; i < numThreads; i++) {
+      final int threadNum = i;
+      threads[i] = new Thread(() -> sums[threadNum] = lazyList.foldl(0L, (sum, x) -> sum + x));
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    for (long sum : sums) {
+      assertEquals((long) length * (length + 1), sum);
+    }
+    // the head is computed once, up front, along with each tail
+    assertEquals(length, counter.get());
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.list;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * RealTimeQueue has to pass all the same tests as ListQueue, plus a few more of its own.
+ */
+public class RealTimeQueueTest extends ListQueueTest {
+  @Override
+  <T> IQueue<T> makeEmpty() {
+    return RealTimeQueue.makeEmpty();
+  }
+
+  @Override
+  <T> IQueue<T> ofArray(T[] vals) {
+    return RealTimeQueue.of(vals);
+  }
+
+  @Test
+  public void testEqualsListQueue() throws Exception {
+    assertEquals(ListQueue.of(1, 2, 3), RealTimeQueue.of(1, 2, 3));
+    assertEquals(ListQueue.of(1, 2, 3).tail().insert(4), RealTimeQueue.of(1, 2, 3).tail().insert(4));
+    assertEquals(ListQueue.of(1, 2, 3).hashCode(), RealTimeQueue.of(1, 2, 3).hashCode());
+  }
+
+  @Test
+  public void testPersistence() throws Exception {
+    // the lazy rotation mustn't get confused if we go back and use an older version of the queue
+    IQueue<Integer> queue = makeEmpty();
+    for (int i = 0; i < 100; i++) {
+      queue = queue.insert(i);
+    }
+    IQueue<Integer> older = queue.tail().tail();
+    IQueue<Integer> newer = older.insert(100).tail().insert(101);
+
+    assertEquals(98, older.size());
+    assertEquals(LazyList.rangeInt(2, 99), older.toLazyList());
+    assertEquals(99, newer.size());
+    assertEquals(LazyList.rangeInt(3, 101), newer.toLazyList());
+    assertEquals(LazyList.rangeInt(2, 99), older.toLazyList());
+  }
+
+  @Test
+  public void testBigQueue() throws Exception {
+    IQueue<Integer> queue = LazyList.rangeInt(0, 99999).foldl(makeEmpty(), IQueue::insert);
+    assertEquals(100000, queue.size());
+
+    long sum = 0;
+    while (!queue.empty()) {
+      sum += queue.head();
+      queue = queue.tail();
+    }
+    assertEquals(4999950000L, sum);
+    assertTrue(queue == this.<Integer>makeEmpty());
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+package edu.rice.list;
+
+import edu.rice.util.Option;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Spliterator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the whole of ListTest against Vector, plus tests of its own for random access and for growing the trie.
+ */
+public class VectorTest extends ListTest {
+  @Override
+  <T> IList<T> makeEmpty() {
+    return Vector.makeEmpty();
+  }
+
+  @Override
+  <T> IList<T> make(T headVal, IList<? extends T> tailVal) {
+    return Vector.make(headVal, tailVal);
+  }
+
+  @Override
+  <T> IList<T> fromArray(T[] source) {
+    return Vector.fromArray(source);
+  }
+
+  @Override
+  <T> IList<T> fromList(java.util.List<? extends T> original) {
+    return Vector.fromList(original);
+  }
+
+  @Override
+  IList<Integer> rangeInt(int min, int max) {
+    return Vector.rangeInt(min, max);
+  }
+
+  @Override
+  IList<Integer> rangeInt(int start, int finish, int increment) {
+    return Vector.rangeInt(start, finish, increment);
+  }
+
+  @Override
+  @Test
+  public void testLazyTailSpliterator() throws Exception {
+    // a Vector copies a lazy tail into its trie, so unlike a List, it knows exactly how long it is
+    final IList<Integer> mixed = make(1, LazyList.rangeInt(2, 10));
+    final Spliterator<Integer> spliterator = mixed.spliterator();
+    assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+    assertEquals(10, spliterator.getExactSizeIfKnown());
+    final ArrayList<Integer> mixedResult = new ArrayList<>();
+    mixed.iterator().forEachRemaining(mixedResult::add);
+    assertEquals(rangeInt(1, 10), fromList(mixedResult));
+  }
+
+  @Test
+  public void testGrowBothWays() throws Exception {
+    // enough elements to need a few levels of the trie, added to the front and the back
+    final int size = 40000;
+    Vector<Integer> front = Vector.makeEmpty();
+    Vector<Integer> back = Vector.makeEmpty();
+    for (int i = 0; i < size; i++) {
+      front = front.add(size - 1 - i);
+      back = back.append(i);
+    }
+
+    final IList<Integer> expected = List.rangeInt(0, size - 1);
+    assertEquals(expected, front);
+    assertEquals(expected, back);
+    assertEquals(size, front.length());
+
+    // and mixing the two
+    Vector<Integer> mixed = Vector.makeEmpty();
+    for (int i = 0; i < 1000; i++) {
+      mixed = mixed.add(-i - 1).append(i);
+    }
+    assertEquals(List.rangeInt(-1000, 999), mixed);
+  }
+
+  @Test
+  public void testRandomAccess() throws Exception {
+    final int size = 100000;
+    final IList<Integer> vector = Vector.rangeInt(0, size - 1);
+
+    for (int i = 0; i < size; i += 37) {
+      assertEquals((Integer) i, vector.nth(i).get());
+    }
+    assertTrue(vector.nth(size).isNone());
+    assertTrue(vector.nth(-1).isNone());
+
+    // updating one element leaves the original alone
+    final IList<Integer> updated = vector.updateNth(5000, Option.some(-1));
+    assertEquals((Integer) (-1), updated.nth(5000).get());
+    assertEquals((Integer) 5000, vector.nth(5000).get());
+    assertEquals(size, updated.length());
+
+    // and so does removing one
+    final IList<Integer> removed = vector.updateNth(5000, x -> Option.none());
+    assertEquals(size - 1, removed.length());
+    assertEquals((Integer) 5001, removed.nth(5000).get());
+
+    // skipN, limit, and sublist don't copy anything, but they'd better still get the right answers
+    final IList<Integer> middle = vector.sublist(30000, 30099);
+    assertEquals(List.rangeInt(30000, 30099), middle);
+    assertEquals((Integer) 30050, middle.nth(50).get());
+    assertEquals(List.rangeInt(29999, 30099), middle.add(29999));
+    assertEquals(List.rangeInt(30000, 30100), ((Vector<Integer>) middle).append(30100));
+
+    // adding to a tail mustn't disturb anybody else who's sharing the trie
+    final IList<Integer> tail = vector.tail();
+    assertEquals((Integer) (-5), tail.add(-5).head());
+    assertEquals((Integer) 0, vector.head());
+  }
+}
@@ -16,6 +16,8 @@ import edu.rice.regex.NamedMatcher;
 import edu.rice.util.Option;
 import org.junit.Test;
 
+import java.util.ArrayList;
+
 import static org.junit.Assert.assertEquals;
 
 public class RPNCalculatorTest {
@@ -82,6 +84,29 @@ public class RPNCalculatorTest {
 
   }
 
+  @Test
+  public void testConcurrentCalc() throws Exception {
+    // the web server calls calc() from many threads at once, and none of their updates should be lost
+    RPNCalculator calculator = new RPNCalculator();
+    assertEquals("0.0", calculator.calc("0"));
+
+    java.util.List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      threads.add(new Thread(() -> {
+        for (int j = 0; j < 500; j++) {
+          calculator.calc("1 +");
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals("4000.0", calculator.calc("="));
+    assertEquals("Empty stack", calculator.calc("drop"));
+  }
+
   @Test
   public void testOperatorComposition() throws Exception {
 
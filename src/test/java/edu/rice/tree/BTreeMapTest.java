@@ -0,0 +1,267 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.tree;
+
+import edu.rice.list.IList;
+import edu.rice.list.KeyValue;
+import edu.rice.list.LazyList;
+import edu.rice.list.List;
+import edu.rice.util.Option;
+import edu.rice.util.Pair;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class BTreeMapTest {
+  /**
+   * Checks the B+-tree rules; strict means every node but the root must be at least half full.
+   */
+  private static <K extends Comparable<? super K>, V> boolean valid(IMap<K, V> map, boolean strict) {
+    return map.empty() || BTreeMap.Helpers.valid(((BTreeMap.NonEmptyMap<K, V>) map).getRoot(), strict);
+  }
+
+  @Test
+  public void testAddRemove() throws Exception {
+    final IMap<String, Integer> empty = BTreeMap.makeEmpty();
+    assertTrue(empty.empty());
+    assertEquals(Option.none(), empty.oget("Alice"));
+
+    final IMap<String, Integer> map = empty.add("Alice", 10).add("Bob", 20).add("Charlie", 30);
+    assertEquals(3, map.size());
+    assertEquals(Option.some(20), map.oget("Bob"));
+    assertTrue(map.containsKey("Charlie"));
+    assertFalse(map.containsKey("Dorothy"));
+
+    final IMap<String, Integer> replaced = map.add("Bob", 21);
+    assertEquals(3, replaced.size());
+    assertEquals(Option.some(21), replaced.oget("Bob"));
+    assertEquals(Option.some(20), map.oget("Bob")); // the original is untouched
+
+    final IMap<String, Integer> removed = map.remove("Alice");
+    assertEquals(2, removed.size());
+    assertSame(removed, removed.remove("Alice"));
+    assertTrue(removed.remove("Bob").remove("Charlie").empty());
+    assertEquals("{(\"Alice\" => 10), (\"Bob\" => 20), (\"Charlie\" => 30)}", map.toString());
+  }
+
+  @Test
+  public void testSameAsTreapMap() throws Exception {
+    final IList<KeyValue<String, Integer>> pairs =
+        LazyList.rangeInt(0, 999).map(i -> KeyValue.make("key" + (i * 7919 % 1000), i));
+    final IMap<String, Integer> btree = BTreeMap.fromList(pairs);
+    final IMap<String, Integer> treap = TreapMap.fromList(pairs);
+
+    assertTrue(valid(btree, true));
+    assertEquals(treap, btree);
+    assertEquals(btree, treap);
+    assertEquals(treap.hashCode(), btree.hashCode());
+    assertEquals(treap.toString(), btree.toString());
+    assertEquals(treap.getSet(), btree.getSet());
+    assertEquals(treap.keys(), btree.keys());
+    assertEquals(treap.values(), btree.values());
+    assertEquals(treap.toSortedList(), btree.toList());
+  }
+
+  @Test
+  public void testAgainstTreeMap() throws Exception {
+    // a long random sequence of adds and removes, checked against java.util.TreeMap, with enough keys that the
+    // tree is three levels deep, so we get plenty of splits, merges, and redistributions along the way
+    final Random random = new Random(215);
+    final Map<Integer, Integer> reference = new TreeMap<>();
+    IMap<Integer, Integer> map = BTreeMap.makeEmpty();
+
+    for (int i = 0; i < 60000; i++) {
+      int key = random.nextInt(4000);
+      if (random.nextInt(3) == 0) {
+        reference.remove(key);
+        map = map.remove(key);
+      } else {
+        reference.put(key, i);
+        map = map.add(key, i);
+      }
+      assertEquals(reference.size(), map.size());
+      if (i % 1000 == 0) {
+        assertTrue(valid(map, true));
+      }
+    }
+
+    assertTrue(valid(map, true));
+    assertEquals(BTreeMap.fromMap(reference), map);
+    for (Map.Entry<Integer, Integer> entry : reference.entrySet()) {
+      assertEquals(Option.some(entry.getValue()), map.oget(entry.getKey()));
+    }
+
+    // removing everything, in random order, keeps the tree valid all the way down to empty
+    final java.util.List<Integer> keys = new ArrayList<>(reference.keySet());
+    Collections.shuffle(keys, random);
+    for (int key : keys) {
+      map = map.remove(key);
+      assertTrue(valid(map, true));
+    }
+    assertTrue(map.empty());
+  }
+
+  @Test
+  public void testGreaterLessThan() throws Exception {
+    final IMap<Integer, Integer> map = BTreeMap.fromList(LazyList.rangeInt(0, 9998, 2), x -> x * 10);
+    final IMap<Integer, Integer> treap = TreapMap.fromList(LazyList.rangeInt(0, 9998, 2), x -> x * 10);
+
+    for (int query : List.of(-5, 0, 1, 2, 999, 1000, 5001, 9997, 9998, 10000)) {
+      for (boolean inclusive : List.of(true, false)) {
+        IMap<Integer, Integer> greater = map.greaterThan(query, inclusive);
+        IMap<Integer, Integer> less = map.lessThan(query, inclusive);
+        assertEquals(treap.greaterThan(query, inclusive).toSortedList(), greater.toSortedList());
+        assertEquals(treap.lessThan(query, inclusive).toSortedList(), less.toSortedList());
+        assertTrue(valid(greater, false));
+        assertTrue(valid(less, false));
+
+        // the trimmed trees still work for updates
+        assertEquals(greater.size() + 1, greater.add(-1, -1).size());
+        assertEquals(less.size() + 1, less.add(20001, 1).size());
+        assertTrue(valid(greater.removeList(LazyList.rangeInt(query, query + 2000)), false));
+      }
+    }
+  }
+
+  @Test
+  public void testRankNthSlice() throws Exception {
+    final IMap<Integer, String> map = BTreeMap.fromList(LazyList.rangeInt(0, 9990, 10), x -> "v" + x);
+    assertEquals(0, map.rank(-1));
+    assertEquals(1, map.rank(10));
+    assertEquals(2, map.rank(11));
+    assertEquals(1000, map.rank(100000));
+    assertEquals(Option.some(KeyValue.make(50, "v50")), map.nth(5));
+    assertEquals(Option.none(), map.nth(1000));
+    assertEquals(Option.none(), map.nth(-1));
+
+    final IMap<Integer, String> page = map.sliceByIndex(100, 150);
+    assertEquals(50, page.size());
+    assertEquals(Option.some(KeyValue.make(1000, "v1000")), page.nth(0));
+    assertEquals(Option.some(KeyValue.make(1490, "v1490")), page.nth(49));
+    assertEquals(10, map.sliceByIndex(990, 2000).size());
+    assertTrue(map.sliceByIndex(500, 500).empty());
+  }
+
+  @Test
+  public void testUnionIntersectExcept() throws Exception {
+    final IMap<Integer, Integer> twos = BTreeMap.fromList(LazyList.rangeInt(0, 3000, 2), x -> 1);
+    final IMap<Integer, Integer> threes = BTreeMap.fromList(LazyList.rangeInt(0, 3000, 3), x -> 2);
+    final IMap<Integer, Integer> treapThrees = TreapMap.fromList(LazyList.rangeInt(0, 3000, 3), x -> 2);
+
+    final IMap<Integer, Integer> union = twos.union(threes, (a, b) -> a + b);
+    assertEquals(1501 + 1001 - 501, union.size());
+    assertEquals(Option.some(3), union.oget(6));
+    assertEquals(Option.some(2), union.oget(9));
+    assertTrue(valid(union, true));
+    assertEquals(union, twos.union(treapThrees, (a, b) -> a + b));
+
+    final IMap<Integer, Integer> intersect = twos.intersect(threes, (a, b) -> a - b);
+    assertEquals(BTreeMap.fromList(LazyList.rangeInt(0, 3000, 6), x -> -1), intersect);
+    assertEquals(intersect, twos.intersect(treapThrees, (a, b) -> a - b));
+
+    final IMap<Integer, Integer> except = twos.except(threes);
+    assertEquals(1501 - 501, except.size());
+    assertFalse(except.containsKey(6));
+    assertTrue(except.containsKey(4));
+    assertEquals(except, twos.except(treapThrees));
+
+    assertEquals(threes, BTreeMap.<Integer, Integer>makeEmpty().union(treapThrees, (a, b) -> a));
+  }
+
+  @Test
+  public void testUnionIntersectExceptFew() throws Exception {
+    // with only a few entries on one side, these go one entry at a time, and they have to come out the same
+    final IMap<Integer, Integer> many = BTreeMap.fromList(LazyList.rangeInt(0, 9999), x -> 1);
+    final IMap<Integer, Integer> few = BTreeMap.fromList(List.of(-1, 500, 7777, 20000), x -> 10);
+    final IMap<Integer, Integer> treapMany = TreapMap.fromList(LazyList.rangeInt(0, 9999), x -> 1);
+    final IMap<Integer, Integer> treapFew = TreapMap.fromList(List.of(-1, 500, 7777, 20000), x -> 10);
+
+    final IList<IMap<Integer, Integer>> results = List.of(
+        many.union(few, (a, b) -> a - b), few.union(many, (a, b) -> a - b),
+        many.intersect(few, (a, b) -> a - b), few.intersect(many, (a, b) -> a - b),
+        many.except(few), few.except(many));
+    final IList<IMap<Integer, Integer>> expected = List.of(
+        treapMany.union(treapFew, (a, b) -> a - b), treapFew.union(treapMany, (a, b) -> a - b),
+        treapMany.intersect(treapFew, (a, b) -> a - b), treapFew.intersect(treapMany, (a, b) -> a - b),
+        treapMany.except(treapFew), treapFew.except(treapMany));
+
+    assertEquals(expected.map(map -> map.getSet().toSortedList()), results.map(map -> map.getSet().toSortedList()));
+    results.foreach(map -> assertTrue(valid(map, true)));
+    assertEquals(Option.some(-9), many.union(few, (a, b) -> a - b).oget(500));
+    assertEquals(Option.some(9), few.union(many, (a, b) -> a - b).oget(500));
+  }
+
+  @Test
+  public void testUpdateMerge() throws Exception {
+    final IMap<String, Integer> counts = BTreeMap.fromList(
+        LazyList.of("b", "a", "c", "a", "b", "a").map(s -> KeyValue.make(s, 1)), (a, b) -> a + b);
+    assertEquals(BTreeMap.of(KeyValue.make("a", 3), KeyValue.make("b", 2), KeyValue.make("c", 1)), counts);
+    assertEquals(Option.some(4), counts.merge("a", 1, (a, b) -> a + b).oget("a"));
+    assertEquals(Option.some(4), counts.update("a", val -> val.map(x -> x + 1)).oget("a"));
+    assertFalse(counts.update("a", val -> Option.none()).containsKey("a"));
+  }
+
+  @Test
+  public void testRange() throws Exception {
+    final IMap<Integer, Integer> map = BTreeMap.fromList(LazyList.rangeInt(0, 9998, 2), x -> x * 10);
+    final IMap<Integer, Integer> treap = TreapMap.fromList(LazyList.rangeInt(0, 9998, 2), x -> x * 10);
+
+    // including the trimmed trees, whose edges aren't as tidy
+    for (IMap<Integer, Integer> tree : List.of(map, map.greaterThan(1001, true).lessThan(8999, true))) {
+      for (int from : List.of(-5, 0, 1, 2, 999, 1000, 1001, 5001, 9997, 9998, 10000)) {
+        for (int to : List.of(-1, 0, 2, 1000, 1001, 5000, 9998, 20000)) {
+          for (boolean inclusive : List.of(true, false)) {
+            assertEquals(tree.greaterThan(from, inclusive).lessThan(to, !inclusive).toSortedList(),
+                tree.range(from, inclusive, to, !inclusive));
+            assertEquals(treap.range(from, inclusive, to, inclusive).filter(kv -> tree.containsKey(kv.getKey())),
+                tree.range(from, inclusive, to, inclusive));
+          }
+        }
+      }
+    }
+    assertTrue(BTreeMap.<Integer, Integer>makeEmpty().range(0, true, 10, true).empty());
+  }
+
+  @Test
+  public void testNavigation() throws Exception {
+    // BTreeMap answers these with the IMap defaults, which are built from rank() and nth()
+    final Random random = new Random(215);
+    final TreeMap<Integer, Integer> expected = new TreeMap<>();
+    IMap<Integer, Integer> map = BTreeMap.makeEmpty();
+    for (int i = 0; i < 2000; i++) {
+      int key = random.nextInt(10000) * 2;
+      expected.put(key, i);
+      map = map.add(key, i);
+    }
+
+    assertEquals(expected.firstKey(), map.first().get().getKey());
+    assertEquals(expected.lastKey(), map.last().get().getKey());
+    for (int query = -3; query < 20003; query += 7) {
+      assertEquals(Option.ofNullable(expected.floorKey(query)), map.floor(query).map(KeyValue::getKey));
+      assertEquals(Option.ofNullable(expected.lowerKey(query)), map.lower(query).map(KeyValue::getKey));
+      assertEquals(Option.ofNullable(expected.ceilingKey(query)), map.ceiling(query).map(KeyValue::getKey));
+      assertEquals(Option.ofNullable(expected.higherKey(query)), map.higher(query).map(KeyValue::getKey));
+    }
+    assertEquals(expected.floorEntry(5001).getValue(), map.floor(5001).get().getValue());
+
+    final Map.Entry<Integer, Integer> last = expected.pollLastEntry();
+    final Pair<KeyValue<Integer, Integer>, IMap<Integer, Integer>> polled = map.pollLast().get();
+    assertEquals(KeyValue.make(last.getKey(), last.getValue()), polled.a);
+    assertEquals(expected.size(), polled.b.size());
+    assertEquals(Option.none(), BTreeMap.<Integer, Integer>makeEmpty().pollFirst());
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.tree;
+
+import edu.rice.list.LazyList;
+import edu.rice.list.List;
+import edu.rice.util.Option;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BTreeSetTest {
+  @Test
+  public void testBasics() throws Exception {
+    final ISet<String> names = BTreeSet.of("Charlie", "Alice", "Bob", "Bob");
+    assertEquals(3, names.size());
+    assertTrue(names.contains("Bob"));
+    assertFalse(names.contains("Dorothy"));
+    assertEquals(Option.some("Alice"), names.oget("Alice"));
+    assertEquals(List.of("Alice", "Bob", "Charlie"), names.toSortedList());
+    assertEquals(TreapSet.of("Alice", "Bob", "Charlie"), names);
+    assertEquals(names, TreapSet.of("Alice", "Bob", "Charlie"));
+    assertEquals("{Alice, Bob, Charlie}", names.toString());
+
+    assertSame(names, names.remove("Dorothy"));
+    assertTrue(names.removeList(List.of("Alice", "Bob", "Charlie")).empty());
+  }
+
+  @Test
+  public void testLargeSet() throws Exception {
+    final ISet<Integer> odds = BTreeSet.fromList(LazyList.rangeInt(1, 19999, 2));
+    assertEquals(10000, odds.size());
+    assertEquals(TreapSet.fromList(LazyList.rangeInt(1, 19999, 2)), odds);
+    assertEquals(Option.some(201), odds.nth(100));
+    assertEquals(100, odds.rank(201));
+    assertEquals(List.of(201, 203, 205), odds.sliceByIndex(100, 103).toSortedList());
+    assertEquals(List.of(3, 5, 7), odds.greaterThan(2, false).lessThan(7, true).toSortedList());
+
+    // one value at a time, rather than all at once, gets us the same set
+    assertEquals(odds, LazyList.rangeInt(19999, 1, -2).foldl(BTreeSet.<Integer>makeEmpty(), ISet::add));
+    assertTrue(LazyList.rangeInt(1, 19999, 2).foldl(odds, ISet::remove).empty());
+  }
+
+  @Test
+  public void testSetAlgebra() throws Exception {
+    final ISet<Integer> twos = BTreeSet.fromList(LazyList.rangeInt(0, 100, 2));
+    final ISet<Integer> threes = BTreeSet.fromList(LazyList.rangeInt(0, 100, 3));
+
+    assertEquals(BTreeSet.fromList(LazyList.rangeInt(0, 100, 6)), twos.intersect(threes));
+    assertEquals(51 + 34 - 17, twos.union(threes).size());
+    assertEquals(twos.union(threes), twos.union(TreapSet.fromList(LazyList.rangeInt(0, 100, 3))));
+    assertTrue(twos.except(twos).empty());
+    assertFalse(twos.except(threes).contains(6));
+    assertTrue(twos.except(threes).contains(4));
+    assertEquals(BTreeSet.fromList(LazyList.rangeInt(0, 8, 2)), twos.map(x -> x % 10));
+  }
+
+  @Test
+  public void testRange() throws Exception {
+    final ISet<Integer> set = BTreeSet.fromList(LazyList.rangeInt(0, 99999));
+    assertEquals(List.rangeInt(500, 1500), set.range(500, true, 1500, true));
+    assertEquals(List.rangeInt(501, 1499), set.range(500, false, 1500, false));
+    assertEquals(List.rangeInt(99990, 99999), set.range(99990, true, 200000, true));
+    assertTrue(set.range(1500, true, 500, true).empty());
+    assertTrue(set.range(200000, true, 300000, true).empty());
+    assertEquals(List.rangeInt(5000, 5009), set.range(5000, true, 90000, true).limit(10));
+  }
+
+  @Test
+  public void testNavigation() throws Exception {
+    final ISet<Integer> set = BTreeSet.fromList(LazyList.rangeInt(0, 9998, 2));
+    assertEquals(Option.some(0), set.first());
+    assertEquals(Option.some(9998), set.last());
+    assertEquals(Option.some(5000), set.floor(5001));
+    assertEquals(Option.some(5000), set.floor(5000));
+    assertEquals(Option.some(4998), set.lower(5000));
+    assertEquals(Option.some(5002), set.ceiling(5001));
+    assertEquals(Option.some(5002), set.higher(5000));
+    assertEquals(Option.none(), set.floor(-1));
+    assertEquals(Option.none(), set.higher(9998));
+    assertEquals(Option.some(0), set.pollFirst().map(pair -> pair.a));
+    assertEquals(4999, set.pollFirst().get().b.size());
+    assertEquals(Option.none(), BTreeSet.<Integer>makeEmpty().last());
+  }
+}
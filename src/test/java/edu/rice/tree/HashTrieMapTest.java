@@ -0,0 +1,177 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.tree;
+
+import edu.rice.list.LazyList;
+import edu.rice.list.List;
+import edu.rice.util.Option;
+import edu.rice.util.Pair;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HashTrieMapTest {
+  /**
+   * A key whose hash code we get to choose, so we can make collisions on purpose.
+   */
+  private static final class Key {
+    final String name;
+    final int hash;
+
+    Key(String name, int hash) {
+      this.name = name;
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && ((Key) o).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  @Test
+  public void testAddRemove() throws Exception {
+    final HashTrieMap<String, Integer> empty = HashTrieMap.makeEmpty();
+    assertTrue(empty.empty());
+    assertEquals(Option.none(), empty.oget("Alice"));
+
+    final HashTrieMap<String, Integer> map = empty.add("Alice", 10).add("Bob", 20).add("Charlie", 30);
+    assertEquals(3, map.size());
+    assertEquals(Option.some(20), map.oget("Bob"));
+    assertTrue(map.containsKey("Charlie"));
+    assertFalse(map.containsKey("Dorothy"));
+
+    final HashTrieMap<String, Integer> replaced = map.add("Bob", 21);
+    assertEquals(3, replaced.size());
+    assertEquals(Option.some(21), replaced.oget("Bob"));
+    assertEquals(Option.some(20), map.oget("Bob")); // the original is untouched
+
+    final HashTrieMap<String, Integer> removed = map.remove("Alice");
+    assertEquals(2, removed.size());
+    assertEquals(Option.none(), removed.oget("Alice"));
+    assertSame(removed, removed.remove("Alice"));
+    assertTrue(removed.remove("Bob").remove("Charlie").empty());
+  }
+
+  @Test
+  public void testEquals() throws Exception {
+    final HashTrieMap<String, Integer> map1 = HashTrieMap.of(new Pair<>("Alice", 1), new Pair<>("Bob", 2));
+    final HashTrieMap<String, Integer> map2 = HashTrieMap.of(new Pair<>("Bob", 2), new Pair<>("Alice", 1));
+    final HashTrieMap<String, Integer> map3 = HashTrieMap.of(new Pair<>("Bob", 2), new Pair<>("Alice", 3));
+
+    assertEquals(map1, map2);
+    assertEquals(map1.hashCode(), map2.hashCode());
+    assertNotEquals(map1, map3);
+    assertEquals(HashTrieMap.makeEmpty(), map1.remove("Alice").remove("Bob"));
+  }
+
+  @Test
+  public void testCollisions() throws Exception {
+    // "Aa" and "BB" famously have the same hash code, as do all the combinations of them
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+    final HashTrieMap<String, Integer> map = HashTrieMap.fromList(
+        List.of("AaAa", "AaBB", "BBAa", "BBBB", "Cc"), String::length);
+    assertEquals(5, map.size());
+    assertEquals(Option.some(4), map.oget("BBAa"));
+    assertEquals(Option.none(), map.oget("AaAaAa"));
+
+    final HashTrieMap<String, Integer> fewer = map.remove("AaBB").remove("BBAa").remove("BBBB");
+    assertEquals(2, fewer.size());
+    assertEquals(Option.some(4), fewer.oget("AaAa"));
+    assertEquals(HashTrieMap.fromList(List.of("Cc", "AaAa"), String::length), fewer);
+
+    // the colliding keys are Strings, which we can sort, so the order they arrived in doesn't matter
+    final HashTrieMap<String, Integer> backwards = HashTrieMap.fromList(
+        List.of("Cc", "BBBB", "BBAa", "AaBB", "AaAa"), String::length);
+    assertEquals(map, backwards);
+    assertEquals(map.toList(), backwards.toList());
+    assertEquals(map.toList(), map.remove("BBAa").add("BBAa", 4).toList());
+
+    // keys that agree on their low bits, but not on their high bits, have to go all the way down the trie
+    final Key low = new Key("low", 7);
+    final Key high = new Key("high", 7 | (1 << 31));
+    final Key other = new Key("other", 7 | (1 << 31));
+    final HashTrieMap<Key, String> deep = HashTrieMap.<Key, String>makeEmpty().add(low, "l").add(high, "h").add(other, "o");
+    assertEquals(Option.some("h"), deep.oget(high));
+    assertEquals(Option.some("o"), deep.oget(other));
+    assertEquals(HashTrieMap.<Key, String>makeEmpty().add(low, "l"), deep.remove(high).remove(other));
+    assertEquals(Option.some("l"), deep.remove(other).remove(high).oget(low));
+  }
+
+  @Test
+  public void testAgainstHashMap() throws Exception {
+    // a long random sequence of adds and removes, checked against java.util.HashMap; the keys are deliberately
+    // squeezed into a small range of hash codes, so there are plenty of collisions and deep nodes along the way
+    final Random random = new Random(215);
+    final Map<Key, Integer> reference = new HashMap<>();
+    HashTrieMap<Key, Integer> map = HashTrieMap.makeEmpty();
+
+    for (int i = 0; i < 20000; i++) {
+      int n = random.nextInt(2000);
+      Key key = new Key(Integer.toString(n), (n % 300) * 0x01010101);
+      if (random.nextInt(3) == 0) {
+        reference.remove(key);
+        map = map.remove(key);
+      } else {
+        reference.put(key, i);
+        map = map.add(key, i);
+      }
+      assertEquals(reference.size(), map.size());
+    }
+
+    assertEquals(HashTrieMap.fromMap(reference), map);
+    for (Map.Entry<Key, Integer> entry : reference.entrySet()) {
+      assertEquals(Option.some(entry.getValue()), map.oget(entry.getKey()));
+    }
+    assertEquals(reference.size(), map.toList().length());
+
+    // removing everything, in any order, gets us back to the empty map
+    assertTrue(map.removeList(LazyList.fromIterator(reference.keySet().iterator())).empty());
+  }
+
+  @Test
+  public void testUnionIntersectExcept() throws Exception {
+    final HashTrieMap<String, Integer> map1 = HashTrieMap.of(
+        new Pair<>("Alice", 1), new Pair<>("Bob", 2), new Pair<>("Charlie", 3));
+    final HashTrieMap<String, Integer> map2 = HashTrieMap.of(
+        new Pair<>("Bob", 20), new Pair<>("Charlie", 30), new Pair<>("Dorothy", 40));
+
+    assertEquals(HashTrieMap.of(new Pair<>("Alice", 1), new Pair<>("Bob", -18), new Pair<>("Charlie", -27),
+        new Pair<>("Dorothy", 40)), map1.union(map2, (a, b) -> a - b));
+    assertEquals(HashTrieMap.of(new Pair<>("Bob", 18), new Pair<>("Charlie", 27)),
+        map2.intersect(map1, (a, b) -> a - b));
+    assertEquals(HashTrieMap.of(new Pair<>("Alice", 1)), map1.except(map2));
+  }
+
+  @Test
+  public void testUpdateMerge() throws Exception {
+    final HashTrieMap<String, Integer> counts =
+        HashTrieMap.fromList(LazyList.of("b", "a", "c", "a", "b", "a").map(s -> new Pair<>(s, 1)), (a, b) -> a + b);
+    assertEquals(HashTrieMap.of(new Pair<>("a", 3), new Pair<>("b", 2), new Pair<>("c", 1)), counts);
+
+    assertEquals(Option.some(4), counts.update("a", val -> val.map(x -> x + 1)).oget("a"));
+    assertFalse(counts.update("a", val -> Option.none()).containsKey("a"));
+  }
+}
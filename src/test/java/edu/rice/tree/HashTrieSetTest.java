@@ -0,0 +1,70 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.tree;
+
+import edu.rice.list.LazyList;
+import edu.rice.list.List;
+import edu.rice.util.Option;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class HashTrieSetTest {
+  @Test
+  public void testBasics() throws Exception {
+    final HashTrieSet<String> names = HashTrieSet.of("Alice", "Bob", "Charlie", "Bob");
+    assertEquals(3, names.size());
+    assertTrue(names.contains("Bob"));
+    assertFalse(names.contains("Dorothy"));
+    assertEquals(Option.some("Alice"), names.oget("Alice"));
+    assertEquals(HashTrieSet.of("Charlie", "Bob", "Alice"), names);
+    assertEquals(HashTrieSet.of("Charlie", "Bob", "Alice").hashCode(), names.hashCode());
+    assertEquals(List.of("Alice", "Bob", "Charlie"), names.toList().sortWith(String::compareTo));
+
+    assertSame(names, names.remove("Dorothy"));
+    assertTrue(names.removeList(List.of("Alice", "Bob", "Charlie")).empty());
+    assertEquals(HashTrieSet.makeEmpty(), names.remove("Alice").remove("Bob").remove("Charlie"));
+  }
+
+  @Test
+  public void testFromSet() throws Exception {
+    final Set<Integer> javaSet = new HashSet<>();
+    for (int i = 0; i < 10000; i++) {
+      javaSet.add(i * 31);
+    }
+    final HashTrieSet<Integer> set = HashTrieSet.fromSet(javaSet);
+    assertEquals(javaSet.size(), set.size());
+    assertTrue(LazyList.fromIterator(javaSet.iterator()).foldl(true, (all, i) -> all && set.contains(i)));
+    assertFalse(set.contains(1));
+  }
+
+  @Test
+  public void testMapFilter() throws Exception {
+    final HashTrieSet<Integer> numbers = HashTrieSet.fromList(LazyList.rangeInt(1, 100));
+    assertEquals(HashTrieSet.fromList(LazyList.rangeInt(0, 9)), numbers.map(x -> x % 10));
+    assertEquals(HashTrieSet.fromList(LazyList.rangeInt(2, 100, 2)), numbers.filter(x -> x % 2 == 0));
+  }
+
+  @Test
+  public void testSetAlgebra() throws Exception {
+    final HashTrieSet<Integer> twos = HashTrieSet.fromList(LazyList.rangeInt(0, 100, 2));
+    final HashTrieSet<Integer> threes = HashTrieSet.fromList(LazyList.rangeInt(0, 100, 3));
+
+    assertEquals(HashTrieSet.fromList(LazyList.rangeInt(0, 100, 6)), twos.intersect(threes));
+    assertEquals(51 + 34 - 17, twos.union(threes).size());
+    assertTrue(twos.except(twos).empty());
+    assertFalse(twos.except(threes).contains(6));
+    assertTrue(twos.except(threes).contains(4));
+  }
+}
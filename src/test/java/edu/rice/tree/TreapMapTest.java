@@ -14,14 +14,19 @@ import edu.rice.io.Files;
 import edu.rice.list.KeyValue;
 import edu.rice.list.IList;
 import edu.rice.list.LazyList;
+import edu.rice.list.List;
 import edu.rice.util.Option;
+import edu.rice.util.Pair;
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
 import java.util.*;
 
 import static edu.rice.util.Performance.nanoBenchmarkVal;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 public class TreapMapTest {
 
@@ -155,6 +160,96 @@ public class TreapMapTest {
     assertTrue(!intersect1.oget("Eve").isSome());
   }
 
+  @Test
+  public void testFromList() throws Exception {
+    final IMap<Integer, String> map = TreapMap.fromList(LazyList.rangeInt(0, 999), Object::toString);
+    assertEquals(1000, map.size());
+
+    // a round trip through a sorted list comes back the same
+    final IMap<Integer, String> copy = TreapMap.fromList(map.toSortedList());
+    assertEquals(map, copy);
+    assertEquals(Option.some("500"), copy.oget(500));
+
+    // merging duplicate keys, in any order
+    final IMap<String, Integer> counts =
+        TreapMap.fromList(LazyList.of("b", "a", "c", "a", "b", "a"), string -> 1, (a, b) -> a + b);
+    assertEquals(TreapMap.of(KeyValue.make("a", 3), KeyValue.make("b", 2), KeyValue.make("c", 1)), counts);
+  }
+
+  @Test
+  public void testPaging() throws Exception {
+    final IMap<Integer, String> map = TreapMap.fromList(LazyList.rangeInt(0, 999), Object::toString);
+
+    // fifty pages of twenty, in order, should get us back everything
+    final IList<KeyValue<Integer, String>> pages = LazyList.rangeInt(0, 49)
+        .flatmap(page -> map.sliceByIndex(page * 20, page * 20 + 20).toSortedList());
+    assertEquals(map.toSortedList(), pages);
+
+    final IMap<Integer, String> lastPage = map.sliceByIndex(980, 1000);
+    assertEquals(20, lastPage.size());
+    assertEquals(Option.some(KeyValue.make(980, "980")), lastPage.nth(0));
+    assertEquals(980, map.rank(980));
+    assertEquals(Option.some(KeyValue.make(123, "123")), map.nth(123));
+    assertTrue(map.sliceByIndex(1000, 1020).empty());
+  }
+
+  @Test
+  public void testOgetAllocation() throws Exception {
+    // not every JVM can tell us how much memory a thread has allocated; if this one can't, there's nothing to test
+    final java.lang.management.ThreadMXBean genericBean = ManagementFactory.getThreadMXBean();
+    assumeTrue(genericBean instanceof com.sun.management.ThreadMXBean);
+    final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) genericBean;
+    assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+    final long threadId = Thread.currentThread().getId();
+
+    final int mapSize = 1000000;
+    final int numQueries = 10000;
+    final IMap<Integer, Integer> map = TreapMap.fromList(LazyList.rangeInt(0, mapSize - 1).map(i -> KeyValue.make(i, i)));
+
+    // we box the queries ahead of time, so the boxing doesn't count against the lookups
+    final Integer[] queries = new Integer[numQueries];
+    for (int i = 0; i < numQueries; i++) {
+      queries[i] = (i * 7919) % mapSize;
+    }
+    final Option<?>[] results = new Option<?>[numQueries];
+
+    // Each round, we measure making numQueries Options on their own, then numQueries hits with oget(), which should
+    // allocate nothing more than its Options, and then numQueries hits with containsKey(), which should allocate
+    // nothing at all. We do several rounds so the JIT gets a chance to compile everything, and keep the last.
+    long optionBytes = 0;
+    long ogetBytes = 0;
+    long containsBytes = 0;
+    for (int round = 0; round < 5; round++) {
+      long start = bean.getThreadAllocatedBytes(threadId);
+      for (int i = 0; i < numQueries; i++) {
+        results[i] = Option.some(queries[i]);
+      }
+      long afterOptions = bean.getThreadAllocatedBytes(threadId);
+      for (int i = 0; i < numQueries; i++) {
+        results[i] = map.oget(queries[i]);
+      }
+      long afterOget = bean.getThreadAllocatedBytes(threadId);
+      boolean allPresent = true;
+      for (int i = 0; i < numQueries; i++) {
+        allPresent &= map.containsKey(queries[i]);
+      }
+      long afterContains = bean.getThreadAllocatedBytes(threadId);
+
+      assertTrue(allPresent);
+      optionBytes = afterOptions - start;
+      ogetBytes = afterOget - afterOptions;
+      containsBytes = afterContains - afterOget;
+    }
+
+    assertEquals(Option.some(queries[numQueries - 1]), results[numQueries - 1]);
+
+    // a little bit of slack for whatever the measurement itself might allocate
+    final long slack = 1024;
+    assertTrue("oget allocated " + ogetBytes + " bytes, Options alone take " + optionBytes,
+        ogetBytes <= optionBytes + slack);
+    assertTrue("containsKey allocated " + containsBytes + " bytes", containsBytes <= slack);
+  }
+
   @Test
   public void testGreaterThan() throws Exception {
     IMap<String, Integer> map1 = TreapMap.of(
@@ -281,6 +376,86 @@ public class TreapMapTest {
     assertEquals(mapCheck, map2);
   }
 
+  @Test
+  public void testWithMutations() throws Exception {
+    final IMap<String, Integer> counts = TreapMap.of(KeyValue.make("Alice", 1), KeyValue.make("Bob", 2));
+    final IMap<String, Integer> changed = counts.withMutations(batch -> {
+      batch.merge("Alice", 10, (a, b) -> a + b).add("Charlie", 3).remove("Bob");
+      batch.merge("Charlie", 30, (a, b) -> a + b).merge("Dorothy", 4, (a, b) -> a + b);
+      assertEquals(Option.some(11), batch.oget("Alice"));
+      assertFalse(batch.containsKey("Bob"));
+      assertEquals(3, batch.size());
+    });
+
+    assertEquals(TreapMap.of(KeyValue.make("Alice", 11), KeyValue.make("Charlie", 33), KeyValue.make("Dorothy", 4)),
+        changed);
+    assertEquals(TreapMap.of(KeyValue.make("Alice", 1), KeyValue.make("Bob", 2)), counts); // untouched
+  }
+
+  @Test
+  public void testWithMutationsMerge() throws Exception {
+    // word counts, with merges piling up on keys that are already there, and on keys that aren't yet
+    final IList<String> words = List.of("b", "a", "c", "a", "b", "a", "d", "a", "e", "b");
+    final IMap<String, Integer> counts = TreapMap.of(KeyValue.make("a", 100), KeyValue.make("z", 1));
+    final IMap<String, Integer> expected = words.foldl(counts, (map, word) -> map.merge(word, 1, Integer::sum));
+
+    assertEquals(expected, counts.withMutations(batch -> words.foreach(word -> batch.merge(word, 1, Integer::sum))));
+
+    // the same again, with removals in the mix, and the mergeOp gets the older value first
+    final IMap<String, Integer> mixed = counts.withMutations(batch -> {
+      words.foreach(word -> batch.merge(word, 1, Integer::sum));
+      batch.remove("e").remove("z").merge("a", 1000, (older, newer) -> older - newer).merge("f", 5, Integer::sum);
+    });
+    assertEquals(expected.remove("e").remove("z").merge("a", 1000, (older, newer) -> older - newer).add("f", 5), mixed);
+    assertEquals(Option.some(104 - 1000), mixed.oget("a"));
+  }
+
+  @Test
+  public void testWithMutationsFromEmpty() throws Exception {
+    // a batch that starts out empty, and only adds, gets built in one pass; later adds of the same key still win
+    final IMap<Integer, String> loaded = TreapMap.<Integer, String>makeEmpty().withMutations(batch -> {
+      for (int i = 999; i >= 0; i--) {
+        batch.add(i % 500, "first");
+      }
+      batch.add(7, "second").add(-1, "third");
+    });
+
+    assertEquals(501, loaded.size());
+    assertEquals(Option.some("second"), loaded.oget(7));
+    assertEquals(Option.some("third"), loaded.oget(-1));
+    assertEquals(LazyList.rangeInt(-1, 499), loaded.getSet().toSortedList().map(KeyValue::getKey));
+  }
+
+  @Test
+  public void testAddRemoveList() throws Exception {
+    final IMap<Integer, String> map = TreapMap.fromList(LazyList.rangeInt(0, 99), Object::toString);
+    final IMap<Integer, String> more = map.addList(LazyList.rangeInt(149, 50, -1).map(i -> KeyValue.make(i, "new")));
+    assertEquals(150, more.size());
+    assertEquals(Option.some("49"), more.oget(49));
+    assertEquals(Option.some("new"), more.oget(50)); // the list wins, just as it would with add()
+    assertEquals(TreapMap.fromList(LazyList.rangeInt(0, 49), Object::toString),
+        map.removeList(LazyList.rangeInt(50, 200)));
+    assertTrue(map.removeList(map.keys()).empty());
+  }
+
+  @Test
+  public void testCanonical() throws Exception {
+    final IMap<Integer, String> map = TreapMap.<Integer, String>makeEmptyCanonical()
+        .addList(LazyList.rangeInt(0, 999).map(i -> KeyValue.make(i, "v" + i)));
+    final IMap<Integer, String> same = LazyList.rangeInt(999, 0, -1).foldl(TreapMap.makeEmptyCanonical(),
+        (m, i) -> m.add(i, "v" + i));
+    assertEquals(map, same);
+    assertEquals(map.hashCode(), same.hashCode());
+    assertEquals(map.hashCode(), TreapMap.fromList(LazyList.rangeInt(0, 999), i -> "v" + i).hashCode());
+
+    // the priorities only depend on the keys, so changing a value doesn't change the shape, but equals() notices
+    assertFalse(map.equals(map.add(500, "changed")));
+    assertEquals(map, map.add(500, "changed").add(500, "v500"));
+    assertTrue(map.greaterThan(2000, true).empty());
+    assertTrue(map.greaterThan(2000, true).equals(TreapMap.makeEmpty()));
+    assertEquals(TreapMap.makeEmptyCanonical(), map.removeList(map.keys()));
+  }
+
   @Test
   public void testPerformance() throws Exception {
     System.out.println("======================= Map Insert & Query Performance ======================= ");
@@ -367,4 +542,43 @@ public class TreapMapTest {
               numQueries, time / (1e3 * numQueries)));
         });
   }
+
+  @Test
+  public void testRange() throws Exception {
+    final IMap<Integer, String> map = TreapMap.fromList(LazyList.rangeInt(0, 99), i -> "v" + i);
+    assertEquals(List.of(KeyValue.make(10, "v10"), KeyValue.make(11, "v11"), KeyValue.make(12, "v12")),
+        map.range(10, true, 12, true));
+    assertEquals(map.greaterThan(40, false).lessThan(60, false).toSortedList(), map.range(40, false, 60, false));
+    assertTrue(map.range(60, true, 40, true).empty());
+    assertTrue(TreapMap.<Integer, String>makeEmpty().range(0, true, 10, true).empty());
+  }
+
+  @Test
+  public void testNavigation() throws Exception {
+    // readings from a sensor, every ten seconds or so, looked up by time
+    final IMap<Long, String> readings = TreapMap.of(
+        KeyValue.make(1000L, "cold"), KeyValue.make(1010L, "cool"), KeyValue.make(1021L, "warm"),
+        KeyValue.make(1030L, "hot"));
+    assertEquals(Option.some(KeyValue.make(1010L, "cool")), readings.floor(1015L));
+    assertEquals(Option.some(KeyValue.make(1010L, "cool")), readings.floor(1010L));
+    assertEquals(Option.some(KeyValue.make(1000L, "cold")), readings.lower(1010L));
+    assertEquals(Option.some(KeyValue.make(1021L, "warm")), readings.ceiling(1015L));
+    assertEquals(Option.some(KeyValue.make(1021L, "warm")), readings.higher(1010L));
+    assertEquals(Option.none(), readings.floor(999L));
+    assertEquals(Option.none(), readings.ceiling(1031L));
+    assertEquals("cold", readings.first().get().getValue());
+    assertEquals("hot", readings.last().get().getValue());
+
+    final Pair<KeyValue<Long, String>, IMap<Long, String>> oldest = readings.pollFirst().get();
+    assertEquals(KeyValue.make(1000L, "cold"), oldest.a);
+    assertEquals(readings.remove(1000L), oldest.b);
+    final Pair<KeyValue<Long, String>, IMap<Long, String>> newest = readings.pollLast().get();
+    assertEquals(KeyValue.make(1030L, "hot"), newest.a);
+    assertEquals(3, newest.b.size());
+
+    final IMap<Long, String> empty = TreapMap.makeEmpty();
+    assertEquals(Option.none(), empty.first());
+    assertEquals(Option.none(), empty.floor(1000L));
+    assertEquals(Option.none(), empty.pollFirst());
+  }
 }
@@ -11,9 +11,17 @@
 package edu.rice.tree;
 
 import edu.rice.list.IList;
+import edu.rice.list.KeyValue;
+import edu.rice.list.LazyList;
 import edu.rice.list.List;
+import edu.rice.util.Monoid;
+import edu.rice.util.Option;
+import edu.rice.util.Pair;
 import org.junit.Test;
 
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
 import static org.junit.Assert.*;
 
 public class TreapSetTest {
@@ -58,4 +66,339 @@ public class TreapSetTest {
     assertEquals(TreapSet.<String>fromList(names.flatmap(name -> List.of(name, name.toLowerCase(), name.toUpperCase()))),
         TreapSet.<String>fromList(names).flatmap(name -> TreapSet.of(name, name.toLowerCase(), name.toUpperCase())));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testFilter() throws Exception {
+    ISet<Integer> numbers = TreapSet.fromList(List.rangeInt(1, 100));
+
+    assertEquals(TreapSet.fromList(List.rangeInt(2, 100, 2)), numbers.filter(x -> x % 2 == 0));
+    assertTrue(numbers.filter(x -> x > 100).empty());
+  }
+
+  @Test
+  public void testParallel() throws Exception {
+    ISet<Integer> numbers = TreapSet.fromList(LazyList.rangeInt(1, 10000).force());
+
+    // a small threshold, so the work really does get split up
+    assertEquals(numbers.map(x -> x / 3), numbers.parallelMap(x -> x / 3, 16));
+    assertEquals(numbers.filter(x -> x % 7 == 0), numbers.parallelFilter(x -> x % 7 == 0, 16));
+    assertEquals((Long) 50005000L, numbers.parallelFoldMap(Monoid.of(0L, Long::sum), x -> (long) x, 16));
+
+    // string concatenation isn't commutative, so this checks that the pieces get combined in order
+    ISet<String> letters = TreapSet.of("a", "b", "c", "d", "e", "f", "g");
+    assertEquals("abcdefg", letters.parallelFoldMap(Monoid.of("", String::concat), x -> x, 1));
+    assertEquals("", TreapSet.<String>makeEmpty().parallelFoldMap(Monoid.of("", String::concat), x -> x));
+  }
+
+  @Test
+  public void testSetAlgebra() throws Exception {
+    // multiples of 2 and multiples of 3, with enough values for the treaps to be interesting
+    final ISet<Integer> twos = TreapSet.fromList(List.rangeInt(0, 3000, 2));
+    final ISet<Integer> threes = TreapSet.fromList(List.rangeInt(0, 3000, 3));
+
+    final IList<Integer> everything = List.rangeInt(0, 3000);
+    final IList<Integer> either = everything.filter(x -> x % 2 == 0 || x % 3 == 0);
+    final IList<Integer> both = everything.filter(x -> x % 6 == 0);
+    final IList<Integer> twosOnly = everything.filter(x -> x % 2 == 0 && x % 3 != 0);
+
+    assertEquals(either, twos.union(threes).toSortedList());
+    assertEquals(either, threes.union(twos).toSortedList());
+    assertEquals(both, twos.intersect(threes).toSortedList());
+    assertEquals(both, threes.intersect(twos).toSortedList());
+    assertEquals(twosOnly, twos.except(threes).toSortedList());
+
+    assertEquals(twos.union(threes), twos.parallelUnion(threes, (a, b) -> a));
+    assertEquals(twos.intersect(threes), twos.parallelIntersect(threes, (a, b) -> a));
+    assertEquals(twos.except(threes), twos.parallelExcept(threes));
+
+    // the empty set, and a set with itself
+    final ISet<Integer> empty = TreapSet.makeEmpty();
+    assertEquals(twos, twos.union(empty));
+    assertEquals(twos, empty.union(twos));
+    assertTrue(twos.intersect(empty).empty());
+    assertTrue(empty.intersect(twos).empty());
+    assertEquals(twos, twos.except(empty));
+    assertTrue(twos.except(twos).empty());
+    assertEquals(TreapSet.makeEmpty(), twos.except(twos));
+    assertEquals(twos, twos.union(twos));
+    assertEquals(twos, twos.intersect(twos));
+
+    // disjoint sets
+    final ISet<Integer> odds = TreapSet.fromList(List.rangeInt(1, 2999, 2));
+    assertTrue(twos.intersect(odds).empty());
+    assertEquals(twos, twos.except(odds));
+    assertEquals(everything, twos.union(odds).toSortedList());
+  }
+
+  @Test
+  public void testSetAlgebraMergeOrder() throws Exception {
+    // the mergeOp always gets the value from "this" set first, then the value from the other set
+    final ISet<KeyValue<String, Integer>> mine = TreapSet.of(KeyValue.make("a", 1), KeyValue.make("b", 2));
+    final ISet<KeyValue<String, Integer>> theirs = TreapSet.of(KeyValue.make("b", 20), KeyValue.make("c", 30));
+    final BinaryOperator<KeyValue<String, Integer>> firstMinusSecond =
+        (x, y) -> KeyValue.make(x.getKey(), x.getValue() - y.getValue());
+
+    assertEquals(List.of(KeyValue.make("a", 1), KeyValue.make("b", -18), KeyValue.make("c", 30)),
+        mine.union(theirs, firstMinusSecond).toSortedList());
+    assertEquals(List.of(KeyValue.make("a", 1), KeyValue.make("b", 18), KeyValue.make("c", 30)),
+        theirs.union(mine, firstMinusSecond).toSortedList());
+    assertEquals(List.of(KeyValue.make("b", -18)), mine.intersect(theirs, firstMinusSecond).toSortedList());
+    assertEquals(List.of(KeyValue.make("b", 18)), theirs.intersect(mine, firstMinusSecond).toSortedList());
+
+    // with no mergeOp, this set's value wins
+    assertEquals(List.of(KeyValue.make("a", 1), KeyValue.make("b", 2), KeyValue.make("c", 30)),
+        mine.union(theirs).toSortedList());
+  }
+
+  @Test
+  public void testDefaultUnionMergeOrder() throws Exception {
+    // the same rule holds for the ISet defaults, which any other kind of set gets if it doesn't override them
+    final ISet<KeyValue<String, Integer>> mine =
+        new DefaultsOnlySet<>(TreapSet.of(KeyValue.make("a", 1), KeyValue.make("b", 2)));
+    final ISet<KeyValue<String, Integer>> theirs =
+        new DefaultsOnlySet<>(TreapSet.of(KeyValue.make("b", 20), KeyValue.make("c", 30)));
+    final BinaryOperator<KeyValue<String, Integer>> firstMinusSecond =
+        (x, y) -> KeyValue.make(x.getKey(), x.getValue() - y.getValue());
+
+    assertEquals(List.of(KeyValue.make("a", 1), KeyValue.make("b", -18), KeyValue.make("c", 30)),
+        mine.union(theirs, firstMinusSecond).toSortedList());
+    assertEquals(List.of(KeyValue.make("a", 1), KeyValue.make("b", 18), KeyValue.make("c", 30)),
+        theirs.union(mine, firstMinusSecond).toSortedList());
+    assertEquals(List.of(KeyValue.make("b", -18)), mine.intersect(theirs, firstMinusSecond).toSortedList());
+    assertEquals(List.of(KeyValue.make("a", 1), KeyValue.make("b", 2), KeyValue.make("c", 30)),
+        mine.union(theirs).toSortedList());
+  }
+
+  /**
+   * A set that only implements what ISet requires, so everything else comes from the ISet defaults.
+   */
+  private static class DefaultsOnlySet<T extends Comparable<? super T>> implements ISet<T> {
+    private final ISet<T> contents;
+
+    DefaultsOnlySet(ISet<T> contents) {
+      this.contents = contents;
+    }
+
+    @Override
+    public ISet<T> add(T value) {
+      return new DefaultsOnlySet<>(contents.add(value));
+    }
+
+    @Override
+    public ISet<T> remove(T value) {
+      return new DefaultsOnlySet<>(contents.remove(value));
+    }
+
+    @Override
+    public Option<T> oget(T value) {
+      return contents.oget(value);
+    }
+
+    @Override
+    public boolean empty() {
+      return contents.empty();
+    }
+
+    @Override
+    public int size() {
+      return contents.size();
+    }
+
+    @Override
+    public <R extends Comparable<? super R>> ISet<R> map(Function<? super T, ? extends R> mapFunc) {
+      return new DefaultsOnlySet<>(contents.map(mapFunc));
+    }
+
+    @Override
+    public <R extends Comparable<? super R>> ISet<R> flatmap(Function<? super T, ? extends ISet<? extends R>> mapFunc) {
+      return new DefaultsOnlySet<>(contents.flatmap(mapFunc));
+    }
+
+    @Override
+    public ISet<T> greaterThan(T queryValue, boolean inclusive) {
+      return new DefaultsOnlySet<>(contents.greaterThan(queryValue, inclusive));
+    }
+
+    @Override
+    public ISet<T> lessThan(T queryKey, boolean inclusive) {
+      return new DefaultsOnlySet<>(contents.lessThan(queryKey, inclusive));
+    }
+
+    @Override
+    public IList<T> toSortedList() {
+      return contents.toSortedList();
+    }
+
+    @Override
+    public <Q extends Comparable<? super Q>> ISet<Q> makeEmptySameType() {
+      return new DefaultsOnlySet<>(TreapSet.<Q>makeEmpty());
+    }
+  }
+
+  @Test
+  public void testRankNthSlice() throws Exception {
+    final ISet<String> names = TreapSet.of("Eve", "Alice", "Dorothy", "Bob", "Charlie");
+
+    assertEquals(Option.some("Alice"), names.nth(0));
+    assertEquals(Option.some("Eve"), names.nth(4));
+    assertEquals(Option.none(), names.nth(5));
+    assertEquals(2, names.rank("Charlie"));
+    assertEquals(3, names.rank("Cthulhu"));
+    assertEquals(TreapSet.of("Bob", "Charlie"), names.sliceByIndex(1, 3));
+    assertTrue(names.sliceByIndex(3, 1).empty());
+    assertTrue(TreapSet.<String>makeEmpty().sliceByIndex(0, 3).empty());
+  }
+
+  @Test
+  public void testWithMutations() throws Exception {
+    final ISet<Integer> evens = TreapSet.fromList(LazyList.rangeInt(0, 1000, 2));
+    final ISet<Integer> changed = evens.withMutations(batch -> {
+      for (int i = 0; i <= 1000; i += 3) {
+        batch.add(i);
+      }
+      for (int i = 0; i <= 1000; i += 4) {
+        batch.remove(i);
+      }
+      assertTrue(batch.contains(6));
+      assertFalse(batch.contains(8));
+      assertTrue(batch.contains(9));
+    });
+
+    // the same changes, made one at a time
+    final ISet<Integer> expected = LazyList.rangeInt(0, 1000, 4).foldl(
+        LazyList.rangeInt(0, 1000, 3).foldl(evens, ISet::add), ISet::remove);
+    assertEquals(expected, changed);
+    assertEquals(TreapSet.fromList(LazyList.rangeInt(0, 1000, 2)), evens); // the original is untouched
+    assertTrue(changed instanceof TreapSet);
+
+    // nothing but additions, some of them already there, goes a different way inside the batch
+    final ISet<Integer> added = evens.withMutations(batch -> LazyList.rangeInt(1000, 0, -3).foreach(batch::add));
+    assertEquals(LazyList.rangeInt(1000, 0, -3).foldl(evens, ISet::add), added);
+    assertEquals(evens.size() + 334 - 167, added.size());
+    assertEquals(TreapSet.fromList(LazyList.rangeInt(0, 1000, 2)), evens);
+  }
+
+  @Test
+  public void testTransientSize() throws Exception {
+    final TransientSet<String> batch = TreapSet.of("Alice", "Bob").asTransient();
+    batch.add("Charlie").add("Alice").remove("Bob").remove("Dorothy");
+    assertEquals(2, batch.size());
+    batch.add("Bob").remove("Charlie").add("Charlie");
+    assertEquals(3, batch.size());
+    batch.remove("Alice").remove("Bob").remove("Charlie");
+    assertTrue(batch.empty());
+    assertEquals(Option.none(), batch.oget("Alice"));
+    assertTrue(batch.persistent().empty());
+
+    try {
+      batch.add("Eve");
+      fail("a transient set can't be changed after persistent()");
+    } catch (IllegalStateException expected) {
+      // this is what we want
+    }
+  }
+
+  @Test
+  public void testAddRemoveList() throws Exception {
+    final ISet<Integer> set = TreapSet.fromList(LazyList.rangeInt(0, 100));
+    assertEquals(TreapSet.fromList(LazyList.rangeInt(0, 150)), set.addList(LazyList.rangeInt(150, 50, -1)));
+    assertEquals(TreapSet.fromList(LazyList.rangeInt(0, 49)), set.removeList(LazyList.rangeInt(50, 200)));
+    assertSame(set, set.removeList(List.makeEmpty()));
+
+    // values from the list replace values already in the set, just as they would with add()
+    final ISet<KeyValue<String, Integer>> pairs = TreapSet.of(KeyValue.make("Alice", 1), KeyValue.make("Bob", 2));
+    assertEquals(Option.some(KeyValue.make("Alice", 10)),
+        pairs.addList(List.of(KeyValue.make("Alice", 10))).oget(KeyValue.makeNoValue("Alice")));
+  }
+
+  private static boolean isCanonical(ISet<?> set) {
+    return set == TreapSet.makeEmptyCanonical()
+        || (set instanceof TreapSet.NonEmptySet<?> && Treap.Helpers.isCanonical(((TreapSet.NonEmptySet<?>) set).getTreap()));
+  }
+
+  @Test
+  public void testCanonicalEquals() throws Exception {
+    final ISet<Integer> big = TreapSet.<Integer>makeEmptyCanonical().addList(LazyList.rangeInt(0, 9999));
+    final ISet<Integer> changed = big.remove(5000).add(5000); // a new path from the root, but the same set
+    assertTrue(isCanonical(changed));
+    assertEquals(big, changed);
+    assertEquals(big.hashCode(), changed.hashCode());
+    assertNotEquals(big, big.remove(17));
+    assertNotEquals(big, big.remove(17).add(-17));
+
+    // sets that are stored differently are still equal, with equal hashes
+    final ISet<Integer> random = TreapSet.fromList(LazyList.rangeInt(0, 9999));
+    final ISet<Integer> btree = BTreeSet.fromList(LazyList.rangeInt(0, 9999));
+    assertEquals(random, big);
+    assertEquals(big, random);
+    assertEquals(btree, big);
+    assertEquals(big.hashCode(), random.hashCode());
+    assertEquals(big.hashCode(), btree.hashCode());
+  }
+
+  @Test
+  public void testCanonicalStaysCanonical() throws Exception {
+    final ISet<Integer> evens = TreapSet.<Integer>makeEmptyCanonical().addList(LazyList.rangeInt(0, 998, 2));
+    final ISet<Integer> odds = TreapSet.fromList(LazyList.rangeInt(1, 999, 2));
+    final ISet<Integer> all = evens.union(odds);
+    assertTrue(isCanonical(all));
+    assertTrue(isCanonical(all.except(odds)));
+    assertTrue(isCanonical(all.intersect(BTreeSet.fromList(LazyList.rangeInt(0, 99)))));
+    assertTrue(isCanonical(TreapSet.<Integer>makeEmptyCanonical().union(odds)));
+    assertFalse(isCanonical(odds.union(evens)));
+
+    assertTrue(isCanonical(evens.greaterThan(5000, true)));
+    assertTrue(isCanonical(evens.remove(0).remove(2).lessThan(2, true)));
+    assertTrue(isCanonical(evens.sliceByIndex(10, 5)));
+    assertTrue(isCanonical(evens.withMutations(batch -> batch.add(-1).remove(4))));
+    assertTrue(isCanonical(TreapSet.<Integer>makeEmptyCanonical().withMutations(batch -> {
+      for (int i = 998; i >= 0; i -= 2) {
+        batch.add(i).add(i / 2);
+      }
+    })));
+    assertTrue(isCanonical(evens.map(x -> x + 1)));
+  }
+
+  @Test
+  public void testRange() throws Exception {
+    final ISet<String> set = TreapSet.of("Alice", "Bob", "Charlie", "Dorothy", "Eve");
+    assertEquals(List.of("Bob", "Charlie", "Dorothy"), set.range("B", true, "E", false));
+    assertEquals(List.of("Charlie"), set.range("Bob", false, "Dorothy", false));
+    assertEquals(List.of("Bob", "Charlie", "Dorothy"), set.range("Bob", true, "Dorothy", true));
+    assertTrue(set.range("F", true, "Z", true).empty());
+    assertTrue(TreapSet.<String>makeEmpty().range("A", true, "Z", true).empty());
+
+    // a huge range from a huge set costs nothing until you look at it
+    final ISet<Integer> big = TreapSet.fromList(LazyList.rangeInt(0, 99999));
+    assertEquals(List.rangeInt(5000, 5009), big.range(5000, true, 90000, true).limit(10));
+  }
+
+  @Test
+  public void testNavigation() throws Exception {
+    final ISet<String> set = TreapSet.of("Alice", "Bob", "Charlie", "Dorothy", "Eve");
+    assertEquals(Option.some("Alice"), set.first());
+    assertEquals(Option.some("Eve"), set.last());
+    assertEquals(Option.some("Bob"), set.floor("Bz"));
+    assertEquals(Option.some("Bob"), set.floor("Bob"));
+    assertEquals(Option.some("Alice"), set.lower("Bob"));
+    assertEquals(Option.some("Charlie"), set.ceiling("Bz"));
+    assertEquals(Option.some("Charlie"), set.higher("Bob"));
+    assertEquals(Option.none(), set.lower("Alice"));
+    assertEquals(Option.none(), set.higher("Eve"));
+    assertEquals(Option.none(), TreapSet.<String>makeEmpty().first());
+
+    assertEquals(new Pair<>("Alice", set.remove("Alice")), set.pollFirst().get());
+    assertEquals(new Pair<>("Eve", set.remove("Eve")), set.pollLast().get());
+    assertEquals(Option.none(), TreapSet.<String>makeEmpty().pollLast());
+
+    // a canonical treap walks the same way
+    final ISet<Integer> evens = TreapSet.fromList(LazyList.rangeInt(0, 100, 2));
+    final ISet<Integer> evensCanonical = TreapSet.<Integer>makeEmptyCanonical().addList(LazyList.rangeInt(0, 100, 2));
+    for (int i = -2; i < 103; i++) {
+      assertEquals(evens.floor(i), evensCanonical.floor(i));
+      assertEquals(evens.higher(i), evensCanonical.higher(i));
+    }
+    assertEquals(Option.some(42), evensCanonical.floor(43));
+    assertEquals(Option.some(44), evensCanonical.higher(42));
+  }
+}
@@ -10,8 +10,22 @@
 
 package edu.rice.tree;
 
+import edu.rice.list.IList;
+import edu.rice.list.KeyValue;
+import edu.rice.list.LazyList;
+import edu.rice.list.List;
+import edu.rice.util.Option;
 import org.junit.Test;
 
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
 public class TreapTest {
   @Test
   public void testInsertSimple() throws Exception {
@@ -43,6 +57,41 @@ public class TreapTest {
     TreeSuite.testInorder(Treap.makeEmpty());
   }
 
+  @Test
+  public void testStream() throws Exception {
+    TreeSuite.testStream(Treap.makeEmpty());
+  }
+
+  @Test
+  public void testSizedSpliterator() throws Exception {
+    final ITree<Integer> treap = Treap.<Integer>makeEmpty().insertList(LazyList.rangeInt(0, 99999));
+    final Spliterator<Integer> suffix = treap.spliterator();
+    assertTrue(suffix.hasCharacteristics(Spliterator.SIZED));
+    assertTrue(suffix.hasCharacteristics(Spliterator.SUBSIZED));
+    assertEquals(100000, suffix.getExactSizeIfKnown());
+
+    // the two halves know their own sizes, and they add up
+    final Spliterator<Integer> prefix = suffix.trySplit();
+    assertEquals(100000, prefix.getExactSizeIfKnown() + suffix.getExactSizeIfKnown());
+    assertEquals(prefix.getExactSizeIfKnown(), StreamSupport.stream(prefix, false).count());
+    assertTrue(suffix.tryAdvance(x -> { }));
+    assertEquals(suffix.getExactSizeIfKnown(), StreamSupport.stream(suffix, false).count());
+
+    // splitting stops well short of one piece per value
+    final AtomicInteger splits = new AtomicInteger();
+    countSplits(treap.spliterator(), splits);
+    assertTrue(splits.get() < 100000 / 16);
+  }
+
+  private static void countSplits(Spliterator<Integer> spliterator, AtomicInteger splits) {
+    final Spliterator<Integer> prefix = spliterator.trySplit();
+    if (prefix != null) {
+      splits.incrementAndGet();
+      countSplits(prefix, splits);
+      countSplits(spliterator, splits);
+    }
+  }
+
   @Test
   public void testToList() throws Exception {
     TreeSuite.testToList(Treap.makeEmpty());
@@ -82,6 +131,11 @@ public class TreapTest {
     TreeSuite.testRemoveMin(Treap.makeEmpty());
   }
 
+  @Test
+  public void testNavigation() throws Exception {
+    TreeSuite.testNavigation(Treap.makeEmpty());
+  }
+
   @Test
   public void testMaxDepth() throws Exception {
     TreeSuite.testMaxDepth(Treap.makeEmpty());
@@ -95,8 +149,178 @@ public class TreapTest {
     // Note to the student: if this test failed, then your treap isn't doing the probabilistic rebalancing.
   }
 
+  @Test
+  public void testFromList() throws Exception {
+    final int size = 10000;
+    final IList<Integer> sorted = List.rangeInt(0, size - 1);
+    final IList<Integer> shuffled = sorted.map(x -> (x * 7919) % size); // 7919 is prime, so this is a permutation
+
+    for (IList<Integer> input : List.of(sorted, sorted.reverse(), shuffled, List.<Integer>makeEmpty())) {
+      ITree<Integer> treap = Treap.fromList(input);
+      assertTrue(treap.valid());
+      assertEquals(input.length(), treap.size());
+      assertEquals(input.sort((a, b) -> a < b), treap.toList());
+    }
+
+    // a bulk-built treap should be balanced just as well as one built with insert
+    assertTrue(Treap.fromList(sorted).maxDepth() <= 60);
+
+    // and it's still a perfectly good treap afterward
+    ITree<Integer> treap = Treap.fromList(sorted).insert(-1).remove(500);
+    assertTrue(treap.valid());
+    assertEquals(size, treap.size());
+  }
+
+  @Test
+  public void testFromListDuplicates() throws Exception {
+    // as with inserting them one at a time, the later of two equal values wins
+    ITree<KeyValue<String, Integer>> treap = Treap.fromList(List.of(
+        KeyValue.make("Bob", 1), KeyValue.make("Alice", 2), KeyValue.make("Bob", 3), KeyValue.make("Alice", 4)));
+    assertTrue(treap.valid());
+    assertEquals(List.of(KeyValue.make("Alice", 4), KeyValue.make("Bob", 3)), treap.toList());
+
+    // or they can be merged, from left to right
+    ITree<KeyValue<String, Integer>> merged = Treap.fromList(List.of(
+        KeyValue.make("Alice", 1), KeyValue.make("Alice", 2), KeyValue.make("Bob", 3), KeyValue.make("Alice", 4)),
+        (a, b) -> KeyValue.make(a.getKey(), a.getValue() * 10 + b.getValue()));
+    assertEquals(List.of(KeyValue.make("Alice", 124), KeyValue.make("Bob", 3)), merged.toList());
+  }
+
+  @Test
+  public void testSplitJoin() throws Exception {
+    final ITree<Integer> treap = Treap.fromList(List.rangeInt(0, 999));
+
+    Treap.Helpers.Split<Integer> split = Treap.Helpers.split(treap, 500);
+    assertTrue(split.less.valid());
+    assertTrue(split.greater.valid());
+    assertEquals(List.rangeInt(0, 499), split.less.toList());
+    assertEquals(Option.some(500), split.equal);
+    assertEquals(List.rangeInt(501, 999), split.greater.toList());
+
+    ITree<Integer> joined = Treap.Helpers.join(split.less, split.greater);
+    assertTrue(joined.valid());
+    assertEquals(treap.remove(500).toList(), joined.toList());
+
+    Treap.Helpers.Split<Integer> missing = Treap.Helpers.split(treap, 5000);
+    assertEquals(Option.none(), missing.equal);
+    assertSame(treap, missing.less); // nothing's greater, so the whole treap is shared
+  }
+
+  @Test
+  public void testSetAlgebraSharing() throws Exception {
+    // when a set operation doesn't change anything, we should get back the very same treap, not a copy
+    final ITree<Integer> big = Treap.fromList(List.rangeInt(0, 9999));
+    final ITree<Integer> absent = Treap.of(-1, -2, 10000);
+
+    assertSame(big, Treap.Helpers.difference(big, absent, 0));
+    assertSame(big, Treap.Helpers.intersect(big, big, (a, b) -> a, 0));
+    assertSame(big, Treap.Helpers.union(big, big, (a, b) -> a, 0));
+
+    final ITree<Integer> unionResult = Treap.Helpers.union(big, absent, (a, b) -> a, 0);
+    assertTrue(unionResult.valid());
+    assertEquals(10003, unionResult.size());
+  }
+
+  @Test
+  public void testRankSelect() throws Exception {
+    // even numbers only, so we can also ask about the odd ones that are missing
+    ITree<Integer> treap = Treap.fromList(List.rangeInt(0, 1998, 2));
+    treap = treap.insert(5000).remove(5000).remove(1000).insert(1000); // shake things up a bit
+    assertTrue(treap.valid());
+    assertEquals(1000, treap.size());
+
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(Option.some(2 * i), treap.select(i));
+      assertEquals(i, treap.rank(2 * i));
+      assertEquals(i + 1, treap.rank(2 * i + 1));
+    }
+    assertEquals(0, treap.rank(-1));
+    assertEquals(Option.none(), treap.select(-1));
+    assertEquals(Option.none(), treap.select(1000));
+    assertEquals(Option.none(), Treap.<Integer>makeEmpty().select(0));
+    assertEquals(0, Treap.<Integer>makeEmpty().rank(17));
+  }
+
+  @Test
+  public void testSliceByIndex() throws Exception {
+    final ITree<Integer> treap = Treap.fromList(List.rangeInt(0, 999));
+
+    final ITree<Integer> slice = treap.sliceByIndex(100, 200);
+    assertTrue(slice.valid());
+    assertEquals(100, slice.size());
+    assertEquals(List.rangeInt(100, 199), slice.toList());
+
+    // ranges hanging off either end get clipped
+    assertEquals(List.rangeInt(0, 9), treap.sliceByIndex(-5, 10).toList());
+    assertEquals(List.rangeInt(990, 999), treap.sliceByIndex(990, 2000).toList());
+    assertTrue(treap.sliceByIndex(500, 500).empty());
+    assertTrue(treap.sliceByIndex(2000, 3000).empty());
+    assertTrue(Treap.<Integer>makeEmpty().sliceByIndex(0, 10).empty());
+  }
+
+  @Test
+  public void testCanonicalShape() throws Exception {
+    // the same values, arriving in different orders and by different routes, make exactly the same treap
+    final IList<Integer> values = List.rangeInt(0, 999).map(x -> x * 7919 % 1000);
+    final ITree<Integer> inserted = values.foldl(Treap.makeEmptyCanonical(), ITree::insert);
+    final ITree<Integer> built = Treap.<Integer>makeEmptyCanonical().insertList(values);
+    final ITree<Integer> churned = List.rangeInt(1000, 1499).foldl(
+        List.rangeInt(1000, 1499).foldl(inserted, ITree::insert), ITree::remove);
+
+    assertTrue(inserted.valid());
+    assertTrue(Treap.Helpers.isCanonical(inserted));
+    assertEquals(inserted, built);
+    assertEquals(built, churned);
+    assertEquals(built, Treap.Helpers.union(
+        built.greaterThan(500, true), built.lessThan(500, false), (a, b) -> a, 0));
+    assertEquals(Treap.<Integer>makeEmptyCanonical().insertList(List.rangeInt(200, 299)),
+        built.sliceByIndex(200, 300));
+
+    // random treaps almost never line up like that, but their hashes don't depend on the shape
+    assertFalse(Treap.Helpers.isCanonical(Treap.fromList(values)));
+    assertEquals(499500, built.hashCode());
+    assertEquals(built.hashCode(), Treap.fromList(values).hashCode());
+    assertEquals(built.hashCode(), Tree.<Integer>makeEmpty().insertList(values).hashCode());
+  }
+
+  @Test
+  public void testCanonicalPriorityTies() throws Exception {
+    // these strings all have the same hashCode(), and so the same priority, so the smaller one has to go on top
+    final IList<String> collisions = List.of("BBBB", "AaAa", "BBAa", "AaBB");
+    assertEquals(1, collisions.map(String::hashCode).foldl(TreapSet.<Integer>makeEmpty(), ISet::add).size());
+
+    final ITree<String> forward = collisions.foldl(Treap.makeEmptyCanonical(), ITree::insert);
+    final ITree<String> backward = collisions.reverse().foldl(Treap.makeEmptyCanonical(), ITree::insert);
+    assertTrue(forward.valid());
+    assertEquals(forward, backward);
+    assertEquals("AaAa", forward.getValue());
+    assertEquals(backward, Treap.<String>makeEmptyCanonical().insertList(collisions));
+    assertEquals(forward.remove("AaAa"), backward.remove("AaAa"));
+  }
+
   @Test
   public void testPerformance() throws Exception {
     TreeSuite.testPerformance("treap", Treap.makeEmpty());
   }
+
+  @Test
+  public void testRangeCursor() throws Exception {
+    final ITree<Integer> treap = Treap.fromList(List.rangeInt(0, 998, 2));
+    assertEquals(List.rangeInt(100, 200, 2), treap.range(100, true, 200, true));
+    assertEquals(List.rangeInt(102, 198, 2), treap.range(100, false, 200, false));
+    assertEquals(List.rangeInt(100, 200, 2), treap.range(99, false, 201, false));
+    assertEquals(List.rangeInt(0, 998, 2), treap.range(-1000, true, 1000, true));
+    assertTrue(treap.range(200, true, 100, true).empty());
+    assertTrue(treap.range(101, true, 101, true).empty());
+    assertTrue(treap.range(100, false, 100, true).empty());
+    assertEquals(List.of(100), treap.range(100, true, 100, true));
+    assertTrue(Treap.<Integer>makeEmpty().range(0, true, 10, true).empty());
+
+    // the same thing you'd get by trimming the tree, but without making one
+    for (int from = -3; from < 1003; from += 37) {
+      for (int to = from - 5; to < 1003; to += 91) {
+        assertEquals(treap.greaterThan(from, false).lessThan(to, true).toList(), treap.range(from, false, to, true));
+      }
+    }
+  }
 }
@@ -10,12 +10,15 @@
 
 package edu.rice.tree;
 
+import edu.rice.util.Option;
 import edu.rice.util.Pair;
 import edu.rice.list.IList;
 import edu.rice.list.LazyList;
 import edu.rice.list.List;
 
 import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 
 import static edu.rice.util.Performance.nanoBenchmark;
 import static edu.rice.util.Performance.nanoBenchmarkVal;
@@ -136,6 +139,45 @@ class TreeSuite {
     assertEquals("AliceBobCharlieDorothyEve", result.toString());
   }
 
+  static void testStream(ITree<Integer> emptyTree) {
+    // random values, so even an unbalanced tree stays reasonably shallow
+    final Random random = new Random(215);
+    final IList<Integer> values = LazyList.generate(() -> random.nextInt(100000)).limit(10000).force();
+    final ITree<Integer> tree = emptyTree.insertList(values);
+    final IList<Integer> expected = tree.toList();
+
+    assertEquals(0, emptyTree.stream().count());
+    assertEquals(expected, List.fromList(tree.stream().collect(Collectors.toList())));
+    assertEquals(expected, List.fromIterator(tree.iterator()));
+
+    // the parallel stream has to split the work, and still come out in-order
+    assertEquals(expected, List.fromList(tree.parallelStream().collect(Collectors.toList())));
+    assertEquals((long) expected.foldl(0L, (sum, x) -> sum + x), tree.parallelStream().mapToLong(x -> x).sum());
+
+    // splitting peels off a prefix, leaving the rest behind
+    final Spliterator<Integer> suffix = tree.spliterator();
+    final Spliterator<Integer> prefix = suffix.trySplit();
+    assertNotNull(prefix);
+    final java.util.List<Integer> splitResult = new java.util.ArrayList<>();
+    prefix.forEachRemaining(splitResult::add);
+    assertTrue(splitResult.size() > 0);
+    suffix.forEachRemaining(splitResult::add);
+    assertEquals(expected, List.fromList(splitResult));
+
+    // and, once we've advanced partway through, splitting still preserves the order
+    final Spliterator<Integer> partway = tree.spliterator();
+    final java.util.List<Integer> partwayResult = new java.util.ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      assertTrue(partway.tryAdvance(partwayResult::add));
+    }
+    final Spliterator<Integer> partwayPrefix = partway.trySplit();
+    if (partwayPrefix != null) {
+      partwayPrefix.forEachRemaining(partwayResult::add);
+    }
+    partway.forEachRemaining(partwayResult::add);
+    assertEquals(expected, List.fromList(partwayResult));
+  }
+
   static void testToList(ITree<String> emptyTree) {
     final IList<String> testVectorList1 = List.of("Charlie", "Eve", "Bob", "Alice", "Dorothy");
     final IList<String> testVectorList2 = List.of("Alice", "Bob", "Charlie", "Dorothy", "Eve");
@@ -303,6 +345,42 @@ class TreeSuite {
     assertFalse(resultTree.removeMin().isSome());
   }
 
+  static void testNavigation(ITree<Integer> emptyTree) {
+    assertFalse(emptyTree.first().isSome());
+    assertFalse(emptyTree.last().isSome());
+    assertFalse(emptyTree.floor(3).isSome());
+    assertFalse(emptyTree.ceiling(3).isSome());
+    assertFalse(emptyTree.pollFirst().isSome());
+    assertFalse(emptyTree.pollLast().isSome());
+
+    // every answer has to agree with java.util.TreeSet, which already knows how to do all of this
+    Random random = new Random(215);
+    java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+    ITree<Integer> tree = emptyTree;
+    for (int i = 0; i < 200; i++) {
+      int value = random.nextInt(1000) * 2; // all even, so the odd numbers are never there
+      expected.add(value);
+      tree = tree.insert(value);
+    }
+
+    assertEquals(expected.first(), tree.first().get());
+    assertEquals(expected.last(), tree.last().get());
+    for (int query = -3; query < 2003; query++) {
+      assertEquals(Option.ofNullable(expected.floor(query)), tree.floor(query));
+      assertEquals(Option.ofNullable(expected.lower(query)), tree.lower(query));
+      assertEquals(Option.ofNullable(expected.ceiling(query)), tree.ceiling(query));
+      assertEquals(Option.ofNullable(expected.higher(query)), tree.higher(query));
+    }
+
+    Pair<Integer, ITree<Integer>> first = tree.pollFirst().get();
+    assertEquals(expected.pollFirst(), first.a);
+    assertEquals(List.fromIterator(expected.iterator()), first.b.toList());
+    Pair<Integer, ITree<Integer>> last = first.b.pollLast().get();
+    assertEquals(expected.pollLast(), last.a);
+    assertEquals(List.fromIterator(expected.iterator()), last.b.toList());
+    assertTrue(last.b.valid());
+  }
+
   static void testMaxDepth(ITree<String> emptyTree) {
     assertEquals(0, emptyTree.maxDepth());
     ITree<String> oneElem = emptyTree.insert("Hello");
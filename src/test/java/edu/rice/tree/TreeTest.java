@@ -46,6 +46,11 @@ public class TreeTest {
     TreeSuite.testInorder(Tree.makeEmpty());
   }
 
+  @Test
+  public void testStream() throws Exception {
+    TreeSuite.testStream(Tree.makeEmpty());
+  }
+
   @Test
   public void testToList() throws Exception {
     TreeSuite.testToList(Tree.makeEmpty());
@@ -81,6 +86,11 @@ public class TreeTest {
     TreeSuite.testRemoveMin(Tree.makeEmpty());
   }
 
+  @Test
+  public void testNavigation() throws Exception {
+    TreeSuite.testNavigation(Tree.makeEmpty());
+  }
+
   @Test
   public void testMaxDepth() throws Exception {
     TreeSuite.testMaxDepth(Tree.makeEmpty());
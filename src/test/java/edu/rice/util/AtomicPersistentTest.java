@@ -0,0 +1,105 @@
+/*
+ * This code is part of Rice Comp215 and is made available for your use
+ * as a student in Comp215. You are specifically forbidden from posting
+ * this code online (e.g., on Github) or otherwise making it, or any derivative
+ * of it, available to future Comp215 students. Violations of this rule are
+ * considered Honor Code violations and will result in your being reported to
+ * the Honor Council, even after you've completed the class, and will result
+ * in retroactive reductions to your grade.
+ */
+
+package edu.rice.util;
+
+import edu.rice.list.IList;
+import edu.rice.list.List;
+import edu.rice.tree.IMap;
+import edu.rice.tree.TreapMap;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.junit.Assert.*;
+
+public class AtomicPersistentTest {
+  private static final int NUM_THREADS = 8;
+  private static final int UPDATES_PER_THREAD = 2000;
+
+  // runs the body in several threads at once and waits for all of them to finish
+  private static void runThreads(int numThreads, Runnable body) throws Exception {
+    java.util.List<Thread> threads = new ArrayList<>(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      threads.add(new Thread(body));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+  }
+
+  @Test
+  public void testBasics() throws Exception {
+    AtomicPersistent<IList<String>> cell = new AtomicPersistent<>(List.makeEmpty());
+    assertTrue(cell.get().empty());
+
+    cell.update(list -> list.add("Alice"));
+    assertEquals(List.of("Bob", "Alice"), cell.updateAndGet(list -> list.add("Bob")));
+    assertEquals(List.of("Bob", "Alice"), cell.getAndUpdate(list -> list.add("Charlie")));
+    assertEquals(List.of("Charlie", "Bob", "Alice"), cell.get());
+
+    cell.set(List.of("Dorothy"));
+    assertEquals(List.of("Dorothy"), cell.get());
+
+    int length = cell.modify(list -> new Pair<>(list.add("Eve"), list.length()));
+    assertEquals(1, length);
+    assertEquals(List.of("Eve", "Dorothy"), cell.get());
+
+    assertEquals(5, cell.commitCount());
+    assertEquals(0, cell.retryCount());
+    cell.resetCounters();
+    assertEquals(0, cell.commitCount());
+  }
+
+  @Test
+  public void testUpdateAll() throws Exception {
+    AtomicPersistent<IList<Integer>> cell = new AtomicPersistent<>(List.makeEmpty());
+    IList<UnaryOperator<IList<Integer>>> updates = List.of(list -> list.add(1), list -> list.add(2), IList::tail);
+
+    assertEquals(List.of(1), cell.updateAll(updates));
+    assertEquals(1, cell.commitCount());
+  }
+
+  @Test
+  public void testConcurrentCounter() throws Exception {
+    AtomicPersistent<Integer> counter = new AtomicPersistent<>(0);
+    runThreads(NUM_THREADS, () -> {
+      for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+        counter.update(x -> x + 1);
+      }
+    });
+
+    // no lost updates, and every update was committed exactly once, no matter how many retries it took
+    assertEquals(NUM_THREADS * UPDATES_PER_THREAD, (int) counter.get());
+    assertEquals(NUM_THREADS * UPDATES_PER_THREAD, counter.commitCount());
+  }
+
+  @Test
+  public void testConcurrentMap() throws Exception {
+    AtomicPersistent<IMap<Integer, Integer>> cell = new AtomicPersistent<>(TreapMap.makeEmpty());
+    AtomicInteger nextThread = new AtomicInteger(0);
+    runThreads(NUM_THREADS, () -> {
+      int thread = nextThread.getAndIncrement();
+      for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+        int key = thread * UPDATES_PER_THREAD + i;
+        cell.update(map -> map.add(key, -key));
+      }
+    });
+
+    IMap<Integer, Integer> map = cell.get();
+    assertEquals(NUM_THREADS * UPDATES_PER_THREAD, map.size());
+    for (int key = 0; key < NUM_THREADS * UPDATES_PER_THREAD; key++) {
+      assertEquals(Option.some(-key), map.oget(key));
+    }
+  }
+}
@@ -42,6 +42,8 @@ public class FreqCountTest {
     assertFalse("Empty strings should not appear in frequency counts!", topBacon.map(KeyValue::getKey).contains(""));
     assertFalse("Empty strings should not appear in frequency counts!", topConstitution.map(KeyValue::getKey).contains(""));
 
+    // There are a bunch of words that appear six times. The sort is stable, and the map gives us its
+    // entries in alphabetical order, so ties come out alphabetically.
     assertEquals(
         List.of(
             KeyValue.make("pork", 18),
@@ -51,9 +53,9 @@ public class FreqCountTest {
             KeyValue.make("loin", 8),
             KeyValue.make("alcatra", 7),
             KeyValue.make("corned", 7),
+            KeyValue.make("bacon", 6),
             KeyValue.make("belly", 6),
-            KeyValue.make("swine", 6),
-            KeyValue.make("steak", 6)),
+            KeyValue.make("cupim", 6)),
         topBacon.limit(10));
 
     assertEquals(